@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_tickets_user_id ON tickets (user_id, id);
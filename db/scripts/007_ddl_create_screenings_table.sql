@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS screenings (
+  id SERIAL PRIMARY KEY,
+  show_id INT NOT NULL REFERENCES shows(id),
+  hall INT NOT NULL,
+  start_time TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_screenings_start_time ON screenings (start_time);
+
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS screening_id INT REFERENCES screenings(id);
+
+COMMENT ON TABLE screenings IS 'Показы сеансов';
+COMMENT ON COLUMN screenings.id IS 'Идентификатор показа';
+COMMENT ON COLUMN screenings.show_id IS 'Идентификатор сеанса';
+COMMENT ON COLUMN screenings.hall IS 'Номер кинозала';
+COMMENT ON COLUMN screenings.start_time IS 'Время начала показа';
+COMMENT ON COLUMN tickets.screening_id IS 'Идентификатор показа';
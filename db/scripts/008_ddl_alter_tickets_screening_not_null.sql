@@ -0,0 +1,20 @@
+INSERT INTO screenings (show_id, hall, start_time)
+SELECT DISTINCT show_id, 1, TIMESTAMP '1970-01-01 00:00:00' FROM tickets WHERE screening_id IS NULL;
+
+UPDATE tickets SET screening_id = (
+    SELECT MIN(s.id) FROM screenings s
+    WHERE s.show_id = tickets.show_id AND s.start_time = TIMESTAMP '1970-01-01 00:00:00'
+) WHERE screening_id IS NULL;
+
+ALTER TABLE tickets ALTER COLUMN screening_id SET NOT NULL;
+
+ALTER TABLE tickets DROP CONSTRAINT IF EXISTS uc_ticket;
+
+ALTER TABLE tickets ADD CONSTRAINT uc_ticket UNIQUE (screening_id, pos_row, cell);
+
+ALTER TABLE screenings ADD CONSTRAINT uc_screening_show UNIQUE (id, show_id);
+
+ALTER TABLE tickets ADD CONSTRAINT fk_ticket_screening_show
+    FOREIGN KEY (screening_id, show_id) REFERENCES screenings (id, show_id);
+
+COMMENT ON COLUMN tickets.screening_id IS 'Идентификатор показа, билеты, проданные до появления показов, относятся к архивному показу сеанса с временем начала 01.01.1970';
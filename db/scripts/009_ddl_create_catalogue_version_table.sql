@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS catalogue_version (
+  id INT PRIMARY KEY,
+  version BIGINT NOT NULL,
+  modified_at BIGINT NOT NULL
+);
+
+INSERT INTO catalogue_version (id, version, modified_at) VALUES (1, 1, 0);
+
+COMMENT ON TABLE catalogue_version IS 'Версия каталога сеансов, общая для всех узлов приложения';
+COMMENT ON COLUMN catalogue_version.id IS 'Идентификатор строки, таблица содержит одну строку';
+COMMENT ON COLUMN catalogue_version.version IS 'Номер версии каталога, увеличивается в транзакции изменения сеансов и показов';
+COMMENT ON COLUMN catalogue_version.modified_at IS 'Время последнего изменения каталога в миллисекундах';
@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS tickets (
+    id SERIAL PRIMARY KEY,
+    show_id INT NOT NULL,
+    pos_row INT NOT NULL,
+    cell INT NOT NULL,
+    user_id INT NOT NULL,
+    screening_id INT NOT NULL,
+    CONSTRAINT uc_ticket UNIQUE (screening_id, pos_row, cell)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tickets_user_id ON tickets (user_id, id);
+
+COMMENT ON TABLE tickets IS 'Билеты шарда, сеансы, показы и пользователи хранятся в основной базе данных';
+COMMENT ON COLUMN tickets.id IS 'Идентификатор билета в шарде';
+COMMENT ON COLUMN tickets.show_id IS 'Идентификатор сеанса';
+COMMENT ON COLUMN tickets.pos_row IS 'Номер ряда';
+COMMENT ON COLUMN tickets.cell IS 'Номер места';
+COMMENT ON COLUMN tickets.user_id IS 'Идентификатор пользователя';
+COMMENT ON COLUMN tickets.screening_id IS 'Идентификатор показа';
@@ -2,6 +2,10 @@ package ru.job4j.cinema;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import ru.job4j.cinema.config.StartupTiming;
 
 /**
  * Основной класс для запуска приложения
@@ -9,16 +13,33 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @author Alexander Emelyanov
  * @version 1.0
  */
+@EnableScheduling
 @SpringBootApplication
 public class CinemaApplication {
 
     /**
-     * Выполняет запуск приложения
+     * Максимальное количество записываемых шагов запуска Spring
+     */
+    private static final int STARTUP_STEPS = 4096;
+
+    /**
+     * Выполняет запуск приложения с замером времени этапов запуска.
+     * При параметре startup.exit-after-start=true приложение завершается
+     * сразу после запуска: так при сборке профилем fast-start
+     * записывается архив классов AppCDS.
      *
      * @param args аргументы командной строки
      */
     public static void main(String[] args) {
-        SpringApplication.run(CinemaApplication.class, args);
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(STARTUP_STEPS);
+        SpringApplication application = new SpringApplication(CinemaApplication.class);
+        application.setApplicationStartup(startup);
+        application.addListeners(new StartupTiming(startup));
+        ConfigurableApplicationContext context = application.run(args);
+        if (context.getEnvironment().getProperty(
+                "startup.exit-after-start", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
         System.out.println("Go to http://localhost:8080");
     }
 }
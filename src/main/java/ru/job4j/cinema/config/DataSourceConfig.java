@@ -3,13 +3,23 @@ package ru.job4j.cinema.config;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.job4j.cinema.datasource.ReplicaRoutingDataSource;
+import ru.job4j.cinema.repository.ShardedTicketRepository;
 
+import javax.sql.DataSource;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
- * Конфигурация источника данных
+ * Конфигурация источника данных. Реплики для чтения задаются в файле
+ * db.properties параметром jdbc.replica.urls (адреса через запятую),
+ * при отсутствии параметра чтение выполняется с основной базы данных.
+ * Дополнительные шарды билетов задаются параметром jdbc.ticket-shards.urls,
+ * шардом 0 является основная база данных.
  *
  * @author Alexander Emelyanov
  * @version 1.0
@@ -17,10 +27,22 @@ import java.util.Properties;
 @Configuration
 public class DataSourceConfig {
 
+    /**
+     * SQL запрос отставания реплики PostgreSQL в миллисекундах: 0, если
+     * реплика применила все полученные изменения
+     */
+    private static final String POSTGRES_LAG_QUERY = """
+            SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+            ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END
+            """;
+
     /**
      * Выполняется создание объекта, содержащего параметры
      * подключения приложения к базе данных приложения,
-     * параметры считываются из файла /resources/db.properties
+     * параметры считываются из файла /resources/db.properties.
+     * Системные свойства JVM с префиксом jdbc. заменяют параметры файла:
+     * так при сборке профилем fast-start архив классов AppCDS записывается
+     * со встроенной базой данных H2 вместо рабочей базы данных.
      *
      * @return Properties - объект содержащий конфигурацию подключения к базе данных
      */
@@ -36,6 +58,11 @@ public class DataSourceConfig {
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("jdbc.")) {
+                cfg.setProperty(name, System.getProperty(name));
+            }
+        }
         try {
             Class.forName(cfg.getProperty("jdbc.driver"));
         } catch (Exception e) {
@@ -53,14 +80,89 @@ public class DataSourceConfig {
     @Bean
     public BasicDataSource loadPool() {
         Properties cfg = loadDbProperties();
+        return createPool(cfg, cfg.getProperty("jdbc.url"));
+    }
+
+    /**
+     * Выполняется создание Bean источника данных приложения, выдающего
+     * соединения для записи основной базой данных, а соединения для чтения -
+     * репликами из параметра jdbc.replica.urls.
+     *
+     * @param primary pool соединений основной базы данных
+     * @return ReplicaRoutingDataSource - источник данных с маршрутизацией чтения
+     */
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource routingDataSource(BasicDataSource primary) {
+        Properties cfg = loadDbProperties();
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : cfg.getProperty("jdbc.replica.urls", "").split(",")) {
+            if (!url.isBlank()) {
+                replicas.add(createPool(cfg, url.trim()));
+            }
+        }
+        return new ReplicaRoutingDataSource(primary, replicas,
+                cfg.getProperty("jdbc.replica.lag-query", POSTGRES_LAG_QUERY),
+                Long.parseLong(cfg.getProperty("jdbc.replica.max-lag-ms", "1000")),
+                Long.parseLong(cfg.getProperty("jdbc.replica.sticky-ms", "5000")));
+    }
+
+    /**
+     * Выполняется создание Bean хранилища билетов, распределенных по основной
+     * базе данных и шардам из параметра jdbc.ticket-shards.urls. Количество
+     * потоков запросов к шардам задается параметром jdbc.ticket-shards.threads.
+     *
+     * @param dataSource источник данных приложения
+     * @return ShardedTicketRepository - хранилище билетов
+     */
+    @Bean
+    public ShardedTicketRepository ticketRepository(DataSource dataSource) {
+        Properties cfg = loadDbProperties();
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(dataSource);
+        for (String url : cfg.getProperty("jdbc.ticket-shards.urls", "").split(",")) {
+            if (!url.isBlank()) {
+                shards.add(createPool(cfg, url.trim()));
+            }
+        }
+        return new ShardedTicketRepository(shards,
+                Integer.parseInt(cfg.getProperty("jdbc.ticket-shards.threads", "16")));
+    }
+
+    /**
+     * Вспомогательный метод создает pool соединений к базе данных по адресу.
+     * Для каждого соединения кэшируется не более jdbc.statement-cache.size
+     * подготовленных запросов, при заполнении вытесняются давно
+     * не использованные. Доступ к исходным соединениям, необходимый
+     * для статистики кэша (StatementCacheMetrics), включается параметром
+     * jdbc.statement-cache.metrics. Параметры драйвера задаются параметром
+     * jdbc.connection-properties в виде имя=значение;имя=значение.
+     * При запуске pool открывает minIdle соединений сразу, а не по мере
+     * обращений (см. StartupWarmUp).
+     *
+     * @param cfg параметры подключения к базе данных
+     * @param url адрес базы данных
+     * @return BasicDataSource - pool соединений
+     */
+    private static BasicDataSource createPool(Properties cfg, String url) {
         BasicDataSource pool = new BasicDataSource();
         pool.setDriverClassName(cfg.getProperty("jdbc.driver"));
-        pool.setUrl(cfg.getProperty("jdbc.url"));
+        pool.setUrl(url);
         pool.setUsername(cfg.getProperty("jdbc.username"));
         pool.setPassword(cfg.getProperty("jdbc.password"));
         pool.setMinIdle(5);
+        pool.setInitialSize(5);
         pool.setMaxIdle(10);
-        pool.setMaxOpenPreparedStatements(100);
+        int statementCacheSize = Integer.parseInt(
+                cfg.getProperty("jdbc.statement-cache.size", "100"));
+        pool.setPoolPreparedStatements(statementCacheSize > 0);
+        pool.setMaxOpenPreparedStatements(statementCacheSize);
+        pool.setAccessToUnderlyingConnectionAllowed(Boolean.parseBoolean(
+                cfg.getProperty("jdbc.statement-cache.metrics", "false")));
+        String connectionProperties = cfg.getProperty("jdbc.connection-properties", "");
+        if (!connectionProperties.isBlank()) {
+            pool.setConnectionProperties(connectionProperties);
+        }
         return pool;
     }
 }
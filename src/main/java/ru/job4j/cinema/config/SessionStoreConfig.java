@@ -0,0 +1,47 @@
+package ru.job4j.cinema.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.job4j.cinema.session.FileSessionStore;
+import ru.job4j.cinema.session.MemorySessionStore;
+import ru.job4j.cinema.session.SessionStore;
+
+import java.nio.file.Paths;
+
+/**
+ * Конфигурация хранилища пользовательских сессий. Тип хранилища
+ * задается параметром session.store в файле application.properties:
+ * memory - сессии в памяти узла, file - сессии в общем каталоге
+ * session.store.path, доступном всем узлам приложения.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Configuration
+public class SessionStoreConfig {
+
+    /**
+     * Выполняет создание хранилища сессий в памяти узла.
+     *
+     * @return SessionStore - хранилище сессий
+     */
+    @Bean
+    @ConditionalOnProperty(name = "session.store", havingValue = "memory", matchIfMissing = true)
+    public SessionStore memorySessionStore() {
+        return new MemorySessionStore();
+    }
+
+    /**
+     * Выполняет создание файлового хранилища сессий.
+     *
+     * @param path путь к каталогу хранения сессий
+     * @return SessionStore - хранилище сессий
+     */
+    @Bean
+    @ConditionalOnProperty(name = "session.store", havingValue = "file")
+    public SessionStore fileSessionStore(@Value("${session.store.path}") String path) {
+        return new FileSessionStore(Paths.get(path));
+    }
+}
@@ -0,0 +1,155 @@
+package ru.job4j.cinema.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Замер времени этапов запуска приложения. После готовности приложения
+ * в журнал выводится время этапов: подготовка окружения, подготовка
+ * контекста, создание бинов с запуском веб сервера, выполнение
+ * ApplicationRunner (построение индексов, прогрев), а также бины, создание
+ * которых заняло больше всего времени (с учетом создания их зависимостей).
+ * Время создания бинов берется из шагов запуска Spring, записанных
+ * {@link BufferingApplicationStartup}. Слушатель регистрируется
+ * в {@link ru.job4j.cinema.CinemaApplication} до создания контекста.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Slf4j
+public class StartupTiming implements ApplicationListener<ApplicationEvent> {
+
+    /**
+     * Имя шага запуска Spring, соответствующего созданию бина
+     */
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+
+    /**
+     * Количество бинов в отчете о самых долгих созданиях
+     */
+    private static final int SLOWEST_BEANS = 5;
+
+    /**
+     * Записанные шаги запуска Spring
+     */
+    private final BufferingApplicationStartup startup;
+
+    /**
+     * Время начала запуска в наносекундах
+     */
+    private long startingAt;
+
+    /**
+     * Время завершения подготовки окружения в наносекундах
+     */
+    private long environmentAt;
+
+    /**
+     * Время завершения подготовки контекста в наносекундах
+     */
+    private long preparedAt;
+
+    /**
+     * Время завершения создания бинов и запуска веб сервера в наносекундах
+     */
+    private long startedAt;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param startup записанные шаги запуска Spring
+     */
+    public StartupTiming(BufferingApplicationStartup startup) {
+        this.startup = startup;
+    }
+
+    /**
+     * Выполняет запись времени этапа запуска, при готовности приложения
+     * выводит время этапов в журнал.
+     *
+     * @param event событие запуска приложения
+     */
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        long now = System.nanoTime();
+        if (event instanceof ApplicationStartingEvent) {
+            startingAt = now;
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            environmentAt = now;
+        } else if (event instanceof ApplicationPreparedEvent) {
+            preparedAt = now;
+        } else if (event instanceof ApplicationStartedEvent) {
+            startedAt = now;
+        } else if (event instanceof ApplicationReadyEvent) {
+            log.info("Запуск приложения за {} мс: окружение {} мс, контекст {} мс, "
+                            + "бины и веб сервер {} мс, ApplicationRunner {} мс",
+                    millis(startingAt, now), millis(startingAt, environmentAt),
+                    millis(environmentAt, preparedAt), millis(preparedAt, startedAt),
+                    millis(startedAt, now));
+            log.info("Самые долгие создания бинов: {}", slowestBeans());
+        }
+    }
+
+    /**
+     * Вспомогательный метод возвращает самые долгие создания бинов и очищает
+     * записанные шаги запуска.
+     *
+     * @return имена бинов с временем создания в миллисекундах
+     */
+    private List<String> slowestBeans() {
+        List<StartupTimeline.TimelineEvent> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent event : startup.drainBufferedTimeline().getEvents()) {
+            if (BEAN_STEP.equals(event.getStartupStep().getName())) {
+                beans.add(event);
+            }
+        }
+        beans.sort(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed());
+        List<String> result = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent event : beans.subList(0,
+                Math.min(SLOWEST_BEANS, beans.size()))) {
+            result.add(beanName(event.getStartupStep()) + " "
+                    + event.getDuration().toMillis() + " мс");
+        }
+        return result;
+    }
+
+    /**
+     * Вспомогательный метод возвращает имя бина шага создания бина.
+     *
+     * @param step шаг запуска Spring
+     * @return имя бина
+     */
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+
+    /**
+     * Вспомогательный метод возвращает продолжительность этапа.
+     *
+     * @param from время начала этапа в наносекундах
+     * @param to   время окончания этапа в наносекундах
+     * @return продолжительность в миллисекундах
+     */
+    private static long millis(long from, long to) {
+        return Duration.ofNanos(to - from).toMillis();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.job4j.cinema.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import ru.job4j.cinema.datasource.StatementCacheMetrics;
+import ru.job4j.cinema.service.PasswordService;
+import ru.job4j.cinema.service.SalesStatistics;
+import ru.job4j.cinema.service.ShowService;
+import ru.job4j.cinema.util.UserUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Date;
+
+/**
+ * Контроллер панели статистики продаж. Используется только администратором,
+ * поэтому создается при первом запросе, а не при запуске приложения.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Lazy
+@Controller
+public class DashboardController {
+
+    /**
+     * Объект для доступа к методам ShowService
+     */
+    private final ShowService showService;
+
+    /**
+     * Статистика продаж билетов
+     */
+    private final SalesStatistics salesStatistics;
+
+    /**
+     * Объект для доступа к методам PasswordService
+     */
+    private final PasswordService passwordService;
+
+    /**
+     * Обрабатывает GET запрос, возвращает панель статистики продаж
+     * по сеансам каталога, статистику кэша подготовленных SQL запросов
+     * и метрики хеширования паролей.
+     *
+     * @param model   модель
+     * @param request запрос пользователя
+     * @return панель статистики продаж
+     */
+    @GetMapping("/dashboard")
+    public String dashboard(Model model, HttpServletRequest request) {
+        long reconciledAt = salesStatistics.getReconciledAt();
+        model.addAttribute("sales", salesStatistics.getSales(showService.findAll()));
+        model.addAttribute("reconciledAt", reconciledAt == 0 ? null : new Date(reconciledAt));
+        model.addAttribute("statementCache", StatementCacheMetrics.snapshot());
+        model.addAttribute("passwordHash", passwordService.getMetrics());
+        model.addAttribute("user", UserUtil.getSessionUser(request));
+        return "admin/dashboard";
+    }
+}
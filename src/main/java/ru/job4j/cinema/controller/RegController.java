@@ -12,6 +12,8 @@ import ru.job4j.cinema.util.UserUtil;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Контроллер страницы регистрации пользователя
@@ -82,6 +84,30 @@ public class RegController {
         return "redirect:/login";
     }
 
+    /**
+     * Обрабатывает GET запрос проверки занятости почтового адреса и номера
+     * телефона при заполнении формы регистрации.
+     *
+     * @param email почтовый адрес, необязательный параметр
+     * @param phone номер телефона, необязательный параметр
+     * @return результат проверки в формате JSON, для каждого переданного
+     * параметра признак emailTaken или phoneTaken
+     */
+    @GetMapping("/check")
+    @ResponseBody
+    public Map<String, Boolean> checkContacts(
+            @RequestParam(value = "email", required = false) String email,
+            @RequestParam(value = "phone", required = false) String phone) {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        if (email != null) {
+            result.put("emailTaken", userService.isEmailTaken(email));
+        }
+        if (phone != null) {
+            result.put("phoneTaken", userService.isPhoneTaken(phone));
+        }
+        return result;
+    }
+
     /**
      * Выполняет локальный (уровня контроллера) перехват исключений
      * IllegalStateException, в случае перехвата,
@@ -0,0 +1,111 @@
+package ru.job4j.cinema.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.service.ScreeningService;
+import ru.job4j.cinema.service.ShowService;
+import ru.job4j.cinema.util.UserUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Контроллер расписания показов сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Controller
+public class ScreeningController {
+
+    /**
+     * Максимальное количество дней в расписании
+     */
+    private static final int MAX_DAYS = 14;
+
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private final ScreeningService screeningService;
+
+    /**
+     * Объект для доступа к методам ShowService
+     */
+    private final ShowService showService;
+
+    /**
+     * Обрабатывает GET запрос, возвращает страницу расписания показов.
+     * Без параметра days возвращается расписание на текущий день,
+     * с параметром showId - только показы этого сеанса.
+     *
+     * @param days    параметр GET запроса, количество дней расписания, начиная
+     *                с текущего момента, не более MAX_DAYS
+     * @param showId  параметр GET запроса, идентификатор сеанса, необязательный
+     * @param model   модель
+     * @param request запрос пользователя
+     * @return страница расписания показов
+     */
+    @GetMapping("/schedule")
+    public String schedule(@RequestParam(value = "days", required = false) Integer days,
+                           @RequestParam(value = "showId", required = false) Integer showId,
+                           Model model, HttpServletRequest request) {
+        List<Screening> screenings = days == null
+                ? screeningService.findToday()
+                : screeningService.findNextDays(Math.max(1, Math.min(days, MAX_DAYS)));
+        if (showId != null) {
+            screenings = screenings.stream()
+                    .filter(screening -> screening.getShow().getId() == showId)
+                    .toList();
+        }
+        model.addAttribute("screenings", screenings);
+        model.addAttribute("days", days);
+        model.addAttribute("shows", showService.findAll());
+        model.addAttribute("user", UserUtil.getSessionUser(request));
+        return "show/schedule";
+    }
+
+    /**
+     * Обрабатывает POST запрос, добавляет показ сеанса и перенаправляет
+     * на страницу расписания на неделю.
+     *
+     * @param showId    идентификатор сеанса
+     * @param hall      номер кинозала
+     * @param startTime время начала показа
+     * @return перенаправление на страницу расписания
+     */
+    @PostMapping("/addScreening")
+    public String addScreening(@RequestParam(value = "showId") int showId,
+                               @RequestParam(value = "hall") int hall,
+                               @RequestParam(value = "startTime")
+                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                               LocalDateTime startTime) {
+        screeningService.save(Screening.builder()
+                .show(Show.builder().id(showId).build())
+                .hall(hall)
+                .startTime(startTime)
+                .build());
+        return "redirect:/schedule?days=7";
+    }
+
+    /**
+     * Обрабатывает POST запрос, удаляет показ сеанса и перенаправляет
+     * на страницу расписания на неделю.
+     *
+     * @param screeningId идентификатор показа
+     * @return перенаправление на страницу расписания
+     */
+    @PostMapping("/deleteScreening")
+    public String deleteScreening(@RequestParam(value = "screeningId") int screeningId) {
+        screeningService.deleteById(screeningId);
+        return "redirect:/schedule?days=7";
+    }
+}
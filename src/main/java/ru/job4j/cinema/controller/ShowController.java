@@ -2,19 +2,30 @@ package ru.job4j.cinema.controller;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.ModelAndView;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.SeatRecommendation;
 import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.ScreeningService;
 import ru.job4j.cinema.service.ShowService;
 import ru.job4j.cinema.util.UserUtil;
+import ru.job4j.cinema.view.CatalogueRenderer;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Контроллер сеансов
@@ -32,54 +43,125 @@ public class ShowController {
      */
     private final ShowService showService;
 
+    /**
+     * Объект для формирования HTML фрагмента каталога сеансов
+     */
+    private final CatalogueRenderer catalogueRenderer;
+
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private final ScreeningService screeningService;
+
     /**
      * Обрабатывает GET запрос, возвращает страницу списка сеансов для
-     * покупки билетов.
+     * покупки билетов. Список сеансов передается в шаблон готовым
+     * HTML фрагментом {@link CatalogueRenderer#render()}. Если каталог
+     * не изменялся с предыдущего запроса пользователя, возвращается
+     * ответ 304 Not Modified без обращения к базе данных и шаблонизатору.
      *
-     * @param model   модель
-     * @param request запрос пользователя
-     * @return страница списка сеансов
+     * @param model    модель
+     * @param request  запрос пользователя
+     * @param response ответ пользователю
+     * @return страница списка сеансов или null, если страница не изменилась
      */
     @GetMapping("/shows")
-    public String getShowRow(Model model, HttpServletRequest request) {
-        model.addAttribute("user", UserUtil.getSessionUser(request));
-        model.addAttribute("shows", showService.findAll());
+    public String getShowRow(Model model, HttpServletRequest request,
+                             HttpServletResponse response) {
+        User user = UserUtil.getSessionUser(request);
+        if (isNotModified(user, request, response)) {
+            return null;
+        }
+        model.addAttribute("user", user);
+        model.addAttribute("catalogue", catalogueRenderer.render());
         return "show/shows";
     }
 
     /**
-     * Обрабатывает GET запрос, возвращает страницу списка сеансов для
-     * администратора.
+     * Обрабатывает GET запрос, возвращает страницу результатов поиска
+     * сеансов по названию и описанию.
      *
+     * @param query   параметр GET запроса, строка поиска
      * @param model   модель
      * @param request запрос пользователя
-     * @return страница списка сеансов для редактирования
+     * @return страница результатов поиска
      */
-    @GetMapping("adminShows")
-    public String getShowsForEdit(Model model, HttpServletRequest request) {
+    @GetMapping("/searchShows")
+    public String searchShows(@RequestParam(value = "q", required = false) String query,
+                              Model model, HttpServletRequest request) {
+        model.addAttribute("query", query);
+        model.addAttribute("shows", query == null ? List.of() : showService.search(query));
+        model.addAttribute("contextPath", request.getContextPath());
         model.addAttribute("user", UserUtil.getSessionUser(request));
+        return "show/search";
+    }
+
+    /**
+     * Обрабатывает GET запрос, возвращает названия сеансов для подсказки
+     * во время набора строки поиска.
+     *
+     * @param query параметр GET запроса, набранная строка поиска
+     * @return список названий сеансов
+     */
+    @GetMapping("/searchShows/suggest")
+    @ResponseBody
+    public List<String> suggestShows(@RequestParam(value = "q") String query) {
+        return showService.suggest(query);
+    }
+
+    /**
+     * Обрабатывает GET запрос, возвращает страницу списка сеансов для
+     * администратора. Если каталог не изменялся с предыдущего запроса,
+     * возвращается ответ 304 Not Modified.
+     *
+     * @param model    модель
+     * @param request  запрос пользователя
+     * @param response ответ пользователю
+     * @return страница списка сеансов для редактирования или null,
+     * если страница не изменилась
+     */
+    @GetMapping("adminShows")
+    public String getShowsForEdit(Model model, HttpServletRequest request,
+                                  HttpServletResponse response) {
+        User user = UserUtil.getSessionUser(request);
+        if (isNotModified(user, request, response)) {
+            return null;
+        }
+        model.addAttribute("user", user);
         model.addAttribute("shows", showService.findAll());
         return "admin/adminShows";
     }
 
     /**
      * Обрабатывает POST запрос, возвращает страницу выбора
-     * номера ряда на сеансе для покупки билетов.
+     * номера ряда на показе сеанса для покупки билетов. Показ проверяется
+     * на принадлежность сеансу и запоминается в сессии вместе с сеансом.
+     * Если показ не выбран (покупка со страницы списка сеансов), выполняется
+     * перенаправление на расписание показов сеанса на неделю.
      *
-     * @param showId  идентификатор сеанса
-     * @param model   модель
-     * @param request запрос пользователя
-     * @return страница выбора ряда
+     * @param showId      идентификатор сеанса
+     * @param screeningId идентификатор показа, необязательный параметр
+     * @param model       модель
+     * @param request     запрос пользователя
+     * @return страница выбора ряда или перенаправление на расписание показов
      */
     @PostMapping("/showRow")
     public String getPostShowRow(@RequestParam(value = "showId") int showId,
+                                 @RequestParam(value = "screeningId", required = false)
+                                 Integer screeningId,
                                  Model model, HttpServletRequest request) {
+        if (screeningId == null) {
+            return "redirect:/schedule?days=7&showId=" + showId;
+        }
+        Screening screening = screeningService.findByIdAndShowId(screeningId, showId);
         Show showFromDB = showService.findById(showId);
         model.addAttribute("show", showFromDB);
-        List<Integer> rows = showService.getRows(showId);
+        model.addAttribute("screening", screening);
+        List<Integer> rows = showService.getRows(screeningId);
         model.addAttribute("rows", rows);
         HttpSession session = request.getSession();
         session.setAttribute("show", showFromDB);
+        session.setAttribute("screeningId", screeningId);
         model.addAttribute("user", UserUtil.getSessionUser(request));
 
         return "show/showRow";
@@ -87,7 +169,7 @@ public class ShowController {
 
     /**
      * Обрабатывает POST запрос, возвращает страницу выбора
-     * номера места в ряду на сеансе для покупки билетов.
+     * номера места в ряду на выбранном показе сеанса для покупки билетов.
      *
      * @param posRow  идентификатор ряда
      * @param model   модель
@@ -99,13 +181,37 @@ public class ShowController {
                              Model model, HttpServletRequest request) {
         HttpSession session = request.getSession();
         session.setAttribute("posRow", posRow);
-        Show show = (Show) session.getAttribute("show");
-        model.addAttribute("show", show);
-        model.addAttribute("cells", showService.getCells(show.getId(), posRow));
+        model.addAttribute("show", session.getAttribute("show"));
+        model.addAttribute("cells", showService.getCells(
+                (int) session.getAttribute("screeningId"), posRow));
         model.addAttribute("user", UserUtil.getSessionUser(request));
         return "show/showCell";
     }
 
+    /**
+     * Обрабатывает POST запрос, возвращает страницу рекомендованных мест
+     * для группы зрителей на выбранном показе сеанса. Ряд рекомендованных мест
+     * запоминается в сессии, покупка каждого места выполняется отдельно.
+     *
+     * @param count   количество мест
+     * @param model   модель
+     * @param request запрос пользователя
+     * @return страница рекомендованных мест
+     */
+    @PostMapping("/recommendSeats")
+    public String recommendSeats(@RequestParam(value = "count") int count,
+                                 Model model, HttpServletRequest request) {
+        HttpSession session = request.getSession();
+        Optional<SeatRecommendation> recommendation = showService.recommendSeats(
+                (int) session.getAttribute("screeningId"), count);
+        recommendation.ifPresent(seats -> session.setAttribute("posRow", seats.getPosRow()));
+        model.addAttribute("show", session.getAttribute("show"));
+        model.addAttribute("count", count);
+        model.addAttribute("recommendation", recommendation.orElse(null));
+        model.addAttribute("user", UserUtil.getSessionUser(request));
+        return "show/recommendSeats";
+    }
+
     /**
      * Обрабатывает POST запрос, возвращает страницу
      * редактирования данных сеанса.
@@ -167,6 +273,45 @@ public class ShowController {
         return "redirect:/adminShows";
     }
 
+    /**
+     * Обрабатывает POST запрос, перенаправляет на страницу
+     * списка сеансов для администратора. Удаляет отмеченные сеансы
+     * вместе с проданными билетами и показами.
+     *
+     * @param showIds идентификаторы сеансов, может отсутствовать,
+     *                если ни один сеанс не отмечен
+     * @return перенаправление на страницу списка сеансов для администратора
+     */
+    @PostMapping("/deleteShows")
+    public String deleteShows(@RequestParam(value = "showIds", required = false)
+                              List<Integer> showIds) {
+        if (showIds != null) {
+            showService.deleteAllByIds(showIds);
+        }
+        return "redirect:/adminShows";
+    }
+
+    /**
+     * Вспомогательный метод выполняет проверку условного GET запроса.
+     * Тег ETag строится по версии каталога сеансов и пользователю, так как
+     * панель навигации страницы зависит от пользователя. Ответ помечается
+     * как приватный и требующий повторной проверки при каждом обращении.
+     *
+     * @param user     пользователь сессии
+     * @param request  запрос пользователя
+     * @param response ответ пользователю
+     * @return true, если страница не изменилась и отправлен ответ 304
+     */
+    private boolean isNotModified(User user, HttpServletRequest request,
+                                  HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                CacheControl.noCache().cachePrivate().getHeaderValue());
+        String etag = String.format("\"c%d-u%d-%08x\"", showService.getCatalogueVersion(),
+                user.getId(), Objects.hash(user.getUsername(), user.getEmail()));
+        return new ServletWebRequest(request, response)
+                .checkNotModified(etag, showService.getCatalogueLastModified());
+    }
+
     /**
      * Выполняет локальный (уровня контроллера) перехват исключений
      * IOException, в случае перехвата,
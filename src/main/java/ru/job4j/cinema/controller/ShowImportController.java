@@ -0,0 +1,65 @@
+package ru.job4j.cinema.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import ru.job4j.cinema.service.ShowImportService;
+import ru.job4j.cinema.util.UserUtil;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Контроллер загрузки каталога сеансов. Используется только администратором,
+ * поэтому создается при первом запросе, а не при запуске приложения.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Lazy
+@Controller
+public class ShowImportController {
+
+    /**
+     * Объект для доступа к методам ShowImportService
+     */
+    private final ShowImportService showImportService;
+
+    /**
+     * Обрабатывает GET запрос, возвращает страницу загрузки каталога сеансов.
+     *
+     * @param model   модель
+     * @param request запрос пользователя
+     * @return страница загрузки каталога сеансов
+     */
+    @GetMapping("/importShows")
+    public String importShowsForm(Model model, HttpServletRequest request) {
+        model.addAttribute("user", UserUtil.getSessionUser(request));
+        return "admin/importShows";
+    }
+
+    /**
+     * Обрабатывает POST запрос, загружает каталог сеансов и архив постеров
+     * и возвращает страницу загрузки с результатом.
+     *
+     * @param catalogue файл каталога в формате CSV или JSON
+     * @param posters   zip архив постеров
+     * @param model     модель
+     * @param request   запрос пользователя
+     * @return страница загрузки каталога сеансов
+     */
+    @PostMapping("/importShows")
+    public String importShows(@RequestParam("catalogue") MultipartFile catalogue,
+                              @RequestParam(value = "posters", required = false)
+                              MultipartFile posters,
+                              Model model, HttpServletRequest request) {
+        model.addAttribute("result", showImportService.importCatalogue(catalogue, posters));
+        model.addAttribute("user", UserUtil.getSessionUser(request));
+        return "admin/importShows";
+    }
+}
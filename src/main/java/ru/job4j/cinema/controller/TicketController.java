@@ -3,11 +3,14 @@ package ru.job4j.cinema.controller;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import ru.job4j.cinema.model.Screening;
 import ru.job4j.cinema.model.Show;
 import ru.job4j.cinema.model.Ticket;
 import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.ScreeningService;
 import ru.job4j.cinema.service.TicketService;
 import ru.job4j.cinema.util.UserUtil;
 
@@ -29,6 +32,11 @@ public class TicketController {
      */
     private final TicketService ticketService;
 
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private final ScreeningService screeningService;
+
     /**
      * Обрабатывает POST запрос, возвращает страницу покупки билета.
      *
@@ -49,6 +57,24 @@ public class TicketController {
         return "ticket/buyTicket";
     }
 
+    /**
+     * Обрабатывает GET запрос, возвращает страницу истории покупок пользователя.
+     *
+     * @param before  параметр GET запроса, идентификатор билета, с которого
+     *                начинается страница (не включительно), отсутствует для первой страницы
+     * @param model   модель
+     * @param request запрос пользователя
+     * @return страница истории покупок
+     */
+    @GetMapping("/tickets")
+    public String history(@RequestParam(value = "before", required = false) Integer before,
+                          Model model, HttpServletRequest request) {
+        User user = UserUtil.getSessionUser(request);
+        model.addAttribute("page", ticketService.findHistory(user.getId(), before));
+        model.addAttribute("user", user);
+        return "ticket/history";
+    }
+
     /**
      * Обрабатывает POST запрос, отменяет покупку билета и выполняет перенаправление
      * на страницу списка сеансов.
@@ -73,18 +99,35 @@ public class TicketController {
     @PostMapping("/confirmBuyTicket")
     public String confirmBuyTicket(Model model, HttpServletRequest request) {
         HttpSession session = request.getSession();
+        Show show = (Show) session.getAttribute("show");
         Ticket ticket = ticketService.save(Ticket
                 .builder()
                 .user((User) session.getAttribute("user"))
-                .show((Show) session.getAttribute("show"))
+                .show(show)
                 .posRow((int) session.getAttribute("posRow"))
                 .cell((int) session.getAttribute("cell"))
+                .screening(getSessionScreening(session, show))
                 .build());
         model.addAttribute("ticket", ticket);
         model.addAttribute("user", UserUtil.getSessionUser(request));
         return "ticket/successful";
     }
 
+    /**
+     * Обрабатывает POST запрос, выполняет возврат билета пользователем
+     * и перенаправляет на страницу истории покупок.
+     *
+     * @param ticketId идентификатор возвращаемого билета
+     * @param request  запрос пользователя
+     * @return перенаправление на страницу истории покупок
+     */
+    @PostMapping("/cancelTicket")
+    public String cancelTicket(@RequestParam(value = "ticketId") int ticketId,
+                               HttpServletRequest request) {
+        ticketService.cancel(ticketId, UserUtil.getSessionUser(request).getId());
+        return "redirect:/tickets";
+    }
+
     /**
      * Обрабатывает POST запрос, удаляет проданные билеты и перенаправляет на страницу
      * списка сеансов для администратора.
@@ -101,4 +144,23 @@ public class TicketController {
         model.addAttribute("user", UserUtil.getSessionUser(request));
         return "redirect:/adminShows";
     }
-}
\ No newline at end of file
+
+    /**
+     * Вспомогательный метод возвращает показ, выбранный на странице расписания,
+     * с проверкой, что показ относится к сеансу покупки.
+     *
+     * @param session сессия пользователя
+     * @param show    сеанс покупки
+     * @return показ сеанса
+     * @throws IllegalArgumentException если показ не выбран
+     * @throws java.util.NoSuchElementException если показ не найден
+     *                                          или относится к другому сеансу
+     */
+    private Screening getSessionScreening(HttpSession session, Show show) {
+        Integer screeningId = (Integer) session.getAttribute("screeningId");
+        if (screeningId == null) {
+            throw new IllegalArgumentException("Показ сеанса не выбран");
+        }
+        return screeningService.findByIdAndShowId(screeningId, show.getId());
+    }
+}
@@ -76,7 +76,7 @@ public class UserController {
             return "user/userEdit";
         }
         User userFromDB = userService.findUserByEmail(user.getEmail());
-        if (oldPassword == null || !oldPassword.equals(userFromDB.getPassword())) {
+        if (oldPassword == null || !userService.matchesPassword(userFromDB, oldPassword)) {
             return "redirect:/userEdit?password=true";
         }
         userService.update(user);
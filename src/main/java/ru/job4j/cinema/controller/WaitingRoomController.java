@@ -0,0 +1,68 @@
+package ru.job4j.cinema.controller;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import ru.job4j.cinema.filter.AdmissionFilter;
+import ru.job4j.cinema.service.AdmissionQueue;
+import ru.job4j.cinema.util.UserUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Контроллер страницы ожидания в очереди допуска. Страница строится
+ * по счетчикам очереди в памяти без обращения к базе данных.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Controller
+public class WaitingRoomController {
+
+    /**
+     * Минимальный интервал обновления страницы ожидания в секундах
+     */
+    private static final long MIN_REFRESH = 2;
+
+    /**
+     * Максимальный интервал обновления страницы ожидания в секундах
+     */
+    private static final long MAX_REFRESH = 15;
+
+    /**
+     * Очередь допуска
+     */
+    private final AdmissionQueue queue;
+
+    /**
+     * Обрабатывает GET запрос, возвращает страницу ожидания с положением
+     * пользователя в очереди. Если номер пользователя допущен или
+     * пользователь не стоит в очереди, выполняется перенаправление на
+     * запрошенную до постановки в очередь страницу, где фильтр допуска
+     * выдает пропуск.
+     *
+     * @param model   модель
+     * @param request запрос пользователя
+     * @return страница ожидания или перенаправление
+     */
+    @GetMapping("/waitingRoom")
+    public String waitingRoom(Model model, HttpServletRequest request) {
+        HttpSession session = request.getSession();
+        Long number = (Long) session.getAttribute(AdmissionFilter.NUMBER);
+        long position = number == null || !queue.isIssued(number) ? 0 : queue.position(number);
+        if (position == 0 || AdmissionFilter.hasPass(session)) {
+            String target = (String) session.getAttribute(AdmissionFilter.TARGET);
+            session.removeAttribute(AdmissionFilter.TARGET);
+            return "redirect:" + (target == null ? "/shows" : target);
+        }
+        long wait = queue.estimateSeconds(position);
+        model.addAttribute("position", position);
+        model.addAttribute("waitSeconds", wait);
+        model.addAttribute("refresh", Math.max(MIN_REFRESH, Math.min(MAX_REFRESH, wait)));
+        model.addAttribute("user", UserUtil.getSessionUser(request));
+        return "show/waitingRoom";
+    }
+}
@@ -0,0 +1,119 @@
+package ru.job4j.cinema.datasource;
+
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Состояние маршрутизации чтения текущего потока. Хранит время, до которого
+ * чтение выполняется с основной базы данных после записи (чтение своих
+ * записей), и признак обязательного чтения с основной базы данных.
+ * Время привязывается к сессии пользователя фильтром
+ * {@link ru.job4j.cinema.filter.ReadYourWritesFilter}, который получает
+ * новое время при каждой записи и сохраняет его в сессии до фиксации ответа.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ReplicaRoutingDataSource
+ */
+public final class ReadRouting {
+
+    /**
+     * Время в миллисекундах, до которого поток читает с основной базы данных
+     */
+    private static final ThreadLocal<Long> PRIMARY_UNTIL = new ThreadLocal<>();
+
+    /**
+     * Обработчик записи в основную базу данных, получающий новое время
+     */
+    private static final ThreadLocal<LongConsumer> WRITE_LISTENER = new ThreadLocal<>();
+
+    /**
+     * Глубина вложенности блоков обязательного чтения с основной базы данных
+     */
+    private static final ThreadLocal<int[]> PRIMARY_DEPTH =
+            ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Закрытый конструктор служебного класса.
+     */
+    private ReadRouting() {
+    }
+
+    /**
+     * Выполняет действие с чтением только с основной базы данных. Используется
+     * при заполнении общих для всех пользователей кэшей: устаревшая строка
+     * реплики сохранилась бы в кэше дольше отставания реплики.
+     *
+     * @param action действие
+     * @param <T>    тип результата действия
+     * @return результат действия
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        int[] depth = PRIMARY_DEPTH.get();
+        depth[0]++;
+        try {
+            return action.get();
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    /**
+     * Выполняет проверку, должен ли поток читать с основной базы данных.
+     *
+     * @return true, если чтение с реплики недопустимо
+     */
+    public static boolean isPrimaryRequired() {
+        if (PRIMARY_DEPTH.get()[0] > 0) {
+            return true;
+        }
+        Long until = PRIMARY_UNTIL.get();
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Отмечает запись в основную базу данных: последующее чтение потока
+     * в течение stickyMillis выполняется с основной базы данных. Новое время
+     * передается обработчику записи потока, если он привязан.
+     *
+     * @param stickyMillis время чтения с основной базы данных в миллисекундах
+     */
+    public static void markWrite(long stickyMillis) {
+        long until = System.currentTimeMillis() + stickyMillis;
+        PRIMARY_UNTIL.set(until);
+        LongConsumer listener = WRITE_LISTENER.get();
+        if (listener != null) {
+            listener.accept(until);
+        }
+    }
+
+    /**
+     * Выполняет привязку к потоку времени чтения с основной базы данных,
+     * сохраненного в сессии пользователя, и обработчика записи, сохраняющего
+     * новое время в сессии.
+     *
+     * @param primaryUntil время в миллисекундах или null
+     * @param onWrite      обработчик записи или null
+     */
+    public static void bind(Long primaryUntil, LongConsumer onWrite) {
+        PRIMARY_UNTIL.set(primaryUntil);
+        WRITE_LISTENER.set(onWrite);
+    }
+
+    /**
+     * Возвращает время, до которого поток читает с основной базы данных.
+     *
+     * @return время в миллисекундах или null
+     */
+    public static Long getPrimaryUntil() {
+        return PRIMARY_UNTIL.get();
+    }
+
+    /**
+     * Выполняет очистку состояния маршрутизации потока.
+     */
+    public static void clear() {
+        PRIMARY_UNTIL.remove();
+        WRITE_LISTENER.remove();
+    }
+}
@@ -0,0 +1,43 @@
+package ru.job4j.cinema.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Периодическая проверка отставания реплик источника данных
+ * {@link ReplicaRoutingDataSource}. Первая проверка выполняется
+ * при запуске приложения, до нее чтение выполняется с основной базы данных.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Component
+public class ReplicaMonitor {
+
+    /**
+     * Источник данных приложения
+     */
+    private final DataSource dataSource;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param dataSource источник данных приложения
+     */
+    public ReplicaMonitor(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Выполняет проверку отставания реплик, если источник данных
+     * поддерживает маршрутизацию чтения.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${db.replica.check-ms:1000}")
+    public void check() {
+        if (dataSource instanceof ReplicaRoutingDataSource routing) {
+            routing.checkReplicas();
+        }
+    }
+}
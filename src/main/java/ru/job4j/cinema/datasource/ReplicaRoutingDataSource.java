@@ -0,0 +1,338 @@
+package ru.job4j.cinema.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Источник данных с маршрутизацией чтения на реплики. Соединения
+ * {@link #getConnection()} выдаются основной базой данных, соединения для
+ * чтения {@link #getReadConnection()} - репликами по очереди. Реплика
+ * используется, только если последняя проверка отставания
+ * {@link #checkReplicas()} показала отставание не более maxLagMillis.
+ * Если подходящих реплик нет или реплика недоступна, чтение выполняется
+ * с основной базы данных. После записи поток (и сессия пользователя)
+ * читает с основной базы данных stickyMillis, чтобы видеть свои записи.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ReadRouting
+ */
+@Slf4j
+public class ReplicaRoutingDataSource implements DataSource, AutoCloseable {
+
+    /**
+     * Основная база данных
+     */
+    private final DataSource primary;
+
+    /**
+     * Реплики
+     */
+    private final List<Replica> replicas;
+
+    /**
+     * SQL запрос отставания реплики в миллисекундах
+     */
+    private final String lagQuery;
+
+    /**
+     * Максимальное допустимое отставание реплики в миллисекундах
+     */
+    private final long maxLagMillis;
+
+    /**
+     * Время чтения с основной базы данных после записи в миллисекундах
+     */
+    private final long stickyMillis;
+
+    /**
+     * Счетчик для выбора реплики по очереди
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Конструктор класса. До первой проверки отставания реплики
+     * не используются.
+     *
+     * @param primary      основная база данных
+     * @param replicas     реплики
+     * @param lagQuery     SQL запрос отставания реплики в миллисекундах
+     * @param maxLagMillis максимальное допустимое отставание реплики в миллисекундах
+     * @param stickyMillis время чтения с основной базы данных после записи в миллисекундах
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                    String lagQuery, long maxLagMillis, long stickyMillis) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+        this.stickyMillis = stickyMillis;
+    }
+
+    /**
+     * Возвращает соединение для чтения: в транзакции - соединение транзакции,
+     * чтобы чтение видело записи транзакции, иначе с реплики, если источник
+     * данных поддерживает маршрутизацию, иначе обычное соединение.
+     *
+     * @param dataSource источник данных
+     * @return соединение
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    public static Connection readConnection(DataSource dataSource) throws SQLException {
+        if (Transactions.isActive()) {
+            return Transactions.connection(dataSource);
+        }
+        return StatementCacheMetrics.track(dataSource instanceof ReplicaRoutingDataSource routing
+                ? routing.getReadConnection() : dataSource.getConnection());
+    }
+
+    /**
+     * Возвращает соединение с основной базой данных и отмечает запись
+     * для чтения своих записей.
+     *
+     * @return соединение с основной базой данных
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReadRouting.markWrite(stickyMillis);
+        return primary.getConnection();
+    }
+
+    /**
+     * Возвращает соединение с основной базой данных и отмечает запись
+     * для чтения своих записей.
+     *
+     * @param username имя пользователя
+     * @param password пароль
+     * @return соединение с основной базой данных
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ReadRouting.markWrite(stickyMillis);
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Возвращает соединение для чтения. Реплики перебираются по очереди,
+     * начиная со следующей после использованной в прошлый раз, реплика,
+     * не выдавшая соединение, исключается до следующей проверки.
+     *
+     * @return соединение с репликой или с основной базой данных
+     * @throws SQLException если происходит ошибка доступа к основной базе данных
+     */
+    public Connection getReadConnection() throws SQLException {
+        if (!replicas.isEmpty() && !ReadRouting.isPrimaryRequired()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    log.info("Исключение в методе getReadConnection() класса "
+                            + "ReplicaRoutingDataSource ", e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Выполняет проверку отставания реплик. Реплика используется для чтения,
+     * если запрос отставания выполнен и отставание не более maxLagMillis.
+     *
+     * @return количество реплик, доступных для чтения
+     */
+    public int checkReplicas() {
+        int healthy = 0;
+        for (Replica replica : replicas) {
+            long lag = measureLag(replica.dataSource);
+            boolean usable = lag >= 0 && lag <= maxLagMillis;
+            if (usable != replica.healthy) {
+                log.info("Реплика {} {}, отставание {} мс", replicas.indexOf(replica),
+                        usable ? "доступна для чтения" : "исключена из чтения", lag);
+            }
+            replica.lagMillis = lag;
+            replica.healthy = usable;
+            if (usable) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * Возвращает отставание реплик по результатам последней проверки.
+     *
+     * @return список отставаний в миллисекундах, -1 для недоступных реплик
+     */
+    public List<Long> getReplicaLags() {
+        List<Long> result = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            result.add(replica.lagMillis);
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет закрытие пулов соединений реплик. Основная база данных
+     * закрывается владельцем.
+     *
+     * @throws Exception если закрытие пула завершилось ошибкой
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * Возвращает журнал основной базы данных.
+     *
+     * @return журнал
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    /**
+     * Устанавливает журнал основной базы данных.
+     *
+     * @param out журнал
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    /**
+     * Устанавливает время ожидания подключения к основной базе данных.
+     *
+     * @param seconds время ожидания в секундах
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    /**
+     * Возвращает время ожидания подключения к основной базе данных.
+     *
+     * @return время ожидания в секундах
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    /**
+     * Возвращает родительский журнал основной базы данных.
+     *
+     * @return журнал
+     * @throws SQLFeatureNotSupportedException если журнал не поддерживается
+     */
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    /**
+     * Возвращает этот источник данных или объект основной базы данных
+     * запрошенного типа.
+     *
+     * @param iface тип объекта
+     * @param <T>   тип объекта
+     * @return объект запрошенного типа
+     * @throws SQLException если объект запрошенного типа отсутствует
+     */
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    /**
+     * Выполняет проверку, доступен ли объект запрошенного типа.
+     *
+     * @param iface тип объекта
+     * @return true, если объект доступен
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * Вспомогательный метод выполняет запрос отставания реплики.
+     *
+     * @param dataSource реплика
+     * @return отставание в миллисекундах, -1, если запрос не выполнен
+     */
+    private long measureLag(DataSource dataSource) {
+        try (Connection cn = dataSource.getConnection();
+             PreparedStatement ps = cn.prepareStatement(lagQuery);
+             ResultSet it = ps.executeQuery()) {
+            return it.next() ? Math.max(0, it.getLong(1)) : -1;
+        } catch (SQLException e) {
+            log.info("Исключение в методе measureLag() класса ReplicaRoutingDataSource ", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Реплика и результат ее последней проверки
+     */
+    private static final class Replica {
+
+        /**
+         * Источник данных реплики
+         */
+        private final DataSource dataSource;
+
+        /**
+         * Признак доступности реплики для чтения
+         */
+        private volatile boolean healthy;
+
+        /**
+         * Отставание по последней проверке в миллисекундах, -1, если неизвестно
+         */
+        private volatile long lagMillis = -1;
+
+        /**
+         * Конструктор класса.
+         *
+         * @param dataSource источник данных реплики
+         */
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.job4j.cinema.datasource;
+
+import org.apache.commons.dbcp2.DelegatingConnection;
+import org.apache.commons.dbcp2.PoolingConnection;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+
+import java.sql.Connection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Статистика кэша подготовленных SQL запросов пулов соединений.
+ * Пул соединений хранит для каждого соединения ограниченный набор
+ * подготовленных запросов, вытесняя давно не использованные.
+ * Статистика собирается по кэшам соединений, выданных хранилищам:
+ * запрос, найденный в кэше соединения, не разбирается и не планируется
+ * базой данных повторно. Счетчики закрытых соединений сохраняются,
+ * кэши закрытых соединений удаляются из статистики при регистрации
+ * нового соединения и при получении статистики.
+ * <p>
+ * Кэш соединения доступен, только если pool разрешает доступ к исходным
+ * соединениям (параметр jdbc.statement-cache.metrics в db.properties,
+ * по умолчанию выключен), иначе статистика не собирается.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+public final class StatementCacheMetrics {
+
+    /**
+     * Кэши подготовленных запросов открытых соединений
+     */
+    private static final Set<GenericKeyedObjectPool<?, ?>> CACHES =
+            ConcurrentHashMap.newKeySet();
+
+    /**
+     * Количество запросов к кэшам закрытых соединений
+     */
+    private static final AtomicLong CLOSED_REQUESTS = new AtomicLong();
+
+    /**
+     * Количество подготовленных запросов закрытых соединений
+     */
+    private static final AtomicLong CLOSED_PREPARED = new AtomicLong();
+
+    /**
+     * Закрытый конструктор служебного класса.
+     */
+    private StatementCacheMetrics() {
+    }
+
+    /**
+     * Регистрирует кэш подготовленных запросов соединения, выданного пулом.
+     * Соединения без кэша пропускаются. При регистрации нового кэша
+     * удаляются кэши закрытых соединений.
+     *
+     * @param connection соединение пула
+     * @return то же соединение
+     */
+    public static Connection track(Connection connection) {
+        if (connection instanceof DelegatingConnection<?> guard
+                && guard.getDelegate() instanceof DelegatingConnection<?> pooled
+                && pooled.getDelegate() instanceof PoolingConnection pooling
+                && pooling.getStatementPool() instanceof GenericKeyedObjectPool<?, ?> cache
+                && CACHES.add(cache)) {
+            prune();
+        }
+        return connection;
+    }
+
+    /**
+     * Возвращает статистику кэша подготовленных запросов.
+     *
+     * @return статистика по всем соединениям
+     */
+    public static Snapshot snapshot() {
+        prune();
+        long requests = CLOSED_REQUESTS.get();
+        long prepared = CLOSED_PREPARED.get();
+        int connections = 0;
+        for (GenericKeyedObjectPool<?, ?> cache : CACHES) {
+            connections++;
+            requests += cache.getBorrowedCount();
+            prepared += cache.getCreatedCount();
+        }
+        return new Snapshot(requests, prepared, connections);
+    }
+
+    /**
+     * Возвращает количество зарегистрированных кэшей соединений.
+     *
+     * @return количество кэшей
+     */
+    static int tracked() {
+        return CACHES.size();
+    }
+
+    /**
+     * Вспомогательный метод удаляет кэши закрытых соединений, сохраняя
+     * их счетчики.
+     */
+    private static void prune() {
+        for (GenericKeyedObjectPool<?, ?> cache : CACHES) {
+            if (cache.isClosed() && CACHES.remove(cache)) {
+                CLOSED_REQUESTS.addAndGet(cache.getBorrowedCount());
+                CLOSED_PREPARED.addAndGet(cache.getCreatedCount());
+            }
+        }
+    }
+
+    /**
+     * Статистика кэша подготовленных запросов.
+     *
+     * @param requests    количество запросов подготовки SQL запросов
+     * @param prepared    количество SQL запросов, подготовленных базой данных
+     * @param connections количество открытых соединений с кэшем
+     */
+    public record Snapshot(long requests, long prepared, int connections) {
+
+        /**
+         * Возвращает долю запросов, найденных в кэше.
+         *
+         * @return процент попаданий в кэш, 0 при отсутствии запросов
+         */
+        public int hitRate() {
+            return requests == 0 ? 0 : (int) ((requests - prepared) * 100 / requests);
+        }
+    }
+}
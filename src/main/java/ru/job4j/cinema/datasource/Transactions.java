@@ -0,0 +1,365 @@
+package ru.job4j.cinema.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Транзакции уровня сервиса. Внутри блока {@link #inTransaction(Supplier)}
+ * методы хранилищ получают через {@link #connection(DataSource)} одно
+ * соединение на источник данных, привязанное к потоку, и выполняют запросы
+ * в одной транзакции. Соединение берется из пула при первом запросе
+ * к источнику данных, транзакция фиксируется один раз при выходе из блока
+ * и отменяется, если блок завершился исключением. Вложенный блок выполняется
+ * в транзакции внешнего блока. Если транзакция отмечена для отмены
+ * ({@link #setRollbackOnly()}), она отменяется, а внешний блок выбрасывает
+ * IllegalStateException вместо возврата результата, поэтому вызывающий
+ * не примет результат отмененной транзакции за зафиксированный.
+ * <p>
+ * Привязанное соединение не закрывается хранилищем, а вызовы commit
+ * и setAutoCommit хранилища не действуют; вызов rollback отмечает
+ * транзакцию для отмены. Если блок обращался к нескольким базам данных
+ * (шардам), транзакции фиксируются по очереди без двухфазной фиксации.
+ * Вне блока соединение берется из пула как обычно.
+ * <p>
+ * Изменения состояния в памяти (кэшей, состояний мест, статистики),
+ * соответствующие изменениям в базе данных, регистрируются через
+ * {@link #afterCommit(Runnable)} и выполняются только после фиксации
+ * транзакции, когда соединения уже возвращены в пул. Действия,
+ * зарегистрированные через {@link #afterCompletion(Runnable)}, выполняются
+ * после завершения транзакции независимо от ее результата.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Slf4j
+public final class Transactions {
+
+    /**
+     * Транзакция текущего потока
+     */
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Закрытый конструктор служебного класса.
+     */
+    private Transactions() {
+    }
+
+    /**
+     * Выполняет действие в транзакции. Если поток уже выполняет транзакцию,
+     * действие выполняется в ней.
+     *
+     * @param action действие
+     * @param <T>    тип результата действия
+     * @return результат действия
+     * @throws IllegalStateException если транзакция не зафиксирована
+     *                               или отменена, так как была отмечена
+     *                               для отмены
+     */
+    public static <T> T inTransaction(Supplier<T> action) {
+        if (CURRENT.get() != null) {
+            return action.get();
+        }
+        Transaction transaction = new Transaction();
+        CURRENT.set(transaction);
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            CURRENT.remove();
+            try {
+                transaction.complete(false);
+            } finally {
+                runAll(transaction.afterCompletion);
+            }
+            throw e;
+        }
+        CURRENT.remove();
+        try {
+            transaction.complete(!transaction.rollbackOnly);
+            if (!transaction.rollbackOnly) {
+                runAll(transaction.afterCommit);
+            }
+        } finally {
+            runAll(transaction.afterCompletion);
+        }
+        if (transaction.rollbackOnly) {
+            throw new IllegalStateException("Транзакция отменена");
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет действие без результата в транзакции.
+     *
+     * @param action действие
+     * @throws IllegalStateException если транзакция не зафиксирована
+     *                               или отменена
+     */
+    public static void inTransaction(Runnable action) {
+        inTransaction(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Регистрирует действие, выполняемое после фиксации транзакции потока.
+     * Если поток не выполняет транзакцию, действие выполняется сразу.
+     * При отмене транзакции действие не выполняется. Действия выполняются
+     * в порядке регистрации после возврата соединений транзакции в пул,
+     * поэтому в них можно брать мониторы, под которыми выполняются запросы
+     * к базе данных, без риска взаимной блокировки с ожиданием соединения.
+     *
+     * @param action действие
+     */
+    public static void afterCommit(Runnable action) {
+        Transaction transaction = CURRENT.get();
+        if (transaction == null) {
+            action.run();
+        } else {
+            transaction.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Регистрирует действие, выполняемое после завершения транзакции потока
+     * фиксацией или отменой, после действий {@link #afterCommit(Runnable)}.
+     * Если поток не выполняет транзакцию, действие выполняется сразу.
+     *
+     * @param action действие
+     */
+    public static void afterCompletion(Runnable action) {
+        Transaction transaction = CURRENT.get();
+        if (transaction == null) {
+            action.run();
+        } else {
+            transaction.afterCompletion.add(action);
+        }
+    }
+
+    /**
+     * Отмечает транзакцию потока для отмены: хранилище вызывает метод, если
+     * запрос в транзакции завершился ошибкой, которую хранилище не передает
+     * вызывающему. Вне транзакции вызов не действует.
+     */
+    public static void setRollbackOnly() {
+        Transaction transaction = CURRENT.get();
+        if (transaction != null) {
+            transaction.rollbackOnly = true;
+        }
+    }
+
+    /**
+     * Выполняет проверку, отмечена ли транзакция потока для отмены.
+     *
+     * @return true, если поток выполняет транзакцию, отмеченную для отмены
+     */
+    public static boolean isRollbackOnly() {
+        Transaction transaction = CURRENT.get();
+        return transaction != null && transaction.rollbackOnly;
+    }
+
+    /**
+     * Выполняет проверку, выполняет ли поток транзакцию.
+     *
+     * @return true, если поток выполняет транзакцию
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Возвращает соединение с источником данных: в транзакции - соединение
+     * транзакции, иначе соединение из пула.
+     *
+     * @param dataSource источник данных
+     * @return соединение
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    public static Connection connection(DataSource dataSource) throws SQLException {
+        Transaction transaction = CURRENT.get();
+        return transaction == null
+                ? StatementCacheMetrics.track(dataSource.getConnection())
+                : transaction.bind(dataSource);
+    }
+
+    /**
+     * Вспомогательный метод выполняет действия, зарегистрированные для
+     * выполнения после фиксации или завершения транзакции. Исключение
+     * действия не прерывает выполнение остальных действий, так как
+     * транзакция уже завершена.
+     *
+     * @param actions действия
+     */
+    private static void runAll(List<Runnable> actions) {
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.info("Исключение в методе runAll() класса Transactions ", e);
+            }
+        }
+    }
+
+    /**
+     * Транзакция потока: соединения по источникам данных
+     */
+    private static final class Transaction {
+
+        /**
+         * Соединения транзакции по источникам данных
+         */
+        private final Map<DataSource, Connection> connections = new IdentityHashMap<>();
+
+        /**
+         * Действия, выполняемые после фиксации транзакции
+         */
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        /**
+         * Действия, выполняемые после завершения транзакции
+         */
+        private final List<Runnable> afterCompletion = new ArrayList<>();
+
+        /**
+         * Признак обязательной отмены транзакции
+         */
+        private boolean rollbackOnly;
+
+        /**
+         * Возвращает соединение транзакции с источником данных, открывая
+         * его при первом обращении.
+         *
+         * @param dataSource источник данных
+         * @return соединение, которое не закрывается хранилищем
+         * @throws SQLException если происходит ошибка доступа к базе данных
+         */
+        private Connection bind(DataSource dataSource) throws SQLException {
+            Connection connection = connections.get(dataSource);
+            if (connection == null) {
+                connection = StatementCacheMetrics.track(dataSource.getConnection());
+                try {
+                    connection.setAutoCommit(false);
+                } catch (SQLException e) {
+                    connection.close();
+                    throw e;
+                }
+                connections.put(dataSource, connection);
+            }
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new BoundConnection(connection, this));
+        }
+
+        /**
+         * Выполняет фиксацию или отмену транзакции и возврат соединений в пул.
+         * Если фиксация не выполнена, остальные соединения отменяются.
+         *
+         * @param commit true для фиксации, false для отмены
+         * @throws IllegalStateException если транзакция не зафиксирована
+         */
+        private void complete(boolean commit) {
+            SQLException failure = null;
+            for (Connection connection : connections.values()) {
+                try {
+                    if (commit && failure == null) {
+                        connection.commit();
+                    } else {
+                        connection.rollback();
+                    }
+                } catch (SQLException e) {
+                    log.info("Исключение в методе complete() класса Transactions ", e);
+                    failure = failure == null ? e : failure;
+                } finally {
+                    release(connection);
+                }
+            }
+            if (commit && failure != null) {
+                throw new IllegalStateException("Транзакция не зафиксирована", failure);
+            }
+        }
+
+        /**
+         * Вспомогательный метод восстанавливает автоматическую фиксацию
+         * и возвращает соединение в пул.
+         *
+         * @param connection соединение
+         */
+        private static void release(Connection connection) {
+            try (connection) {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.info("Исключение в методе release() класса Transactions ", e);
+            }
+        }
+    }
+
+    /**
+     * Обработчик вызовов соединения транзакции, выдаваемого хранилищам
+     */
+    private static final class BoundConnection implements InvocationHandler {
+
+        /**
+         * Соединение транзакции
+         */
+        private final Connection connection;
+
+        /**
+         * Транзакция
+         */
+        private final Transaction transaction;
+
+        /**
+         * Конструктор класса.
+         *
+         * @param connection  соединение транзакции
+         * @param transaction транзакция
+         */
+        private BoundConnection(Connection connection, Transaction transaction) {
+            this.connection = connection;
+            this.transaction = transaction;
+        }
+
+        /**
+         * Выполняет вызов метода соединения. Закрытие, фиксация и изменение
+         * автоматической фиксации не выполняются, отмена отмечает транзакцию.
+         *
+         * @param proxy  соединение, выданное хранилищу
+         * @param method метод
+         * @param args   аргументы
+         * @return результат метода
+         * @throws Throwable исключение метода соединения
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name) || "commit".equals(name) || "setAutoCommit".equals(name)) {
+                return null;
+            }
+            if ("rollback".equals(name) && args == null) {
+                transaction.rollbackOnly = true;
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return false;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
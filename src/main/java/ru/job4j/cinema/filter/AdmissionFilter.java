@@ -0,0 +1,133 @@
+package ru.job4j.cinema.filter;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.service.AdmissionQueue;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Сервлетный фильтр очереди допуска. Запросы к страницам выбора сеанса
+ * и покупки билетов пропускаются только при наличии в сессии действующего
+ * пропуска, остальные пользователи ставятся в очередь {@link AdmissionQueue}
+ * и перенаправляются на страницу ожидания. Фильтр выполняется после
+ * проверки аутентификации, поэтому в очередь попадают только вошедшие
+ * пользователи.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Component
+public class AdmissionFilter implements Filter {
+
+    /**
+     * Имя атрибута сессии с номером в очереди
+     */
+    public static final String NUMBER = "admissionNumber";
+
+    /**
+     * Имя атрибута сессии с временем окончания действия пропуска
+     */
+    public static final String PASS_UNTIL = "admissionPassUntil";
+
+    /**
+     * Имя атрибута сессии со страницей, запрошенной до постановки в очередь
+     */
+    public static final String TARGET = "admissionTarget";
+
+    /**
+     * Пути, доступные только допущенным пользователям
+     */
+    private static final Set<String> GUARDED_PATHS = Set.of(
+            "/shows", "/showRow", "/showCell", "/recommendSeats",
+            "/buyTicket", "/confirmBuyTicket", "/searchShows");
+
+    /**
+     * Очередь допуска
+     */
+    private final AdmissionQueue queue;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param queue очередь допуска
+     */
+    public AdmissionFilter(AdmissionQueue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Выполняет проверку пропуска для защищенных путей. Если пропуска нет,
+     * пользователь ставится в очередь; если номер сразу допущен, выдается
+     * пропуск и запрос обрабатывается, иначе выполняется перенаправление
+     * на страницу ожидания. При выключенной очереди запросы не проверяются.
+     *
+     * @param request  запрос пользователя
+     * @param response ответ пользователю
+     * @param chain    цепочка фильтров
+     * @throws IOException      может выбрасывать исключение ввода вывода
+     * @throws ServletException может выбрасывать исключение ввода вывода
+     */
+    @Override
+    public void doFilter(
+            ServletRequest request,
+            ServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+        String path = req.getRequestURI().substring(req.getContextPath().length());
+        if (!queue.isEnabled() || !GUARDED_PATHS.contains(path)) {
+            chain.doFilter(req, res);
+            return;
+        }
+        HttpSession session = req.getSession();
+        if (hasPass(session) || admit(session)) {
+            chain.doFilter(req, res);
+            return;
+        }
+        if ("GET".equals(req.getMethod())) {
+            session.setAttribute(TARGET, path);
+        }
+        res.sendRedirect(req.getContextPath() + "/waitingRoom");
+    }
+
+    /**
+     * Выполняет проверку наличия в сессии действующего пропуска.
+     *
+     * @param session сессия пользователя
+     * @return true, если пропуск действует
+     */
+    public static boolean hasPass(HttpSession session) {
+        Long until = (Long) session.getAttribute(PASS_UNTIL);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Выполняет постановку пользователя в очередь, если он еще не в очереди
+     * или номер выдан до перезапуска приложения, и выдачу пропуска,
+     * если номер пользователя допущен.
+     *
+     * @param session сессия пользователя
+     * @return true, если пропуск выдан
+     */
+    private boolean admit(HttpSession session) {
+        Long number = (Long) session.getAttribute(NUMBER);
+        if (number == null || !queue.isIssued(number)) {
+            number = queue.join();
+            session.setAttribute(NUMBER, number);
+        }
+        if (queue.position(number) > 0) {
+            return false;
+        }
+        session.removeAttribute(NUMBER);
+        session.setAttribute(PASS_UNTIL, queue.passExpiresAt());
+        return true;
+    }
+}
@@ -1,14 +1,14 @@
 package ru.job4j.cinema.filter;
 
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Сервлетный фильтр
@@ -16,21 +16,24 @@ import java.util.Set;
  * @author Alexander Emelyanov
  * @version 1.0
  */
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
 @Component
 public class AuthFilter implements Filter {
+
     /**
-     * Строковый список html ресурсов доступных без аутентификации
+     * Префиксы путей статических ресурсов, доступных без аутентификации
      */
-    private final Set<String> mappings = new HashSet<>(
-            Arrays.asList("login", "registration", "/"));
+    private static final String[] PUBLIC_PREFIXES = {"/img/"};
 
     /**
      * Выполняет проверку, находится ли запрашиваемый ресурс
      * в списке разрешенных без аутентификации. Если ресурс в разрешенном списке,
-     * то передаем управление следующему в цепочке фильтру, иначе выполняется проверка
-     * на наличие в сессии пользователя, если его нет, то выполняется перенаправление
-     * на страницу с формами для входа пользователя. Если пользователь в сессии
-     * присутствует, выполняется передача управления следующему в цепочке фильтру.
+     * то передаем управление следующему в цепочке фильтру без обращения
+     * к сессии, иначе выполняется проверка на наличие в сессии пользователя,
+     * если его нет, то выполняется перенаправление на страницу с формами
+     * для входа пользователя. Сессия при проверке не создается. Если
+     * пользователь в сессии присутствует, выполняется передача управления
+     * следующему в цепочке фильтру.
      *
      * @param request  запрос пользователя
      * @param response ответ пользователю
@@ -45,12 +48,13 @@ public class AuthFilter implements Filter {
             FilterChain chain) throws IOException, ServletException {
         HttpServletRequest req = (HttpServletRequest) request;
         HttpServletResponse res = (HttpServletResponse) response;
-        String uri = req.getRequestURI();
-        if (isAllowed(uri)) {
+        String path = req.getRequestURI().substring(req.getContextPath().length());
+        if (isAllowed(path)) {
             chain.doFilter(req, res);
             return;
         }
-        if (req.getSession().getAttribute("user") == null) {
+        HttpSession session = req.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
             res.sendRedirect(req.getContextPath() + "/login");
             return;
         }
@@ -59,12 +63,32 @@ public class AuthFilter implements Filter {
 
     /**
      * Вспомогательный метод проверяющий находится ли запрашиваемый ресурс
-     * в списке ресурсов разрешенных без аутентификации.
+     * в списке ресурсов разрешенных без аутентификации. Точные пути
+     * проверяются оператором switch, статические ресурсы - по префиксу.
      *
-     * @param uri идентификатор пользователя
+     * @param path путь запроса без контекста приложения
      * @return true при успешном нахождении, иначе false
      */
-    private boolean isAllowed(String uri) {
-        return mappings.stream().anyMatch(uri::endsWith);
+    private static boolean isAllowed(String path) {
+        return switch (path) {
+            case "/", "/login", "/registration", "/registration/check" -> true;
+            default -> hasPublicPrefix(path);
+        };
+    }
+
+    /**
+     * Вспомогательный метод проверяющий, относится ли путь к статическим
+     * ресурсам, доступным без аутентификации.
+     *
+     * @param path путь запроса без контекста приложения
+     * @return true, если путь начинается с публичного префикса, иначе false
+     */
+    private static boolean hasPublicPrefix(String path) {
+        for (String prefix : PUBLIC_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,233 @@
+package ru.job4j.cinema.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.util.RateLimiter;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервлетный фильтр ограничения частоты запросов входа, регистрации
+ * и покупки билетов. Вход ограничивается по адресу клиента и по почтовому
+ * адресу учетной записи (защита от подбора пароля), регистрация и проверка
+ * занятости почтового адреса и номера телефона - по адресу клиента (защита
+ * от перебора зарегистрированных контактов), покупка билета - по пользователю
+ * и по адресу клиента.
+ * При превышении ограничения возвращается ответ 429 с заголовком
+ * Retry-After. Адрес клиента берется из req.getRemoteAddr(): за балансировщиком
+ * Tomcat (server.forward-headers-strategy=native) заменяет его адресом
+ * из заголовка X-Forwarded-For, если запрос пришел с адреса доверенного
+ * прокси server.tomcat.remoteip.internal-proxies, поэтому ограничения
+ * действуют для каждого клиента, а не для адреса балансировщика.
+ * Фильтр выполняется перед проверкой аутентификации,
+ * поэтому ограничение действует и для невошедших клиентов. Фильтр
+ * создается, если параметр rate-limit.enabled не равен false.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.util.RateLimiter
+ */
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE - 20)
+@Component
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter implements Filter {
+
+    /**
+     * Код ответа при превышении ограничения частоты запросов
+     */
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Путь проверки занятости почтового адреса и номера телефона
+     */
+    private static final String CHECK_PATH = "/registration/check";
+
+    /**
+     * Количество проверок занятости контактов на одну разрешенную регистрацию
+     */
+    private static final int CHECKS_PER_REGISTRATION = 10;
+
+    /**
+     * Ограничение входа по адресу клиента
+     */
+    private final RateLimiter loginByIp;
+
+    /**
+     * Ограничение входа по почтовому адресу учетной записи
+     */
+    private final RateLimiter loginByAccount;
+
+    /**
+     * Ограничение регистрации по адресу клиента
+     */
+    private final RateLimiter registrationByIp;
+
+    /**
+     * Ограничение проверок занятости контактов по адресу клиента
+     */
+    private final RateLimiter checkByIp;
+
+    /**
+     * Ограничение покупки билетов по адресу клиента
+     */
+    private final RateLimiter purchaseByIp;
+
+    /**
+     * Ограничение покупки билетов по пользователю
+     */
+    private final RateLimiter purchaseByUser;
+
+    /**
+     * Конструктор класса. Ограничения задаются количеством запросов
+     * за период period-seconds. Количество проверок занятости контактов
+     * с одного адреса в {@link #CHECKS_PER_REGISTRATION} раз больше
+     * количества регистраций: форма проверяет каждое заполненное поле.
+     *
+     * @param periodSeconds     период ограничения в секундах
+     * @param maxKeys           максимальное количество ключей каждого ограничения
+     * @param loginPerIp        количество входов с одного адреса
+     * @param loginPerAccount   количество входов в одну учетную запись
+     * @param registrationPerIp количество регистраций с одного адреса
+     * @param purchasePerIp     количество покупок с одного адреса
+     * @param purchasePerUser   количество покупок одного пользователя
+     */
+    public RateLimitFilter(
+            @Value("${rate-limit.period-seconds:60}") long periodSeconds,
+            @Value("${rate-limit.max-keys:100000}") int maxKeys,
+            @Value("${rate-limit.login.per-ip:30}") int loginPerIp,
+            @Value("${rate-limit.login.per-account:10}") int loginPerAccount,
+            @Value("${rate-limit.registration.per-ip:5}") int registrationPerIp,
+            @Value("${rate-limit.purchase.per-ip:120}") int purchasePerIp,
+            @Value("${rate-limit.purchase.per-user:20}") int purchasePerUser) {
+        this.loginByIp = new RateLimiter(loginPerIp, periodSeconds, maxKeys);
+        this.loginByAccount = new RateLimiter(loginPerAccount, periodSeconds, maxKeys);
+        this.registrationByIp = new RateLimiter(registrationPerIp, periodSeconds, maxKeys);
+        this.checkByIp = new RateLimiter(
+                registrationPerIp * CHECKS_PER_REGISTRATION, periodSeconds, maxKeys);
+        this.purchaseByIp = new RateLimiter(purchasePerIp, periodSeconds, maxKeys);
+        this.purchaseByUser = new RateLimiter(purchasePerUser, periodSeconds, maxKeys);
+    }
+
+    /**
+     * Выполняет проверку ограничений частоты для POST запросов входа,
+     * регистрации и подтверждения покупки билета, а также для запросов
+     * проверки занятости контактов. Остальные запросы передаются следующему
+     * в цепочке фильтру без проверки.
+     *
+     * @param request  запрос пользователя
+     * @param response ответ пользователю
+     * @param chain    цепочка фильтров
+     * @throws IOException      может выбрасывать исключение ввода вывода
+     * @throws ServletException может выбрасывать исключение ввода вывода
+     */
+    @Override
+    public void doFilter(
+            ServletRequest request,
+            ServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+        String path = req.getRequestURI().substring(req.getContextPath().length());
+        if (!"POST".equals(req.getMethod()) && !CHECK_PATH.equals(path)) {
+            chain.doFilter(req, res);
+            return;
+        }
+        long wait = check(path, req);
+        if (wait > 0) {
+            log.info("Превышена частота запросов {} с адреса {}", path, req.getRemoteAddr());
+            res.setHeader("Retry-After",
+                    String.valueOf(TimeUnit.NANOSECONDS.toSeconds(wait) + 1));
+            res.sendError(TOO_MANY_REQUESTS, "Слишком много запросов, повторите позже");
+            return;
+        }
+        chain.doFilter(req, res);
+    }
+
+    /**
+     * Выполняет удаление корзин ограничений, полностью наполнившихся
+     * за время бездействия клиентов.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.evict-ms:60000}")
+    public void evictIdle() {
+        loginByIp.evictIdle();
+        loginByAccount.evictIdle();
+        registrationByIp.evictIdle();
+        checkByIp.evictIdle();
+        purchaseByIp.evictIdle();
+        purchaseByUser.evictIdle();
+    }
+
+    /**
+     * Вспомогательный метод проверяет ограничения, относящиеся к пути запроса.
+     * Маркер по второму ограничению берется, только если разрешено первое.
+     *
+     * @param path путь запроса без контекста приложения
+     * @param req  запрос пользователя
+     * @return 0, если запрос разрешен, иначе время до разрешения в наносекундах
+     */
+    private long check(String path, HttpServletRequest req) {
+        String ip = req.getRemoteAddr();
+        return switch (path) {
+            case "/login" -> firstDenied(loginByIp.tryAcquire(ip),
+                    loginByAccount, accountKey(req));
+            case "/registration" -> registrationByIp.tryAcquire(ip);
+            case CHECK_PATH -> checkByIp.tryAcquire(ip);
+            case "/confirmBuyTicket" -> firstDenied(purchaseByIp.tryAcquire(ip),
+                    purchaseByUser, userKey(req));
+            default -> 0;
+        };
+    }
+
+    /**
+     * Вспомогательный метод возвращает результат первого ограничения,
+     * если запрос им запрещен, иначе результат второго ограничения.
+     *
+     * @param first   результат первого ограничения
+     * @param limiter второе ограничение
+     * @param key     ключ второго ограничения, null, если ключа нет
+     * @return 0, если запрос разрешен, иначе время до разрешения в наносекундах
+     */
+    private static long firstDenied(long first, RateLimiter limiter, String key) {
+        if (first > 0 || key == null) {
+            return first;
+        }
+        return limiter.tryAcquire(key);
+    }
+
+    /**
+     * Вспомогательный метод возвращает почтовый адрес учетной записи
+     * из формы входа.
+     *
+     * @param req запрос пользователя
+     * @return почтовый адрес в нижнем регистре или null
+     */
+    private static String accountKey(HttpServletRequest req) {
+        String email = req.getParameter("email");
+        return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Вспомогательный метод возвращает идентификатор пользователя сессии.
+     *
+     * @param req запрос пользователя
+     * @return идентификатор пользователя или null
+     */
+    private static String userKey(HttpServletRequest req) {
+        HttpSession session = req.getSession(false);
+        Object user = session == null ? null : session.getAttribute("user");
+        return user instanceof User sessionUser ? String.valueOf(sessionUser.getId()) : null;
+    }
+}
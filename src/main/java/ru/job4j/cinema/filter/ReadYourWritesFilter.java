@@ -0,0 +1,65 @@
+package ru.job4j.cinema.filter;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.datasource.ReadRouting;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+
+/**
+ * Сервлетный фильтр чтения своих записей. Время, до которого чтение
+ * выполняется с основной базы данных после записи, хранится в сессии
+ * пользователя и привязывается к потоку на время обработки запроса,
+ * поэтому после покупки билета или регистрации следующие запросы
+ * пользователя не читают с отстающей реплики.
+ * <p>
+ * Новое время сохраняется в сессии в момент записи, а не после обработки
+ * запроса: перенаправление после записи фиксирует ответ и записывает сессию
+ * в хранилище ({@link SessionStoreFilter}) до возврата из цепочки фильтров,
+ * и следующий запрос пользователя мог бы прочитать сессию без отметки.
+ * Если сессии нет, она создается, так как запись без сессии выполняется
+ * только при регистрации, после которой пользователь входит в систему.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ReadRouting
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@Component
+public class ReadYourWritesFilter implements Filter {
+
+    /**
+     * Имя атрибута сессии с временем чтения с основной базы данных
+     */
+    public static final String PRIMARY_UNTIL = "dbPrimaryUntil";
+
+    /**
+     * Выполняет привязку к потоку времени чтения с основной базы данных
+     * из сессии и обработчика записи, сохраняющего новое время в сессии.
+     *
+     * @param request  запрос пользователя
+     * @param response ответ пользователю
+     * @param chain    цепочка фильтров
+     * @throws IOException      может выбрасывать исключение ввода вывода
+     * @throws ServletException может выбрасывать исключение ввода вывода
+     */
+    @Override
+    public void doFilter(
+            ServletRequest request,
+            ServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpSession session = req.getSession(false);
+        Long bound = session == null ? null : (Long) session.getAttribute(PRIMARY_UNTIL);
+        ReadRouting.bind(bound, until -> req.getSession().setAttribute(PRIMARY_UNTIL, until));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.clear();
+        }
+    }
+}
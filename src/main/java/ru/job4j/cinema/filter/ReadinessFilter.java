@@ -0,0 +1,84 @@
+package ru.job4j.cinema.filter;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Сервлетный фильтр готовности приложения. Tomcat принимает запросы
+ * до выполнения ApplicationRunner, в том числе прогрева приложения
+ * ({@link ru.job4j.cinema.service.StartupWarmUp}), поэтому до события
+ * ApplicationReadyEvent, которое публикуется после выполнения всех
+ * ApplicationRunner, на все запросы возвращается ответ 503 с заголовком
+ * Retry-After. Путь {@link #READY_PATH} используется балансировщиком
+ * как проверка готовности: до готовности он возвращает 503, после - 200.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class ReadinessFilter implements Filter {
+
+    /**
+     * Путь проверки готовности приложения
+     */
+    public static final String READY_PATH = "/ready";
+
+    /**
+     * Время в секундах, через которое клиенту следует повторить запрос
+     */
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    /**
+     * Признак готовности приложения к обработке запросов
+     */
+    private volatile boolean ready;
+
+    /**
+     * Отмечает приложение готовым к обработке запросов после выполнения
+     * всех ApplicationRunner.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        ready = true;
+    }
+
+    /**
+     * Выполняет проверку готовности приложения. До готовности возвращает
+     * ответ 503, запрос проверки готовности после готовности получает
+     * ответ 200, остальные запросы передаются следующему в цепочке фильтру.
+     *
+     * @param request  запрос пользователя
+     * @param response ответ пользователю
+     * @param chain    цепочка фильтров
+     * @throws IOException      может выбрасывать исключение ввода вывода
+     * @throws ServletException может выбрасывать исключение ввода вывода
+     */
+    @Override
+    public void doFilter(
+            ServletRequest request,
+            ServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+        if (!ready) {
+            res.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        if (READY_PATH.equals(req.getServletPath())) {
+            res.setContentType("text/plain");
+            res.getWriter().write("OK");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
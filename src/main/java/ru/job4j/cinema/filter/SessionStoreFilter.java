@@ -0,0 +1,432 @@
+package ru.job4j.cinema.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.session.SessionData;
+import ru.job4j.cinema.session.SessionStore;
+import ru.job4j.cinema.session.StoredSession;
+
+import javax.servlet.*;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+
+/**
+ * Сервлетный фильтр, заменяющий сессию контейнера сервлетов сессией
+ * из внешнего хранилища {@link SessionStore}. Идентификатор сессии
+ * передается в cookie, состояние сессии не хранится в памяти узла.
+ * Сессия записывается в хранилище до фиксации ответа (перенаправление,
+ * отправка ошибки, сброс буфера или потока ответа), чтобы следующий
+ * запрос пользователя, отправленный сразу после получения ответа,
+ * уже нашел ее в хранилище.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Component
+public class SessionStoreFilter implements Filter {
+
+    /**
+     * Имя cookie с идентификатором сессии
+     */
+    public static final String COOKIE_NAME = "CINEMA_SESSION";
+
+    /**
+     * Минимальный интервал обновления времени последнего обращения
+     * к неизмененной сессии в миллисекундах
+     */
+    private static final long TOUCH_INTERVAL = 60_000;
+
+    /**
+     * Генератор идентификаторов сессий
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Хранилище сессий
+     */
+    private final SessionStore sessionStore;
+
+    /**
+     * Максимальный интервал бездействия сессии в секундах
+     */
+    private final int timeout;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param sessionStore хранилище сессий
+     * @param timeout      максимальный интервал бездействия сессии в секундах
+     */
+    public SessionStoreFilter(SessionStore sessionStore,
+                              @Value("${session.timeout:1800}") int timeout) {
+        this.sessionStore = sessionStore;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Выполняет подмену запроса на обертку, выдающую сессию из внешнего
+     * хранилища, и ответа на обертку, записывающую сессию перед фиксацией
+     * ответа. Если ответ не был зафиксирован при обработке запроса, сессия
+     * записывается после обработки, до фиксации ответа контейнером.
+     *
+     * @param request  запрос пользователя
+     * @param response ответ пользователю
+     * @param chain    цепочка фильтров
+     * @throws IOException      может выбрасывать исключение ввода вывода
+     * @throws ServletException может выбрасывать исключение ввода вывода
+     */
+    @Override
+    public void doFilter(
+            ServletRequest request,
+            ServletResponse response,
+            FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+        StoreRequestWrapper wrapper = new StoreRequestWrapper(req, res);
+        try {
+            chain.doFilter(wrapper, new StoreResponseWrapper(res, wrapper));
+        } finally {
+            wrapper.commit();
+        }
+    }
+
+    /**
+     * Выполняет периодическое удаление сессий с истекшим сроком действия.
+     */
+    @Scheduled(fixedDelayString = "${session.store.cleanup-ms:600000}")
+    public void deleteExpiredSessions() {
+        int count = sessionStore.deleteExpired(System.currentTimeMillis());
+        log.debug("Удалено сессий с истекшим сроком действия: {}", count);
+    }
+
+    /**
+     * Вспомогательный метод генерирует новый идентификатор сессии.
+     *
+     * @return идентификатор сессии
+     */
+    private String generateId() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Обертка запроса, выдающая сессию из внешнего хранилища.
+     */
+    private class StoreRequestWrapper extends HttpServletRequestWrapper {
+
+        /**
+         * Ответ пользователю
+         */
+        private final HttpServletResponse response;
+
+        /**
+         * Сессия текущего запроса
+         */
+        private StoredSession session;
+
+        /**
+         * Признак выполненного поиска сессии в хранилище
+         */
+        private boolean resolved;
+
+        /**
+         * Время последнего обращения к сессии до текущего запроса
+         */
+        private long previousAccess;
+
+        /**
+         * Конструктор класса.
+         *
+         * @param request  запрос пользователя
+         * @param response ответ пользователю
+         */
+        StoreRequestWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(request);
+            this.response = response;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        /**
+         * Возвращает сессию из хранилища. Хранилище опрашивается не более
+         * одного раза за запрос. Если сессия не найдена и create равен true,
+         * создается новая сессия и пользователю отправляется cookie.
+         *
+         * @param create true, если при отсутствии сессии ее необходимо создать
+         * @return сессия или null
+         */
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session != null && !session.isInvalidated()) {
+                return session;
+            }
+            if (!resolved) {
+                resolved = true;
+                String id = requestedId();
+                if (id != null) {
+                    sessionStore.load(id).ifPresent(data -> {
+                        previousAccess = data.getLastAccessedTime();
+                        data.setLastAccessedTime(System.currentTimeMillis());
+                        session = new StoredSession(data, getServletContext(), false);
+                    });
+                }
+                if (session != null) {
+                    return session;
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            if (session != null) {
+                sessionStore.delete(session.getId());
+            }
+            long now = System.currentTimeMillis();
+            session = new StoredSession(
+                    new SessionData(generateId(), now, now, timeout, new HashMap<>()),
+                    getServletContext(), true);
+            writeCookie(session.getId(), -1);
+            return session;
+        }
+
+        @Override
+        public String changeSessionId() {
+            HttpSession current = getSession(false);
+            if (current == null) {
+                throw new IllegalStateException("Сессия отсутствует");
+            }
+            sessionStore.delete(session.getId());
+            session.getData().setId(generateId());
+            session.markDirty();
+            writeCookie(session.getId(), -1);
+            return session.getId();
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            HttpSession current = getSession(false);
+            return current != null && !current.isNew();
+        }
+
+        /**
+         * Выполняет запись сессии в хранилище перед фиксацией ответа или
+         * по завершении запроса. Неизмененная сессия перезаписывается не чаще
+         * одного раза в {@link #TOUCH_INTERVAL} для продления срока ее
+         * действия. Повторный вызов записывает только изменения, сделанные
+         * после предыдущей записи.
+         */
+        void commit() {
+            if (session == null) {
+                return;
+            }
+            SessionData data = session.getData();
+            if (session.isInvalidated()) {
+                sessionStore.delete(data.getId());
+                if (!response.isCommitted()) {
+                    writeCookie("", 0);
+                }
+                return;
+            }
+            if (session.isDirty() || data.getLastAccessedTime() - previousAccess > TOUCH_INTERVAL) {
+                sessionStore.save(data);
+                session.markSaved();
+                previousAccess = data.getLastAccessedTime();
+            }
+        }
+
+        /**
+         * Вспомогательный метод извлекает идентификатор сессии из cookie.
+         *
+         * @return идентификатор сессии или null
+         */
+        private String requestedId() {
+            Cookie[] cookies = getCookies();
+            if (cookies == null) {
+                return null;
+            }
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Вспомогательный метод отправляет пользователю cookie сессии.
+         *
+         * @param value  идентификатор сессии
+         * @param maxAge время жизни cookie в секундах
+         */
+        private void writeCookie(String value, int maxAge) {
+            Cookie cookie = new Cookie(COOKIE_NAME, value);
+            String path = getContextPath();
+            cookie.setPath(path.isEmpty() ? "/" : path);
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge(maxAge);
+            response.addCookie(cookie);
+        }
+    }
+
+    /**
+     * Обертка ответа, записывающая сессию в хранилище перед фиксацией ответа.
+     */
+    private static class StoreResponseWrapper extends HttpServletResponseWrapper {
+
+        /**
+         * Обертка запроса с сессией текущего запроса
+         */
+        private final StoreRequestWrapper request;
+
+        /**
+         * Поток ответа
+         */
+        private ServletOutputStream outputStream;
+
+        /**
+         * Символьный поток ответа
+         */
+        private PrintWriter writer;
+
+        /**
+         * Конструктор класса.
+         *
+         * @param response ответ пользователю
+         * @param request  обертка запроса с сессией текущего запроса
+         */
+        StoreResponseWrapper(HttpServletResponse response, StoreRequestWrapper request) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            request.commit();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            request.commit();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            request.commit();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            request.commit();
+            super.flushBuffer();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new StoreOutputStream(super.getOutputStream(), request);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(super.getWriter()) {
+                    @Override
+                    public void flush() {
+                        request.commit();
+                        super.flush();
+                    }
+
+                    @Override
+                    public void close() {
+                        request.commit();
+                        super.close();
+                    }
+                };
+            }
+            return writer;
+        }
+    }
+
+    /**
+     * Поток ответа, записывающий сессию в хранилище перед сбросом
+     * и закрытием потока.
+     */
+    private static class StoreOutputStream extends ServletOutputStream {
+
+        /**
+         * Поток ответа контейнера сервлетов
+         */
+        private final ServletOutputStream delegate;
+
+        /**
+         * Обертка запроса с сессией текущего запроса
+         */
+        private final StoreRequestWrapper request;
+
+        /**
+         * Конструктор класса.
+         *
+         * @param delegate поток ответа контейнера сервлетов
+         * @param request  обертка запроса с сессией текущего запроса
+         */
+        StoreOutputStream(ServletOutputStream delegate, StoreRequestWrapper request) {
+            this.delegate = delegate;
+            this.request = request;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            request.commit();
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            request.commit();
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
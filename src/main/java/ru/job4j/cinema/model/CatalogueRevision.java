@@ -0,0 +1,26 @@
+package ru.job4j.cinema.model;
+
+import lombok.*;
+
+/**
+ * Версия каталога сеансов, хранимая в базе данных
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.CatalogueVersion
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class CatalogueRevision {
+    /**
+     * Номер версии каталога
+     */
+    private final long version;
+
+    /**
+     * Время последнего изменения каталога в миллисекундах
+     */
+    private final long modifiedAt;
+}
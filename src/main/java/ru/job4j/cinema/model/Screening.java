@@ -0,0 +1,41 @@
+package ru.job4j.cinema.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Модель данных показы сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class Screening {
+    /**
+     * Идентификатор показа
+     */
+    @EqualsAndHashCode.Include
+    private int id;
+
+    /**
+     * Сеанс показа
+     */
+    private Show show;
+
+    /**
+     * Номер кинозала
+     */
+    private int hall;
+
+    /**
+     * Время начала показа
+     */
+    private LocalDateTime startTime;
+}
@@ -0,0 +1,29 @@
+package ru.job4j.cinema.model;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Рекомендованные места для группы зрителей: подряд идущие
+ * свободные места одного ряда
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.SeatState
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class SeatRecommendation {
+    /**
+     * Номер ряда
+     */
+    private final int posRow;
+
+    /**
+     * Номера мест в порядке возрастания
+     */
+    private final List<Integer> cells;
+}
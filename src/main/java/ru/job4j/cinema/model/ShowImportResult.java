@@ -0,0 +1,34 @@
+package ru.job4j.cinema.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Результат загрузки каталога сеансов. Если при проверке каталога
+ * найдены ошибки, сеансы не сохраняются.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class ShowImportResult {
+    /**
+     * Количество сохраненных сеансов
+     */
+    private final int imported;
+
+    /**
+     * Ошибки проверки каталога
+     */
+    private final List<String> errors;
+
+    /**
+     * Время загрузки в миллисекундах
+     */
+    private final long elapsedMillis;
+}
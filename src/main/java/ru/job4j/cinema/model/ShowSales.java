@@ -0,0 +1,57 @@
+package ru.job4j.cinema.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Статистика продаж билетов на сеанс
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class ShowSales {
+    /**
+     * Идентификатор сеанса
+     */
+    private final int showId;
+
+    /**
+     * Название сеанса
+     */
+    private final String showName;
+
+    /**
+     * Количество проданных билетов
+     */
+    private final int sold;
+
+    /**
+     * Количество мест в кинозале
+     */
+    private final int capacity;
+
+    /**
+     * Количество мест в ряде кинозала
+     */
+    private final int rowCapacity;
+
+    /**
+     * Количество проданных билетов по рядам, индекс - номер ряда минус один
+     */
+    private final List<Integer> rowSold;
+
+    /**
+     * Возвращает заполненность кинозала в процентах.
+     *
+     * @return процент проданных мест, от 0 до 100
+     */
+    public int getOccupancy() {
+        return capacity == 0 ? 0 : sold * 100 / capacity;
+    }
+}
@@ -23,7 +23,8 @@ public class Ticket {
     private int id;
 
     /**
-     * Сеанс билета
+     * Сеанс билета. В билете, прочитанном из хранилища, проинициализирован
+     * только идентификатор сеанса
      */
     private Show show;
 
@@ -38,7 +39,13 @@ public class Ticket {
     private int cell;
 
     /**
-     * Пользователь билета
+     * Пользователь билета. В билете, прочитанном из хранилища,
+     * проинициализирован только идентификатор пользователя
      */
     private User user;
+
+    /**
+     * Показ сеанса билета, null для билетов, купленных без выбора показа
+     */
+    private Screening screening;
 }
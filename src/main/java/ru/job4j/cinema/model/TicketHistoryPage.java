@@ -0,0 +1,31 @@
+package ru.job4j.cinema.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Страница истории покупок пользователя. Билеты упорядочены
+ * от последнего купленного к первому.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.model.TicketSummary
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class TicketHistoryPage {
+    /**
+     * Билеты страницы
+     */
+    private final List<TicketSummary> tickets;
+
+    /**
+     * Идентификатор билета, с которого начинается следующая страница
+     * (не включительно), null, если страница последняя
+     */
+    private final Integer nextBefore;
+}
@@ -0,0 +1,42 @@
+package ru.job4j.cinema.model;
+
+import lombok.*;
+
+/**
+ * Краткие данные билета для истории покупок пользователя
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.model.Ticket
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class TicketSummary {
+    /**
+     * Идентификатор билета
+     */
+    @EqualsAndHashCode.Include
+    private final int id;
+
+    /**
+     * Идентификатор сеанса
+     */
+    private final int showId;
+
+    /**
+     * Наименование сеанса
+     */
+    private final String showName;
+
+    /**
+     * Номер ряда билета
+     */
+    private final int posRow;
+
+    /**
+     * Номер кресла билета
+     */
+    private final int cell;
+}
@@ -0,0 +1,33 @@
+package ru.job4j.cinema.repository;
+
+import ru.job4j.cinema.model.CatalogueRevision;
+
+import java.util.Optional;
+
+/**
+ * Хранилище версии каталога сеансов, общей для всех узлов приложения
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.model.CatalogueRevision
+ */
+public interface CatalogueVersionRepository {
+
+    /**
+     * Возвращает текущую версию каталога. При успешном чтении возвращает
+     * Optional с версией. Иначе возвращает Optional.empty().
+     *
+     * @return Optional.of(revision) при успешном чтении, иначе Optional.empty()
+     */
+    Optional<CatalogueRevision> find();
+
+    /**
+     * Выполняет переход к новой версии каталога. В транзакции сервиса
+     * изменение выполняется в этой же транзакции. При успешном изменении
+     * возвращает Optional с новой версией. Иначе возвращает Optional.empty().
+     *
+     * @param modifiedAt время изменения каталога в миллисекундах
+     * @return Optional.of(revision) при успешном изменении, иначе Optional.empty()
+     */
+    Optional<CatalogueRevision> increment(long modifiedAt);
+}
@@ -0,0 +1,111 @@
+package ru.job4j.cinema.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+import ru.job4j.cinema.datasource.ReplicaRoutingDataSource;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.CatalogueRevision;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Реализация хранилища версии каталога сеансов. Версия хранится
+ * в единственной строке таблицы catalogue_version основной базы данных.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.model.CatalogueRevision
+ */
+@Slf4j
+@AllArgsConstructor
+@Repository
+public class JdbcCatalogueVersionRepository implements CatalogueVersionRepository {
+
+    /**
+     * SQL запрос по выбору версии каталога из таблицы catalogue_version
+     */
+    private static final String FIND_SELECT = """
+            SELECT version, modified_at FROM catalogue_version WHERE id = 1
+            """;
+
+    /**
+     * SQL запрос по увеличению версии каталога в таблице catalogue_version.
+     * Строка блокируется до завершения транзакции, поэтому одновременные
+     * изменения каталога получают разные номера версий
+     */
+    private static final String INCREMENT = """
+            UPDATE catalogue_version
+            SET version = version + 1, modified_at = GREATEST(modified_at, ?)
+            WHERE id = 1
+            """;
+
+    /**
+     * Объект для выполнения подключения к базе данных приложения
+     */
+    private final DataSource dataSource;
+
+    /**
+     * Возвращает текущую версию каталога. При успешном чтении возвращает
+     * Optional с версией. Иначе возвращает Optional.empty().
+     *
+     * @return Optional.of(revision) при успешном чтении, иначе Optional.empty()
+     */
+    @Override
+    public Optional<CatalogueRevision> find() {
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource)) {
+            return find(cn);
+        } catch (Exception e) {
+            log.info("Исключение в методе find() класса JdbcCatalogueVersionRepository ", e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Выполняет переход к новой версии каталога. В транзакции сервиса
+     * изменение выполняется в этой же транзакции. При успешном изменении
+     * возвращает Optional с новой версией. Иначе возвращает Optional.empty().
+     *
+     * @param modifiedAt время изменения каталога в миллисекундах
+     * @return Optional.of(revision) при успешном изменении, иначе Optional.empty()
+     */
+    @Override
+    public Optional<CatalogueRevision> increment(long modifiedAt) {
+        try (Connection cn = Transactions.connection(dataSource);
+             PreparedStatement ps = cn.prepareStatement(INCREMENT)
+        ) {
+            ps.setLong(1, modifiedAt);
+            if (ps.executeUpdate() > 0) {
+                return find(cn);
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе increment() класса JdbcCatalogueVersionRepository ", e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Вспомогательный метод выполняет чтение версии каталога
+     * через переданное соединение.
+     *
+     * @param cn соединение с базой данных
+     * @return Optional.of(revision) при наличии строки версии, иначе Optional.empty()
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static Optional<CatalogueRevision> find(Connection cn) throws SQLException {
+        try (PreparedStatement ps = cn.prepareStatement(FIND_SELECT);
+             ResultSet it = ps.executeQuery()
+        ) {
+            if (it.next()) {
+                return Optional.of(new CatalogueRevision(
+                        it.getLong("version"), it.getLong("modified_at")));
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,205 @@
+package ru.job4j.cinema.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+import ru.job4j.cinema.datasource.ReplicaRoutingDataSource;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Реализация хранилища показов сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.model.Screening
+ */
+@Slf4j
+@AllArgsConstructor
+@Repository
+public class JdbcScreeningRepository implements ScreeningRepository {
+
+    /**
+     * SQL запрос по выбору показов из таблицы screenings, при выполнении
+     * запроса выполняется внутреннее соединение с таблицей shows
+     */
+    private static final String FIND_ALL_SELECT = """
+            SELECT
+                sc.id,
+                sc.show_id,
+                sc.hall,
+                sc.start_time,
+                s.name,
+                s.description,
+                s.postername
+            FROM screenings sc
+            JOIN shows s
+                ON sc.show_id = s.id
+            """;
+
+    /**
+     * SQL запрос по выбору показов из таблицы screenings, начинающихся
+     * не раньше заданного времени. Фильтр и сортировка выполняются
+     * по индексу idx_screenings_start_time
+     */
+    private static final String FIND_STARTING_FROM_SELECT = FIND_ALL_SELECT + """
+            WHERE sc.start_time >= ?
+            ORDER BY sc.start_time
+            """;
+
+    /**
+     * SQL запрос по выбору показа из таблицы screenings с фильтром по id
+     */
+    private static final String FIND_BY_ID_SELECT = FIND_ALL_SELECT + """
+            WHERE sc.id = ?
+            """;
+
+    /**
+     * SQL запрос по добавлению строк в таблицу screenings
+     */
+    private static final String INSERT_INTO = """
+            INSERT INTO screenings(show_id, hall, start_time) VALUES (?, ?, ?)
+            """;
+
+    /**
+     * SQL запрос по удалению показов из таблицы screenings с фильтром по id
+     */
+    private static final String DELETE = """
+            DELETE FROM screenings WHERE id = ?
+            """;
+
+    /**
+     * Объект для выполнения подключения к базе данных приложения
+     */
+    private final DataSource dataSource;
+
+    /**
+     * Возвращает список показов, начинающихся не раньше заданного времени,
+     * в порядке времени начала.
+     *
+     * @param from время, с которого выбираются показы
+     * @return список показов
+     */
+    @Override
+    public List<Screening> findAllStartingFrom(LocalDateTime from) {
+        List<Screening> screenings = new ArrayList<>();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
+             PreparedStatement ps = cn.prepareStatement(FIND_STARTING_FROM_SELECT)
+        ) {
+            ps.setObject(1, from);
+            try (ResultSet it = ps.executeQuery()) {
+                while (it.next()) {
+                    screenings.add(getScreeningFromResultSet(it));
+                }
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе findAllStartingFrom() "
+                    + "класса JdbcScreeningRepository ", e);
+        }
+        return screenings;
+    }
+
+    /**
+     * Выполняет поиск показа по идентификатору. При успешном нахождении возвращает
+     * Optional с объектом показа. Иначе возвращает Optional.empty().
+     *
+     * @param id идентификатор показа
+     * @return Optional.of(screening) при успешном нахождении, иначе Optional.empty()
+     */
+    @Override
+    public Optional<Screening> findById(int id) {
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
+             PreparedStatement ps = cn.prepareStatement(FIND_BY_ID_SELECT)
+        ) {
+            ps.setInt(1, id);
+            try (ResultSet it = ps.executeQuery()) {
+                if (it.next()) {
+                    return Optional.of(getScreeningFromResultSet(it));
+                }
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе findById() класса JdbcScreeningRepository ", e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Выполняет сохранение показа. При успешном сохранении возвращает Optional с
+     * объектом показа, у которого проинициализировано id. Иначе возвращает Optional.empty()
+     *
+     * @param screening сохраняемый показ
+     * @return Optional.of(screening) при успешном сохранении, иначе Optional.empty()
+     */
+    @Override
+    public Optional<Screening> save(Screening screening) {
+        try (Connection cn = Transactions.connection(dataSource);
+             PreparedStatement ps = cn.prepareStatement(INSERT_INTO,
+                     PreparedStatement.RETURN_GENERATED_KEYS)
+        ) {
+            ps.setInt(1, screening.getShow().getId());
+            ps.setInt(2, screening.getHall());
+            ps.setObject(3, screening.getStartTime());
+            ps.execute();
+            try (ResultSet id = ps.getGeneratedKeys()) {
+                if (id.next()) {
+                    screening.setId(id.getInt(1));
+                    return Optional.of(screening);
+                }
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе save() класса JdbcScreeningRepository ", e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Выполняет удаление показа по идентификатору. При успешном
+     * удалении возвращает true, при неудачном false.
+     *
+     * @param id идентификатор показа
+     * @return true при успешном удалении показа, иначе false
+     */
+    @Override
+    public boolean deleteById(int id) {
+        try (Connection cn = Transactions.connection(dataSource);
+             PreparedStatement ps = cn.prepareStatement(DELETE)
+        ) {
+            ps.setInt(1, id);
+            if (ps.executeUpdate() > 0) {
+                return true;
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе deleteById() класса JdbcScreeningRepository ", e);
+        }
+        return false;
+    }
+
+    /**
+     * Вспомогательный метод выполняет создание
+     * объекта Screening из объекта ResultSet.
+     *
+     * @param it ResultSet SQL запроса к базе данных
+     * @return объект Screening
+     */
+    private static Screening getScreeningFromResultSet(ResultSet it) throws SQLException {
+        return new Screening(it.getInt("id"),
+                new Show(it.getInt("show_id"),
+                        it.getString("name"),
+                        it.getString("description"),
+                        it.getString("postername")
+                ),
+                it.getInt("hall"),
+                it.getObject("start_time", LocalDateTime.class));
+    }
+}
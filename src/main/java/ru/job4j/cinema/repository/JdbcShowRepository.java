@@ -3,6 +3,8 @@ package ru.job4j.cinema.repository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
+import ru.job4j.cinema.datasource.ReplicaRoutingDataSource;
+import ru.job4j.cinema.datasource.Transactions;
 import ru.job4j.cinema.model.Show;
 
 import javax.sql.DataSource;
@@ -10,7 +12,11 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -52,6 +58,11 @@ public class JdbcShowRepository implements ShowRepository {
             INSERT INTO shows(name, description, posterName) VALUES (?, ?, ?)
             """;
 
+    /**
+     * Количество строк, отправляемых в базу данных одним пакетом
+     */
+    private static final int BATCH_SIZE = 500;
+
     /**
      * SQL запрос по обновлению данных сеанса в таблице shows
      */
@@ -67,6 +78,46 @@ public class JdbcShowRepository implements ShowRepository {
             DELETE FROM shows WHERE id = ?
             """;
 
+    /**
+     * SQL запрос по выбору сеансов из таблицы shows с фильтром по списку id,
+     * вместо %s подставляются параметры списка
+     */
+    private static final String FIND_BY_IDS_SELECT = FIND_ALL_SELECT + """
+            WHERE id IN (%s)
+            """;
+
+    /**
+     * SQL запрос по удалению показов сеансов из таблицы screenings
+     * с фильтром по списку id сеансов
+     */
+    private static final String DELETE_SCREENINGS_BY_SHOW_IDS = """
+            DELETE FROM screenings WHERE show_id IN (%s)
+            """;
+
+    /**
+     * SQL запрос по удалению сеансов из таблицы shows с фильтром по списку id
+     */
+    private static final String DELETE_BY_IDS = """
+            DELETE FROM shows WHERE id IN (%s)
+            """;
+
+    /**
+     * Максимальное количество идентификаторов в одном SQL запросе
+     */
+    private static final int IDS_PER_STATEMENT = 1000;
+
+    /**
+     * Отображение строк результата запросов FIND_ALL_SELECT в объекты Show
+     */
+    private static final RowMapper<Show> SHOW_MAPPER = new RowMapper<>(columns -> {
+        int id = columns.index("id");
+        int name = columns.index("name");
+        int description = columns.index("description");
+        int posterName = columns.index("posterName");
+        return it -> new Show(it.getInt(id), it.getString(name),
+                it.getString(description), it.getString(posterName));
+    });
+
     /**
      * Объект для выполнения подключения к базе данных приложения
      */
@@ -80,12 +131,13 @@ public class JdbcShowRepository implements ShowRepository {
     @Override
     public List<Show> findAll() {
         List<Show> shows = new ArrayList<>();
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_ALL_SELECT)
         ) {
             try (ResultSet it = ps.executeQuery()) {
+                RowMapper.Reader<Show> reader = SHOW_MAPPER.reader(it);
                 while (it.next()) {
-                    shows.add(getUserFromResultSet(it));
+                    shows.add(reader.read(it));
                 }
             }
         } catch (Exception e) {
@@ -103,13 +155,13 @@ public class JdbcShowRepository implements ShowRepository {
      */
     @Override
     public Optional<Show> findById(int id) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_BY_ID_SELECT)
         ) {
             ps.setInt(1, id);
             try (ResultSet it = ps.executeQuery()) {
                 if (it.next()) {
-                    return Optional.of(getUserFromResultSet(it));
+                    return Optional.of(SHOW_MAPPER.reader(it).read(it));
                 }
             }
         } catch (Exception e) {
@@ -127,7 +179,7 @@ public class JdbcShowRepository implements ShowRepository {
      */
     @Override
     public Optional<Show> save(Show show) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(INSERT_INTO,
                      PreparedStatement.RETURN_GENERATED_KEYS)
         ) {
@@ -147,6 +199,49 @@ public class JdbcShowRepository implements ShowRepository {
         return Optional.empty();
     }
 
+    /**
+     * Выполняет сохранение списка сеансов в одной транзакции. Строки
+     * отправляются в базу данных пакетами по BATCH_SIZE. Если хотя бы
+     * один сеанс не сохранен, изменения отменяются и возвращается 0.
+     *
+     * @param shows сохраняемые сеансы
+     * @return количество сохраненных сеансов
+     */
+    @Override
+    public int saveAll(List<Show> shows) {
+        int result = 0;
+        try (Connection cn = Transactions.connection(dataSource)) {
+            boolean autoCommit = cn.getAutoCommit();
+            cn.setAutoCommit(false);
+            try (PreparedStatement ps = cn.prepareStatement(INSERT_INTO)) {
+                int pending = 0;
+                for (Show show : shows) {
+                    ps.setString(1, show.getName());
+                    ps.setString(2, show.getDescription());
+                    ps.setString(3, show.getPosterName());
+                    ps.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        result += countUpdated(ps.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    result += countUpdated(ps.executeBatch());
+                }
+                cn.commit();
+            } catch (Exception e) {
+                cn.rollback();
+                result = 0;
+                log.info("Исключение в методе saveAll() класса JdbcShowRepository ", e);
+            } finally {
+                cn.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе saveAll() класса JdbcShowRepository ", e);
+        }
+        return result;
+    }
+
     /**
      * Выполняет обновление объекта сеанс.
      *
@@ -156,7 +251,7 @@ public class JdbcShowRepository implements ShowRepository {
     @Override
     public boolean update(Show show) {
         boolean result = false;
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(UPDATE)
         ) {
             ps.setString(1, show.getName());
@@ -179,7 +274,7 @@ public class JdbcShowRepository implements ShowRepository {
      */
     @Override
     public boolean deleteById(int id) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(DELETE)
         ) {
             ps.setInt(1, id);
@@ -194,14 +289,102 @@ public class JdbcShowRepository implements ShowRepository {
     }
 
     /**
-     * Вспомогательный метод выполняет создание
-     * объекта Show из объекта ResultSet.
+     * Выполняет удаление сеансов по идентификаторам вместе с показами
+     * сеансов в одной транзакции. Билеты сеансов хранятся в шардах хранилища
+     * билетов и должны быть удалены до вызова метода в той же транзакции
+     * {@link ru.job4j.cinema.datasource.Transactions}. Удаление выполняется запросами
+     * с фильтром по списку идентификаторов, не более IDS_PER_STATEMENT
+     * идентификаторов в запросе. Отсутствующие идентификаторы пропускаются.
+     * При ошибке изменения отменяются и возвращается пустой список.
+     *
+     * @param ids идентификаторы сеансов
+     * @return список удаленных сеансов
+     */
+    @Override
+    public List<Show> deleteAllByIds(Collection<Integer> ids) {
+        List<Show> deleted = new ArrayList<>();
+        List<Integer> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        if (distinct.isEmpty()) {
+            return deleted;
+        }
+        try (Connection cn = Transactions.connection(dataSource)) {
+            boolean autoCommit = cn.getAutoCommit();
+            cn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < distinct.size(); from += IDS_PER_STATEMENT) {
+                    List<Integer> chunk = distinct.subList(from,
+                            Math.min(distinct.size(), from + IDS_PER_STATEMENT));
+                    String params = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                    try (PreparedStatement ps = cn.prepareStatement(
+                            FIND_BY_IDS_SELECT.formatted(params))) {
+                        setIds(ps, chunk);
+                        try (ResultSet it = ps.executeQuery()) {
+                            RowMapper.Reader<Show> reader = SHOW_MAPPER.reader(it);
+                            while (it.next()) {
+                                deleted.add(reader.read(it));
+                            }
+                        }
+                    }
+                    executeForIds(cn, DELETE_SCREENINGS_BY_SHOW_IDS.formatted(params), chunk);
+                    executeForIds(cn, DELETE_BY_IDS.formatted(params), chunk);
+                }
+                cn.commit();
+            } catch (Exception e) {
+                cn.rollback();
+                deleted.clear();
+                log.info("Исключение в методе deleteAllByIds() класса JdbcShowRepository ", e);
+            } finally {
+                cn.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе deleteAllByIds() класса JdbcShowRepository ", e);
+        }
+        return deleted;
+    }
+
+    /**
+     * Вспомогательный метод выполняет SQL запрос изменения данных
+     * с параметрами-идентификаторами.
      *
-     * @param it ResultSet SQL запроса к базе данных
-     * @return объект Show
+     * @param cn  подключение к базе данных
+     * @param sql SQL запрос
+     * @param ids значения параметров запроса
+     * @throws SQLException если происходит ошибка доступа к базе данных
      */
-    private static Show getUserFromResultSet(ResultSet it) throws SQLException {
-        return new Show(it.getInt("id"), it.getString("name"),
-                it.getString("description"), it.getString("posterName"));
+    private static void executeForIds(Connection cn, String sql, List<Integer> ids)
+            throws SQLException {
+        try (PreparedStatement ps = cn.prepareStatement(sql)) {
+            setIds(ps, ids);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Вспомогательный метод устанавливает значения параметров-идентификаторов.
+     *
+     * @param ps  SQL запрос
+     * @param ids значения параметров запроса
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static void setIds(PreparedStatement ps, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            ps.setInt(i + 1, ids.get(i));
+        }
+    }
+
+    /**
+     * Вспомогательный метод возвращает количество строк, добавленных пакетом.
+     * Драйвер может не сообщать количество строк для отдельной команды пакета,
+     * в этом случае команда считается выполненной для одной строки.
+     *
+     * @param counts результат выполнения пакета
+     * @return количество добавленных строк
+     */
+    private static int countUpdated(int[] counts) {
+        int result = 0;
+        for (int count : counts) {
+            result += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return result;
     }
 }
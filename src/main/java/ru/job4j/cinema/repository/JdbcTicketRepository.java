@@ -2,9 +2,12 @@ package ru.job4j.cinema.repository;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Repository;
+import ru.job4j.cinema.datasource.ReplicaRoutingDataSource;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.Screening;
 import ru.job4j.cinema.model.Show;
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketSummary;
 import ru.job4j.cinema.model.User;
 
 import javax.sql.DataSource;
@@ -12,12 +15,19 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
- * Реализация хранилища билетов
+ * Реализация хранилища билетов одной базы данных. В приложении используется
+ * как хранилище шарда {@link ShardedTicketRepository}.
  *
  * @author Alexander Emelyanov
  * @version 1.0
@@ -25,32 +35,21 @@ import java.util.Optional;
  */
 @Slf4j
 @AllArgsConstructor
-@Repository
 public class JdbcTicketRepository implements TicketRepository {
 
     /**
-     * SQL запрос по выбору всех билетов из таблицы tickets, при выполнении
-     * запроса выполняется внутреннее соединение с таблицами show и users
+     * SQL запрос по выбору всех билетов из таблицы tickets. Сеансы и пользователи
+     * билетов не соединяются: билеты содержат только их идентификаторы
      */
-    private static final String FIND_ALL_SELECT = """ 
+    private static final String FIND_ALL_SELECT = """
             SELECT
                 t.id,
                 t.show_id,
                 t.pos_row,
                 t.cell,
                 t.user_id,
-                s.name,
-                s.description,
-                s.postername,
-                u.username,
-                u.email,
-                u.phone,
-                u.password
+                t.screening_id
             FROM tickets t
-            JOIN shows s
-                ON t.show_id = s.id
-            JOIN users u
-                ON t.user_id = u.id
             """;
 
     /**
@@ -67,12 +66,38 @@ public class JdbcTicketRepository implements TicketRepository {
             WHERE t.show_id = ?
             """;
 
+    /**
+     * SQL запрос по выбору всех билетов из таблицы tickets с фильтром по id показа
+     * и id сеанса показа
+     */
+    private static final String FIND_BY_SCREENING_ID_SELECT = FIND_ALL_SELECT + """
+            WHERE t.screening_id = ? AND t.show_id = ?
+            """;
+
+    /**
+     * SQL запрос по выбору страницы билетов пользователя из таблицы tickets
+     * без соединения с таблицей shows, которой нет в шардах билетов: названия
+     * сеансов берутся из каталога. Фильтр и сортировка выполняются
+     * по индексу idx_tickets_user_id (user_id, id)
+     */
+    private static final String FIND_SUMMARIES_BY_USER_ID_SELECT = """
+            SELECT
+                t.id,
+                t.show_id,
+                t.pos_row,
+                t.cell
+            FROM tickets t
+            WHERE t.user_id = ? AND t.id < ?
+            ORDER BY t.id DESC
+            LIMIT ?
+            """;
+
     /**
      * SQL запрос по добавлению строк в таблицу tickets
      */
     private static final String INSERT_INTO = """
             INSERT INTO tickets(show_id, pos_row, cell,
-            user_id) VALUES (?, ?, ?, ?)
+            user_id, screening_id) VALUES (?, ?, ?, ?, ?)
             """;
 
     /**
@@ -80,7 +105,7 @@ public class JdbcTicketRepository implements TicketRepository {
      */
     private static final String UPDATE = """
             UPDATE tickets SET show_id = ?, pos_row = ?, cell = ?,
-            user_id = ? WHERE id = ?
+            user_id = ?, screening_id = ? WHERE id = ?
             """;
 
     /**
@@ -97,6 +122,70 @@ public class JdbcTicketRepository implements TicketRepository {
             DELETE FROM tickets WHERE show_id = ?
             """;
 
+    /**
+     * SQL запрос по удалению билетов из таблицы tickets
+     * с фильтром по списку id сеансов
+     */
+    private static final String DELETE_BY_SHOW_IDS = """
+            DELETE FROM tickets WHERE show_id IN (%s)
+            """;
+
+    /**
+     * Максимальное количество идентификаторов в одном SQL запросе
+     */
+    private static final int IDS_PER_STATEMENT = 1000;
+
+    /**
+     * SQL запрос по подсчету проданных билетов из таблицы tickets
+     * с группировкой по сеансу и ряду
+     */
+    private static final String COUNT_BY_SHOW_AND_ROW_SELECT = """
+            SELECT show_id, pos_row, COUNT(*) AS sold
+            FROM tickets
+            GROUP BY show_id, pos_row
+            """;
+
+    /**
+     * Отображение строк результата запросов FIND_ALL_SELECT в объекты Ticket.
+     * В сеансе, пользователе и показе сеанса билета проинициализирован только
+     * идентификатор, показ есть только у билетов, купленных с выбором показа.
+     */
+    private static final RowMapper<Ticket> TICKET_MAPPER = new RowMapper<>(columns -> {
+        int id = columns.index("id");
+        int showId = columns.index("show_id");
+        int posRow = columns.index("pos_row");
+        int cell = columns.index("cell");
+        int userId = columns.index("user_id");
+        int screeningId = columns.index("screening_id");
+        return it -> {
+            int screeningValue = it.getInt(screeningId);
+            Screening screening = it.wasNull()
+                    ? null : Screening.builder().id(screeningValue).build();
+            return new Ticket(it.getInt(id),
+                    Show.builder().id(it.getInt(showId)).build(),
+                    it.getInt(posRow),
+                    it.getInt(cell),
+                    User.builder().id(it.getInt(userId)).build(),
+                    screening);
+        };
+    });
+
+    /**
+     * Отображение строк результата запроса FIND_SUMMARIES_BY_USER_ID_SELECT
+     * в объекты TicketSummary без названия сеанса
+     */
+    private static final RowMapper<TicketSummary> SUMMARY_MAPPER = new RowMapper<>(columns -> {
+        int id = columns.index("id");
+        int showId = columns.index("show_id");
+        int posRow = columns.index("pos_row");
+        int cell = columns.index("cell");
+        return it -> new TicketSummary(it.getInt(id),
+                it.getInt(showId),
+                null,
+                it.getInt(posRow),
+                it.getInt(cell));
+    });
+
     /**
      * Объект для выполнения подключения к базе данных приложения
      */
@@ -110,12 +199,13 @@ public class JdbcTicketRepository implements TicketRepository {
     @Override
     public List<Ticket> findAll() {
         List<Ticket> tickets = new ArrayList<>();
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_ALL_SELECT)
         ) {
             try (ResultSet it = ps.executeQuery()) {
+                RowMapper.Reader<Ticket> reader = TICKET_MAPPER.reader(it);
                 while (it.next()) {
-                    tickets.add(getTicketFromResultSet(it));
+                    tickets.add(reader.read(it));
                 }
             }
         } catch (Exception e) {
@@ -133,13 +223,13 @@ public class JdbcTicketRepository implements TicketRepository {
      */
     @Override
     public Optional<Ticket> findById(int id) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_BY_TICKET_ID_SELECT)
         ) {
             ps.setInt(1, id);
             try (ResultSet it = ps.executeQuery()) {
                 if (it.next()) {
-                    return Optional.of(getTicketFromResultSet(it));
+                    return Optional.of(TICKET_MAPPER.reader(it).read(it));
                 }
             }
         } catch (Exception e) {
@@ -159,7 +249,7 @@ public class JdbcTicketRepository implements TicketRepository {
      */
     @Override
     public Optional<Ticket> save(Ticket ticket) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(INSERT_INTO,
                      PreparedStatement.RETURN_GENERATED_KEYS)
         ) {
@@ -167,6 +257,7 @@ public class JdbcTicketRepository implements TicketRepository {
             ps.setInt(2, ticket.getPosRow());
             ps.setInt(3, ticket.getCell());
             ps.setInt(4, ticket.getUser().getId());
+            setScreeningId(ps, 5, ticket);
             ps.execute();
             try (ResultSet id = ps.getGeneratedKeys()) {
                 if (id.next()) {
@@ -189,14 +280,15 @@ public class JdbcTicketRepository implements TicketRepository {
     @Override
     public boolean update(Ticket ticket) {
         boolean result = false;
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(UPDATE)
         ) {
             ps.setInt(1, ticket.getShow().getId());
             ps.setInt(2, ticket.getPosRow());
             ps.setInt(3, ticket.getCell());
             ps.setInt(4, ticket.getUser().getId());
-            ps.setInt(5, ticket.getId());
+            setScreeningId(ps, 5, ticket);
+            ps.setInt(6, ticket.getId());
             result = ps.executeUpdate() > 0;
         } catch (Exception e) {
             log.info("Исключение в методе update() класса JdbcTicketRepository ", e);
@@ -213,7 +305,7 @@ public class JdbcTicketRepository implements TicketRepository {
      */
     @Override
     public boolean deleteById(int id) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(DELETE_BY_TICKET_ID)
         ) {
             ps.setInt(1, id);
@@ -229,14 +321,16 @@ public class JdbcTicketRepository implements TicketRepository {
 
     /**
      * Выполняет удаление билетов по идентификатору сеанса. При успешном
-     * удалении возвращает true, при неудачном false.
+     * удалении возвращает true, при неудачном false. Ошибка удаления
+     * в транзакции отмечает транзакцию для отмены: иначе удаление сеанса
+     * было бы зафиксировано вместе с оставшимися билетами.
      *
      * @param id идентификатор сеанса
      * @return true при успешном удалении билетов, иначе false
      */
     @Override
     public boolean deleteTicketsByShowId(int id) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(DELETE_BY_SHOW_ID)
         ) {
             ps.setInt(1, id);
@@ -245,11 +339,63 @@ public class JdbcTicketRepository implements TicketRepository {
                 return true;
             }
         } catch (Exception e) {
-            log.info("Исключение в методе deleteById() класса JdbcTicketRepository ", e);
+            log.info("Исключение в методе deleteTicketsByShowId() "
+                    + "класса JdbcTicketRepository ", e);
+            Transactions.setRollbackOnly();
         }
         return false;
     }
 
+    /**
+     * Выполняет удаление билетов нескольких сеансов запросами с фильтром
+     * по списку идентификаторов, не более IDS_PER_STATEMENT идентификаторов
+     * в запросе. При ошибке изменения отменяются, ошибка удаления в транзакции
+     * отмечает транзакцию для отмены.
+     *
+     * @param ids идентификаторы сеансов
+     * @return количество удаленных билетов
+     */
+    @Override
+    public int deleteTicketsByShowIds(Collection<Integer> ids) {
+        List<Integer> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        if (distinct.isEmpty()) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Connection cn = Transactions.connection(dataSource)) {
+            boolean autoCommit = cn.getAutoCommit();
+            cn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < distinct.size(); from += IDS_PER_STATEMENT) {
+                    List<Integer> chunk = distinct.subList(from,
+                            Math.min(distinct.size(), from + IDS_PER_STATEMENT));
+                    String params = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                    try (PreparedStatement ps = cn.prepareStatement(
+                            DELETE_BY_SHOW_IDS.formatted(params))) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            ps.setInt(i + 1, chunk.get(i));
+                        }
+                        deleted += ps.executeUpdate();
+                    }
+                }
+                cn.commit();
+            } catch (Exception e) {
+                cn.rollback();
+                deleted = 0;
+                log.info("Исключение в методе deleteTicketsByShowIds() "
+                        + "класса JdbcTicketRepository ", e);
+                Transactions.setRollbackOnly();
+            } finally {
+                cn.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе deleteTicketsByShowIds() "
+                    + "класса JdbcTicketRepository ", e);
+            Transactions.setRollbackOnly();
+        }
+        return deleted;
+    }
+
     /**
      * Возвращает список всех билетов по идентификатору сеанса
      *
@@ -259,13 +405,14 @@ public class JdbcTicketRepository implements TicketRepository {
     @Override
     public List<Ticket> findAllTicketsByShowId(int id) {
         List<Ticket> tickets = new ArrayList<>();
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_BY_SHOW_ID_SELECT)
         ) {
             ps.setInt(1, id);
             try (ResultSet it = ps.executeQuery()) {
+                RowMapper.Reader<Ticket> reader = TICKET_MAPPER.reader(it);
                 while (it.next()) {
-                    tickets.add(getTicketFromResultSet(it));
+                    tickets.add(reader.read(it));
                 }
             }
         } catch (Exception e) {
@@ -276,26 +423,107 @@ public class JdbcTicketRepository implements TicketRepository {
     }
 
     /**
-     * Вспомогательный метод выполняет создание
-     * объекта Ticket из объекта ResultSet.
+     * Возвращает список всех билетов по идентификатору показа
      *
-     * @param it ResultSet SQL запроса к базе данных
-     * @return объект Ticket
+     * @param id     идентификатор показа
+     * @param showId идентификатор сеанса показа
+     * @return список всех билетов
      */
-    private static Ticket getTicketFromResultSet(ResultSet it) throws SQLException {
-        return new Ticket(it.getInt("id"),
-                new Show(it.getInt("show_id"),
-                        it.getString("name"),
-                        it.getString("description"),
-                        it.getString("posterName")
-                ),
-                it.getInt("pos_row"),
-                it.getInt("cell"),
-                new User(it.getInt("user_id"),
-                        it.getString("username"),
-                        it.getString("email"),
-                        it.getString("phone"),
-                        it.getString("password")
-                ));
+    @Override
+    public List<Ticket> findAllTicketsByScreeningId(int id, int showId) {
+        List<Ticket> tickets = new ArrayList<>();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
+             PreparedStatement ps = cn.prepareStatement(FIND_BY_SCREENING_ID_SELECT)
+        ) {
+            ps.setInt(1, id);
+            ps.setInt(2, showId);
+            try (ResultSet it = ps.executeQuery()) {
+                RowMapper.Reader<Ticket> reader = TICKET_MAPPER.reader(it);
+                while (it.next()) {
+                    tickets.add(reader.read(it));
+                }
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе findAllTicketsByScreeningId() "
+                    + "класса JdbcTicketRepository ", e);
+        }
+        return tickets;
+    }
+
+    /**
+     * Возвращает страницу билетов пользователя в порядке убывания идентификатора
+     * билета. Используется постраничная выборка по ключу: следующая страница
+     * начинается с билета, идентификатор которого меньше переданного, поэтому
+     * стоимость запроса не зависит от номера страницы.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId идентификатор билета, с которого начинается страница (не включительно)
+     * @param limit    максимальное количество билетов на странице
+     * @return список кратких данных билетов без названий сеансов
+     */
+    @Override
+    public List<TicketSummary> findSummariesByUserId(int userId, int beforeId, int limit) {
+        List<TicketSummary> tickets = new ArrayList<>();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
+             PreparedStatement ps = cn.prepareStatement(FIND_SUMMARIES_BY_USER_ID_SELECT)
+        ) {
+            ps.setInt(1, userId);
+            ps.setInt(2, beforeId);
+            ps.setInt(3, limit);
+            try (ResultSet it = ps.executeQuery()) {
+                RowMapper.Reader<TicketSummary> reader = SUMMARY_MAPPER.reader(it);
+                while (it.next()) {
+                    tickets.add(reader.read(it));
+                }
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе findSummariesByUserId() "
+                    + "класса JdbcTicketRepository ", e);
+        }
+        return tickets;
+    }
+
+    /**
+     * Возвращает количество проданных билетов по сеансам и рядам одним
+     * групповым запросом. При ошибке доступа к базе данных возвращает
+     * Optional.empty().
+     *
+     * @return Optional с количеством проданных билетов по идентификатору
+     * сеанса и номеру ряда, иначе Optional.empty()
+     */
+    @Override
+    public Optional<Map<Integer, Map<Integer, Integer>>> countSoldByShowAndRow() {
+        Map<Integer, Map<Integer, Integer>> result = new HashMap<>();
+        try (Connection cn = Transactions.connection(dataSource);
+             PreparedStatement ps = cn.prepareStatement(COUNT_BY_SHOW_AND_ROW_SELECT)
+        ) {
+            try (ResultSet it = ps.executeQuery()) {
+                while (it.next()) {
+                    result.computeIfAbsent(it.getInt("show_id"), id -> new HashMap<>())
+                            .put(it.getInt("pos_row"), it.getInt("sold"));
+                }
+            }
+            return Optional.of(result);
+        } catch (Exception e) {
+            log.info("Исключение в методе countSoldByShowAndRow() класса JdbcTicketRepository ", e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Вспомогательный метод устанавливает параметр идентификатора показа
+     * сеанса билета, для билета без показа устанавливается NULL.
+     *
+     * @param ps     подготовленный SQL запрос
+     * @param index  номер параметра
+     * @param ticket билет
+     */
+    private static void setScreeningId(PreparedStatement ps, int index, Ticket ticket)
+            throws SQLException {
+        if (ticket.getScreening() == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, ticket.getScreening().getId());
+        }
     }
 }
@@ -3,16 +3,18 @@ package ru.job4j.cinema.repository;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
+import ru.job4j.cinema.datasource.ReplicaRoutingDataSource;
+import ru.job4j.cinema.datasource.Transactions;
 import ru.job4j.cinema.model.User;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * Реализация хранилища пользователей
@@ -39,6 +41,23 @@ public class JdbcUserRepository implements UserRepository {
             FROM users
             """;
 
+    /**
+     * SQL запрос по выбору почтовых адресов и номеров телефонов
+     * всех пользователей из таблицы users
+     */
+    private static final String CONTACTS_SELECT = """
+            SELECT
+                email,
+                phone
+            FROM users
+            """;
+
+    /**
+     * Количество строк, извлекаемых из базы данных за одно обращение
+     * при потоковом просмотре таблицы users
+     */
+    private static final int FETCH_SIZE = 1000;
+
     /**
      * SQL запрос по выбору всех пользователей из таблицы users с фильтром по id
      */
@@ -83,6 +102,19 @@ public class JdbcUserRepository implements UserRepository {
             DELETE FROM users WHERE id = ?
             """;
 
+    /**
+     * Отображение строк результата запросов FIND_ALL_SELECT в объекты User
+     */
+    private static final RowMapper<User> USER_MAPPER = new RowMapper<>(columns -> {
+        int id = columns.index("id");
+        int username = columns.index("username");
+        int email = columns.index("email");
+        int phone = columns.index("phone");
+        int password = columns.index("password");
+        return it -> new User(it.getInt(id), it.getString(username),
+                it.getString(email), it.getString(phone), it.getString(password));
+    });
+
     /**
      * Объект для выполнения подключения к базе данных приложения
      */
@@ -96,12 +128,13 @@ public class JdbcUserRepository implements UserRepository {
     @Override
     public List<User> findAll() {
         List<User> users = new ArrayList<>();
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_ALL_SELECT)
         ) {
             try (ResultSet it = ps.executeQuery()) {
+                RowMapper.Reader<User> reader = USER_MAPPER.reader(it);
                 while (it.next()) {
-                    users.add(getUserFromResultSet(it));
+                    users.add(reader.read(it));
                 }
             }
         } catch (Exception e) {
@@ -110,6 +143,41 @@ public class JdbcUserRepository implements UserRepository {
         return users;
     }
 
+    /**
+     * Выполняет потоковый просмотр почтовых адресов и номеров телефонов всех
+     * пользователей. Строки извлекаются из базы данных порциями по FETCH_SIZE,
+     * для чего запрос выполняется вне режима автоматической фиксации транзакции.
+     *
+     * @param consumer обработчик пары почтовый адрес и номер телефона
+     * @return количество просмотренных пользователей
+     */
+    @Override
+    public int scanContacts(BiConsumer<String, String> consumer) {
+        int count = 0;
+        try (Connection cn = Transactions.connection(dataSource)) {
+            boolean autoCommit = cn.getAutoCommit();
+            cn.setAutoCommit(false);
+            try (PreparedStatement ps = cn.prepareStatement(CONTACTS_SELECT,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet it = ps.executeQuery()) {
+                    int email = it.findColumn("email");
+                    int phone = it.findColumn("phone");
+                    while (it.next()) {
+                        consumer.accept(it.getString(email), it.getString(phone));
+                        count++;
+                    }
+                }
+                cn.commit();
+            } finally {
+                cn.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе scanContacts() класса JdbcUserRepository ", e);
+        }
+        return count;
+    }
+
     /**
      * Выполняет поиск пользователя по идентификатору. При успешном нахождении возвращает
      * Optional с объектом пользователя. Иначе возвращает Optional.empty().
@@ -119,13 +187,13 @@ public class JdbcUserRepository implements UserRepository {
      */
     @Override
     public Optional<User> findById(int id) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_BY_ID_SELECT)
         ) {
             ps.setInt(1, id);
             try (ResultSet it = ps.executeQuery()) {
                 if (it.next()) {
-                    return Optional.of(getUserFromResultSet(it));
+                    return Optional.of(USER_MAPPER.reader(it).read(it));
                 }
             }
         } catch (Exception e) {
@@ -143,13 +211,13 @@ public class JdbcUserRepository implements UserRepository {
      */
     @Override
     public Optional<User> findUserByEmail(String email) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_BY_EMAIL_SELECT)
         ) {
             ps.setString(1, email);
             try (ResultSet it = ps.executeQuery()) {
                 if (it.next()) {
-                    return Optional.of(getUserFromResultSet(it));
+                    return Optional.of(USER_MAPPER.reader(it).read(it));
                 }
             }
         } catch (Exception e) {
@@ -167,13 +235,13 @@ public class JdbcUserRepository implements UserRepository {
      */
     @Override
     public Optional<User> findUserByPhone(String phone) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = ReplicaRoutingDataSource.readConnection(dataSource);
              PreparedStatement ps = cn.prepareStatement(FIND_BY_PHONE_SELECT)
         ) {
             ps.setString(1, phone);
             try (ResultSet it = ps.executeQuery()) {
                 if (it.next()) {
-                    return Optional.of(getUserFromResultSet(it));
+                    return Optional.of(USER_MAPPER.reader(it).read(it));
                 }
             }
         } catch (Exception e) {
@@ -193,7 +261,7 @@ public class JdbcUserRepository implements UserRepository {
      */
     @Override
     public Optional<User> save(User user) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(INSERT_INTO,
                      PreparedStatement.RETURN_GENERATED_KEYS)
         ) {
@@ -223,7 +291,7 @@ public class JdbcUserRepository implements UserRepository {
     @Override
     public boolean update(User user) {
         boolean result = false;
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(UPDATE)
         ) {
             ps.setString(1, user.getUsername());
@@ -248,7 +316,7 @@ public class JdbcUserRepository implements UserRepository {
      */
     @Override
     public boolean deleteById(int id) {
-        try (Connection cn = dataSource.getConnection();
+        try (Connection cn = Transactions.connection(dataSource);
              PreparedStatement ps = cn.prepareStatement(DELETE)
         ) {
             ps.setInt(1, id);
@@ -261,16 +329,4 @@ public class JdbcUserRepository implements UserRepository {
         }
         return false;
     }
-
-    /**
-     * Вспомогательный метод выполняет создание
-     * объекта User из объекта ResultSet.
-     *
-     * @param it ResultSet SQL запроса к базе данных
-     * @return объект User
-     */
-    private static User getUserFromResultSet(ResultSet it) throws SQLException {
-        return new User(it.getInt("id"), it.getString("username"),
-                it.getString("email"), it.getString("phone"), it.getString("password"));
-    }
 }
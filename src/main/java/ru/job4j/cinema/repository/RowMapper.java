@@ -0,0 +1,145 @@
+package ru.job4j.cinema.repository;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Отображение строк результата SQL запроса в объекты по номерам столбцов.
+ * Номера столбцов определяются по именам один раз - по метаданным первого
+ * результата запроса данной формы (списка столбцов), далее значения строк
+ * читаются по номерам без поиска столбца по имени в драйвере. Имена
+ * столбцов сравниваются без учета регистра.
+ *
+ * @param <T> тип объекта строки
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+final class RowMapper<T> {
+
+    /**
+     * Построитель чтения строк по номерам столбцов
+     */
+    private final Compiler<T> compiler;
+
+    /**
+     * Чтение строк, построенное по первому результату запроса
+     */
+    private volatile Reader<T> reader;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param compiler построитель чтения строк по номерам столбцов
+     */
+    RowMapper(Compiler<T> compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * Возвращает чтение строк результата запроса, при первом вызове
+     * строит его по метаданным результата.
+     *
+     * @param it результат SQL запроса
+     * @return чтение строк
+     * @throws SQLException если в результате нет нужного столбца
+     */
+    Reader<T> reader(ResultSet it) throws SQLException {
+        Reader<T> current = reader;
+        if (current == null) {
+            current = compiler.compile(Columns.of(it.getMetaData()));
+            reader = current;
+        }
+        return current;
+    }
+
+    /**
+     * Чтение объекта из текущей строки результата запроса
+     *
+     * @param <T> тип объекта строки
+     */
+    @FunctionalInterface
+    interface Reader<T> {
+
+        /**
+         * Читает объект из текущей строки результата запроса.
+         *
+         * @param it результат SQL запроса
+         * @return объект строки
+         * @throws SQLException если происходит ошибка доступа к базе данных
+         */
+        T read(ResultSet it) throws SQLException;
+    }
+
+    /**
+     * Построитель чтения строк по номерам столбцов
+     *
+     * @param <T> тип объекта строки
+     */
+    @FunctionalInterface
+    interface Compiler<T> {
+
+        /**
+         * Строит чтение строк по номерам столбцов результата.
+         *
+         * @param columns номера столбцов результата по именам
+         * @return чтение строк
+         * @throws SQLException если в результате нет нужного столбца
+         */
+        Reader<T> compile(Columns columns) throws SQLException;
+    }
+
+    /**
+     * Номера столбцов результата запроса по именам
+     */
+    static final class Columns {
+
+        /**
+         * Номера столбцов по именам в нижнем регистре
+         */
+        private final Map<String, Integer> indexes;
+
+        /**
+         * Конструктор класса.
+         *
+         * @param indexes номера столбцов по именам в нижнем регистре
+         */
+        private Columns(Map<String, Integer> indexes) {
+            this.indexes = indexes;
+        }
+
+        /**
+         * Создает номера столбцов по метаданным результата запроса.
+         * При повторе имени используется первый столбец.
+         *
+         * @param metaData метаданные результата запроса
+         * @return номера столбцов
+         * @throws SQLException если происходит ошибка доступа к базе данных
+         */
+        static Columns of(ResultSetMetaData metaData) throws SQLException {
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = metaData.getColumnCount(); i >= 1; i--) {
+                indexes.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+            }
+            return new Columns(indexes);
+        }
+
+        /**
+         * Возвращает номер столбца по имени без учета регистра.
+         *
+         * @param name имя столбца
+         * @return номер столбца
+         * @throws SQLException если столбца нет в результате
+         */
+        int index(String name) throws SQLException {
+            Integer index = indexes.get(name.toLowerCase(Locale.ROOT));
+            if (index == null) {
+                throw new SQLException("Столбец " + name + " отсутствует в результате запроса");
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.job4j.cinema.repository;
+
+import ru.job4j.cinema.model.Screening;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище показов сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.model.Screening
+ */
+public interface ScreeningRepository {
+
+    /**
+     * Возвращает список показов, начинающихся не раньше заданного времени,
+     * в порядке времени начала.
+     *
+     * @param from время, с которого выбираются показы
+     * @return список показов
+     */
+    List<Screening> findAllStartingFrom(LocalDateTime from);
+
+    /**
+     * Выполняет поиск показа по идентификатору. При успешном нахождении возвращает
+     * Optional с объектом показа. Иначе возвращает Optional.empty().
+     *
+     * @param id идентификатор показа
+     * @return Optional.of(screening) при успешном нахождении, иначе Optional.empty()
+     */
+    Optional<Screening> findById(int id);
+
+    /**
+     * Выполняет сохранение показа. При успешном сохранении возвращает Optional с
+     * объектом показа, у которого проинициализировано id. Иначе возвращает Optional.empty()
+     *
+     * @param screening сохраняемый показ
+     * @return Optional.of(screening) при успешном сохранении, иначе Optional.empty()
+     */
+    Optional<Screening> save(Screening screening);
+
+    /**
+     * Выполняет удаление показа по идентификатору. При успешном
+     * удалении возвращает true, при неудачном false.
+     *
+     * @param id идентификатор показа
+     * @return true при успешном удалении показа, иначе false
+     */
+    boolean deleteById(int id);
+}
@@ -0,0 +1,443 @@
+package ru.job4j.cinema.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.job4j.cinema.datasource.ReadRouting;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketSummary;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Хранилище билетов, распределенных по нескольким базам данных (шардам)
+ * по идентификатору сеанса: билеты всех показов сеанса хранятся в шарде
+ * show_id mod N, поэтому уникальность места (screening_id, pos_row, cell)
+ * обеспечивается ограничением uc_ticket каждого шарда, а покупки билетов
+ * на разные сеансы выполняются в разных базах данных.
+ * <p>
+ * Идентификатор билета в приложении содержит номер шарда:
+ * id = idШарда * N + номерШарда. При одном шарде идентификаторы
+ * совпадают с идентификаторами таблицы tickets. Количество шардов
+ * нельзя менять после сохранения билетов без переноса данных. Если
+ * идентификатор билета шарда не помещается в идентификатор приложения,
+ * выбрасывается IllegalStateException.
+ * <p>
+ * Шард 0 - основная база данных. Дополнительные шарды создаются changelog
+ * db/shard/dbchangelog.xml и содержат только таблицу tickets без внешних
+ * ключей на таблицы shows, users и screenings, которые в шарды
+ * не копируются: показ и сеанс билета проверяются сервисом до сохранения,
+ * названия сеансов истории покупок берутся из каталога сеансов.
+ * Запросы по всем шардам
+ * (все билеты, история пользователя, статистика продаж) выполняются
+ * параллельно, результаты объединяются: запрос к основной базе данных
+ * выполняется в вызывающем потоке, запросы к остальным шардам - общим
+ * исполнителем с количеством потоков jdbc.ticket-shards.threads, которое
+ * не зависит от количества шардов. Если все потоки исполнителя заняты,
+ * запросы ожидают в очереди и не ограничивают запросы к основной базе данных.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see JdbcTicketRepository
+ */
+@Slf4j
+public class ShardedTicketRepository implements TicketRepository, AutoCloseable {
+
+    /**
+     * Хранилища билетов шардов
+     */
+    private final List<TicketRepository> shards;
+
+    /**
+     * Источники данных дополнительных шардов, закрываемые хранилищем
+     */
+    private final List<DataSource> owned;
+
+    /**
+     * Исполнитель параллельных запросов к дополнительным шардам,
+     * null при одном шарде
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Конструктор класса. Первый источник данных - основная база данных,
+     * она закрывается владельцем, источники данных остальных шардов
+     * закрываются при закрытии хранилища.
+     *
+     * @param dataSources источники данных шардов
+     * @param threads     количество потоков запросов к дополнительным шардам
+     * @throws IllegalArgumentException если список источников данных пуст
+     *                                  или количество потоков меньше 1
+     */
+    public ShardedTicketRepository(List<DataSource> dataSources, int threads) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("Не задано ни одного шарда билетов");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Количество потоков запросов к шардам меньше 1");
+        }
+        this.shards = dataSources.stream()
+                .<TicketRepository>map(JdbcTicketRepository::new)
+                .toList();
+        this.owned = List.copyOf(dataSources.subList(1, dataSources.size()));
+        this.executor = dataSources.size() == 1 ? null : newExecutor(threads);
+    }
+
+    /**
+     * Возвращает список всех билетов всех шардов
+     *
+     * @return список всех билетов
+     */
+    @Override
+    public List<Ticket> findAll() {
+        List<Ticket> tickets = new ArrayList<>();
+        for (List<Ticket> part : scatter(shard -> toGlobal(shards.get(shard).findAll(), shard))) {
+            tickets.addAll(part);
+        }
+        return tickets;
+    }
+
+    /**
+     * Выполняет поиск билета по идентификатору в шарде, номер которого
+     * содержится в идентификаторе.
+     *
+     * @param id идентификатор билета
+     * @return Optional.of(ticket) при успешном нахождении, иначе Optional.empty()
+     */
+    @Override
+    public Optional<Ticket> findById(int id) {
+        int shard = shardOfTicket(id);
+        return shards.get(shard).findById(localId(id))
+                .map(ticket -> toGlobal(ticket, shard));
+    }
+
+    /**
+     * Выполняет сохранение билета в шард сеанса билета. Сохранение выполняется
+     * в транзакции, чтобы билет, идентификатор которого не помещается
+     * в идентификатор приложения, не был сохранен.
+     *
+     * @param ticket сохраняемый билет
+     * @return Optional.of(ticket) при успешном сохранении, иначе Optional.empty()
+     * @throws IllegalStateException если идентификатор билета не помещается в int
+     */
+    @Override
+    public Optional<Ticket> save(Ticket ticket) {
+        int shard = shardOfShow(ticket.getShow().getId());
+        return Transactions.inTransaction(() -> shards.get(shard).save(ticket)
+                .map(saved -> toGlobal(saved, shard)));
+    }
+
+    /**
+     * Выполняет обновление билета. Перенос билета на сеанс другого шарда
+     * не выполняется, так как требует записи в две базы данных.
+     *
+     * @param ticket объект билета
+     * @return true при успешном обновлении билета, иначе false
+     */
+    @Override
+    public boolean update(Ticket ticket) {
+        int id = ticket.getId();
+        int shard = shardOfTicket(id);
+        if (shard != shardOfShow(ticket.getShow().getId())) {
+            log.info("Билет id = {} не может быть перенесен на сеанс id = {} другого шарда",
+                    id, ticket.getShow().getId());
+            return false;
+        }
+        ticket.setId(localId(id));
+        try {
+            return shards.get(shard).update(ticket);
+        } finally {
+            ticket.setId(id);
+        }
+    }
+
+    /**
+     * Выполняет удаление билета по идентификатору в шарде билета.
+     *
+     * @param id идентификатор билета
+     * @return true при успешном удалении билета, иначе false
+     */
+    @Override
+    public boolean deleteById(int id) {
+        return shards.get(shardOfTicket(id)).deleteById(localId(id));
+    }
+
+    /**
+     * Выполняет удаление билетов сеанса в шарде сеанса.
+     *
+     * @param id идентификатор сеанса
+     * @return true при успешном удалении билетов, иначе false
+     */
+    @Override
+    public boolean deleteTicketsByShowId(int id) {
+        return shards.get(shardOfShow(id)).deleteTicketsByShowId(id);
+    }
+
+    /**
+     * Выполняет удаление билетов нескольких сеансов: идентификаторы
+     * группируются по шардам сеансов, в каждом шарде удаление выполняется
+     * запросами со списком идентификаторов. Шарды обрабатываются в вызывающем
+     * потоке, так как подключения транзакции привязаны к потоку.
+     *
+     * @param ids идентификаторы сеансов
+     * @return количество удаленных билетов
+     */
+    @Override
+    public int deleteTicketsByShowIds(Collection<Integer> ids) {
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int id : ids) {
+            byShard.computeIfAbsent(shardOfShow(id), shard -> new ArrayList<>()).add(id);
+        }
+        int deleted = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : byShard.entrySet()) {
+            deleted += shards.get(entry.getKey()).deleteTicketsByShowIds(entry.getValue());
+        }
+        return deleted;
+    }
+
+    /**
+     * Возвращает список всех билетов сеанса из шарда сеанса
+     *
+     * @param id идентификатор сеанса
+     * @return список всех билетов
+     */
+    @Override
+    public List<Ticket> findAllTicketsByShowId(int id) {
+        int shard = shardOfShow(id);
+        return toGlobal(shards.get(shard).findAllTicketsByShowId(id), shard);
+    }
+
+    /**
+     * Возвращает список всех билетов показа из шарда сеанса показа.
+     *
+     * @param id     идентификатор показа
+     * @param showId идентификатор сеанса показа
+     * @return список всех билетов
+     */
+    @Override
+    public List<Ticket> findAllTicketsByScreeningId(int id, int showId) {
+        int shard = shardOfShow(showId);
+        return toGlobal(shards.get(shard).findAllTicketsByScreeningId(id, showId), shard);
+    }
+
+    /**
+     * Возвращает страницу билетов пользователя в порядке убывания идентификатора
+     * билета. Из каждого шарда выбирается не более limit билетов с идентификатором
+     * меньше beforeId, результаты объединяются по убыванию идентификатора.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId идентификатор билета, с которого начинается страница (не включительно)
+     * @param limit    максимальное количество билетов на странице
+     * @return список кратких данных билетов
+     */
+    @Override
+    public List<TicketSummary> findSummariesByUserId(int userId, int beforeId, int limit) {
+        List<TicketSummary> tickets = new ArrayList<>();
+        for (List<TicketSummary> part : scatter(shard -> findSummaries(
+                shard, userId, beforeId, limit))) {
+            tickets.addAll(part);
+        }
+        tickets.sort(Comparator.comparingInt(TicketSummary::getId).reversed());
+        return tickets.size() > limit ? new ArrayList<>(tickets.subList(0, limit)) : tickets;
+    }
+
+    /**
+     * Возвращает количество проданных билетов по сеансам и рядам всех шардов.
+     * Сеанс хранится в одном шарде, поэтому результаты шардов не пересекаются.
+     * Если запрос хотя бы к одному шарду не выполнен, возвращает Optional.empty().
+     *
+     * @return Optional с количеством проданных билетов по идентификатору
+     * сеанса и номеру ряда, иначе Optional.empty()
+     */
+    @Override
+    public Optional<Map<Integer, Map<Integer, Integer>>> countSoldByShowAndRow() {
+        Map<Integer, Map<Integer, Integer>> result = new HashMap<>();
+        for (Optional<Map<Integer, Map<Integer, Integer>>> part
+                : scatter(shard -> shards.get(shard).countSoldByShowAndRow())) {
+            if (part.isEmpty()) {
+                return Optional.empty();
+            }
+            result.putAll(part.get());
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Возвращает номер шарда сеанса.
+     *
+     * @param showId идентификатор сеанса
+     * @return номер шарда
+     */
+    public int shardOfShow(int showId) {
+        return Math.floorMod(showId, shards.size());
+    }
+
+    /**
+     * Выполняет остановку исполнителя запросов и закрытие источников
+     * данных дополнительных шардов.
+     *
+     * @throws Exception если закрытие источника данных завершилось ошибкой
+     */
+    @Override
+    public void close() throws Exception {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        for (DataSource dataSource : owned) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    /**
+     * Вспомогательный метод выполняет запрос ко всем шардам параллельно:
+     * запрос к шарду 0 выполняется в вызывающем потоке, к остальным шардам -
+     * исполнителем. Обязательное чтение с основной базы данных вызывающего
+     * потока передается потокам запросов. В транзакции запросы выполняются
+     * по очереди в вызывающем потоке, чтобы использовать соединения
+     * транзакции.
+     *
+     * @param query запрос по номеру шарда
+     * @param <T>   тип результата запроса
+     * @return результаты запроса в порядке номеров шардов
+     */
+    private <T> List<T> scatter(IntFunction<T> query) {
+        if (executor == null || Transactions.isActive()) {
+            List<T> results = new ArrayList<>(shards.size());
+            for (int shard = 0; shard < shards.size(); shard++) {
+                results.add(query.apply(shard));
+            }
+            return results;
+        }
+        boolean primary = ReadRouting.isPrimaryRequired();
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size() - 1);
+        for (int i = 1; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(CompletableFuture.supplyAsync(() -> primary
+                    ? ReadRouting.onPrimary(() -> query.apply(shard))
+                    : query.apply(shard), executor));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        results.add(query.apply(0));
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Вспомогательный метод выбирает страницу билетов пользователя одного шарда.
+     * Условие id &lt; beforeId переводится в условие по идентификатору шарда:
+     * idШарда * N + номерШарда &lt; beforeId.
+     *
+     * @param shard    номер шарда
+     * @param userId   идентификатор пользователя
+     * @param beforeId идентификатор билета, с которого начинается страница (не включительно)
+     * @param limit    максимальное количество билетов на странице
+     * @return список кратких данных билетов с идентификаторами приложения
+     */
+    private List<TicketSummary> findSummaries(int shard, int userId, int beforeId, int limit) {
+        int n = shards.size();
+        long localBefore = Math.floorDiv((long) beforeId - shard + n - 1, n);
+        List<TicketSummary> result = new ArrayList<>();
+        for (TicketSummary summary : shards.get(shard).findSummariesByUserId(
+                userId, (int) Math.min(localBefore, Integer.MAX_VALUE), limit)) {
+            result.add(new TicketSummary(globalId(summary.getId(), shard),
+                    summary.getShowId(), summary.getShowName(),
+                    summary.getPosRow(), summary.getCell()));
+        }
+        return result;
+    }
+
+    /**
+     * Вспомогательный метод возвращает номер шарда билета.
+     *
+     * @param id идентификатор билета
+     * @return номер шарда
+     */
+    private int shardOfTicket(int id) {
+        return Math.floorMod(id, shards.size());
+    }
+
+    /**
+     * Вспомогательный метод возвращает идентификатор билета в шарде.
+     *
+     * @param id идентификатор билета
+     * @return идентификатор билета в таблице tickets шарда
+     */
+    private int localId(int id) {
+        return Math.floorDiv(id, shards.size());
+    }
+
+    /**
+     * Вспомогательный метод возвращает идентификатор билета в приложении.
+     *
+     * @param localId идентификатор билета в таблице tickets шарда
+     * @param shard   номер шарда
+     * @return идентификатор билета
+     * @throws IllegalStateException если идентификатор не помещается в int
+     */
+    private int globalId(int localId, int shard) {
+        try {
+            return Math.addExact(Math.multiplyExact(localId, shards.size()), shard);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException("Идентификатор билета " + localId
+                    + " шарда " + shard + " не помещается в идентификатор приложения", e);
+        }
+    }
+
+    /**
+     * Вспомогательный метод заменяет идентификатор билета шарда
+     * идентификатором приложения.
+     *
+     * @param ticket билет шарда
+     * @param shard  номер шарда
+     * @return билет
+     */
+    private Ticket toGlobal(Ticket ticket, int shard) {
+        ticket.setId(globalId(ticket.getId(), shard));
+        return ticket;
+    }
+
+    /**
+     * Вспомогательный метод заменяет идентификаторы билетов шарда
+     * идентификаторами приложения.
+     *
+     * @param tickets билеты шарда
+     * @param shard   номер шарда
+     * @return билеты
+     */
+    private List<Ticket> toGlobal(List<Ticket> tickets, int shard) {
+        tickets.forEach(ticket -> toGlobal(ticket, shard));
+        return tickets;
+    }
+
+    /**
+     * Вспомогательный метод создает исполнитель запросов к дополнительным
+     * шардам с заданным количеством потоков.
+     *
+     * @param threads количество потоков
+     * @return исполнитель запросов
+     */
+    private static ExecutorService newExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ticket-shard-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -2,6 +2,7 @@ package ru.job4j.cinema.repository;
 
 import ru.job4j.cinema.model.Show;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +40,15 @@ public interface ShowRepository {
      */
     Optional<Show> save(Show show);
 
+    /**
+     * Выполняет сохранение списка сеансов в одной транзакции. Если хотя бы
+     * один сеанс не сохранен, изменения отменяются и возвращается 0.
+     *
+     * @param shows сохраняемые сеансы
+     * @return количество сохраненных сеансов
+     */
+    int saveAll(List<Show> shows);
+
     /**
      * Выполняет обновление объекта сеанс.
      *
@@ -55,4 +65,15 @@ public interface ShowRepository {
      * @return true при успешном удалении сеанса, иначе false
      */
     boolean deleteById(int id);
+
+    /**
+     * Выполняет удаление сеансов по идентификаторам вместе с показами
+     * сеансов в одной транзакции. Билеты сеансов должны быть удалены
+     * до вызова метода в той же транзакции. Отсутствующие идентификаторы
+     * пропускаются. При ошибке изменения отменяются и возвращается пустой список.
+     *
+     * @param ids идентификаторы сеансов
+     * @return список удаленных сеансов
+     */
+    List<Show> deleteAllByIds(Collection<Integer> ids);
 }
@@ -1,12 +1,16 @@
 package ru.job4j.cinema.repository;
 
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketSummary;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
- * Хранилище билетов
+ * Хранилище билетов. В билетах, возвращаемых методами поиска, сеанс
+ * и пользователь содержат только идентификатор.
  *
  * @author Alexander Emelyanov
  * @version 1.0
@@ -67,6 +71,15 @@ public interface TicketRepository {
      */
     boolean deleteTicketsByShowId(int id);
 
+    /**
+     * Выполняет удаление билетов нескольких сеансов. Ошибка удаления
+     * в транзакции отмечает транзакцию для отмены.
+     *
+     * @param ids идентификаторы сеансов
+     * @return количество удаленных билетов
+     */
+    int deleteTicketsByShowIds(Collection<Integer> ids);
+
     /**
      * Возвращает список всех билетов по идентификатору сеанса
      *
@@ -74,4 +87,37 @@ public interface TicketRepository {
      * @return список всех билетов
      */
     List<Ticket> findAllTicketsByShowId(int id);
+
+    /**
+     * Возвращает список всех билетов по идентификатору показа. Идентификатор
+     * сеанса показа определяет шард, в котором хранятся билеты показа.
+     *
+     * @param id     идентификатор показа
+     * @param showId идентификатор сеанса показа
+     * @return список всех билетов
+     */
+    List<Ticket> findAllTicketsByScreeningId(int id, int showId);
+
+    /**
+     * Возвращает страницу билетов пользователя в порядке убывания идентификатора
+     * билета. Для перехода к следующей странице передается идентификатор
+     * последнего билета текущей страницы. Названия сеансов не заполняются,
+     * они берутся из каталога сеансов.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId идентификатор билета, с которого начинается страница (не включительно)
+     * @param limit    максимальное количество билетов на странице
+     * @return список кратких данных билетов без названий сеансов
+     */
+    List<TicketSummary> findSummariesByUserId(int userId, int beforeId, int limit);
+
+    /**
+     * Возвращает количество проданных билетов по сеансам и рядам одним
+     * групповым запросом. При ошибке доступа к базе данных возвращает
+     * Optional.empty().
+     *
+     * @return Optional с количеством проданных билетов по идентификатору
+     * сеанса и номеру ряда, иначе Optional.empty()
+     */
+    Optional<Map<Integer, Map<Integer, Integer>>> countSoldByShowAndRow();
 }
@@ -4,6 +4,7 @@ import ru.job4j.cinema.model.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * Хранилище пользователей
@@ -21,6 +22,15 @@ public interface UserRepository {
      */
     List<User> findAll();
 
+    /**
+     * Выполняет потоковый просмотр почтовых адресов и номеров телефонов всех
+     * пользователей без загрузки таблицы в память целиком.
+     *
+     * @param consumer обработчик пары почтовый адрес и номер телефона
+     * @return количество просмотренных пользователей
+     */
+    int scanContacts(BiConsumer<String, String> consumer);
+
     /**
      * Выполняет поиск пользователя по идентификатору. При успешном нахождении возвращает
      * Optional с объектом пользователя. Иначе возвращает Optional.empty().
@@ -0,0 +1,201 @@
+package ru.job4j.cinema.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Виртуальная очередь допуска пользователей к покупке билетов.
+ * Пользователь получает номер в очереди, номера допускаются по порядку
+ * со скоростью rate в секунду, допуски накапливаются, пока очередь пуста,
+ * но не более burst. Очередь хранится в памяти и состоит из двух счетчиков,
+ * поэтому положение в очереди определяется без обращения к базе данных.
+ * Допущенный пользователь получает пропуск на passSeconds секунд.
+ * <p>
+ * Счетчики очереди свои у каждого узла приложения, а номер пользователя
+ * хранится в сессии, поэтому номер имеет смысл только на выдавшем его
+ * узле: при нескольких узлах балансировщик должен направлять запросы
+ * сессии на один узел (sticky sessions по cookie сессии). Скорость
+ * допуска rate и burst действуют для каждого узла отдельно.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.filter.AdmissionFilter
+ */
+@Component
+public class AdmissionQueue {
+
+    /**
+     * Признак включения очереди
+     */
+    private final boolean enabled;
+
+    /**
+     * Количество допусков в секунду
+     */
+    private final double rate;
+
+    /**
+     * Максимальное количество накопленных допусков
+     */
+    private final int burst;
+
+    /**
+     * Срок действия пропуска допущенного пользователя в миллисекундах
+     */
+    private final long passMillis;
+
+    /**
+     * Последний выданный номер в очереди
+     */
+    private long issued;
+
+    /**
+     * Последний допущенный номер в очереди
+     */
+    private long admitted;
+
+    /**
+     * Накопленные допуски
+     */
+    private double tokens;
+
+    /**
+     * Время последнего начисления допусков в миллисекундах
+     */
+    private long refilledAt;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param enabled     признак включения очереди
+     * @param rate        количество допусков в секунду
+     * @param burst       максимальное количество накопленных допусков
+     * @param passSeconds срок действия пропуска в секундах
+     * @throws IllegalArgumentException если скорость или количество допусков не положительны
+     */
+    public AdmissionQueue(@Value("${admission.enabled:false}") boolean enabled,
+                          @Value("${admission.rate:20}") double rate,
+                          @Value("${admission.burst:50}") int burst,
+                          @Value("${admission.pass-seconds:900}") long passSeconds) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException(
+                    "Скорость и количество допусков очереди должны быть положительными");
+        }
+        this.enabled = enabled;
+        this.rate = rate;
+        this.burst = burst;
+        this.passMillis = passSeconds * 1000;
+        this.tokens = burst;
+        this.refilledAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Возвращает признак включения очереди.
+     *
+     * @return true, если очередь включена
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Выполняет постановку пользователя в очередь.
+     *
+     * @return номер в очереди
+     */
+    public long join() {
+        return join(System.currentTimeMillis());
+    }
+
+    /**
+     * Возвращает положение номера в очереди.
+     *
+     * @param number номер в очереди
+     * @return количество пользователей впереди, включая номер,
+     * 0, если номер допущен
+     */
+    public long position(long number) {
+        return position(number, System.currentTimeMillis());
+    }
+
+    /**
+     * Выполняет проверку, выдан ли номер очередью. Номер из сессии,
+     * сохраненной до перезапуска приложения, может быть не выдан.
+     *
+     * @param number номер в очереди
+     * @return true, если номер выдан
+     */
+    public synchronized boolean isIssued(long number) {
+        return number > 0 && number <= issued;
+    }
+
+    /**
+     * Возвращает время окончания действия пропуска, выдаваемого сейчас.
+     *
+     * @return время в миллисекундах
+     */
+    public long passExpiresAt() {
+        return System.currentTimeMillis() + passMillis;
+    }
+
+    /**
+     * Возвращает ожидаемое время ожидания для положения в очереди.
+     *
+     * @param position положение в очереди
+     * @return время ожидания в секундах
+     */
+    public long estimateSeconds(long position) {
+        return (long) Math.ceil(position / rate);
+    }
+
+    /**
+     * Возвращает количество пользователей, ожидающих допуска.
+     *
+     * @return длина очереди
+     */
+    public synchronized long getWaiting() {
+        refill(System.currentTimeMillis());
+        return issued - admitted;
+    }
+
+    /**
+     * Выполняет постановку пользователя в очередь на момент времени now.
+     *
+     * @param now время в миллисекундах
+     * @return номер в очереди
+     */
+    synchronized long join(long now) {
+        issued++;
+        refill(now);
+        return issued;
+    }
+
+    /**
+     * Возвращает положение номера в очереди на момент времени now.
+     *
+     * @param number номер в очереди
+     * @param now    время в миллисекундах
+     * @return количество пользователей впереди, включая номер,
+     * 0, если номер допущен
+     */
+    synchronized long position(long number, long now) {
+        refill(now);
+        return Math.max(0, number - admitted);
+    }
+
+    /**
+     * Вспомогательный метод начисляет допуски за прошедшее время
+     * и допускает ожидающие номера по порядку.
+     *
+     * @param now время в миллисекундах
+     */
+    private void refill(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * rate / 1000);
+            refilledAt = now;
+        }
+        long admit = Math.min((long) tokens, issued - admitted);
+        admitted += admit;
+        tokens -= admit;
+    }
+}
@@ -0,0 +1,172 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.datasource.ReadRouting;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.CatalogueRevision;
+import ru.job4j.cinema.repository.CatalogueVersionRepository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Версия каталога сеансов. Используется как ключ кэшей, построенных
+ * по каталогу, и в теге ETag страницы /shows. Версия хранится в базе
+ * данных и общая для всех узлов приложения: изменение сеансов и показов
+ * увеличивает ее в своей транзакции ({@link #increment()}), а каждый узел
+ * раз в catalogue.version.poll-ms миллисекунд читает ее из базы данных
+ * ({@link #poll()}), поэтому кэши узла устаревают не дольше этого
+ * интервала после изменения на другом узле. При обнаружении изменения,
+ * сделанного другим узлом, выполняются зарегистрированные обработчики,
+ * которые перестраивают данные, не перечитываемые по версии (поисковый
+ * индекс).
+ * <p>
+ * При запуске приложения версия увеличивается, поэтому тег ETag,
+ * выданный до перезапуска, не считается актуальным.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Slf4j
+@Component
+public class CatalogueVersion implements ApplicationRunner {
+
+    /**
+     * Хранилище версии каталога
+     */
+    private final CatalogueVersionRepository repository;
+
+    /**
+     * Обработчики изменения каталога другим узлом
+     */
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Версия каталога, известная узлу
+     */
+    private volatile CatalogueRevision current = new CatalogueRevision(0, currentSecond());
+
+    /**
+     * Конструктор класса.
+     *
+     * @param repository хранилище версии каталога
+     */
+    public CatalogueVersion(CatalogueVersionRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Возвращает номер текущей версии каталога.
+     *
+     * @return номер версии
+     */
+    public long get() {
+        return current.getVersion();
+    }
+
+    /**
+     * Возвращает время последнего изменения каталога.
+     *
+     * @return время в миллисекундах, округленное до секунды
+     */
+    public long getLastModified() {
+        return current.getModifiedAt();
+    }
+
+    /**
+     * Регистрирует обработчик, выполняемый при обнаружении изменения
+     * каталога другим узлом.
+     *
+     * @param listener обработчик
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Выполняет переход к новой версии каталога в базе данных. Вызывается
+     * в транзакции изменения сеансов или показов и выполняется в ней, новая
+     * версия становится текущей для узла после фиксации транзакции.
+     *
+     * @return номер новой версии
+     * @throws IllegalStateException если версия в базе данных не изменена,
+     *                               транзакция изменения при этом отменяется
+     */
+    public long increment() {
+        return Transactions.inTransaction(() -> {
+            CatalogueRevision revision = repository.increment(currentSecond()).orElseThrow(
+                    () -> new IllegalStateException("Версия каталога не изменена"));
+            Transactions.afterCommit(() -> apply(revision, true));
+            return revision.getVersion();
+        });
+    }
+
+    /**
+     * Выполняет чтение версии каталога из основной базы данных. Если версия
+     * изменилась, она становится текущей для узла и выполняются обработчики
+     * изменения. При ошибке чтения узел продолжает работать с известной версией.
+     */
+    @Scheduled(fixedDelayString = "${catalogue.version.poll-ms:1000}")
+    public void poll() {
+        ReadRouting.onPrimary(repository::find).ifPresent(revision -> apply(revision, false));
+    }
+
+    /**
+     * Увеличивает версию каталога при запуске приложения.
+     *
+     * @param args аргументы запуска приложения
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            increment();
+        } catch (IllegalStateException e) {
+            log.info("Исключение в методе run() класса CatalogueVersion ", e);
+        }
+    }
+
+    /**
+     * Вспомогательный метод делает версию из базы данных текущей для узла,
+     * если она новее известной. Обработчики выполняются, если узел не знал
+     * о части изменений: при чтении новой версии из базы данных, а при
+     * изменении на этом узле, если версия увеличилась больше чем на единицу.
+     *
+     * @param revision версия каталога из базы данных
+     * @param local    true, если версия получена при изменении на этом узле
+     */
+    private void apply(CatalogueRevision revision, boolean local) {
+        boolean missed;
+        synchronized (this) {
+            CatalogueRevision known = current;
+            if (revision.getVersion() <= known.getVersion()) {
+                return;
+            }
+            missed = !local || revision.getVersion() > known.getVersion() + 1;
+            current = new CatalogueRevision(revision.getVersion(),
+                    Math.max(revision.getModifiedAt() / 1000 * 1000, known.getModifiedAt()));
+        }
+        if (missed) {
+            for (Runnable listener : listeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    log.info("Исключение в методе apply() класса CatalogueVersion ", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Вспомогательный метод возвращает текущее время,
+     * округленное до секунды, как в заголовке Last-Modified.
+     *
+     * @return время в миллисекундах
+     */
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000 * 1000;
+    }
+}
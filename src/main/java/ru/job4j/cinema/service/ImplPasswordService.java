@@ -0,0 +1,337 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Реализация сервиса хеширования паролей на основе PBKDF2 (HmacSHA256).
+ * Стоимость вычисления (количество итераций) подбирается один раз при
+ * запуске по выделенным пробным хешам так, чтобы вычисление хеша занимало
+ * заданное время. Время рабочих хешей учитывается только в метриках:
+ * под нагрузкой оно растет из-за конкуренции за процессор, и подбор
+ * стоимости по нему снижал бы стойкость хешей и вызывал пересчет хешей
+ * при входе пользователей. Проверки паролей выполняются в выделенном
+ * пуле потоков с ограниченной очередью, поэтому всплеск попыток входа
+ * не занимает потоки обработки запросов покупки билетов.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.PasswordService
+ */
+@Slf4j
+@Service
+public class ImplPasswordService implements PasswordService {
+
+    /**
+     * Префикс хеша пароля
+     */
+    private static final String PREFIX = "pbkdf2$";
+
+    /**
+     * Алгоритм хеширования
+     */
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    /**
+     * Длина соли в байтах
+     */
+    private static final int SALT_LENGTH = 16;
+
+    /**
+     * Длина хеша в битах
+     */
+    private static final int KEY_LENGTH = 256;
+
+    /**
+     * Количество итераций для калибровки стоимости при запуске
+     */
+    private static final int CALIBRATION_ITERATIONS = 10_000;
+
+    /**
+     * Максимальное количество итераций
+     */
+    private static final int MAX_ITERATIONS = 2_000_000;
+
+    /**
+     * Количество пробных хешей при калибровке стоимости
+     */
+    private static final int CALIBRATION_SAMPLES = 3;
+
+    /**
+     * Количество хешей между проверками соответствия бюджету времени
+     */
+    private static final int REPORT_PERIOD = 100;
+
+    /**
+     * Генератор соли
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Пул потоков для проверки паролей
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Целевое время вычисления одного хеша в миллисекундах
+     */
+    private final long targetMillis;
+
+    /**
+     * Бюджет времени вычисления одного хеша в миллисекундах
+     */
+    private final long budgetMillis;
+
+    /**
+     * Минимальное количество итераций
+     */
+    private final int minIterations;
+
+    /**
+     * Количество вычисленных хешей
+     */
+    private final AtomicLong hashes = new AtomicLong();
+
+    /**
+     * Количество отклоненных проверок
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Количество итераций, подобранное при калибровке
+     */
+    private final int iterations;
+
+    /**
+     * Скользящее среднее время одной итерации в наносекундах
+     */
+    private volatile double nanosPerIteration;
+
+    /**
+     * Конструктор класса. Выполняет калибровку стоимости хеширования.
+     *
+     * @param targetMillis  целевое время вычисления одного хеша в миллисекундах
+     * @param budgetMillis  бюджет времени вычисления одного хеша в миллисекундах
+     * @param minIterations минимальное количество итераций
+     * @param threads       количество потоков проверки паролей
+     * @param queueSize     размер очереди проверок паролей
+     */
+    public ImplPasswordService(@Value("${password.hash.target-ms:50}") long targetMillis,
+                               @Value("${password.hash.budget-ms:150}") long budgetMillis,
+                               @Value("${password.hash.min-iterations:10000}") int minIterations,
+                               @Value("${password.hash.threads:2}") int threads,
+                               @Value("${password.hash.queue:64}") int queueSize) {
+        this.targetMillis = targetMillis;
+        this.budgetMillis = budgetMillis;
+        this.minIterations = minIterations;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.iterations = calibrate();
+        log.info("Количество итераций хеширования паролей: {}", iterations);
+    }
+
+    /**
+     * Выполняет хеширование пароля с текущей стоимостью вычисления.
+     *
+     * @param rawPassword пароль в открытом виде
+     * @return хеш пароля в формате pbkdf2$итерации$соль$хеш
+     */
+    @Override
+    public String encode(String rawPassword) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        int cost = iterations;
+        byte[] hash = hash(rawPassword, salt, cost);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + cost + "$" + encoder.encodeToString(salt)
+                + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Выполняет проверку пароля по хешу. Пароли, сохраненные до введения
+     * хеширования, сравниваются в открытом виде за постоянное время.
+     *
+     * @param rawPassword     пароль в открытом виде
+     * @param encodedPassword хеш пароля из базы данных
+     * @return true, если пароль совпадает, иначе false
+     */
+    @Override
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        if (!isEncoded(encodedPassword)) {
+            return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    encodedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = encodedPassword.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] expected = decoder.decode(parts[3]);
+        byte[] actual = hash(rawPassword, decoder.decode(parts[2]), Integer.parseInt(parts[1]));
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    /**
+     * Выполняет проверку пароля по хешу в выделенном пуле потоков.
+     *
+     * @param rawPassword     пароль в открытом виде
+     * @param encodedPassword хеш пароля из базы данных
+     * @return результат проверки, завершается исключением
+     * RejectedExecutionException, если очередь проверок заполнена
+     */
+    @Override
+    public CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword) {
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> matches(rawPassword, encodedPassword), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Выполняет проверку, хранится ли пароль в виде хеша.
+     *
+     * @param password пароль из базы данных
+     * @return true, если пароль хранится в виде хеша, false - в открытом виде
+     */
+    @Override
+    public boolean isEncoded(String password) {
+        return password != null && password.startsWith(PREFIX);
+    }
+
+    /**
+     * Выполняет проверку необходимости пересчета хеша: пароль хранится
+     * в открытом виде или количество итераций ниже подобранного при
+     * калибровке. Хеши с большим количеством итераций не пересчитываются.
+     *
+     * @param encodedPassword хеш пароля из базы данных
+     * @return true, если хеш необходимо пересчитать
+     */
+    @Override
+    public boolean needsRehash(String encodedPassword) {
+        if (!isEncoded(encodedPassword)) {
+            return true;
+        }
+        String[] parts = encodedPassword.split("\\$");
+        return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+    }
+
+    /**
+     * Возвращает метрики вычисления хешей.
+     *
+     * @return метрики хеширования
+     */
+    @Override
+    public PasswordHashMetrics getMetrics() {
+        return new PasswordHashMetrics(iterations, budgetMillis,
+                nanosPerIteration * iterations / 1_000_000, hashes.get(),
+                rejected.get(), executor.getQueue().size());
+    }
+
+    /**
+     * Вспомогательный метод вычисляет хеш пароля и учитывает время
+     * вычисления в метриках.
+     *
+     * @param rawPassword пароль в открытом виде
+     * @param salt        соль
+     * @param cost        количество итераций
+     * @return хеш пароля
+     */
+    private byte[] hash(String rawPassword, byte[] salt, int cost) {
+        long start = System.nanoTime();
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, cost, KEY_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+            record(System.nanoTime() - start, cost);
+        }
+    }
+
+    /**
+     * Вспомогательный метод обновляет скользящее среднее времени итерации
+     * рабочих хешей и периодически сообщает о превышении бюджета времени.
+     * Количество итераций по этому времени не изменяется.
+     *
+     * @param nanos время вычисления хеша в наносекундах
+     * @param cost  количество итераций
+     */
+    private synchronized void record(long nanos, int cost) {
+        double sample = (double) nanos / cost;
+        nanosPerIteration = nanosPerIteration == 0
+                ? sample : nanosPerIteration * 0.9 + sample * 0.1;
+        if (hashes.incrementAndGet() % REPORT_PERIOD == 0
+                && nanosPerIteration * iterations / 1_000_000 > budgetMillis) {
+            log.warn("Время хеширования пароля превышает бюджет {} мс: {}",
+                    budgetMillis, getMetrics());
+        }
+    }
+
+    /**
+     * Вспомогательный метод выполняет калибровку количества итераций
+     * по наименьшему времени вычисления пробных хешей. Первый пробный хеш
+     * прогревает алгоритм и не учитывается. Пробные хеши не учитываются
+     * в метриках рабочих хешей.
+     *
+     * @return количество итераций
+     */
+    private int calibrate() {
+        byte[] salt = new byte[SALT_LENGTH];
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i <= CALIBRATION_SAMPLES; i++) {
+            long start = System.nanoTime();
+            PBEKeySpec spec = new PBEKeySpec("calibration".toCharArray(), salt,
+                    CALIBRATION_ITERATIONS, KEY_LENGTH);
+            try {
+                SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+            if (i > 0) {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        return costFor((double) best / CALIBRATION_ITERATIONS);
+    }
+
+    /**
+     * Вспомогательный метод рассчитывает количество итераций,
+     * соответствующее целевому времени вычисления хеша.
+     *
+     * @param nanosPerStep время одной итерации в наносекундах
+     * @return количество итераций
+     */
+    private int costFor(double nanosPerStep) {
+        long cost = Math.round(targetMillis * 1_000_000 / Math.max(nanosPerStep, 1));
+        return (int) Math.max(minIterations, Math.min(MAX_ITERATIONS, cost));
+    }
+}
@@ -0,0 +1,199 @@
+package ru.job4j.cinema.service;
+
+import org.springframework.stereotype.Service;
+import ru.job4j.cinema.datasource.ReadRouting;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.repository.ScreeningRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Реализация сервиса показов сеансов. Запросы расписания обслуживаются
+ * из расписания в памяти, которое загружается из базы данных при первом
+ * обращении и повторно после изменения версии каталога сеансов, которая
+ * увеличивается и при изменении показов на любом узле приложения.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ScreeningService
+ */
+@Service
+public class ImplScreeningService implements ScreeningService {
+
+    /**
+     * Объект для доступа к методам ScreeningRepository
+     */
+    private final ScreeningRepository screeningRepository;
+
+    /**
+     * Версия каталога сеансов
+     */
+    private final CatalogueVersion catalogueVersion;
+
+    /**
+     * Расписание показов с версией каталога, по которой оно построено
+     */
+    private volatile ScheduleSnapshot snapshot;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param screeningRepository объект для доступа к методам слоя ScreeningRepository
+     * @param catalogueVersion    версия каталога сеансов
+     */
+    public ImplScreeningService(ScreeningRepository screeningRepository,
+                                CatalogueVersion catalogueVersion) {
+        this.screeningRepository = screeningRepository;
+        this.catalogueVersion = catalogueVersion;
+    }
+
+    /**
+     * Возвращает список показов, начинающихся в заданном интервале времени,
+     * в порядке времени начала. Выборка выполняется по расписанию в памяти.
+     *
+     * @param from начало интервала (включительно)
+     * @param to   конец интервала (не включительно)
+     * @return список показов
+     */
+    @Override
+    public List<Screening> findBetween(LocalDateTime from, LocalDateTime to) {
+        return getSchedule(from).between(from, to);
+    }
+
+    /**
+     * Возвращает список показов на текущий день.
+     *
+     * @return список показов
+     */
+    @Override
+    public List<Screening> findToday() {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        return findBetween(today, today.plusDays(1));
+    }
+
+    /**
+     * Возвращает список показов на заданное количество дней,
+     * начиная с текущего момента.
+     *
+     * @param days количество дней
+     * @return список показов
+     */
+    @Override
+    public List<Screening> findNextDays(int days) {
+        LocalDateTime now = LocalDateTime.now();
+        return findBetween(now, now.plusDays(days));
+    }
+
+    /**
+     * Выполняет поиск показа по идентификатору. При успешном нахождении возвращает
+     * показ, иначе выбрасывает исключение.
+     *
+     * @param id идентификатор показа
+     * @return показ при успешном нахождении
+     * @throws NoSuchElementException если показ не найден
+     */
+    @Override
+    public Screening findById(int id) {
+        return screeningRepository.findById(id).orElseThrow(
+                () -> new NoSuchElementException(
+                        String.format("Показ c id = %d не найден", id)));
+    }
+
+    /**
+     * Выполняет поиск показа по идентификатору с проверкой, что показ
+     * относится к переданному сеансу. При успешном нахождении возвращает
+     * показ, иначе выбрасывает исключение.
+     *
+     * @param id     идентификатор показа
+     * @param showId идентификатор сеанса
+     * @return показ сеанса при успешном нахождении
+     * @throws NoSuchElementException если показ не найден или относится
+     *                                к другому сеансу
+     */
+    @Override
+    public Screening findByIdAndShowId(int id, int showId) {
+        Screening screening = findById(id);
+        if (screening.getShow() == null || screening.getShow().getId() != showId) {
+            throw new NoSuchElementException(
+                    String.format("Показ c id = %d сеанса c id = %d не найден", id, showId));
+        }
+        return screening;
+    }
+
+    /**
+     * Выполняет сохранение показа. Сохранение и переход к новой версии
+     * каталога выполняются в одной транзакции. При успешном сохранении возвращает
+     * сохраненный показ, иначе выбрасывается исключение.
+     *
+     * @param screening сохраняемый показ
+     * @return показ при успешном сохранении
+     * @throws IllegalArgumentException если сохранение показа не произошло
+     */
+    @Override
+    public Screening save(Screening screening) {
+        return Transactions.inTransaction(() -> {
+            Screening saved = screeningRepository.save(screening).orElseThrow(
+                    () -> new IllegalArgumentException("Показ не сохранен"));
+            catalogueVersion.increment();
+            return saved;
+        });
+    }
+
+    /**
+     * Выполняет удаление показа по идентификатору. Удаление и переход
+     * к новой версии каталога выполняются в одной транзакции. При успешном удалении
+     * показа возвращает true, иначе выбрасывается исключение.
+     *
+     * @param id идентификатор показа
+     * @return true при успешном удалении
+     * @throws NoSuchElementException если показ не найден
+     */
+    @Override
+    public boolean deleteById(int id) {
+        Transactions.inTransaction(() -> {
+            if (!screeningRepository.deleteById(id)) {
+                throw new NoSuchElementException(
+                        String.format("Показ c id = %d не найден", id));
+            }
+            catalogueVersion.increment();
+        });
+        return true;
+    }
+
+    /**
+     * Вспомогательный метод возвращает расписание, содержащее все показы
+     * начиная с заданного времени. Расписание загружается из базы данных,
+     * если оно устарело или не покрывает заданное время. Загружаются показы
+     * начиная с текущего дня или с заданного времени, если оно раньше.
+     *
+     * @param from время, с которого расписание должно содержать все показы
+     * @return расписание показов
+     */
+    private ScreeningSchedule getSchedule(LocalDateTime from) {
+        long version = catalogueVersion.get();
+        ScheduleSnapshot current = snapshot;
+        if (current == null || current.version() != version
+                || !current.schedule().covers(from)) {
+            LocalDateTime today = LocalDate.now().atStartOfDay();
+            LocalDateTime start = from.isBefore(today) ? from : today;
+            current = new ScheduleSnapshot(version, new ScreeningSchedule(
+                    ReadRouting.onPrimary(() -> screeningRepository.findAllStartingFrom(start)),
+                    start));
+            snapshot = current;
+        }
+        return current.schedule();
+    }
+
+    /**
+     * Расписание показов с версией каталога, по которой оно построено.
+     *
+     * @param version  номер версии каталога сеансов
+     * @param schedule расписание показов
+     */
+    private record ScheduleSnapshot(long version, ScreeningSchedule schedule) {
+    }
+}
@@ -0,0 +1,347 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.ShowImportResult;
+import ru.job4j.cinema.repository.ShowRepository;
+import ru.job4j.cinema.util.ShowCatalogueReader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Реализация сервиса загрузки каталога сеансов. Каталог читается
+ * потоково и проверяется по записям, затем из архива извлекаются только
+ * постеры, на которые ссылается каталог, и сеансы сохраняются пакетными
+ * вставками в одной транзакции вместе с переходом к новой версии каталога.
+ * Идентификаторы сеансов, сохраненных пакетом,
+ * не возвращаются, поэтому поисковый индекс после загрузки строится заново.
+ * Сервис используется только администратором и создается при первом
+ * обращении, а не при запуске приложения.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ShowImportService
+ * @see ru.job4j.cinema.util.ShowCatalogueReader
+ */
+@Slf4j
+@Lazy
+@Service
+public class ImplShowImportService implements ShowImportService {
+
+    /**
+     * Максимальное количество ошибок в результате загрузки
+     */
+    private static final int MAX_ERRORS = 100;
+
+    /**
+     * Максимальная длина названия сеанса
+     */
+    private static final int MAX_NAME_LENGTH = 255;
+
+    /**
+     * Максимальная длина описания сеанса
+     */
+    private static final int MAX_DESCRIPTION_LENGTH = 10_000;
+
+    /**
+     * Размер буфера копирования постера
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Объект для доступа к методам ShowRepository
+     */
+    private final ShowRepository showRepository;
+
+    /**
+     * Версия каталога сеансов
+     */
+    private final CatalogueVersion catalogueVersion;
+
+    /**
+     * Поисковый индекс сеансов
+     */
+    private final ShowSearchIndex searchIndex;
+
+    /**
+     * Абсолютный путь к папке для хранения изображений
+     */
+    private final String uploadPath;
+
+    /**
+     * Максимальное количество сеансов в каталоге
+     */
+    private final int maxRows;
+
+    /**
+     * Максимальный размер файла постера в байтах
+     */
+    private final long maxPosterSize;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param showRepository   объект для доступа к методам слоя ShowRepository
+     * @param catalogueVersion версия каталога сеансов
+     * @param searchIndex      поисковый индекс сеансов
+     * @param uploadPath       абсолютный путь к папке для хранения изображений
+     * @param maxRows          максимальное количество сеансов в каталоге
+     * @param maxPosterSize    максимальный размер файла постера в байтах
+     */
+    public ImplShowImportService(ShowRepository showRepository,
+                                 CatalogueVersion catalogueVersion,
+                                 ShowSearchIndex searchIndex,
+                                 @Value("${upload.path}") String uploadPath,
+                                 @Value("${show.import.max-rows:20000}") int maxRows,
+                                 @Value("${show.import.max-poster-size:5242880}")
+                                 long maxPosterSize) {
+        this.showRepository = showRepository;
+        this.catalogueVersion = catalogueVersion;
+        this.searchIndex = searchIndex;
+        this.uploadPath = uploadPath;
+        this.maxRows = maxRows;
+        this.maxPosterSize = maxPosterSize;
+    }
+
+    /**
+     * Выполняет загрузку каталога сеансов и архива постеров. Сеансы
+     * сохраняются только если каталог не содержит ошибок, иначе
+     * извлеченные постеры удаляются.
+     *
+     * @param catalogue файл каталога в формате CSV или JSON
+     * @param posters   zip архив постеров, может быть пустым
+     * @return результат загрузки
+     */
+    @Override
+    public ShowImportResult importCatalogue(MultipartFile catalogue, MultipartFile posters) {
+        long start = System.nanoTime();
+        List<Show> shows = new ArrayList<>();
+        List<String> posterNames = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        int[] rows = {0};
+        try (InputStream in = catalogue.getInputStream()) {
+            ShowCatalogueReader.read(catalogue.getOriginalFilename(), in, row -> {
+                if (++rows[0] > maxRows) {
+                    throw new IllegalArgumentException(
+                            String.format("Каталог содержит больше %d сеансов", maxRows));
+                }
+                Show show = validate(row, errors);
+                if (show != null && errors.isEmpty()) {
+                    shows.add(show);
+                    posterNames.add(row.poster());
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            addError(errors, e.getMessage());
+        } catch (IOException e) {
+            log.info("Исключение в методе importCatalogue() класса ImplShowImportService ", e);
+            addError(errors, "Не удалось прочитать каталог");
+        }
+        if (errors.isEmpty() && shows.isEmpty()) {
+            addError(errors, "Каталог не содержит сеансов");
+        }
+        Map<String, String> stored = new HashMap<>();
+        Set<String> needed = new HashSet<>(posterNames);
+        needed.remove(null);
+        if (errors.isEmpty() && !needed.isEmpty()) {
+            extractPosters(posters, needed, stored, errors);
+        }
+        int imported = 0;
+        if (errors.isEmpty()) {
+            for (int i = 0; i < shows.size(); i++) {
+                String posterName = posterNames.get(i);
+                shows.get(i).setPosterName(posterName == null ? "" : stored.get(posterName));
+            }
+            try {
+                imported = Transactions.inTransaction(() -> {
+                    int saved = showRepository.saveAll(shows);
+                    if (saved == shows.size()) {
+                        catalogueVersion.increment();
+                    } else {
+                        Transactions.setRollbackOnly();
+                    }
+                    return saved;
+                });
+            } catch (IllegalStateException e) {
+                log.info("Исключение в методе importCatalogue() класса ImplShowImportService ", e);
+                imported = 0;
+            }
+            if (imported != shows.size()) {
+                imported = 0;
+                addError(errors, "Сеансы не сохранены");
+            } else {
+                searchIndex.rebuild();
+            }
+        }
+        if (!errors.isEmpty()) {
+            stored.values().forEach(this::deletePoster);
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        log.info("Загрузка каталога {}: сохранено {} сеансов за {} мс",
+                catalogue.getOriginalFilename(), imported, elapsed);
+        return new ShowImportResult(imported, errors, elapsed);
+    }
+
+    /**
+     * Вспомогательный метод проверяет запись каталога и создает по ней сеанс.
+     * Ошибки записи добавляются в список ошибок.
+     *
+     * @param row    запись каталога
+     * @param errors список ошибок
+     * @return сеанс, null, если запись содержит ошибки
+     */
+    private Show validate(ShowCatalogueReader.Row row, List<String> errors) {
+        int before = errors.size();
+        String name = row.name() == null ? "" : row.name().strip();
+        if (name.isEmpty()) {
+            addError(errors, String.format("Строка %d: не указано название", row.line()));
+        } else if (name.length() > MAX_NAME_LENGTH) {
+            addError(errors, String.format("Строка %d: название длиннее %d символов",
+                    row.line(), MAX_NAME_LENGTH));
+        }
+        if (row.description() != null && row.description().length() > MAX_DESCRIPTION_LENGTH) {
+            addError(errors, String.format("Строка %d: описание длиннее %d символов",
+                    row.line(), MAX_DESCRIPTION_LENGTH));
+        }
+        if (row.poster() != null && !isPlainFileName(row.poster())) {
+            addError(errors, String.format("Строка %d: некорректное имя постера %s",
+                    row.line(), row.poster()));
+        }
+        if (errors.size() > before) {
+            return null;
+        }
+        return Show.builder()
+                .name(name)
+                .description(row.description())
+                .build();
+    }
+
+    /**
+     * Вспомогательный метод извлекает из архива постеры, на которые ссылается
+     * каталог. Путь элемента архива не используется: постер сохраняется под
+     * новым именем в папке изображений, поэтому элементы архива с путями вида
+     * ../ не могут записать файл за пределами папки.
+     *
+     * @param posters архив постеров
+     * @param needed  имена постеров, на которые ссылается каталог
+     * @param stored  соответствие имен постеров в архиве сохраненным файлам,
+     *                заполняется методом
+     * @param errors  список ошибок
+     */
+    private void extractPosters(MultipartFile posters, Set<String> needed,
+                                Map<String, String> stored, List<String> errors) {
+        if (posters == null || posters.isEmpty()) {
+            addError(errors, "Каталог ссылается на постеры, архив постеров не загружен");
+            return;
+        }
+        File uploadDir = new File(uploadPath);
+        if (!uploadDir.exists()) {
+            uploadDir.mkdirs();
+        }
+        try (ZipInputStream zip = new ZipInputStream(posters.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory() || !needed.contains(entry.getName())
+                        || stored.containsKey(entry.getName())) {
+                    continue;
+                }
+                String fileName = UUID.randomUUID() + "." + entry.getName();
+                stored.put(entry.getName(), fileName);
+                copyPoster(zip, new File(uploadDir, fileName), entry.getName());
+            }
+        } catch (IllegalArgumentException e) {
+            addError(errors, e.getMessage());
+        } catch (IOException e) {
+            log.info("Исключение в методе extractPosters() класса ImplShowImportService ", e);
+            addError(errors, "Не удалось прочитать архив постеров");
+        }
+        for (String name : needed) {
+            if (!stored.containsKey(name)) {
+                addError(errors, String.format("Постер %s отсутствует в архиве", name));
+            }
+        }
+    }
+
+    /**
+     * Вспомогательный метод копирует постер из архива в файл с ограничением
+     * размера. Размер, указанный в заголовке элемента архива, не проверяется,
+     * так как может не соответствовать содержимому.
+     *
+     * @param in     содержимое элемента архива
+     * @param target файл постера
+     * @param name   имя постера в архиве
+     * @throws IOException              если происходит ошибка чтения или записи
+     * @throws IllegalArgumentException если размер постера превышает допустимый
+     */
+    private void copyPoster(InputStream in, File target, String name) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long size = 0;
+        try (OutputStream out = new FileOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                if (size > maxPosterSize) {
+                    throw new IllegalArgumentException(String.format(
+                            "Постер %s больше %d байт", name, maxPosterSize));
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Вспомогательный метод удаляет сохраненный постер.
+     *
+     * @param fileName имя файла постера
+     */
+    private void deletePoster(String fileName) {
+        File file = new File(uploadPath, fileName);
+        if (file.exists() && !file.delete()) {
+            log.info("Постер {} не удален", fileName);
+        }
+    }
+
+    /**
+     * Вспомогательный метод проверяет, что имя постера является именем файла
+     * без пути.
+     *
+     * @param name имя постера
+     * @return true, если имя не содержит разделителей пути и ссылок на
+     * родительскую папку
+     */
+    private static boolean isPlainFileName(String name) {
+        return !name.isBlank() && name.indexOf('/') < 0 && name.indexOf('\\') < 0
+                && !name.contains("..") && name.indexOf(':') < 0;
+    }
+
+    /**
+     * Вспомогательный метод добавляет ошибку, если количество ошибок
+     * не превышает MAX_ERRORS.
+     *
+     * @param errors  список ошибок
+     * @param message текст ошибки
+     */
+    private static void addError(List<String> errors, String message) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(message);
+        }
+    }
+}
@@ -4,15 +4,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import ru.job4j.cinema.datasource.ReadRouting;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.SeatRecommendation;
 import ru.job4j.cinema.model.Show;
-import ru.job4j.cinema.model.Ticket;
 import ru.job4j.cinema.repository.ShowRepository;
 import ru.job4j.cinema.repository.TicketRepository;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -27,23 +27,21 @@ import java.util.*;
 public class ImplShowService implements ShowService {
 
     /**
-     * Абсолютный путь к папке для хранения изображений указывается
-     * в конфигурационном файле application.properties
+     * Максимальное количество сеансов в результате поиска
      */
-    @Value("${upload.path}")
-    private String uploadPath;
+    private static final int SEARCH_LIMIT = 50;
 
     /**
-     * Количество рядов в кинозале
+     * Максимальное количество подсказок поиска
      */
-    @Value("${show.rows}")
-    private int rows;
+    private static final int SUGGEST_LIMIT = 10;
 
     /**
-     * Количество мест в ряде кинозала
+     * Абсолютный путь к папке для хранения изображений указывается
+     * в конфигурационном файле application.properties
      */
-    @Value("${show.cells}")
-    private int cells;
+    @Value("${upload.path}")
+    private String uploadPath;
 
     /**
      * Объект для доступа к методам ShowRepository
@@ -52,32 +50,94 @@ public class ImplShowService implements ShowService {
 
     /**
      * Объект для доступа к методам TicketRepository
-     *
-     * @see ru.job4j.cinema.repository.TicketRepository
      */
     private final TicketRepository ticketRepository;
 
     /**
-     * Конструктор класса.
+     * Реестр состояний мест кинозала по показам сеансов
+     */
+    private final SeatRegistry seatRegistry;
+
+    /**
+     * Версия каталога сеансов
+     */
+    private final CatalogueVersion catalogueVersion;
+
+    /**
+     * Объект для фонового удаления файлов постеров
+     */
+    private final PosterCleaner posterCleaner;
+
+    /**
+     * Поисковый индекс сеансов
+     */
+    private final ShowSearchIndex searchIndex;
+
+    /**
+     * Кэшированный список сеансов с версией каталога, по которой он построен
+     */
+    private volatile CatalogueSnapshot catalogue;
+
+    /**
+     * Конструктор класса. Поисковый индекс перестраивается при обнаружении
+     * изменения каталога другим узлом.
      *
      * @param showRepository   объект для доступа к методам слоя ShowRepository
      * @param ticketRepository объект для доступа к методам слоя TicketRepository
+     * @param seatRegistry     реестр состояний мест кинозала по показам сеансов
+     * @param catalogueVersion версия каталога сеансов
+     * @param posterCleaner    объект для фонового удаления файлов постеров
+     * @param searchIndex      поисковый индекс сеансов
      */
-    public ImplShowService(ShowRepository showRepository, TicketRepository ticketRepository) {
+    public ImplShowService(ShowRepository showRepository, TicketRepository ticketRepository,
+                           SeatRegistry seatRegistry, CatalogueVersion catalogueVersion,
+                           PosterCleaner posterCleaner, ShowSearchIndex searchIndex) {
         this.showRepository = showRepository;
         this.ticketRepository = ticketRepository;
+        this.seatRegistry = seatRegistry;
+        this.catalogueVersion = catalogueVersion;
+        this.posterCleaner = posterCleaner;
+        this.searchIndex = searchIndex;
+        catalogueVersion.addListener(searchIndex::rebuild);
     }
 
     /**
-     * Возвращает список всех сеансов.
+     * Возвращает список всех сеансов. Список берется из кэша, если
+     * каталог не изменялся с момента его загрузки из базы данных.
      *
      * @return {@code List<Show>} - список всех сеансов
      */
     @Override
     public List<Show> findAll() {
-        List<Show> shows = showRepository.findAll();
-        shows.sort(Comparator.comparing(Show::getId));
-        return shows;
+        long version = catalogueVersion.get();
+        CatalogueSnapshot snapshot = catalogue;
+        if (snapshot == null || snapshot.version() != version) {
+            List<Show> shows = new ArrayList<>(ReadRouting.onPrimary(showRepository::findAll));
+            shows.sort(Comparator.comparing(Show::getId));
+            snapshot = new CatalogueSnapshot(version, List.copyOf(shows));
+            catalogue = snapshot;
+        }
+        return new ArrayList<>(snapshot.shows());
+    }
+
+    /**
+     * Возвращает номер текущей версии каталога сеансов.
+     *
+     * @return номер версии каталога
+     */
+    @Override
+    public long getCatalogueVersion() {
+        return catalogueVersion.get();
+    }
+
+    /**
+     * Возвращает время последнего изменения каталога сеансов.
+     *
+     * @return время в миллисекундах, округленное до секунды
+     */
+    @Override
+    public long getCatalogueLastModified() {
+        return catalogueVersion.getLastModified();
     }
 
     /**
@@ -118,7 +178,8 @@ public class ImplShowService implements ShowService {
     }
 
     /**
-     * Выполняет сохранение сеанса при добавлении сеанса.
+     * Выполняет сохранение сеанса при добавлении сеанса. Сохранение
+     * и переход к новой версии каталога выполняются в одной транзакции.
      * При успешном сохранении возвращает сохраненный сеанс,
      * иначе выбрасывается исключение.
      *
@@ -128,35 +189,48 @@ public class ImplShowService implements ShowService {
      */
     @Override
     public Show save(Show show) {
-        show = showRepository.save(show).orElseThrow(
-                () -> new IllegalArgumentException("Сеанс не сохранен"));
-        return show;
+        Show saved = Transactions.inTransaction(() -> {
+            Show result = showRepository.save(show).orElseThrow(
+                    () -> new IllegalArgumentException("Сеанс не сохранен"));
+            catalogueVersion.increment();
+            return result;
+        });
+        searchIndex.put(saved);
+        return saved;
     }
 
     /**
-     * Выполняет обновление сеанса. Выполняется сравнение постеров по имени,
-     * Если постер изменен старый удаляется.
+     * Выполняет обновление сеанса. Чтение прежнего сеанса, обновление
+     * и переход к новой версии каталога выполняются в одной транзакции.
+     * Выполняется сравнение постеров по имени, если постер изменен, старый
+     * удаляется в фоновом потоке.
      *
      * @param show обновляемый сеанс
      * @throws NoSuchElementException если сеанс не найден
      */
     @Override
     public boolean update(Show show) {
-        Show showFromDB = findById(show.getId());
-        if (!showFromDB.getPosterName().equals(show.getPosterName())) {
-            deletePosterByShowId(showFromDB.getId());
-        }
-        if (!showRepository.update(show)) {
-            throw new NoSuchElementException(
-                    String.format("Сеанс c id = %d не найден", show.getId()));
+        Show showFromDB = Transactions.inTransaction(() -> {
+            Show previous = findById(show.getId());
+            if (!showRepository.update(show)) {
+                throw new NoSuchElementException(
+                        String.format("Сеанс c id = %d не найден", show.getId()));
+            }
+            catalogueVersion.increment();
+            return previous;
+        });
+        if (!Objects.equals(showFromDB.getPosterName(), show.getPosterName())) {
+            posterCleaner.deleteAsync(Collections.singletonList(showFromDB.getPosterName()));
         }
+        searchIndex.put(show);
         return true;
     }
 
     /**
-     * Выполняет удаление сеанса по идентификатору. При успешном удалении
-     * сеанса возвращает true, иначе выбрасывается исключение.
-     * При удалении сеанса происходит и удаление постера к сеансу.
+     * Выполняет удаление сеанса по идентификатору вместе с проданными
+     * билетами и показами сеанса. При успешном удалении сеанса возвращает
+     * true, иначе выбрасывается исключение. Постер сеанса удаляется
+     * в фоновом потоке.
      *
      * @param id идентификатор сеанса
      * @return true при успешном удалении
@@ -164,11 +238,7 @@ public class ImplShowService implements ShowService {
      */
     @Override
     public boolean deleteById(int id) {
-        if (uploadPath != null) {
-            deletePosterByShowId(id);
-        }
-        boolean result = showRepository.deleteById(id);
-        if (!result) {
+        if (deleteAllByIds(List.of(id)) == 0) {
             throw new NoSuchElementException(
                     String.format("Сеанс c id = %d не найден", id));
         }
@@ -176,89 +246,111 @@ public class ImplShowService implements ShowService {
     }
 
     /**
-     * Выполняет расчет списка рядов в зале со свободными местами
-     * по переданному идентификатору сеанса. Для расчета используется
-     * вспомогательный метод {@link ImplShowService#getFreeTicketMap(int)}.
-     * Возвращает список рядов со свободными местами.
+     * Выполняет удаление сеансов по идентификаторам вместе с проданными
+     * билетами и показами сеансов в одной транзакции, в этой же транзакции
+     * выполняется переход к новой версии каталога. Билеты удаляются
+     * через хранилище билетов запросами со списком сеансов каждого шарда,
+     * если удаление билетов в каком-либо шарде не выполнено, транзакция
+     * отменяется и возвращается 0. Отсутствующие
+     * идентификаторы пропускаются. Состояния мест удаленных показов
+     * удаляются из реестра, постеры удаленных сеансов удаляются
+     * в фоновом потоке.
      *
-     * @param id идентификатор сеанса
-     * @return {@code List<Integer>} список рядов в зале со
-     * свободными местами
+     * @param ids идентификаторы сеансов
+     * @return количество удаленных сеансов
      */
     @Override
-    public List<Integer> getRows(int id) {
-        Map<Integer, List<Integer>> freeTickets = getFreeTicketMap(id);
-        List<Integer> rows = new ArrayList<>();
-        for (Map.Entry<Integer, List<Integer>> entry : freeTickets.entrySet()) {
-            if (entry.getValue().size() > 0) {
-                rows.add(entry.getKey());
-            }
+    public int deleteAllByIds(Collection<Integer> ids) {
+        List<Show> deleted;
+        try {
+            deleted = Transactions.inTransaction(() -> {
+                ticketRepository.deleteTicketsByShowIds(ids);
+                List<Show> shows = showRepository.deleteAllByIds(ids);
+                if (!shows.isEmpty() && !Transactions.isRollbackOnly()) {
+                    catalogueVersion.increment();
+                }
+                return shows;
+            });
+        } catch (IllegalStateException e) {
+            log.info("Исключение в методе deleteAllByIds() класса ImplShowService ", e);
+            return 0;
+        }
+        if (deleted.isEmpty()) {
+            return 0;
+        }
+        List<String> posters = new ArrayList<>(deleted.size());
+        for (Show show : deleted) {
+            searchIndex.remove(show.getId());
+            posters.add(show.getPosterName());
         }
-        return rows;
+        seatRegistry.clear();
+        posterCleaner.deleteAsync(posters);
+        return deleted.size();
     }
 
     /**
-     * Выполняет расчет списка свободных мест в ряде по
-     * идентификаторам сеанса и номеру ряда.
-     * Для расчета используется вспомогательный метод
-     * {@link ImplShowService#getFreeTicketMap(int)}.
-     * Возвращает список свободных мест в ряде.
+     * Выполняет поиск сеансов по словам в названии и описании. Поиск
+     * выполняется по индексу в памяти без обращения к базе данных.
      *
-     * @param id     идентификатор сеанса
-     * @param posRow номер ряда
-     * @return {@code List<Integer>} - список свободных мест в ряде
+     * @param query строка запроса
+     * @return список найденных сеансов, не более SEARCH_LIMIT
      */
     @Override
-    public List<Integer> getCells(int id, int posRow) {
-        Map<Integer, List<Integer>> freeTickets = getFreeTicketMap(id);
-        return freeTickets.get(posRow);
+    public List<Show> search(String query) {
+        return searchIndex.search(query, SEARCH_LIMIT);
     }
 
     /**
-     * Возвращает сгенерированное отображение свободных мест в сеансе
-     * по идентификатору.
+     * Возвращает названия сеансов для подсказки во время набора запроса.
      *
-     * @param id идентификатор сеанса
-     * @return {@code Map<Integer, List<Integer>>} - отображение, где ключ - номер ряда,
-     * список - номера мест в ряде
+     * @param query строка запроса
+     * @return список названий сеансов, не более SUGGEST_LIMIT
      */
-    private Map<Integer, List<Integer>> getFreeTicketMap(int id) {
-        Map<Integer, List<Integer>> freeTickets = new HashMap<>();
-        for (int i = 1; i <= rows; i++) {
-            freeTickets.put(i, new ArrayList<>());
-            for (int j = 1; j <= cells; j++) {
-                freeTickets.get(i).add(j);
-            }
-        }
-        List<Ticket> tickets = ticketRepository.findAllTicketsByShowId(id);
-        for (Ticket ticket : tickets) {
-            freeTickets.get(ticket.getPosRow()).remove(ticket.getCell() - 1);
-        }
-        return freeTickets;
+    @Override
+    public List<String> suggest(String query) {
+        return searchIndex.suggest(query, SUGGEST_LIMIT);
     }
 
     /**
-     * Удаляет постер из служебного каталога хранилища. Если удаление прошло удачно
-     * вернет true, если в процессе удаление выброшено IOException false.
+     * Возвращает список рядов в зале со свободными местами
+     * по переданному идентификатору показа сеанса. Список рассчитывается
+     * по состоянию мест показа из {@link SeatRegistry}.
      *
-     * @param id идентификатор сеанса
-     * @return true если удаление
+     * @param screeningId идентификатор показа
+     * @return {@code List<Integer>} список рядов в зале со
+     * свободными местами
      */
-    private boolean deletePosterByShowId(int id) {
-        Show showFromDB = showRepository.findById(id).orElseThrow(
-                () -> new NoSuchElementException(
-                        String.format("Сеанс c id = %d не найден", id)));
-        if (showFromDB.getPosterName() != null) {
-            String posterName = showFromDB.getPosterName();
-            String fileName = uploadPath.substring(1) + "/" + posterName;
-            try {
-                Files.delete(Paths.get(fileName));
-            } catch (IOException e) {
-                log.error(e.getLocalizedMessage(), "Постер не удален");
-                return false;
-            }
-        }
-        return true;
+    @Override
+    public List<Integer> getRows(int screeningId) {
+        return seatRegistry.get(screeningId).rowsWithFreeSeats();
+    }
+
+    /**
+     * Возвращает список свободных мест в ряде по
+     * идентификатору показа сеанса и номеру ряда. Список рассчитывается
+     * по состоянию мест показа из {@link SeatRegistry}.
+     *
+     * @param screeningId идентификатор показа
+     * @param posRow      номер ряда
+     * @return {@code List<Integer>} - список свободных мест в ряде
+     */
+    @Override
+    public List<Integer> getCells(int screeningId, int posRow) {
+        return seatRegistry.get(screeningId).freeCells(posRow);
+    }
+
+    /**
+     * Выполняет подбор подряд идущих свободных мест одного ряда
+     * для группы зрителей по состоянию мест показа из {@link SeatRegistry}.
+     *
+     * @param screeningId идентификатор показа
+     * @param count       количество мест
+     * @return Optional.of(recommendation) при наличии мест, иначе Optional.empty()
+     * @throws IllegalArgumentException если количество мест вне допустимого диапазона
+     */
+    @Override
+    public Optional<SeatRecommendation> recommendSeats(int screeningId, int count) {
+        return seatRegistry.get(screeningId).recommend(count);
     }
 
     /**
@@ -288,4 +380,13 @@ public class ImplShowService implements ShowService {
         }
         return result;
     }
+
+    /**
+     * Снимок каталога сеансов для заданной версии.
+     *
+     * @param version номер версии каталога
+     * @param shows   неизменяемый список сеансов
+     */
+    private record CatalogueSnapshot(long version, List<Show> shows) {
+    }
 }
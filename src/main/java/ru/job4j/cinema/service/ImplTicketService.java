@@ -1,8 +1,12 @@
 package ru.job4j.cinema.service;
 
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.job4j.cinema.datasource.ReadRouting;
+import ru.job4j.cinema.datasource.Transactions;
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketHistoryPage;
+import ru.job4j.cinema.model.TicketSummary;
 import ru.job4j.cinema.repository.TicketRepository;
 
 import java.util.List;
@@ -16,7 +20,6 @@ import java.util.Optional;
  * @version 1.0
  * @see ru.job4j.cinema.service.TicketService
  */
-@AllArgsConstructor
 @Service
 public class ImplTicketService implements TicketService {
 
@@ -26,18 +29,75 @@ public class ImplTicketService implements TicketService {
     private final TicketRepository ticketRepository;
 
     /**
-     * Возвращает список всех билетов
+     * Кэш первых страниц истории покупок пользователей
+     */
+    private final TicketHistoryCache historyCache;
+
+    /**
+     * Версия каталога сеансов
+     */
+    private final CatalogueVersion catalogueVersion;
+
+    /**
+     * Реестр состояний мест кинозала по показам сеансов
+     */
+    private final SeatRegistry seatRegistry;
+
+    /**
+     * Статистика продаж билетов
+     */
+    private final SalesStatistics salesStatistics;
+
+    /**
+     * Загрузка сеансов и пользователей билетов по ссылкам
+     */
+    private final TicketReferences references;
+
+    /**
+     * Количество билетов на странице истории покупок
+     */
+    private final int historyPageSize;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param ticketRepository объект для доступа к методам слоя TicketRepository
+     * @param historyCache     кэш первых страниц истории покупок пользователей
+     * @param catalogueVersion версия каталога сеансов
+     * @param seatRegistry     реестр состояний мест кинозала по показам сеансов
+     * @param salesStatistics  статистика продаж билетов
+     * @param references       загрузка сеансов и пользователей билетов по ссылкам
+     * @param historyPageSize  количество билетов на странице истории покупок
+     */
+    public ImplTicketService(TicketRepository ticketRepository,
+                             TicketHistoryCache historyCache,
+                             CatalogueVersion catalogueVersion,
+                             SeatRegistry seatRegistry,
+                             SalesStatistics salesStatistics,
+                             TicketReferences references,
+                             @Value("${ticket.history.page-size:20}") int historyPageSize) {
+        this.ticketRepository = ticketRepository;
+        this.historyCache = historyCache;
+        this.catalogueVersion = catalogueVersion;
+        this.seatRegistry = seatRegistry;
+        this.salesStatistics = salesStatistics;
+        this.references = references;
+        this.historyPageSize = historyPageSize;
+    }
+
+    /**
+     * Возвращает список всех билетов с загруженными сеансами и пользователями
      *
      * @return {@code List<Ticket>} - список всех билетов
      */
     @Override
     public List<Ticket> findAll() {
-        return ticketRepository.findAll();
+        return references.load(ticketRepository.findAll());
     }
 
     /**
      * Выполняет поиск билета по идентификатору. При успешном нахождении возвращает
-     * билет, иначе выбрасывает исключение.
+     * билет с загруженными сеансом и пользователем, иначе выбрасывает исключение.
      *
      * @param id идентификатор билета
      * @return билет при успешном нахождении
@@ -45,43 +105,100 @@ public class ImplTicketService implements TicketService {
      */
     @Override
     public Ticket findById(int id) {
-        return ticketRepository.findById(id).orElseThrow(
-                () -> new NoSuchElementException(
-                        String.format("Билет c id = %d не найден", id)));
+        return references.load(findReference(id));
     }
 
     /**
-     * Выполняет сохранение билета. При успешном сохранении возвращает
-     * сохраненный билет, иначе выбрасывается исключение.
+     * Выполняет сохранение билета на показ сеанса. При успешном сохранении
+     * возвращает сохраненный билет, иначе выбрасывается исключение. Место
+     * занимается в состоянии мест показа до сохранения в базе данных. Если место
+     * занято по состоянию, состояние загружается из базы данных повторно:
+     * билет мог быть возвращен другим экземпляром приложения. Поэтому
+     * одновременные покупки одного места не доходят до базы данных, а запрос
+     * к базе данных выполняется без монитора состояния и не задерживает
+     * чтение состояния мест. Если сохранение не выполнено, место освобождается;
+     * если база данных отклонила сохранение свободного по состоянию места,
+     * состояние показа загружается повторно.
+     * Проданный билет учитывается в статистике продаж.
+     * <p>
+     * Во всех изменениях билетов счетчики статистики продаж изменяются
+     * после фиксации транзакции: иначе сверка статистики, выполненная
+     * между изменением счетчиков и фиксацией, не учла бы билет.
      *
      * @param ticket сохраняемый билет
      * @return билет при успешном сохранении
-     * @throws IllegalArgumentException если сохранение билета не произошло
+     * @throws IllegalArgumentException если показ не выбран, место уже занято
+     *                                  или сохранение билета не произошло
      */
     @Override
     public Ticket save(Ticket ticket) {
-        Optional<Ticket> optionalTicket = ticketRepository.save(ticket);
+        if (ticket.getScreening() == null) {
+            throw new IllegalArgumentException("Показ сеанса не выбран");
+        }
+        int showId = ticket.getShow().getId();
+        int screeningId = ticket.getScreening().getId();
+        SeatState seats = seatRegistry.get(screeningId);
+        if (!seats.occupy(ticket.getPosRow(), ticket.getCell())) {
+            seats = seatRegistry.reload(screeningId);
+            if (!seats.occupy(ticket.getPosRow(), ticket.getCell())) {
+                throw new IllegalArgumentException("Билет уже продан");
+            }
+        }
+        Optional<Ticket> optionalTicket = Optional.empty();
+        try {
+            optionalTicket = ticketRepository.save(ticket);
+            if (optionalTicket.isPresent()) {
+                Transactions.afterCommit(
+                        () -> salesStatistics.ticketSold(showId, ticket.getPosRow()));
+            } else {
+                seatRegistry.invalidate(screeningId);
+            }
+        } finally {
+            if (optionalTicket.isEmpty()) {
+                seats.release(ticket.getPosRow(), ticket.getCell());
+            }
+        }
+        optionalTicket.ifPresent(saved -> historyCache.evict(saved.getUser().getId()));
         return optionalTicket.orElseThrow(() -> new IllegalArgumentException("Билет уже продан"));
     }
 
     /**
-     * Выполняет обновление билета.
+     * Выполняет обновление билета. Чтение прежнего билета и обновление
+     * выполняются в одной транзакции. Статистика продаж переносит билет
+     * с прежних сеанса и ряда на новые. Кэш историй покупок и состояния
+     * мест очищаются до изменения и повторно после фиксации транзакции:
+     * запрос, прочитавший прежние данные между очисткой и фиксацией,
+     * мог снова поместить их в кэш.
      *
      * @param ticket обновляемый билет
      * @throws NoSuchElementException если билет не найден
      */
     @Override
     public boolean update(Ticket ticket) {
-        if (!ticketRepository.update(ticket)) {
-            throw new NoSuchElementException(
-                    String.format("Билет c id = %d не найден", ticket.getId()));
-        }
+        historyCache.clear();
+        seatRegistry.clear();
+        Transactions.inTransaction(() -> {
+            Ticket previous = findReference(ticket.getId());
+            if (!ticketRepository.update(ticket)) {
+                throw new NoSuchElementException(
+                        String.format("Билет c id = %d не найден", ticket.getId()));
+            }
+            Transactions.afterCommit(() -> {
+                historyCache.clear();
+                seatRegistry.clear();
+                salesStatistics.ticketReturned(
+                        previous.getShow().getId(), previous.getPosRow());
+                salesStatistics.ticketSold(ticket.getShow().getId(), ticket.getPosRow());
+            });
+        });
         return true;
     }
 
     /**
      * Выполняет удаление билета по идентификатору. При успешном удалении
      * билета возвращает true, иначе выбрасывается исключение.
+     * Поиск и удаление билета выполняются в одной транзакции.
+     * Место билета освобождается для продажи после фиксации транзакции.
      *
      * @param id идентификатор билета
      * @return true при успешном удалении
@@ -89,16 +206,37 @@ public class ImplTicketService implements TicketService {
      */
     @Override
     public boolean deleteById(int id) {
-        if (!ticketRepository.deleteById(id)) {
-            throw new NoSuchElementException(
-                    String.format("Билет c id = %d не найден", id));
-        }
-        return true;
+        return Transactions.inTransaction(() -> delete(findReference(id)));
+    }
+
+    /**
+     * Выполняет возврат билета пользователем. Поиск и удаление билета
+     * выполняются в одной транзакции, место освобождается для продажи
+     * после фиксации транзакции.
+     *
+     * @param id     идентификатор билета
+     * @param userId идентификатор пользователя, выполняющего возврат
+     * @return true при успешном возврате
+     * @throws NoSuchElementException если билет не найден или принадлежит
+     *                                другому пользователю
+     */
+    @Override
+    public boolean cancel(int id, int userId) {
+        return Transactions.inTransaction(() -> {
+            Ticket ticket = findReference(id);
+            if (ticket.getUser() == null || ticket.getUser().getId() != userId) {
+                throw new NoSuchElementException(
+                        String.format("Билет c id = %d не найден", id));
+            }
+            return delete(ticket);
+        });
     }
 
     /**
      * Выполняет удаление билетов по идентификатору сеанса. При успешном удалении
-     * билетов возвращает true, иначе выбрасывается исключение.
+     * билетов возвращает true, иначе выбрасывается исключение. Кэш историй
+     * покупок и состояния мест показов очищаются до удаления и повторно
+     * после его фиксации.
      *
      * @param id идентификатор сеанса
      * @return true при успешном удалении
@@ -106,10 +244,92 @@ public class ImplTicketService implements TicketService {
      */
     @Override
     public boolean deleteTicketsByShowId(int id) {
+        historyCache.clear();
+        seatRegistry.clear();
         if (!ticketRepository.deleteTicketsByShowId(id)) {
             throw new NoSuchElementException(
                     String.format("Билеты у сеанса c id = %d не найдены", id));
         }
+        Transactions.afterCommit(() -> {
+            historyCache.clear();
+            seatRegistry.clear();
+            salesStatistics.showCleared(id);
+        });
+        return true;
+    }
+
+    /**
+     * Возвращает страницу истории покупок пользователя. Первая страница
+     * кэшируется до следующей покупки пользователя или изменения каталога
+     * сеансов. Из базы данных запрашивается на один билет больше размера
+     * страницы, чтобы определить наличие следующей страницы.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId идентификатор билета, с которого начинается страница
+     *                 (не включительно), null для первой страницы
+     * @return страница истории покупок
+     */
+    @Override
+    public TicketHistoryPage findHistory(int userId, Integer beforeId) {
+        long version = catalogueVersion.get();
+        if (beforeId == null) {
+            Optional<TicketHistoryPage> cached = historyCache.get(userId, version);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        int before = beforeId == null ? Integer.MAX_VALUE : beforeId;
+        List<TicketSummary> tickets = ReadRouting.onPrimary(() -> ticketRepository
+                .findSummariesByUserId(userId, before, historyPageSize + 1));
+        Integer nextBefore = null;
+        if (tickets.size() > historyPageSize) {
+            tickets = tickets.subList(0, historyPageSize);
+            nextBefore = tickets.get(historyPageSize - 1).getId();
+        }
+        TicketHistoryPage page = new TicketHistoryPage(
+                List.copyOf(references.loadNames(tickets)), nextBefore);
+        if (beforeId == null) {
+            historyCache.put(userId, version, page);
+        }
+        return page;
+    }
+
+    /**
+     * Вспомогательный метод выполняет поиск билета по идентификатору без загрузки
+     * сеанса и пользователя: в билете проинициализированы только их идентификаторы.
+     *
+     * @param id идентификатор билета
+     * @return билет при успешном нахождении
+     * @throws NoSuchElementException если билет не найден
+     */
+    private Ticket findReference(int id) {
+        return ticketRepository.findById(id).orElseThrow(
+                () -> new NoSuchElementException(
+                        String.format("Билет c id = %d не найден", id)));
+    }
+
+    /**
+     * Вспомогательный метод выполняет удаление билета в транзакции потока.
+     * Освобождение места, учет возврата в статистике продаж и удаление
+     * истории покупок из кэша выполняются после фиксации транзакции.
+     * До освобождения место остается занятым и не может быть продано.
+     *
+     * @param ticket удаляемый билет
+     * @return true при успешном удалении
+     * @throws NoSuchElementException если билет не найден
+     */
+    private boolean delete(Ticket ticket) {
+        if (!ticketRepository.deleteById(ticket.getId())) {
+            throw new NoSuchElementException(
+                    String.format("Билет c id = %d не найден", ticket.getId()));
+        }
+        int showId = ticket.getShow().getId();
+        int screeningId = ticket.getScreening().getId();
+        Transactions.afterCommit(() -> {
+            seatRegistry.get(screeningId).release(ticket.getPosRow(), ticket.getCell());
+            salesStatistics.ticketReturned(showId, ticket.getPosRow());
+            historyCache.evict(ticket.getUser().getId());
+        });
         return true;
     }
 }
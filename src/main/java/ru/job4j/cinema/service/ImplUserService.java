@@ -1,12 +1,19 @@
 package ru.job4j.cinema.service;
 
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.job4j.cinema.datasource.ReadRouting;
 import ru.job4j.cinema.model.User;
 import ru.job4j.cinema.repository.UserRepository;
 
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * Реализация сервиса по работе с пользователями
@@ -15,7 +22,6 @@ import java.util.NoSuchElementException;
  * @version 1.0
  * @see ru.job4j.cinema.service.UserService
  */
-@AllArgsConstructor
 @Service
 public class ImplUserService implements UserService {
 
@@ -24,6 +30,45 @@ public class ImplUserService implements UserService {
      */
     private final UserRepository userRepository;
 
+    /**
+     * Объект для доступа к методам PasswordService
+     */
+    private final PasswordService passwordService;
+
+    /**
+     * Кэш пользователей
+     */
+    private final UserCache userCache;
+
+    /**
+     * Индекс зарегистрированных почтовых адресов и номеров телефонов
+     */
+    private final UserContactIndex contactIndex;
+
+    /**
+     * Максимальное время ожидания проверки пароля в миллисекундах
+     */
+    private final long verifyTimeout;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param userRepository  объект для доступа к методам слоя UserRepository
+     * @param passwordService объект для доступа к методам PasswordService
+     * @param userCache       кэш пользователей
+     * @param contactIndex    индекс зарегистрированных почтовых адресов и номеров телефонов
+     * @param verifyTimeout   максимальное время ожидания проверки пароля в миллисекундах
+     */
+    public ImplUserService(UserRepository userRepository, PasswordService passwordService,
+                           UserCache userCache, UserContactIndex contactIndex,
+                           @Value("${password.verify.timeout-ms:2000}") long verifyTimeout) {
+        this.userRepository = userRepository;
+        this.passwordService = passwordService;
+        this.userCache = userCache;
+        this.contactIndex = contactIndex;
+        this.verifyTimeout = verifyTimeout;
+    }
+
     /**
      * Возвращает список всех пользователей
      *
@@ -36,7 +81,7 @@ public class ImplUserService implements UserService {
 
     /**
      * Выполняет поиск пользователя по идентификатору. При успешном нахождении возвращает
-     * пользователя, иначе выбрасывает исключение.
+     * пользователя, иначе выбрасывает исключение. Поиск выполняется сначала в кэше.
      *
      * @param id идентификатор пользователя
      * @return пользователя при успешном нахождении
@@ -44,37 +89,52 @@ public class ImplUserService implements UserService {
      */
     @Override
     public User findById(int id) {
-        return userRepository.findById(id).orElseThrow(
+        return userCache.findById(id)
+                .or(() -> cache(() -> userRepository.findById(id))).orElseThrow(
                 () -> new NoSuchElementException(
                         String.format("Пользователь c id = %d не найден", id)));
     }
 
     /**
-     * Выполняет сохранение пользователя. При успешном сохранении возвращает
-     * сохраненного пользователя, иначе выбрасывается исключение.
+     * Выполняет сохранение пользователя. Пароль сохраняется в виде хеша.
+     * При успешном сохранении возвращает сохраненного пользователя,
+     * иначе выбрасывается исключение. Занятость почтового адреса и номера
+     * телефона проверяется до хеширования пароля и обращения к базе данных.
      *
      * @param user сохраняемый пользователь
      * @return пользователя при успешном сохранении
-     * @throws IllegalArgumentException если сохранение пользователя не произошло
+     * @throws IllegalArgumentException если почтовый адрес или номер телефона
+     *                                  заняты или сохранение пользователя не произошло
      */
     @Override
     public User save(User user) {
-        return userRepository.save(user).orElseThrow(
+        if (isEmailTaken(user.getEmail()) || isPhoneTaken(user.getPhone())) {
+            throw new IllegalArgumentException("Пользователь с таким email или номером "
+                    + "телефона уже зарегистрирован");
+        }
+        user.setPassword(passwordService.encode(user.getPassword()));
+        Optional<User> saved = cache(() -> userRepository.save(user));
+        saved.ifPresent(contactIndex::add);
+        return saved.orElseThrow(
                 () -> new IllegalArgumentException("Пользователь не сохранен"));
     }
 
     /**
-     * Выполняет обновление пользователя.
+     * Выполняет обновление пользователя. Новый пароль сохраняется в виде хеша.
      *
      * @param user обновляемый пользователь
      * @throws NoSuchElementException если пользователь не найден
      */
     @Override
     public boolean update(User user) {
-        if (!userRepository.update(user)) {
+        user.setPassword(passwordService.encode(user.getPassword()));
+        boolean updated = userRepository.update(user);
+        userCache.evict(user.getId());
+        if (!updated) {
             throw new IllegalArgumentException("Пользователь с таким номером телефона "
                     + "уже зарегистрирован");
         }
+        contactIndex.add(user);
         return true;
     }
 
@@ -88,7 +148,9 @@ public class ImplUserService implements UserService {
      */
     @Override
     public boolean deleteById(int id) {
-        if (!userRepository.deleteById(id)) {
+        boolean deleted = userRepository.deleteById(id);
+        userCache.evict(id);
+        if (!deleted) {
             throw new NoSuchElementException(
                     String.format("Пользователь c id = %d не найден", id));
         }
@@ -97,7 +159,7 @@ public class ImplUserService implements UserService {
 
     /**
      * Выполняет поиск пользователя по почтовому адресу. При успешном нахождении возвращает
-     * пользователя, иначе выбрасывает исключение.
+     * пользователя, иначе выбрасывает исключение. Поиск выполняется сначала в кэше.
      *
      * @param email почтовый адрес пользователя
      * @return пользователя при успешном нахождении
@@ -105,17 +167,49 @@ public class ImplUserService implements UserService {
      */
     @Override
     public User findUserByEmail(String email) {
-        return userRepository.findUserByEmail(email).orElseThrow(
+        return userCache.findByEmail(email)
+                .or(() -> cache(() -> userRepository.findUserByEmail(email))).orElseThrow(
                 () -> new NoSuchElementException(
                         String.format("Пользователь с email = %s не найден", email)));
     }
 
+    /**
+     * Выполняет проверку занятости почтового адреса. Если индекс контактов
+     * подтверждает, что адрес свободен, обращение к базе данных не выполняется,
+     * иначе адрес ищется в кэше и базе данных.
+     *
+     * @param email почтовый адрес
+     * @return true, если почтовый адрес зарегистрирован, иначе false
+     */
+    @Override
+    public boolean isEmailTaken(String email) {
+        return email != null && contactIndex.mightContainEmail(email)
+                && userCache.findByEmail(email)
+                .or(() -> cache(() -> userRepository.findUserByEmail(email))).isPresent();
+    }
+
+    /**
+     * Выполняет проверку занятости номера телефона. Если индекс контактов
+     * подтверждает, что номер свободен, обращение к базе данных не выполняется,
+     * иначе номер ищется в кэше и базе данных.
+     *
+     * @param phone номер телефона
+     * @return true, если номер телефона зарегистрирован, иначе false
+     */
+    @Override
+    public boolean isPhoneTaken(String phone) {
+        return phone != null && contactIndex.mightContainPhone(phone)
+                && userCache.findByPhone(phone)
+                .or(() -> cache(() -> userRepository.findUserByPhone(phone))).isPresent();
+    }
+
     /**
      * Выполняет сверку данных пользователя с входной формы с данными пользователя в базе по
      * почтовому адресу и паролю. При успешной проверке возвращает пользователя извлеченного
      * из базы данных, иначе выбрасывает исключение.
      * Для нахождения пользователя в базе данных используется метод
-     * {@link ImplUserService#findUserByEmail(String)}.
+     * {@link ImplUserService#findUserByEmail(String)}, для проверки пароля
+     * метод {@link ImplUserService#matchesPassword(User, String)}.
      *
      * @param user пользователя
      * @return пользователя при успешном при совпадении пароля и почтового адреса
@@ -124,15 +218,71 @@ public class ImplUserService implements UserService {
     @Override
     public User validateUserLogin(User user) {
         User userFromDB = findUserByEmail(user.getEmail());
-        if (!userFromDB.getPassword().equals(user.getPassword())) {
+        if (!matchesPassword(userFromDB, user.getPassword())) {
             throw new IllegalArgumentException("Старый пароль некорректен");
         }
         return userFromDB;
     }
 
+    /**
+     * Выполняет проверку пароля пользователя в выделенном пуле потоков
+     * {@link PasswordService#matchesAsync(String, String)}. Если пароль совпал,
+     * а хеш хранится в открытом виде или с устаревшей стоимостью, хеш
+     * пересчитывается и сохраняется в базе данных. Если проверка не выполнена
+     * за отведенное время, она отменяется: проверка, еще ожидающая в очереди
+     * пула, не будет выполнена и не займет поток пула.
+     *
+     * @param userFromDB  пользователь из базы данных
+     * @param rawPassword пароль в открытом виде
+     * @return true, если пароль совпадает, иначе false
+     * @throws IllegalArgumentException если проверка не выполнена из-за перегрузки
+     */
+    @Override
+    public boolean matchesPassword(User userFromDB, String rawPassword) {
+        boolean matches;
+        CompletableFuture<Boolean> future =
+                passwordService.matchesAsync(rawPassword, userFromDB.getPassword());
+        try {
+            matches = future.get(verifyTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException("Проверка пароля прервана", e);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new IllegalArgumentException("Сервис проверки паролей перегружен", e);
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException("Сервис проверки паролей перегружен", e);
+        }
+        if (matches && passwordService.needsRehash(userFromDB.getPassword())) {
+            User rehashed = new User(userFromDB.getId(), userFromDB.getUsername(),
+                    userFromDB.getEmail(), userFromDB.getPhone(), rawPassword);
+            update(rehashed);
+            userFromDB.setPassword(rehashed.getPassword());
+        }
+        return matches;
+    }
+
+    /**
+     * Выполняет перевод всех паролей, хранящихся в открытом виде, в хеши.
+     *
+     * @return количество обновленных пользователей
+     */
+    @Override
+    public int migratePlainPasswords() {
+        int count = 0;
+        for (User user : userRepository.findAll()) {
+            if (!passwordService.isEncoded(user.getPassword())) {
+                update(user);
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Выполняет поиск пользователя по номеру телефона. При успешном нахождении возвращает
-     * пользователя, иначе выбрасывает исключение.
+     * пользователя, иначе выбрасывает исключение. Поиск выполняется сначала в кэше.
      *
      * @param phone номер телефона пользователя
      * @return пользователя при успешном нахождении
@@ -140,8 +290,28 @@ public class ImplUserService implements UserService {
      */
     @Override
     public User findUserByPhone(String phone) {
-        return userRepository.findUserByPhone(phone).orElseThrow(
+        return userCache.findByPhone(phone)
+                .or(() -> cache(() -> userRepository.findUserByPhone(phone))).orElseThrow(
                 () -> new IllegalArgumentException(
                         String.format("Пользователь с phone = %s не найден", phone)));
     }
+
+    /**
+     * Вспомогательный метод помещает найденного в базе данных пользователя
+     * в кэш. Пользователи с паролем в открытом виде не кэшируются. Поиск
+     * выполняется с основной базы данных, чтобы не кэшировать устаревшую
+     * запись реплики. Если во время поиска пользователь был удален из кэша
+     * после изменения, найденная запись может быть устаревшей и в кэш
+     * не помещается.
+     *
+     * @param lookup поиск пользователя в базе данных
+     * @return результат поиска пользователя
+     */
+    private Optional<User> cache(Supplier<Optional<User>> lookup) {
+        long version = userCache.getVersion();
+        Optional<User> user = ReadRouting.onPrimary(lookup);
+        user.filter(found -> passwordService.isEncoded(found.getPassword()))
+                .ifPresent(found -> userCache.putIfVersion(found, version));
+        return user;
+    }
 }
@@ -0,0 +1,57 @@
+package ru.job4j.cinema.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Снимок метрик хеширования паролей
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.PasswordService
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class PasswordHashMetrics {
+
+    /**
+     * Текущее количество итераций хеширования
+     */
+    private final int iterations;
+
+    /**
+     * Бюджет времени вычисления одного хеша в миллисекундах
+     */
+    private final long budgetMillis;
+
+    /**
+     * Скользящее среднее время вычисления хеша в миллисекундах
+     */
+    private final double averageMillis;
+
+    /**
+     * Количество вычисленных хешей
+     */
+    private final long hashes;
+
+    /**
+     * Количество проверок, отклоненных из-за переполнения очереди
+     */
+    private final long rejected;
+
+    /**
+     * Количество проверок, ожидающих выполнения в очереди
+     */
+    private final int queued;
+
+    /**
+     * Выполняет проверку соответствия среднего времени хеширования бюджету.
+     *
+     * @return true, если среднее время не превышает бюджет
+     */
+    public boolean isWithinBudget() {
+        return averageMillis <= budgetMillis;
+    }
+}
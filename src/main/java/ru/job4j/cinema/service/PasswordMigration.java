@@ -0,0 +1,45 @@
+package ru.job4j.cinema.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Перевод паролей пользователей, сохраненных в открытом виде, в хеши
+ * при запуске приложения. Пароли пользователей, не попавших в миграцию,
+ * пересчитываются при входе в систему.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.UserService#migratePlainPasswords()
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+@ConditionalOnProperty(name = "password.migrate-on-startup", havingValue = "true",
+        matchIfMissing = true)
+public class PasswordMigration implements ApplicationRunner {
+
+    /**
+     * Объект для доступа к методам UserService
+     */
+    private final UserService userService;
+
+    /**
+     * Выполняет перевод паролей в хеши.
+     *
+     * @param args аргументы запуска приложения
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int count = userService.migratePlainPasswords();
+            log.info("Переведено паролей в хеши: {}", count);
+        } catch (Exception e) {
+            log.info("Исключение в методе run() класса PasswordMigration ", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.job4j.cinema.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Сервис хеширования паролей пользователей
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+public interface PasswordService {
+
+    /**
+     * Выполняет хеширование пароля с текущей стоимостью вычисления.
+     *
+     * @param rawPassword пароль в открытом виде
+     * @return хеш пароля
+     */
+    String encode(String rawPassword);
+
+    /**
+     * Выполняет проверку пароля по хешу. Поддерживаются пароли,
+     * сохраненные до введения хеширования в открытом виде.
+     *
+     * @param rawPassword     пароль в открытом виде
+     * @param encodedPassword хеш пароля из базы данных
+     * @return true, если пароль совпадает, иначе false
+     */
+    boolean matches(String rawPassword, String encodedPassword);
+
+    /**
+     * Выполняет проверку пароля по хешу в выделенном пуле потоков
+     * ограниченного размера.
+     *
+     * @param rawPassword     пароль в открытом виде
+     * @param encodedPassword хеш пароля из базы данных
+     * @return результат проверки, завершается исключением
+     * RejectedExecutionException, если очередь проверок заполнена
+     */
+    CompletableFuture<Boolean> matchesAsync(String rawPassword, String encodedPassword);
+
+    /**
+     * Выполняет проверку, хранится ли пароль в виде хеша.
+     *
+     * @param password пароль из базы данных
+     * @return true, если пароль хранится в виде хеша, false - в открытом виде
+     */
+    boolean isEncoded(String password);
+
+    /**
+     * Выполняет проверку необходимости пересчета хеша: пароль хранится
+     * в открытом виде или стоимость вычисления хеша ниже текущей.
+     *
+     * @param encodedPassword хеш пароля из базы данных
+     * @return true, если хеш необходимо пересчитать
+     */
+    boolean needsRehash(String encodedPassword);
+
+    /**
+     * Возвращает метрики вычисления хешей для контроля
+     * соответствия времени хеширования бюджету задержки.
+     *
+     * @return метрики хеширования
+     */
+    PasswordHashMetrics getMetrics();
+}
@@ -0,0 +1,101 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Удаление файлов постеров в фоновом потоке. Используется после удаления
+ * сеансов из базы данных, чтобы операции с файловой системой не задерживали
+ * ответ администратору. Файлы удаляются по одному в порядке поступления.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ImplShowService
+ */
+@Slf4j
+@Component
+public class PosterCleaner {
+
+    /**
+     * Абсолютный путь к папке для хранения изображений
+     */
+    private final String uploadPath;
+
+    /**
+     * Исполнитель задач удаления файлов
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param uploadPath абсолютный путь к папке для хранения изображений
+     */
+    public PosterCleaner(@Value("${upload.path}") String uploadPath) {
+        this.uploadPath = uploadPath;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "poster-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Выполняет удаление файлов постеров в фоновом потоке. Пустые имена
+     * и имена, содержащие путь, пропускаются.
+     *
+     * @param posterNames имена файлов постеров
+     * @return количество удаленных файлов по завершении удаления
+     */
+    public CompletableFuture<Integer> deleteAsync(Collection<String> posterNames) {
+        List<String> names = posterNames.stream()
+                .filter(name -> name != null && !name.isBlank()
+                        && name.indexOf('/') < 0 && name.indexOf('\\') < 0
+                        && !name.contains(".."))
+                .toList();
+        if (names.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return CompletableFuture.supplyAsync(() -> delete(names), executor);
+    }
+
+    /**
+     * Выполняет остановку фонового потока, уже поставленные
+     * задачи удаления выполняются.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Вспомогательный метод удаляет файлы постеров.
+     *
+     * @param names имена файлов постеров
+     * @return количество удаленных файлов
+     */
+    private int delete(List<String> names) {
+        int deleted = 0;
+        for (String name : names) {
+            try {
+                if (Files.deleteIfExists(new File(uploadPath, name).toPath())) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                log.info("Исключение в методе delete() класса PosterCleaner ", e);
+            }
+        }
+        return deleted;
+    }
+}
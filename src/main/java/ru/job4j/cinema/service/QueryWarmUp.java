@@ -0,0 +1,58 @@
+package ru.job4j.cinema.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.repository.TicketRepository;
+import ru.job4j.cinema.repository.UserRepository;
+
+import java.util.List;
+
+/**
+ * Запросы к базе данных, выполняемые при прогреве приложения в обход кэшей.
+ * Состояния мест, первая страница истории покупок и пользователи после
+ * первого обращения выдаются сервисами из памяти, поэтому повторы прогрева
+ * через сервисы не выполняли бы код доступа к базе данных. Запросы
+ * выполняются напрямую к хранилищам: выбор билетов показа, страница
+ * истории покупок и поиск пользователя покупателя первого билета показа.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.StartupWarmUp
+ */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryWarmUp {
+
+    /**
+     * Количество билетов, запрашиваемых страницей истории покупок
+     */
+    private static final int HISTORY_LIMIT = 21;
+
+    /**
+     * Объект для доступа к методам TicketRepository
+     */
+    private final TicketRepository ticketRepository;
+
+    /**
+     * Объект для доступа к методам UserRepository
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Выполняет запросы билетов показа, истории покупок и пользователя.
+     * Если билетов показа нет, запросы истории и пользователя выполняются
+     * с несуществующим идентификатором пользователя.
+     *
+     * @param screeningId идентификатор показа
+     * @param showId      идентификатор сеанса показа
+     */
+    public void run(int screeningId, int showId) {
+        List<Ticket> tickets = ticketRepository.findAllTicketsByScreeningId(screeningId, showId);
+        int userId = tickets.isEmpty() ? 0 : tickets.get(0).getUser().getId();
+        ticketRepository.findSummariesByUserId(userId, Integer.MAX_VALUE, HISTORY_LIMIT);
+        userRepository.findById(userId);
+    }
+}
@@ -0,0 +1,275 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.ShowSales;
+import ru.job4j.cinema.repository.TicketRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Статистика продаж билетов по сеансам и рядам. Счетчики изменяются
+ * сервисом билетов при каждой продаже и возврате билета, поэтому
+ * панель статистики строится без обращения к базе данных.
+ * Периодически счетчики сверяются с базой данных одним групповым запросом:
+ * так исправляются расхождения из-за изменений, выполненных в обход
+ * сервиса билетов (например, другим экземпляром приложения).
+ * Сервис билетов изменяет счетчики после фиксации изменения в базе данных,
+ * поэтому изменения, учтенные в счетчиках во время группового запроса,
+ * записываются в журнал и после запроса применяются к его результату:
+ * продажи не останавливают сверку, и проданный во время запроса билет
+ * не теряется при замене счетчиков. Изменение, зафиксированное
+ * за мгновение до начала запроса и учтенное в счетчиках после, может
+ * быть посчитано дважды - такое расхождение исправляется следующей сверкой.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ImplTicketService
+ */
+@Slf4j
+@Component
+public class SalesStatistics implements ApplicationRunner {
+
+    /**
+     * Объект для доступа к методам TicketRepository
+     */
+    private final TicketRepository ticketRepository;
+
+    /**
+     * Количество рядов в кинозале
+     */
+    private final int rows;
+
+    /**
+     * Количество мест в ряде кинозала
+     */
+    private final int cells;
+
+    /**
+     * Проданные билеты по идентификатору сеанса: элемент 0 - всего,
+     * элемент с номером ряда - в ряде
+     */
+    private final Map<Integer, int[]> sold = new HashMap<>();
+
+    /**
+     * Изменения счетчиков, учтенные во время группового запроса сверки,
+     * null, если сверка не выполняется
+     */
+    private List<Delta> journal;
+
+    /**
+     * Время последней успешной сверки в миллисекундах, 0, если сверки не было
+     */
+    private long reconciledAt;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param ticketRepository объект для доступа к методам TicketRepository
+     * @param rows             количество рядов в кинозале
+     * @param cells            количество мест в ряде кинозала
+     */
+    public SalesStatistics(TicketRepository ticketRepository,
+                           @Value("${show.rows}") int rows,
+                           @Value("${show.cells}") int cells) {
+        this.ticketRepository = ticketRepository;
+        this.rows = rows;
+        this.cells = cells;
+    }
+
+    /**
+     * Выполняет загрузку статистики при запуске приложения.
+     *
+     * @param args аргументы запуска приложения
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        reconcile();
+    }
+
+    /**
+     * Выполняет учет проданного билета.
+     *
+     * @param showId идентификатор сеанса
+     * @param posRow номер ряда
+     */
+    public synchronized void ticketSold(int showId, int posRow) {
+        record(new Delta(showId, posRow, 1, false));
+    }
+
+    /**
+     * Выполняет учет возвращенного или удаленного билета.
+     *
+     * @param showId идентификатор сеанса
+     * @param posRow номер ряда
+     */
+    public synchronized void ticketReturned(int showId, int posRow) {
+        record(new Delta(showId, posRow, -1, false));
+    }
+
+    /**
+     * Выполняет сброс статистики сеанса после удаления всех билетов сеанса.
+     *
+     * @param showId идентификатор сеанса
+     */
+    public synchronized void showCleared(int showId) {
+        record(new Delta(showId, 0, 0, true));
+    }
+
+    /**
+     * Возвращает статистику продаж по переданным сеансам в порядке списка.
+     * Статистика строится по счетчикам в памяти.
+     *
+     * @param shows сеансы
+     * @return список статистики продаж
+     */
+    public synchronized List<ShowSales> getSales(List<Show> shows) {
+        List<ShowSales> result = new ArrayList<>(shows.size());
+        for (Show show : shows) {
+            int[] counts = sold.get(show.getId());
+            List<Integer> rowSold = new ArrayList<>(rows);
+            for (int row = 1; row <= rows; row++) {
+                rowSold.add(counts == null ? 0 : counts[row]);
+            }
+            result.add(new ShowSales(show.getId(), show.getName(),
+                    counts == null ? 0 : counts[0], rows * cells, cells, rowSold));
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает время последней успешной сверки с базой данных.
+     *
+     * @return время в миллисекундах, 0, если сверки не было
+     */
+    public synchronized long getReconciledAt() {
+        return reconciledAt;
+    }
+
+    /**
+     * Выполняет сверку счетчиков с базой данных. Групповой запрос
+     * выполняется вне монитора статистики, поэтому продажи во время
+     * запроса не блокируются: изменения счетчиков за время запроса
+     * записываются в журнал и применяются к результату запроса.
+     * Если сверка уже выполняется, вызов пропускается.
+     *
+     * @return true, если счетчики заменены результатом запроса
+     */
+    @Scheduled(initialDelayString = "${sales.reconcile-ms:300000}",
+            fixedDelayString = "${sales.reconcile-ms:300000}")
+    public boolean reconcile() {
+        synchronized (this) {
+            if (journal != null) {
+                return false;
+            }
+            journal = new ArrayList<>();
+        }
+        Optional<Map<Integer, Map<Integer, Integer>>> counts = Optional.empty();
+        try {
+            counts = ticketRepository.countSoldByShowAndRow();
+        } finally {
+            synchronized (this) {
+                List<Delta> applied = journal;
+                journal = null;
+                if (counts.isPresent()) {
+                    replace(counts.get(), applied);
+                }
+            }
+        }
+        return counts.isPresent();
+    }
+
+    /**
+     * Вспомогательный метод применяет изменение к счетчикам и, если
+     * выполняется сверка, записывает его в журнал.
+     *
+     * @param delta изменение счетчиков
+     */
+    private void record(Delta delta) {
+        delta.applyTo(sold, rows);
+        if (journal != null) {
+            journal.add(delta);
+        }
+    }
+
+    /**
+     * Вспомогательный метод заменяет счетчики результатом группового
+     * запроса с примененными изменениями из журнала сверки и записывает
+     * в журнал приложения количество сеансов с расхождениями.
+     *
+     * @param counts  количество проданных билетов по сеансам и рядам
+     * @param applied изменения, учтенные в счетчиках во время запроса
+     */
+    private void replace(Map<Integer, Map<Integer, Integer>> counts, List<Delta> applied) {
+        Map<Integer, int[]> loaded = new HashMap<>();
+        counts.forEach((showId, byRow) -> {
+            int[] showCounts = new int[rows + 1];
+            byRow.forEach((posRow, count) -> {
+                showCounts[0] += count;
+                if (posRow >= 1 && posRow <= rows) {
+                    showCounts[posRow] += count;
+                }
+            });
+            loaded.put(showId, showCounts);
+        });
+        for (Delta delta : applied) {
+            delta.applyTo(loaded, rows);
+        }
+        int mismatched = 0;
+        for (Map.Entry<Integer, int[]> entry : loaded.entrySet()) {
+            int[] current = sold.get(entry.getKey());
+            if (current == null || current[0] != entry.getValue()[0]) {
+                mismatched++;
+            }
+        }
+        for (Map.Entry<Integer, int[]> entry : sold.entrySet()) {
+            if (entry.getValue()[0] != 0 && !loaded.containsKey(entry.getKey())) {
+                mismatched++;
+            }
+        }
+        if (reconciledAt != 0 && mismatched > 0) {
+            log.info("Сверка статистики продаж: расхождения по {} сеансам", mismatched);
+        }
+        sold.clear();
+        sold.putAll(loaded);
+        reconciledAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Изменение счетчиков продаж сеанса.
+     *
+     * @param showId  идентификатор сеанса
+     * @param posRow  номер ряда
+     * @param count   изменение количества билетов
+     * @param cleared true, если удалены все билеты сеанса
+     */
+    private record Delta(int showId, int posRow, int count, boolean cleared) {
+
+        /**
+         * Применяет изменение к счетчикам.
+         *
+         * @param target счетчики по идентификатору сеанса
+         * @param rows   количество рядов в кинозале
+         */
+        private void applyTo(Map<Integer, int[]> target, int rows) {
+            if (cleared) {
+                target.remove(showId);
+                return;
+            }
+            int[] counts = target.computeIfAbsent(showId, id -> new int[rows + 1]);
+            counts[0] += count;
+            if (posRow >= 1 && posRow <= rows) {
+                counts[posRow] += count;
+            }
+        }
+    }
+}
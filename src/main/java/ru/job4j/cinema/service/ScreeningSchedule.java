@@ -0,0 +1,79 @@
+package ru.job4j.cinema.service;
+
+import ru.job4j.cinema.model.Screening;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Неизменяемое расписание показов, упорядоченное по времени начала.
+ * Выборка показов за интервал времени выполняется по сортированному
+ * отображению без просмотра всего расписания.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ImplScreeningService
+ */
+public class ScreeningSchedule {
+
+    /**
+     * Показы по времени начала
+     */
+    private final NavigableMap<LocalDateTime, List<Screening>> byStartTime;
+
+    /**
+     * Время, с которого расписание содержит все показы
+     */
+    private final LocalDateTime from;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param screenings показы, начинающиеся не раньше времени from
+     * @param from       время, с которого расписание содержит все показы
+     */
+    public ScreeningSchedule(Collection<Screening> screenings, LocalDateTime from) {
+        NavigableMap<LocalDateTime, List<Screening>> map = new TreeMap<>();
+        for (Screening screening : screenings) {
+            map.computeIfAbsent(screening.getStartTime(), key -> new ArrayList<>())
+                    .add(screening);
+        }
+        map.replaceAll((key, value) -> List.copyOf(value));
+        this.byStartTime = map;
+        this.from = from;
+    }
+
+    /**
+     * Возвращает список показов, начинающихся в заданном интервале времени,
+     * в порядке времени начала.
+     *
+     * @param start начало интервала (включительно)
+     * @param end   конец интервала (не включительно)
+     * @return список показов
+     */
+    public List<Screening> between(LocalDateTime start, LocalDateTime end) {
+        List<Screening> result = new ArrayList<>();
+        if (start.isBefore(end)) {
+            for (List<Screening> screenings : byStartTime.subMap(start, true, end, false)
+                    .values()) {
+                result.addAll(screenings);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет проверку, содержит ли расписание все показы
+     * начиная с заданного времени.
+     *
+     * @param start время
+     * @return true, если расписание содержит все показы, начиная с start
+     */
+    public boolean covers(LocalDateTime start) {
+        return !start.isBefore(from);
+    }
+}
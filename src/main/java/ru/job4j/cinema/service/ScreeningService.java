@@ -0,0 +1,80 @@
+package ru.job4j.cinema.service;
+
+import ru.job4j.cinema.model.Screening;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Сервис показов сеансов, логика работы с расписанием
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.model.Screening
+ */
+public interface ScreeningService {
+
+    /**
+     * Возвращает список показов, начинающихся в заданном интервале времени,
+     * в порядке времени начала.
+     *
+     * @param from начало интервала (включительно)
+     * @param to   конец интервала (не включительно)
+     * @return список показов
+     */
+    List<Screening> findBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Возвращает список показов на текущий день.
+     *
+     * @return список показов
+     */
+    List<Screening> findToday();
+
+    /**
+     * Возвращает список показов на заданное количество дней,
+     * начиная с текущего момента.
+     *
+     * @param days количество дней
+     * @return список показов
+     */
+    List<Screening> findNextDays(int days);
+
+    /**
+     * Выполняет поиск показа по идентификатору. При успешном нахождении возвращает
+     * показ, иначе выбрасывает исключение.
+     *
+     * @param id идентификатор показа
+     * @return показ при успешном нахождении
+     */
+    Screening findById(int id);
+
+    /**
+     * Выполняет поиск показа по идентификатору с проверкой, что показ
+     * относится к переданному сеансу. При успешном нахождении возвращает
+     * показ, иначе выбрасывает исключение.
+     *
+     * @param id     идентификатор показа
+     * @param showId идентификатор сеанса
+     * @return показ сеанса при успешном нахождении
+     */
+    Screening findByIdAndShowId(int id, int showId);
+
+    /**
+     * Выполняет сохранение показа. При успешном сохранении возвращает
+     * сохраненный показ, иначе выбрасывается исключение.
+     *
+     * @param screening сохраняемый показ
+     * @return показ при успешном сохранении
+     */
+    Screening save(Screening screening);
+
+    /**
+     * Выполняет удаление показа по идентификатору. При успешном удалении
+     * показа возвращает true, иначе выбрасывается исключение.
+     *
+     * @param id идентификатор показа
+     * @return true при успешном удалении
+     */
+    boolean deleteById(int id);
+}
@@ -0,0 +1,233 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.datasource.ReadRouting;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.repository.TicketRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр состояний мест кинозала по показам сеансов. Состояние показа
+ * загружается из базы данных при первом обращении и далее поддерживается
+ * в памяти сервисом билетов при покупке и возврате билетов. Билеты могут
+ * продаваться и возвращаться другими экземплярами приложения, поэтому
+ * состояние загружается повторно, если оно загружено раньше seat.state.ttl-ms
+ * миллисекунд назад, а также если база данных отклонила продажу свободного
+ * по состоянию места или состояние считает занятым место, которое
+ * покупается. Состояния, загруженные раньше срока, периодически удаляются
+ * из реестра, поэтому реестр содержит только показы, к которым недавно
+ * обращались. Билеты показа выбираются из шарда его сеанса: сеанс показа
+ * определяется сервисом показов при первой загрузке состояния и далее
+ * хранится вместе с состоянием.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.SeatState
+ */
+@Slf4j
+@Component
+public class SeatRegistry {
+
+    /**
+     * Объект для доступа к методам TicketRepository
+     */
+    private final TicketRepository ticketRepository;
+
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private final ScreeningService screeningService;
+
+    /**
+     * Количество рядов в кинозале
+     */
+    private final int rows;
+
+    /**
+     * Количество мест в ряде кинозала
+     */
+    private final int cells;
+
+    /**
+     * Время, в течение которого загруженное состояние используется без
+     * повторной загрузки, в миллисекундах
+     */
+    private final long ttlMillis;
+
+    /**
+     * Загруженные состояния мест по идентификатору показа
+     */
+    private final Map<Integer, LoadedState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор класса.
+     *
+     * @param ticketRepository объект для доступа к методам слоя TicketRepository
+     * @param screeningService объект для доступа к методам ScreeningService
+     * @param rows             количество рядов в кинозале
+     * @param cells            количество мест в ряде кинозала, не более 64
+     * @param ttlMillis        время использования загруженного состояния в миллисекундах
+     * @throws IllegalArgumentException если количество мест в ряде больше 64
+     */
+    public SeatRegistry(TicketRepository ticketRepository,
+                        ScreeningService screeningService,
+                        @Value("${show.rows}") int rows,
+                        @Value("${show.cells}") int cells,
+                        @Value("${seat.state.ttl-ms:5000}") long ttlMillis) {
+        if (cells < 1 || cells > Long.SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Количество мест в ряде должно быть от 1 до %d", Long.SIZE));
+        }
+        this.ticketRepository = ticketRepository;
+        this.screeningService = screeningService;
+        this.rows = rows;
+        this.cells = cells;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Возвращает состояние мест показа, при отсутствии в реестре или
+     * истечении срока использования состояние загружается из базы данных.
+     *
+     * @param screeningId идентификатор показа
+     * @return состояние мест показа
+     */
+    public SeatState get(int screeningId) {
+        LoadedState loaded = states.get(screeningId);
+        if (loaded == null || isExpired(loaded, System.currentTimeMillis())) {
+            return reload(screeningId);
+        }
+        return loaded.state();
+    }
+
+    /**
+     * Выполняет загрузку состояния мест показа из базы данных с заменой
+     * состояния в реестре.
+     *
+     * @param screeningId идентификатор показа
+     * @return загруженное состояние мест показа
+     */
+    public SeatState reload(int screeningId) {
+        LoadedState previous = states.get(screeningId);
+        int showId = previous == null || previous.showId() == 0
+                ? findShowId(screeningId) : previous.showId();
+        SeatState state = load(screeningId, showId);
+        states.put(screeningId, new LoadedState(state, showId, System.currentTimeMillis()));
+        return state;
+    }
+
+    /**
+     * Выполняет удаление состояния мест показа из реестра.
+     * При следующем обращении состояние загружается из базы данных.
+     *
+     * @param screeningId идентификатор показа
+     */
+    public void invalidate(int screeningId) {
+        states.remove(screeningId);
+    }
+
+    /**
+     * Выполняет удаление состояний мест всех показов из реестра.
+     */
+    public void clear() {
+        states.clear();
+    }
+
+    /**
+     * Выполняет периодическое удаление состояний мест, срок использования
+     * которых истек.
+     */
+    @Scheduled(fixedDelayString = "${seat.state.ttl-ms:5000}")
+    public void evictExpired() {
+        evictExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Выполняет удаление состояний мест, срок использования которых истек.
+     *
+     * @param now текущее время в миллисекундах
+     * @return количество удаленных состояний
+     */
+    public int evictExpired(long now) {
+        int before = states.size();
+        states.values().removeIf(loaded -> isExpired(loaded, now));
+        return before - states.size();
+    }
+
+    /**
+     * Возвращает количество состояний мест в реестре.
+     *
+     * @return количество состояний
+     */
+    public int size() {
+        return states.size();
+    }
+
+    /**
+     * Вспомогательный метод проверяет, истек ли срок использования состояния.
+     *
+     * @param loaded загруженное состояние
+     * @param now    текущее время в миллисекундах
+     * @return true, если состояние нужно загрузить повторно
+     */
+    private boolean isExpired(LoadedState loaded, long now) {
+        return now - loaded.loadedAt() >= ttlMillis;
+    }
+
+    /**
+     * Вспомогательный метод возвращает идентификатор сеанса показа.
+     *
+     * @param screeningId идентификатор показа
+     * @return идентификатор сеанса, 0, если показ не найден
+     */
+    private int findShowId(int screeningId) {
+        try {
+            Screening screening = ReadRouting.onPrimary(
+                    () -> screeningService.findById(screeningId));
+            return screening.getShow().getId();
+        } catch (NoSuchElementException e) {
+            log.info("Исключение в методе findShowId() класса SeatRegistry ", e);
+        }
+        return 0;
+    }
+
+    /**
+     * Вспомогательный метод загружает состояние мест показа из шарда
+     * сеанса показа.
+     *
+     * @param screeningId идентификатор показа
+     * @param showId      идентификатор сеанса показа
+     * @return состояние мест показа
+     */
+    private SeatState load(int screeningId, int showId) {
+        SeatState state = new SeatState(rows, cells);
+        List<Ticket> tickets = ReadRouting.onPrimary(
+                () -> ticketRepository.findAllTicketsByScreeningId(screeningId, showId));
+        for (Ticket ticket : tickets) {
+            try {
+                state.occupy(ticket.getPosRow(), ticket.getCell());
+            } catch (IllegalArgumentException e) {
+                log.info("Исключение в методе load() класса SeatRegistry ", e);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Загруженное состояние мест показа.
+     *
+     * @param state    состояние мест показа
+     * @param showId   идентификатор сеанса показа
+     * @param loadedAt время загрузки в миллисекундах
+     */
+    private record LoadedState(SeatState state, int showId, long loadedAt) {
+    }
+}
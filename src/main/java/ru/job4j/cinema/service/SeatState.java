@@ -0,0 +1,325 @@
+package ru.job4j.cinema.service;
+
+import ru.job4j.cinema.model.SeatRecommendation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Состояние мест кинозала на сеанс. Занятость мест ряда хранится в битовой
+ * маске: бит с номером cell - 1 установлен, если место продано. Изменение
+ * состояния выполняется под монитором объекта копированием масок рядов
+ * и публикацией копии, поэтому чтение выполняется без монитора по одной
+ * согласованной копии масок и не ждет изменений. Монитор удерживается
+ * только на время изменения масок, запросы к базе данных выполняются
+ * без него.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.SeatRegistry
+ */
+public class SeatState {
+
+    /**
+     * Количество рядов в кинозале
+     */
+    private final int rows;
+
+    /**
+     * Количество мест в ряде кинозала
+     */
+    private final int cells;
+
+    /**
+     * Маска, в которой установлены биты всех мест ряда
+     */
+    private final long fullRow;
+
+    /**
+     * Маски занятых мест по рядам, индекс - номер ряда минус один.
+     * Массив не изменяется после публикации
+     */
+    private volatile long[] occupied;
+
+    /**
+     * Количество проданных мест
+     */
+    private volatile int sold;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param rows  количество рядов в кинозале
+     * @param cells количество мест в ряде кинозала, не более 64
+     * @throws IllegalArgumentException если количество мест в ряде больше 64
+     */
+    public SeatState(int rows, int cells) {
+        if (cells < 1 || cells > Long.SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Количество мест в ряде должно быть от 1 до %d", Long.SIZE));
+        }
+        this.rows = rows;
+        this.cells = cells;
+        this.fullRow = cells == Long.SIZE ? -1L : (1L << cells) - 1;
+        this.occupied = new long[rows];
+    }
+
+    /**
+     * Выполняет проверку, свободно ли место.
+     *
+     * @param posRow номер ряда
+     * @param cell   номер места
+     * @return true, если место свободно
+     * @throws IllegalArgumentException если ряд или место вне кинозала
+     */
+    public boolean isFree(int posRow, int cell) {
+        return (occupied[rowIndex(posRow)] & bit(cell)) == 0;
+    }
+
+    /**
+     * Выполняет занятие места.
+     *
+     * @param posRow номер ряда
+     * @param cell   номер места
+     * @return true, если место было свободно и занято, false, если место уже занято
+     * @throws IllegalArgumentException если ряд или место вне кинозала
+     */
+    public synchronized boolean occupy(int posRow, int cell) {
+        int row = rowIndex(posRow);
+        long bit = bit(cell);
+        if ((occupied[row] & bit) != 0) {
+            return false;
+        }
+        long[] copy = occupied.clone();
+        copy[row] |= bit;
+        occupied = copy;
+        sold++;
+        return true;
+    }
+
+    /**
+     * Выполняет освобождение места.
+     *
+     * @param posRow номер ряда
+     * @param cell   номер места
+     * @return true, если место было занято и освобождено, false, если место уже свободно
+     * @throws IllegalArgumentException если ряд или место вне кинозала
+     */
+    public synchronized boolean release(int posRow, int cell) {
+        int row = rowIndex(posRow);
+        long bit = bit(cell);
+        if ((occupied[row] & bit) == 0) {
+            return false;
+        }
+        long[] copy = occupied.clone();
+        copy[row] &= ~bit;
+        occupied = copy;
+        sold--;
+        return true;
+    }
+
+    /**
+     * Возвращает маску свободных мест ряда: бит с номером cell - 1
+     * установлен, если место свободно.
+     *
+     * @param posRow номер ряда
+     * @return маска свободных мест
+     * @throws IllegalArgumentException если ряд вне кинозала
+     */
+    public long freeMask(int posRow) {
+        return ~occupied[rowIndex(posRow)] & fullRow;
+    }
+
+    /**
+     * Возвращает список свободных мест ряда в порядке возрастания.
+     *
+     * @param posRow номер ряда
+     * @return список номеров свободных мест
+     * @throws IllegalArgumentException если ряд вне кинозала
+     */
+    public List<Integer> freeCells(int posRow) {
+        long free = freeMask(posRow);
+        List<Integer> result = new ArrayList<>(Long.bitCount(free));
+        while (free != 0) {
+            result.add(Long.numberOfTrailingZeros(free) + 1);
+            free &= free - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает список рядов, в которых есть свободные места.
+     *
+     * @return список номеров рядов в порядке возрастания
+     */
+    public List<Integer> rowsWithFreeSeats() {
+        long[] current = occupied;
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            if (current[i] != fullRow) {
+                result.add(i + 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет подбор count подряд идущих свободных мест одного ряда,
+     * ближайших к центру зала. Расстояние до центра считается как сумма
+     * квадратов смещений ряда и середины группы мест от центра зала.
+     * Для каждого ряда начала подходящих групп находятся в маске
+     * свободных мест сдвигами и побитовым И за O(log count) операций,
+     * ближайшее к центру ряда начало находится сканированием бит маски.
+     * Ряды просматриваются от центра зала к краям, просмотр прекращается,
+     * когда смещение ряда превышает лучшее найденное расстояние. При равном
+     * расстоянии предпочитается ряд с большим номером, дальше от экрана,
+     * в том числе из двух центральных рядов зала с четным числом рядов.
+     *
+     * @param count количество мест
+     * @return Optional.of(recommendation) при наличии мест, иначе Optional.empty()
+     * @throws IllegalArgumentException если количество мест меньше 1 или больше мест в ряде
+     */
+    public Optional<SeatRecommendation> recommend(int count) {
+        if (count < 1 || count > cells) {
+            throw new IllegalArgumentException(
+                    String.format("Количество мест должно быть от 1 до %d", cells));
+        }
+        long[] current = occupied;
+        long bestScore = Long.MAX_VALUE;
+        int bestRow = -1;
+        int bestStart = -1;
+        for (int i = 0; i < rows; i++) {
+            int row = (rows - 1) / 2 + ((i & 1) == 0 ? -i / 2 : (i + 1) / 2);
+            long rowOffset = 2L * row + 1 - rows;
+            if (rowOffset * rowOffset > bestScore) {
+                break;
+            }
+            int start = nearestStart(startMask(~current[row] & fullRow, count), count);
+            if (start >= 0) {
+                long cellOffset = 2L * start + count - cells;
+                long score = rowOffset * rowOffset + cellOffset * cellOffset;
+                if (score < bestScore || score == bestScore && row > bestRow) {
+                    bestScore = score;
+                    bestRow = row;
+                    bestStart = start;
+                }
+            }
+        }
+        if (bestRow < 0) {
+            return Optional.empty();
+        }
+        List<Integer> result = new ArrayList<>(count);
+        for (int cell = bestStart + 1; cell <= bestStart + count; cell++) {
+            result.add(cell);
+        }
+        return Optional.of(new SeatRecommendation(bestRow + 1, result));
+    }
+
+    /**
+     * Возвращает количество рядов в кинозале.
+     *
+     * @return количество рядов
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Возвращает количество мест в ряде кинозала.
+     *
+     * @return количество мест
+     */
+    public int getCells() {
+        return cells;
+    }
+
+    /**
+     * Возвращает количество проданных мест.
+     *
+     * @return количество проданных мест
+     */
+    public int getSold() {
+        return sold;
+    }
+
+    /**
+     * Вспомогательный метод возвращает маску начал групп из count подряд
+     * идущих свободных мест: бит i установлен, если свободны места
+     * с i + 1 по i + count. Маска сдвигается на удвоенную длину уже
+     * проверенной группы, поэтому количество операций O(log count).
+     *
+     * @param free  маска свободных мест ряда
+     * @param count количество мест в группе
+     * @return маска начал групп
+     */
+    private static long startMask(long free, int count) {
+        long result = free;
+        int covered = 1;
+        while (covered < count && result != 0) {
+            int shift = Math.min(covered, count - covered);
+            result &= result >>> shift;
+            covered += shift;
+        }
+        return result;
+    }
+
+    /**
+     * Вспомогательный метод возвращает начало группы мест, середина
+     * которой ближе всего к середине ряда. Ближайшие к середине начала
+     * слева и справа находятся по старшему и младшему установленным битам.
+     *
+     * @param starts маска начал групп
+     * @param count  количество мест в группе
+     * @return индекс первого места группы, -1, если групп нет
+     */
+    private int nearestStart(long starts, int count) {
+        if (starts == 0) {
+            return -1;
+        }
+        int target = (cells - count) / 2;
+        long lowMask = (1L << (target + 1)) - 1;
+        long low = starts & lowMask;
+        long high = starts & ~lowMask;
+        int left = low == 0 ? -1 : Long.SIZE - 1 - Long.numberOfLeadingZeros(low);
+        int right = high == 0 ? -1 : Long.numberOfTrailingZeros(high);
+        if (left < 0) {
+            return right;
+        }
+        if (right < 0) {
+            return left;
+        }
+        return Math.abs(2 * left + count - cells) <= Math.abs(2 * right + count - cells)
+                ? left : right;
+    }
+
+    /**
+     * Вспомогательный метод проверяет номер ряда и возвращает индекс ряда.
+     *
+     * @param posRow номер ряда
+     * @return индекс ряда
+     * @throws IllegalArgumentException если ряд вне кинозала
+     */
+    private int rowIndex(int posRow) {
+        if (posRow < 1 || posRow > rows) {
+            throw new IllegalArgumentException(
+                    String.format("Ряд %d отсутствует в кинозале", posRow));
+        }
+        return posRow - 1;
+    }
+
+    /**
+     * Вспомогательный метод проверяет номер места и возвращает бит места.
+     *
+     * @param cell номер места
+     * @return маска с установленным битом места
+     * @throws IllegalArgumentException если место вне ряда
+     */
+    private long bit(int cell) {
+        if (cell < 1 || cell > cells) {
+            throw new IllegalArgumentException(
+                    String.format("Место %d отсутствует в ряде", cell));
+        }
+        return 1L << (cell - 1);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.job4j.cinema.service;
+
+import org.springframework.web.multipart.MultipartFile;
+import ru.job4j.cinema.model.ShowImportResult;
+
+/**
+ * Сервис загрузки каталога сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.model.ShowImportResult
+ */
+public interface ShowImportService {
+
+    /**
+     * Выполняет загрузку каталога сеансов и архива постеров. Сеансы
+     * сохраняются только если каталог не содержит ошибок.
+     *
+     * @param catalogue файл каталога в формате CSV или JSON
+     * @param posters   zip архив постеров, может быть пустым
+     * @return результат загрузки
+     */
+    ShowImportResult importCatalogue(MultipartFile catalogue, MultipartFile posters);
+}
@@ -0,0 +1,360 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.datasource.ReadRouting;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.repository.ShowRepository;
+import ru.job4j.cinema.util.RussianStemmer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный индекс сеансов для полнотекстового поиска по названию
+ * и описанию. Термины индекса - основы слов, полученные
+ * {@link RussianStemmer}. Для каждого термина хранится вес вхождения по
+ * сеансам: слово названия весит больше слова описания. Термины хранятся
+ * в отсортированном словаре, поэтому последнее слово запроса ищется по
+ * префиксу и подсказки формируются во время набора запроса.
+ * Индекс строится при запуске приложения и далее изменяется сервисом
+ * сеансов при добавлении, обновлении и удалении сеанса.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.util.RussianStemmer
+ */
+@Slf4j
+@Component
+public class ShowSearchIndex implements ApplicationRunner {
+
+    /**
+     * Разделитель слов: любой символ, кроме букв и цифр
+     */
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Служебные слова, не включаемые в индекс
+     */
+    private static final Set<String> STOP_WORDS = Set.of(
+            "и", "в", "во", "не", "что", "он", "на", "я", "с", "со", "как", "а", "то", "все",
+            "она", "так", "его", "но", "да", "к", "у", "же", "за", "бы", "по", "ее", "от",
+            "о", "из", "ему", "они", "их", "для", "это", "при", "до", "об", "или");
+
+    /**
+     * Вес вхождения слова в название сеанса
+     */
+    private static final int NAME_WEIGHT = 3;
+
+    /**
+     * Вес вхождения слова в описание сеанса
+     */
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /**
+     * Максимальное количество терминов, найденных по префиксу
+     */
+    private static final int MAX_PREFIX_TERMS = 200;
+
+    /**
+     * Объект для доступа к методам ShowRepository
+     */
+    private final ShowRepository showRepository;
+
+    /**
+     * Монитор построения индекса, построения выполняются по одному
+     */
+    private final Object rebuildLock = new Object();
+
+    /**
+     * Веса вхождений по сеансам для каждого термина
+     */
+    private NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+
+    /**
+     * Термины сеанса по идентификатору сеанса, для удаления сеанса из индекса
+     */
+    private Map<Integer, Set<String>> showTerms = new HashMap<>();
+
+    /**
+     * Проиндексированные сеансы по идентификатору
+     */
+    private Map<Integer, Show> shows = new HashMap<>();
+
+    /**
+     * Изменения индекса во время построения: сеанс по идентификатору
+     * или null для удаленного сеанса, вне построения null
+     */
+    private Map<Integer, Show> changes;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param showRepository объект для доступа к методам ShowRepository
+     */
+    public ShowSearchIndex(ShowRepository showRepository) {
+        this.showRepository = showRepository;
+    }
+
+    /**
+     * Выполняет построение индекса при запуске приложения.
+     *
+     * @param args аргументы запуска приложения
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Выполняет построение индекса по всем сеансам из базы данных.
+     * Чтение сеансов и построение нового индекса выполняются без монитора
+     * индекса, поиск в это время выполняется по прежнему индексу. Изменения
+     * сеансов во время построения запоминаются и применяются к новому
+     * индексу при его замене под монитором, поэтому они не теряются.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                changes = new HashMap<>();
+            }
+            ShowSearchIndex built = new ShowSearchIndex(showRepository);
+            List<Show> all;
+            try {
+                all = ReadRouting.onPrimary(showRepository::findAll);
+                all.forEach(built::index);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    changes = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                postings = built.postings;
+                showTerms = built.showTerms;
+                shows = built.shows;
+                changes.forEach((id, show) -> {
+                    unindex(id);
+                    if (show != null) {
+                        index(show);
+                    }
+                });
+                changes = null;
+            }
+            log.info("Поисковый индекс сеансов построен: {} сеансов за {} мс",
+                    all.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Выполняет добавление сеанса в индекс или обновление сеанса в индексе.
+     *
+     * @param show сеанс
+     */
+    public synchronized void put(Show show) {
+        if (changes != null) {
+            changes.put(show.getId(), copy(show));
+        }
+        unindex(show.getId());
+        index(show);
+    }
+
+    /**
+     * Выполняет удаление сеанса из индекса.
+     *
+     * @param id идентификатор сеанса
+     */
+    public synchronized void remove(int id) {
+        if (changes != null) {
+            changes.put(id, null);
+        }
+        unindex(id);
+    }
+
+    /**
+     * Вспомогательный метод удаляет сеанс из индекса.
+     *
+     * @param id идентификатор сеанса
+     */
+    private void unindex(int id) {
+        Set<String> terms = showTerms.remove(id);
+        shows.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Integer, Integer> weights = postings.get(term);
+            weights.remove(id);
+            if (weights.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * Выполняет поиск сеансов, содержащих все слова запроса в названии или
+     * описании. Последнее слово запроса ищется также по префиксу, если
+     * запрос не оканчивается пробелом, служебные слова запроса, кроме
+     * последнего слова при поиске по префиксу, пропускаются. Сеансы упорядочены по убыванию
+     * суммарного веса вхождений, при равном весе по идентификатору.
+     *
+     * @param query строка запроса
+     * @param limit максимальное количество сеансов
+     * @return список найденных сеансов
+     */
+    public synchronized List<Show> search(String query, int limit) {
+        List<String> words = words(query);
+        boolean prefixLast = !words.isEmpty()
+                && !Character.isWhitespace(query.charAt(query.length() - 1));
+        String last = prefixLast ? words.remove(words.size() - 1) : null;
+        words.removeIf(STOP_WORDS::contains);
+        if (last != null) {
+            words.add(last);
+        }
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Integer> scores = null;
+        for (int i = 0; i < words.size(); i++) {
+            Map<Integer, Integer> matches = match(words.get(i),
+                    prefixLast && i == words.size() - 1);
+            if (scores == null) {
+                scores = matches;
+            } else {
+                Map<Integer, Integer> intersection = new HashMap<>();
+                for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+                    Integer weight = matches.get(entry.getKey());
+                    if (weight != null) {
+                        intersection.put(entry.getKey(), entry.getValue() + weight);
+                    }
+                }
+                scores = intersection;
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        Map<Integer, Integer> result = scores;
+        return result.keySet().stream()
+                .sorted(Comparator.comparing((Integer id) -> -result.get(id))
+                        .thenComparing(id -> id))
+                .limit(limit)
+                .map(id -> copy(shows.get(id)))
+                .toList();
+    }
+
+    /**
+     * Возвращает названия сеансов для подсказки во время набора запроса.
+     *
+     * @param query строка запроса
+     * @param limit максимальное количество подсказок
+     * @return список названий сеансов
+     */
+    public List<String> suggest(String query, int limit) {
+        return search(query, limit).stream()
+                .map(Show::getName)
+                .toList();
+    }
+
+    /**
+     * Возвращает количество терминов индекса.
+     *
+     * @return количество терминов
+     */
+    public synchronized int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Вспомогательный метод добавляет сеанс в индекс.
+     *
+     * @param show сеанс
+     */
+    private void index(Show show) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String word : words(show.getName())) {
+            if (!STOP_WORDS.contains(word)) {
+                weights.merge(RussianStemmer.stem(word), NAME_WEIGHT, Integer::sum);
+            }
+        }
+        for (String word : words(show.getDescription())) {
+            if (!STOP_WORDS.contains(word)) {
+                weights.merge(RussianStemmer.stem(word), DESCRIPTION_WEIGHT, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>())
+                    .put(show.getId(), entry.getValue());
+        }
+        showTerms.put(show.getId(), new HashSet<>(weights.keySet()));
+        shows.put(show.getId(), copy(show));
+    }
+
+    /**
+     * Вспомогательный метод возвращает веса сеансов, содержащих слово запроса.
+     * При поиске по префиксу учитываются все термины, начинающиеся со слова,
+     * и берется наибольший вес сеанса по этим терминам.
+     *
+     * @param word   слово запроса
+     * @param prefix true, если слово ищется также по префиксу
+     * @return веса сеансов по идентификатору сеанса
+     */
+    private Map<Integer, Integer> match(String word, boolean prefix) {
+        Map<Integer, Integer> result = new HashMap<>(
+                postings.getOrDefault(RussianStemmer.stem(word), Map.of()));
+        if (prefix) {
+            int terms = 0;
+            for (Map<Integer, Integer> weights
+                    : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                weights.forEach((id, weight) -> result.merge(id, weight, Math::max));
+                if (++terms == MAX_PREFIX_TERMS) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Вспомогательный метод разбивает текст на слова в нижнем регистре.
+     *
+     * @param text текст, может быть null
+     * @return список слов
+     */
+    private static List<String> words(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        for (String word : SEPARATOR.split(text.toLowerCase(Locale.ROOT).replace('ё', 'е'))) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Вспомогательный метод создает копию сеанса, чтобы изменения
+     * возвращенного сеанса не затрагивали индекс.
+     *
+     * @param show сеанс
+     * @return копия сеанса
+     */
+    private static Show copy(Show show) {
+        return new Show(show.getId(), show.getName(), show.getDescription(),
+                show.getPosterName());
+    }
+}
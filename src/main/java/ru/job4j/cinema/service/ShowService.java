@@ -1,9 +1,12 @@
 package ru.job4j.cinema.service;
 
 import org.springframework.web.multipart.MultipartFile;
+import ru.job4j.cinema.model.SeatRecommendation;
 import ru.job4j.cinema.model.Show;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Сервис сеансов, логика работы с сеансами
@@ -21,6 +24,21 @@ public interface ShowService {
      */
     List<Show> findAll();
 
+    /**
+     * Возвращает номер текущей версии каталога сеансов. Версия
+     * изменяется при добавлении, обновлении и удалении сеансов.
+     *
+     * @return номер версии каталога
+     */
+    long getCatalogueVersion();
+
+    /**
+     * Возвращает время последнего изменения каталога сеансов.
+     *
+     * @return время в миллисекундах, округленное до секунды
+     */
+    long getCatalogueLastModified();
+
     /**
      * Выполняет поиск сеанс по идентификатору. При успешном нахождении возвращает
      * сеанс, иначе выбрасывает исключение.
@@ -62,34 +80,72 @@ public interface ShowService {
     boolean update(Show show);
 
     /**
-     * Выполняет удаление сеанса по идентификатору. При успешном удалении
-     * сеанса возвращает true, иначе выбрасывается исключение.
-     * При удалении сеанса происходит и удаление постера к сеансу.
+     * Выполняет удаление сеанса по идентификатору вместе с проданными
+     * билетами и показами сеанса. При успешном удалении сеанса возвращает
+     * true, иначе выбрасывается исключение. При удалении сеанса происходит
+     * и удаление постера к сеансу.
      *
      * @param id идентификатор сеанса
      * @return true при успешном удалении
      */
     boolean deleteById(int id);
 
+    /**
+     * Выполняет удаление сеансов по идентификаторам вместе с проданными
+     * билетами, показами и постерами сеансов. Отсутствующие идентификаторы
+     * пропускаются.
+     *
+     * @param ids идентификаторы сеансов
+     * @return количество удаленных сеансов
+     */
+    int deleteAllByIds(Collection<Integer> ids);
+
+    /**
+     * Выполняет поиск сеансов по словам в названии и описании.
+     *
+     * @param query строка запроса
+     * @return список найденных сеансов
+     */
+    List<Show> search(String query);
+
+    /**
+     * Возвращает названия сеансов для подсказки во время набора запроса.
+     *
+     * @param query строка запроса
+     * @return список названий сеансов
+     */
+    List<String> suggest(String query);
+
     /**
      * Выполняет расчет списка рядов в зале со свободными местами
-     * по переданному идентификатору сеанса.
+     * по переданному идентификатору показа сеанса.
      * Возвращает список рядов со свободными местами.
      *
-     * @param id идентификатор сеанса
+     * @param screeningId идентификатор показа
      * @return {@code List<Integer>} список рядов в зале со
      * свободными местами
      */
-    List<Integer> getRows(int id);
+    List<Integer> getRows(int screeningId);
 
     /**
      * Выполняет расчет списка свободных мест в ряде по
-     * идентификаторам сеанса и номеру ряда.
+     * идентификатору показа сеанса и номеру ряда.
      * Возвращает список свободных мест в ряде.
      *
-     * @param id     идентификатор сеанса
-     * @param posRow номер ряда
+     * @param screeningId идентификатор показа
+     * @param posRow      номер ряда
      * @return {@code List<Integer>} - список свободных мест в ряде
      */
-    List<Integer> getCells(int id, int posRow);
+    List<Integer> getCells(int screeningId, int posRow);
+
+    /**
+     * Выполняет подбор подряд идущих свободных мест одного ряда
+     * для группы зрителей на показе сеанса, ближайших к центру зала.
+     *
+     * @param screeningId идентификатор показа
+     * @param count       количество мест
+     * @return Optional.of(recommendation) при наличии мест, иначе Optional.empty()
+     * @throws IllegalArgumentException если количество мест вне допустимого диапазона
+     */
+    Optional<SeatRecommendation> recommendSeats(int screeningId, int count);
 }
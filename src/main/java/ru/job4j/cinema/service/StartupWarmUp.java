@@ -0,0 +1,179 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.view.CatalogueRenderer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Прогрев приложения при запуске. Открываются соединения pool основной
+ * базы данных, загружаются каталог сеансов, фрагмент страницы /shows
+ * и состояния мест показов текущего дня, затем warmup.iterations раз
+ * выполняются формирование фрагмента каталога шаблонизатором, поиск сеансов
+ * в базе данных, выбор рядов и мест показов, а также запросы билетов
+ * и пользователей в обход кэшей ({@link QueryWarmUp}), чтобы JIT компилятор
+ * скомпилировал код шаблонов и доступа к базе данных, а не только чтения
+ * кэшей. Поиск сеансов выполняется по выборке не более {@link #SHOW_SAMPLE}
+ * сеансов каталога. Прогрев ограничен по времени параметром warmup.max-ms.
+ * Ошибка прогрева не прерывает запуск приложения. До завершения прогрева
+ * запросы пользователей отклоняются фильтром
+ * {@link ru.job4j.cinema.filter.ReadinessFilter}.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmUp implements ApplicationRunner {
+
+    /**
+     * Максимальное количество сеансов, поиск которых повторяется при прогреве
+     */
+    private static final int SHOW_SAMPLE = 20;
+
+    /**
+     * Pool соединений основной базы данных
+     */
+    private final BasicDataSource pool;
+
+    /**
+     * Объект для доступа к методам ShowService
+     */
+    private final ShowService showService;
+
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private final ScreeningService screeningService;
+
+    /**
+     * Объект для выполнения запросов билетов и пользователей в обход кэшей
+     */
+    private final QueryWarmUp queryWarmUp;
+
+    /**
+     * Объект для формирования фрагмента каталога сеансов
+     */
+    private final CatalogueRenderer catalogueRenderer;
+
+    /**
+     * Количество повторов запросов страниц
+     */
+    private final int iterations;
+
+    /**
+     * Максимальное время прогрева в миллисекундах
+     */
+    private final long maxMillis;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param pool              pool соединений основной базы данных
+     * @param showService       объект для доступа к методам ShowService
+     * @param screeningService  объект для доступа к методам ScreeningService
+     * @param queryWarmUp       объект для выполнения запросов в обход кэшей
+     * @param catalogueRenderer объект для формирования фрагмента каталога сеансов
+     * @param iterations        количество повторов запросов страниц
+     * @param maxMillis         максимальное время прогрева в миллисекундах
+     */
+    public StartupWarmUp(BasicDataSource pool, ShowService showService,
+                         ScreeningService screeningService, QueryWarmUp queryWarmUp,
+                         CatalogueRenderer catalogueRenderer,
+                         @Value("${warmup.iterations:200}") int iterations,
+                         @Value("${warmup.max-ms:10000}") long maxMillis) {
+        this.pool = pool;
+        this.showService = showService;
+        this.screeningService = screeningService;
+        this.queryWarmUp = queryWarmUp;
+        this.catalogueRenderer = catalogueRenderer;
+        this.iterations = iterations;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Выполняет прогрев приложения.
+     *
+     * @param args аргументы запуска приложения
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        try {
+            pool.start();
+            List<Show> shows = showService.findAll();
+            catalogueRenderer.render();
+            List<Screening> screenings = screeningService.findToday();
+            for (Screening screening : screenings) {
+                showService.getRows(screening.getId());
+            }
+            int done = train(sample(shows), screenings, start + maxMillis);
+            log.info("Прогрев выполнен за {} мс: соединений {}, сеансов {}, показов {}, "
+                            + "повторов {}", System.currentTimeMillis() - start,
+                    pool.getNumIdle(), shows.size(), screenings.size(), done);
+        } catch (Exception e) {
+            log.info("Исключение в методе run() класса StartupWarmUp ", e);
+        }
+    }
+
+    /**
+     * Вспомогательный метод повторяет формирование фрагмента каталога
+     * шаблонизатором, поиск сеансов выборки, выбор ряда и места и запросы
+     * билетов и пользователей по всем показам текущего дня до выполнения
+     * всех повторов или истечения времени прогрева.
+     *
+     * @param shows      выборка сеансов каталога
+     * @param screenings показы текущего дня
+     * @param deadline   время окончания прогрева в миллисекундах
+     * @return количество выполненных повторов
+     */
+    private int train(List<Show> shows, List<Screening> screenings, long deadline) {
+        for (int done = 0; done < iterations; done++) {
+            catalogueRenderer.renderTemplate();
+            for (Show show : shows) {
+                if (System.currentTimeMillis() >= deadline) {
+                    return done;
+                }
+                showService.findById(show.getId());
+            }
+            for (Screening screening : screenings) {
+                if (System.currentTimeMillis() >= deadline) {
+                    return done;
+                }
+                for (int posRow : showService.getRows(screening.getId())) {
+                    showService.getCells(screening.getId(), posRow);
+                }
+                queryWarmUp.run(screening.getId(), screening.getShow().getId());
+            }
+        }
+        return iterations;
+    }
+
+    /**
+     * Вспомогательный метод выбирает из каталога не более {@link #SHOW_SAMPLE}
+     * сеансов, равномерно распределенных по списку.
+     *
+     * @param shows сеансы каталога
+     * @return выборка сеансов
+     */
+    private static List<Show> sample(List<Show> shows) {
+        if (shows.size() <= SHOW_SAMPLE) {
+            return shows;
+        }
+        List<Show> sample = new ArrayList<>(SHOW_SAMPLE);
+        for (int i = 0; i < SHOW_SAMPLE; i++) {
+            sample.add(shows.get(i * shows.size() / SHOW_SAMPLE));
+        }
+        return sample;
+    }
+}
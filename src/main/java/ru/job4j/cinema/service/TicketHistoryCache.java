@@ -0,0 +1,95 @@
+package ru.job4j.cinema.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.TicketHistoryPage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Ограниченный по размеру кэш первых страниц истории покупок пользователей.
+ * При превышении размера вытесняется страница пользователя, к которой
+ * дольше всего не было обращений (LRU). Страница хранится вместе с версией
+ * каталога сеансов, поэтому после изменения каталога (например, переименования
+ * сеанса) страница считается устаревшей.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ImplTicketService
+ */
+@Component
+public class TicketHistoryCache {
+
+    /**
+     * Страницы истории по идентификатору пользователя в порядке обращения
+     */
+    private final Map<Integer, CachedPage> pages;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param capacity максимальное количество пользователей в кэше
+     */
+    public TicketHistoryCache(@Value("${ticket.history.cache-size:1000}") int capacity) {
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedPage> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Возвращает первую страницу истории пользователя, если она
+     * построена для текущей версии каталога.
+     *
+     * @param userId  идентификатор пользователя
+     * @param version текущая версия каталога сеансов
+     * @return Optional.of(page) при нахождении, иначе Optional.empty()
+     */
+    public synchronized Optional<TicketHistoryPage> get(int userId, long version) {
+        CachedPage cached = pages.get(userId);
+        if (cached == null || cached.version() != version) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.page());
+    }
+
+    /**
+     * Выполняет помещение первой страницы истории пользователя в кэш.
+     *
+     * @param userId  идентификатор пользователя
+     * @param version версия каталога сеансов, для которой построена страница
+     * @param page    страница истории
+     */
+    public synchronized void put(int userId, long version, TicketHistoryPage page) {
+        pages.put(userId, new CachedPage(version, page));
+    }
+
+    /**
+     * Выполняет удаление истории пользователя из кэша.
+     *
+     * @param userId идентификатор пользователя
+     */
+    public synchronized void evict(int userId) {
+        pages.remove(userId);
+    }
+
+    /**
+     * Выполняет очистку кэша.
+     */
+    public synchronized void clear() {
+        pages.clear();
+    }
+
+    /**
+     * Страница истории и версия каталога, для которой она построена.
+     *
+     * @param version версия каталога сеансов
+     * @param page    страница истории
+     */
+    private record CachedPage(long version, TicketHistoryPage page) {
+    }
+}
@@ -0,0 +1,105 @@
+package ru.job4j.cinema.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketSummary;
+import ru.job4j.cinema.model.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Загрузка сеансов и пользователей билетов по ссылкам. Хранилище билетов
+ * возвращает билеты со ссылками на сеанс и пользователя, в которых
+ * проинициализирован только идентификатор, и не читает описание сеанса
+ * и данные пользователя. Ссылки заменяются полными объектами только
+ * по запросу: сеансы берутся из кэшированного каталога сеансов,
+ * пользователи - из кэша пользователей. Каждый сеанс и пользователь
+ * загружается один раз на список билетов. Названия сеансов в кратких
+ * данных билетов также берутся из каталога сеансов, так как шарды
+ * билетов не содержат таблицу shows.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ImplTicketService
+ */
+@Component
+@AllArgsConstructor
+public class TicketReferences {
+
+    /**
+     * Объект для доступа к методам ShowService
+     */
+    private final ShowService showService;
+
+    /**
+     * Объект для доступа к методам UserService
+     */
+    private final UserService userService;
+
+    /**
+     * Выполняет загрузку сеанса и пользователя билета.
+     *
+     * @param ticket билет со ссылками на сеанс и пользователя
+     * @return тот же билет с загруженными сеансом и пользователем
+     * @throws NoSuchElementException если сеанс или пользователь не найден
+     */
+    public Ticket load(Ticket ticket) {
+        load(List.of(ticket));
+        return ticket;
+    }
+
+    /**
+     * Выполняет загрузку сеансов и пользователей списка билетов.
+     *
+     * @param tickets билеты со ссылками на сеансы и пользователей
+     * @return тот же список билетов с загруженными сеансами и пользователями
+     * @throws NoSuchElementException если сеанс или пользователь не найден
+     */
+    public List<Ticket> load(List<Ticket> tickets) {
+        if (tickets.isEmpty()) {
+            return tickets;
+        }
+        Map<Integer, Show> shows = new HashMap<>();
+        for (Show show : showService.findAll()) {
+            shows.put(show.getId(), show);
+        }
+        Map<Integer, User> users = new HashMap<>();
+        for (Ticket ticket : tickets) {
+            ticket.setShow(shows.computeIfAbsent(ticket.getShow().getId(),
+                    showService::findById));
+            ticket.setUser(users.computeIfAbsent(ticket.getUser().getId(),
+                    userService::findById));
+        }
+        return tickets;
+    }
+
+    /**
+     * Выполняет заполнение названий сеансов кратких данных билетов.
+     *
+     * @param tickets краткие данные билетов без названий сеансов
+     * @return новый список кратких данных билетов с названиями сеансов
+     * @throws NoSuchElementException если сеанс не найден
+     */
+    public List<TicketSummary> loadNames(List<TicketSummary> tickets) {
+        if (tickets.isEmpty()) {
+            return tickets;
+        }
+        Map<Integer, Show> shows = new HashMap<>();
+        for (Show show : showService.findAll()) {
+            shows.put(show.getId(), show);
+        }
+        List<TicketSummary> result = new ArrayList<>(tickets.size());
+        for (TicketSummary ticket : tickets) {
+            Show show = shows.computeIfAbsent(ticket.getShowId(), showService::findById);
+            result.add(new TicketSummary(ticket.getId(), ticket.getShowId(), show.getName(),
+                    ticket.getPosRow(), ticket.getCell()));
+        }
+        return result;
+    }
+}
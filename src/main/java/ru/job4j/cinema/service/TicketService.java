@@ -1,6 +1,7 @@
 package ru.job4j.cinema.service;
 
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketHistoryPage;
 
 import java.util.List;
 
@@ -55,6 +56,16 @@ public interface TicketService {
      */
     boolean deleteById(int id);
 
+    /**
+     * Выполняет возврат билета пользователем. Билет удаляется,
+     * место освобождается для продажи.
+     *
+     * @param id     идентификатор билета
+     * @param userId идентификатор пользователя, выполняющего возврат
+     * @return true при успешном возврате
+     */
+    boolean cancel(int id, int userId);
+
     /**
      * Выполняет удаление билетов по идентификатору сеанса. При успешном
      * удалении возвращает true, при неудачном false.
@@ -64,4 +75,15 @@ public interface TicketService {
      */
     boolean deleteTicketsByShowId(int id);
 
+
+    /**
+     * Возвращает страницу истории покупок пользователя в порядке
+     * от последнего купленного билета к первому.
+     *
+     * @param userId   идентификатор пользователя
+     * @param beforeId идентификатор билета, с которого начинается страница
+     *                 (не включительно), null для первой страницы
+     * @return страница истории покупок
+     */
+    TicketHistoryPage findHistory(int userId, Integer beforeId);
 }
@@ -0,0 +1,250 @@
+package ru.job4j.cinema.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.User;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Ограниченный по размеру кэш пользователей с поиском по идентификатору,
+ * почтовому адресу и номеру телефона. При превышении размера вытесняется
+ * пользователь, к которому дольше всего не было обращений (LRU).
+ * Кэш хранит и возвращает копии пользователей, поэтому изменение
+ * полученного объекта не влияет на содержимое кэша. Пароли пользователей
+ * в открытом виде в кэш не помещаются. Каждое удаление пользователя из кэша
+ * увеличивает версию кэша: пользователь, загруженный из базы данных,
+ * помещается в кэш только если версия не изменилась с начала загрузки,
+ * поэтому запись, прочитанная до изменения пользователя, не попадает
+ * в кэш после удаления из него измененного пользователя.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ImplUserService
+ */
+@Component
+public class UserCache {
+
+    /**
+     * Максимальное количество пользователей в кэше
+     */
+    private final int capacity;
+
+    /**
+     * Пользователи по идентификатору в порядке обращения
+     */
+    private final LinkedHashMap<Integer, User> users = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Идентификаторы пользователей по почтовому адресу
+     */
+    private final Map<String, Integer> byEmail = new HashMap<>();
+
+    /**
+     * Идентификаторы пользователей по номеру телефона
+     */
+    private final Map<String, Integer> byPhone = new HashMap<>();
+
+    /**
+     * Количество попаданий в кэш
+     */
+    private long hits;
+
+    /**
+     * Количество промахов кэша
+     */
+    private long misses;
+
+    /**
+     * Версия кэша, увеличивается при каждом удалении пользователя из кэша
+     */
+    private long version;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param capacity максимальное количество пользователей в кэше
+     */
+    public UserCache(@Value("${user.cache.size:1000}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Выполняет поиск пользователя в кэше по идентификатору.
+     *
+     * @param id идентификатор пользователя
+     * @return Optional.of(user) копия пользователя при нахождении, иначе Optional.empty()
+     */
+    public synchronized Optional<User> findById(int id) {
+        return lookup(id);
+    }
+
+    /**
+     * Выполняет поиск пользователя в кэше по почтовому адресу.
+     *
+     * @param email почтовый адрес пользователя
+     * @return Optional.of(user) копия пользователя при нахождении, иначе Optional.empty()
+     */
+    public synchronized Optional<User> findByEmail(String email) {
+        return lookup(byEmail.get(email));
+    }
+
+    /**
+     * Выполняет поиск пользователя в кэше по номеру телефона.
+     *
+     * @param phone номер телефона пользователя
+     * @return Optional.of(user) копия пользователя при нахождении, иначе Optional.empty()
+     */
+    public synchronized Optional<User> findByPhone(String phone) {
+        return lookup(byPhone.get(phone));
+    }
+
+    /**
+     * Выполняет помещение копии пользователя в кэш. Ранее сохраненная
+     * запись пользователя заменяется. При превышении размера кэша
+     * вытесняется пользователь, к которому дольше всего не было обращений.
+     *
+     * @param user пользователь
+     */
+    public synchronized void put(User user) {
+        remove(user.getId());
+        User copy = copyOf(user);
+        users.put(copy.getId(), copy);
+        byEmail.put(copy.getEmail(), copy.getId());
+        byPhone.put(copy.getPhone(), copy.getId());
+        if (users.size() > capacity) {
+            Iterator<User> eldest = users.values().iterator();
+            User removed = eldest.next();
+            eldest.remove();
+            unindex(removed);
+        }
+    }
+
+    /**
+     * Выполняет помещение копии пользователя, загруженного из базы данных,
+     * в кэш, если версия кэша не изменилась с начала загрузки.
+     *
+     * @param user    пользователь
+     * @param version версия кэша, полученная до начала загрузки
+     * @return true, если пользователь помещен в кэш
+     */
+    public synchronized boolean putIfVersion(User user, long version) {
+        if (this.version != version) {
+            return false;
+        }
+        put(user);
+        return true;
+    }
+
+    /**
+     * Возвращает текущую версию кэша. Вызывается до загрузки пользователя
+     * из базы данных.
+     *
+     * @return версия кэша
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Выполняет удаление пользователя из кэша по идентификатору
+     * с увеличением версии кэша.
+     *
+     * @param id идентификатор пользователя
+     */
+    public synchronized void evict(int id) {
+        version++;
+        remove(id);
+    }
+
+    /**
+     * Выполняет очистку кэша с увеличением версии кэша.
+     */
+    public synchronized void clear() {
+        version++;
+        users.clear();
+        byEmail.clear();
+        byPhone.clear();
+    }
+
+    /**
+     * Возвращает количество пользователей в кэше.
+     *
+     * @return количество пользователей
+     */
+    public synchronized int size() {
+        return users.size();
+    }
+
+    /**
+     * Возвращает количество попаданий в кэш.
+     *
+     * @return количество попаданий
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Возвращает количество промахов кэша.
+     *
+     * @return количество промахов
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Вспомогательный метод удаляет пользователя из кэша по идентификатору.
+     *
+     * @param id идентификатор пользователя
+     */
+    private void remove(int id) {
+        User removed = users.remove(id);
+        if (removed != null) {
+            unindex(removed);
+        }
+    }
+
+    /**
+     * Вспомогательный метод выполняет поиск пользователя по идентификатору
+     * и учитывает результат в счетчиках попаданий и промахов.
+     *
+     * @param id идентификатор пользователя, может быть null
+     * @return Optional.of(user) копия пользователя при нахождении, иначе Optional.empty()
+     */
+    private Optional<User> lookup(Integer id) {
+        User user = id == null ? null : users.get(id);
+        if (user == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(copyOf(user));
+    }
+
+    /**
+     * Вспомогательный метод удаляет ключи поиска пользователя.
+     *
+     * @param user пользователь
+     */
+    private void unindex(User user) {
+        byEmail.remove(user.getEmail(), user.getId());
+        byPhone.remove(user.getPhone(), user.getId());
+    }
+
+    /**
+     * Вспомогательный метод создает копию пользователя.
+     *
+     * @param user пользователь
+     * @return копия пользователя
+     */
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getUsername(), user.getEmail(),
+                user.getPhone(), user.getPassword());
+    }
+}
@@ -0,0 +1,135 @@
+package ru.job4j.cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.repository.UserRepository;
+import ru.job4j.cinema.util.BloomFilter;
+
+/**
+ * Индекс зарегистрированных почтовых адресов и номеров телефонов на основе
+ * фильтра Блума. Позволяет без обращения к базе данных установить, что
+ * почтовый адрес или номер телефона свободен. Положительный ответ индекса
+ * требует подтверждения по базе данных. Индекс строится при запуске
+ * приложения потоковым просмотром таблицы users, до окончания построения
+ * все почтовые адреса и номера телефонов считаются возможно занятыми.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.util.BloomFilter
+ */
+@Slf4j
+@Component
+public class UserContactIndex implements ApplicationRunner {
+
+    /**
+     * Объект для доступа к методам UserRepository
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Ожидаемое количество пользователей
+     */
+    private final long expectedUsers;
+
+    /**
+     * Допустимая вероятность ложноположительного ответа
+     */
+    private final double falsePositiveRate;
+
+    /**
+     * Фильтр почтовых адресов, null до построения индекса
+     */
+    private volatile BloomFilter emails;
+
+    /**
+     * Фильтр номеров телефонов, null до построения индекса
+     */
+    private volatile BloomFilter phones;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param userRepository    объект для доступа к методам UserRepository
+     * @param expectedUsers     ожидаемое количество пользователей
+     * @param falsePositiveRate допустимая вероятность ложноположительного ответа
+     */
+    public UserContactIndex(UserRepository userRepository,
+                            @Value("${user.bloom.expected:100000}") long expectedUsers,
+                            @Value("${user.bloom.fpp:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Выполняет построение индекса при запуске приложения.
+     *
+     * @param args аргументы запуска приложения
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Выполняет построение индекса потоковым просмотром таблицы users.
+     * Контакты пользователя, зарегистрированного во время построения,
+     * могут отсутствовать в индексе, в этом случае повторная регистрация
+     * отклоняется ограничением уникальности в базе данных.
+     */
+    public synchronized void rebuild() {
+        BloomFilter newEmails = new BloomFilter(expectedUsers, falsePositiveRate);
+        BloomFilter newPhones = new BloomFilter(expectedUsers, falsePositiveRate);
+        long start = System.nanoTime();
+        int count = userRepository.scanContacts((email, phone) -> {
+            newEmails.put(email);
+            newPhones.put(phone);
+        });
+        emails = newEmails;
+        phones = newPhones;
+        log.info("Индекс контактов пользователей построен: {} записей за {} мс",
+                count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Выполняет добавление контактов пользователя в индекс.
+     *
+     * @param user пользователь
+     */
+    public void add(User user) {
+        BloomFilter currentEmails = emails;
+        BloomFilter currentPhones = phones;
+        if (currentEmails != null && user.getEmail() != null) {
+            currentEmails.put(user.getEmail());
+        }
+        if (currentPhones != null && user.getPhone() != null) {
+            currentPhones.put(user.getPhone());
+        }
+    }
+
+    /**
+     * Выполняет проверку, мог ли почтовый адрес быть зарегистрирован.
+     *
+     * @param email почтовый адрес
+     * @return false, если почтовый адрес точно свободен, иначе true
+     */
+    public boolean mightContainEmail(String email) {
+        BloomFilter current = emails;
+        return current == null || current.mightContain(email);
+    }
+
+    /**
+     * Выполняет проверку, мог ли номер телефона быть зарегистрирован.
+     *
+     * @param phone номер телефона
+     * @return false, если номер телефона точно свободен, иначе true
+     */
+    public boolean mightContainPhone(String phone) {
+        BloomFilter current = phones;
+        return current == null || current.mightContain(phone);
+    }
+}
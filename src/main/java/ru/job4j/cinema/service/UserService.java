@@ -74,6 +74,38 @@ public interface UserService {
      */
     User validateUserLogin(User user);
 
+    /**
+     * Выполняет проверку занятости почтового адреса.
+     *
+     * @param email почтовый адрес
+     * @return true, если почтовый адрес зарегистрирован, иначе false
+     */
+    boolean isEmailTaken(String email);
+
+    /**
+     * Выполняет проверку занятости номера телефона.
+     *
+     * @param phone номер телефона
+     * @return true, если номер телефона зарегистрирован, иначе false
+     */
+    boolean isPhoneTaken(String phone);
+
+    /**
+     * Выполняет проверку пароля пользователя по хешу, сохраненному в базе данных.
+     *
+     * @param userFromDB  пользователь из базы данных
+     * @param rawPassword пароль в открытом виде
+     * @return true, если пароль совпадает, иначе false
+     */
+    boolean matchesPassword(User userFromDB, String rawPassword);
+
+    /**
+     * Выполняет перевод всех паролей, хранящихся в открытом виде, в хеши.
+     *
+     * @return количество обновленных пользователей
+     */
+    int migratePlainPasswords();
+
     /**
      * Выполняет поиск пользователя по номеру телефона. При успешном нахождении возвращает
      * пользователя, иначе выбрасывает исключение.
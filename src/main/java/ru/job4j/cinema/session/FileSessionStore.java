@@ -0,0 +1,190 @@
+package ru.job4j.cinema.session;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Реализация хранилища сессий в каталоге файловой системы. Каждая сессия
+ * хранится в отдельном файле, запись выполняется через временный файл
+ * с атомарным переименованием. Каталог может располагаться на общем
+ * сетевом ресурсе, доступном всем узлам приложения. Файл, который
+ * не удается декодировать (поврежденный или записанный несовместимой
+ * версией приложения), удаляется при загрузке и при удалении истекших
+ * сессий, как сессия с истекшим сроком действия.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.session.SessionStore
+ */
+@Slf4j
+public class FileSessionStore implements SessionStore {
+
+    /**
+     * Расширение файлов сессий
+     */
+    private static final String SUFFIX = ".session";
+
+    /**
+     * Шаблон допустимого идентификатора сессии
+     */
+    private static final Pattern ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{16,64}");
+
+    /**
+     * Каталог хранения сессий
+     */
+    private final Path directory;
+
+    /**
+     * Конструктор класса. Создает каталог хранения сессий, если он отсутствует.
+     *
+     * @param directory каталог хранения сессий
+     * @throws IllegalStateException если каталог не удалось создать
+     */
+    public FileSessionStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Выполняет загрузку сессии по идентификатору. Если сессия отсутствует,
+     * срок ее действия истек или файл сессии не удается декодировать,
+     * возвращает Optional.empty(), файл истекшей или поврежденной сессии
+     * удаляется.
+     *
+     * @param id идентификатор сессии
+     * @return Optional.of(session) при успешном нахождении, иначе Optional.empty()
+     */
+    @Override
+    public Optional<SessionData> load(String id) {
+        if (!ID_PATTERN.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        try {
+            SessionData session = SessionCodec.decodeSession(Files.readAllBytes(fileOf(id)));
+            if (session.isExpired(System.currentTimeMillis())) {
+                delete(id);
+                return Optional.empty();
+            }
+            return Optional.of(session);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IllegalStateException e) {
+            log.info("Исключение в методе load() класса FileSessionStore ", e);
+            delete(id);
+        } catch (Exception e) {
+            log.info("Исключение в методе load() класса FileSessionStore ", e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Выполняет сохранение сессии в файл.
+     *
+     * @param session сохраняемая сессия
+     */
+    @Override
+    public void save(SessionData session) {
+        try {
+            Path temp = Files.createTempFile(directory, session.getId(), ".tmp");
+            Files.write(temp, SessionCodec.encodeSession(session));
+            try {
+                Files.move(temp, fileOf(session.getId()),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, fileOf(session.getId()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.info("Исключение в методе save() класса FileSessionStore ", e);
+        }
+    }
+
+    /**
+     * Выполняет удаление файла сессии.
+     *
+     * @param id идентификатор сессии
+     */
+    @Override
+    public void delete(String id) {
+        if (!ID_PATTERN.matcher(id).matches()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(fileOf(id));
+        } catch (IOException e) {
+            log.info("Исключение в методе delete() класса FileSessionStore ", e);
+        }
+    }
+
+    /**
+     * Выполняет удаление файлов сессий, срок действия которых истек,
+     * и файлов, которые не удается декодировать. Ошибка чтения одного
+     * файла не прерывает обработку остальных.
+     *
+     * @param now текущее время в миллисекундах
+     * @return количество удаленных сессий
+     */
+    @Override
+    public int deleteExpired(long now) {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    if (SessionCodec.decodeSession(Files.readAllBytes(file)).isExpired(now)) {
+                        Files.deleteIfExists(file);
+                        count++;
+                    }
+                } catch (NoSuchFileException e) {
+                    log.debug("Файл сессии {} уже удален", file);
+                } catch (IllegalStateException e) {
+                    log.info("Исключение в методе deleteExpired() класса FileSessionStore ", e);
+                    if (deleteFile(file)) {
+                        count++;
+                    }
+                } catch (IOException e) {
+                    log.info("Исключение в методе deleteExpired() класса FileSessionStore ", e);
+                }
+            }
+        } catch (Exception e) {
+            log.info("Исключение в методе deleteExpired() класса FileSessionStore ", e);
+        }
+        return count;
+    }
+
+    /**
+     * Вспомогательный метод удаляет файл сессии.
+     *
+     * @param file файл сессии
+     * @return true, если файл удален
+     */
+    private static boolean deleteFile(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.info("Исключение в методе deleteFile() класса FileSessionStore ", e);
+        }
+        return false;
+    }
+
+    /**
+     * Вспомогательный метод возвращает путь к файлу сессии.
+     *
+     * @param id идентификатор сессии
+     * @return путь к файлу сессии
+     */
+    private Path fileOf(String id) {
+        return directory.resolve(id + SUFFIX);
+    }
+}
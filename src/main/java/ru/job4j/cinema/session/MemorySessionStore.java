@@ -0,0 +1,76 @@
+package ru.job4j.cinema.session;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реализация хранилища сессий в памяти процесса. Используется при запуске
+ * одного экземпляра приложения. Сессии хранятся в том же компактном
+ * формате, что и во внешних хранилищах.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.session.SessionStore
+ */
+public class MemorySessionStore implements SessionStore {
+
+    /**
+     * Закодированные сессии по идентификатору
+     */
+    private final Map<String, byte[]> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Выполняет загрузку сессии по идентификатору. Если сессия отсутствует
+     * или срок ее действия истек, возвращает Optional.empty().
+     *
+     * @param id идентификатор сессии
+     * @return Optional.of(session) при успешном нахождении, иначе Optional.empty()
+     */
+    @Override
+    public Optional<SessionData> load(String id) {
+        byte[] data = sessions.get(id);
+        if (data == null) {
+            return Optional.empty();
+        }
+        SessionData session = SessionCodec.decodeSession(data);
+        if (session.isExpired(System.currentTimeMillis())) {
+            sessions.remove(id);
+            return Optional.empty();
+        }
+        return Optional.of(session);
+    }
+
+    /**
+     * Выполняет сохранение сессии.
+     *
+     * @param session сохраняемая сессия
+     */
+    @Override
+    public void save(SessionData session) {
+        sessions.put(session.getId(), SessionCodec.encodeSession(session));
+    }
+
+    /**
+     * Выполняет удаление сессии по идентификатору.
+     *
+     * @param id идентификатор сессии
+     */
+    @Override
+    public void delete(String id) {
+        sessions.remove(id);
+    }
+
+    /**
+     * Выполняет удаление всех сессий, срок действия которых истек.
+     *
+     * @param now текущее время в миллисекундах
+     * @return количество удаленных сессий
+     */
+    @Override
+    public int deleteExpired(long now) {
+        int before = sessions.size();
+        sessions.values().removeIf(data -> SessionCodec.decodeSession(data).isExpired(now));
+        return before - sessions.size();
+    }
+}
@@ -0,0 +1,237 @@
+package ru.job4j.cinema.session;
+
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Компактный двоичный формат сессии. Поддерживает только типы атрибутов,
+ * которые приложение помещает в сессию. Пароль пользователя в сессию
+ * не записывается, у сеанса сохраняются только поля, нужные страницам покупки.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.session.SessionData
+ */
+public final class SessionCodec {
+
+    /**
+     * Версия формата сессии
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Признак значения null
+     */
+    private static final byte NULL = 0;
+
+    /**
+     * Признак значения типа Integer
+     */
+    private static final byte INTEGER = 1;
+
+    /**
+     * Признак значения типа Long
+     */
+    private static final byte LONG = 2;
+
+    /**
+     * Признак значения типа String
+     */
+    private static final byte STRING = 3;
+
+    /**
+     * Признак значения типа Boolean
+     */
+    private static final byte BOOLEAN = 4;
+
+    /**
+     * Признак значения типа User
+     */
+    private static final byte USER = 5;
+
+    /**
+     * Признак значения типа Show
+     */
+    private static final byte SHOW = 6;
+
+    /**
+     * Приватный конструктор класса для исключения наследования.
+     *
+     * @throws AssertionError выбрасывается при попытке вызвать конструктор
+     */
+    private SessionCodec() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Выполняет кодирование сессии в массив байт.
+     *
+     * @param session сессия
+     * @return закодированная сессия
+     */
+    public static byte[] encodeSession(SessionData session) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(session.getId());
+            out.writeLong(session.getCreationTime());
+            out.writeLong(session.getLastAccessedTime());
+            out.writeInt(session.getMaxInactiveInterval());
+            out.writeInt(session.getAttributes().size());
+            for (Map.Entry<String, byte[]> entry : session.getAttributes().entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Выполняет декодирование сессии из массива байт. Значения атрибутов
+     * остаются закодированными до первого обращения.
+     *
+     * @param data закодированная сессия
+     * @return сессия
+     * @throws IllegalStateException если формат сессии не поддерживается
+     */
+    public static SessionData decodeSession(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalStateException("Формат сессии не поддерживается");
+            }
+            SessionData session = new SessionData();
+            session.setId(in.readUTF());
+            session.setCreationTime(in.readLong());
+            session.setLastAccessedTime(in.readLong());
+            session.setMaxInactiveInterval(in.readInt());
+            int size = in.readInt();
+            Map<String, byte[]> attributes = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                String name = in.readUTF();
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                attributes.put(name, value);
+            }
+            session.setAttributes(attributes);
+            return session;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Выполняет кодирование значения атрибута сессии.
+     *
+     * @param value значение атрибута
+     * @return закодированное значение
+     * @throws IllegalArgumentException если тип значения не поддерживается
+     */
+    public static byte[] encodeValue(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Integer number) {
+                out.writeByte(INTEGER);
+                out.writeInt(number);
+            } else if (value instanceof Long number) {
+                out.writeByte(LONG);
+                out.writeLong(number);
+            } else if (value instanceof String string) {
+                out.writeByte(STRING);
+                out.writeUTF(string);
+            } else if (value instanceof Boolean flag) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(flag);
+            } else if (value instanceof User user) {
+                out.writeByte(USER);
+                out.writeInt(user.getId());
+                writeNullable(out, user.getUsername());
+                writeNullable(out, user.getEmail());
+                writeNullable(out, user.getPhone());
+            } else if (value instanceof Show show) {
+                out.writeByte(SHOW);
+                out.writeInt(show.getId());
+                writeNullable(out, show.getName());
+                writeNullable(out, show.getPosterName());
+            } else {
+                throw new IllegalArgumentException(String.format(
+                        "Тип атрибута сессии %s не поддерживается", value.getClass().getName()));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Выполняет декодирование значения атрибута сессии.
+     *
+     * @param data закодированное значение
+     * @return значение атрибута
+     * @throws IllegalStateException если формат значения не поддерживается
+     */
+    public static Object decodeValue(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte type = in.readByte();
+            return switch (type) {
+                case NULL -> null;
+                case INTEGER -> in.readInt();
+                case LONG -> in.readLong();
+                case STRING -> in.readUTF();
+                case BOOLEAN -> in.readBoolean();
+                case USER -> User.builder()
+                        .id(in.readInt())
+                        .username(readNullable(in))
+                        .email(readNullable(in))
+                        .phone(readNullable(in))
+                        .build();
+                case SHOW -> Show.builder()
+                        .id(in.readInt())
+                        .name(readNullable(in))
+                        .posterName(readNullable(in))
+                        .build();
+                default -> throw new IllegalStateException(
+                        String.format("Тип атрибута сессии %d не поддерживается", type));
+            };
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Вспомогательный метод записывает строку, которая может быть null.
+     *
+     * @param out   поток записи
+     * @param value строка
+     * @throws IOException если происходит ошибка записи
+     */
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Вспомогательный метод читает строку, которая может быть null.
+     *
+     * @param in поток чтения
+     * @return строка или null
+     * @throws IOException если происходит ошибка чтения
+     */
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.job4j.cinema.session;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сериализуемое состояние пользовательской сессии. Значения атрибутов
+ * хранятся в закодированном виде и декодируются только при обращении к ним.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.session.SessionCodec
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class SessionData {
+
+    /**
+     * Идентификатор сессии
+     */
+    private String id;
+
+    /**
+     * Время создания сессии в миллисекундах
+     */
+    private long creationTime;
+
+    /**
+     * Время последнего обращения к сессии в миллисекундах
+     */
+    private long lastAccessedTime;
+
+    /**
+     * Максимальный интервал бездействия в секундах
+     */
+    private int maxInactiveInterval;
+
+    /**
+     * Закодированные значения атрибутов сессии
+     */
+    private Map<String, byte[]> attributes = new HashMap<>();
+
+    /**
+     * Выполняет проверку истечения срока действия сессии.
+     *
+     * @param now текущее время в миллисекундах
+     * @return true, если срок действия сессии истек, иначе false
+     */
+    public boolean isExpired(long now) {
+        return maxInactiveInterval > 0
+                && now - lastAccessedTime > maxInactiveInterval * 1000L;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.job4j.cinema.session;
+
+import java.util.Optional;
+
+/**
+ * Внешнее хранилище пользовательских сессий. Позволяет запускать
+ * несколько экземпляров приложения за балансировщиком нагрузки
+ * без привязки пользователя к конкретному узлу.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.session.SessionData
+ */
+public interface SessionStore {
+
+    /**
+     * Выполняет загрузку сессии по идентификатору. Если сессия отсутствует
+     * или срок ее действия истек, возвращает Optional.empty().
+     *
+     * @param id идентификатор сессии
+     * @return Optional.of(session) при успешном нахождении, иначе Optional.empty()
+     */
+    Optional<SessionData> load(String id);
+
+    /**
+     * Выполняет сохранение сессии. Если сессия с таким идентификатором
+     * уже существует, она будет перезаписана.
+     *
+     * @param session сохраняемая сессия
+     */
+    void save(SessionData session);
+
+    /**
+     * Выполняет удаление сессии по идентификатору.
+     *
+     * @param id идентификатор сессии
+     */
+    void delete(String id);
+
+    /**
+     * Выполняет удаление всех сессий, срок действия которых истек.
+     *
+     * @param now текущее время в миллисекундах
+     * @return количество удаленных сессий
+     */
+    int deleteExpired(long now);
+}
@@ -0,0 +1,254 @@
+package ru.job4j.cinema.session;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionContext;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Реализация HttpSession поверх внешнего хранилища сессий. Значения
+ * атрибутов декодируются при первом обращении к ним, изменения
+ * записываются в хранилище по завершении обработки запроса.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.session.SessionStore
+ */
+public class StoredSession implements HttpSession {
+
+    /**
+     * Данные сессии
+     */
+    private final SessionData data;
+
+    /**
+     * Контекст сервлета
+     */
+    private final ServletContext servletContext;
+
+    /**
+     * Декодированные значения атрибутов
+     */
+    private final Map<String, Object> decoded = new HashMap<>();
+
+    /**
+     * Признак новой сессии
+     */
+    private final boolean fresh;
+
+    /**
+     * Признак изменения сессии в рамках запроса
+     */
+    private boolean dirty;
+
+    /**
+     * Признак завершения сессии
+     */
+    private boolean invalidated;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param data           данные сессии
+     * @param servletContext контекст сервлета
+     * @param fresh          true, если сессия создана в текущем запросе
+     */
+    public StoredSession(SessionData data, ServletContext servletContext, boolean fresh) {
+        this.data = data;
+        this.servletContext = servletContext;
+        this.fresh = fresh;
+        this.dirty = fresh;
+    }
+
+    /**
+     * Возвращает данные сессии для записи в хранилище.
+     *
+     * @return данные сессии
+     */
+    public SessionData getData() {
+        return data;
+    }
+
+    /**
+     * Возвращает признак изменения сессии в рамках запроса.
+     *
+     * @return true, если сессию необходимо записать в хранилище
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Помечает сессию как измененную, например после смены идентификатора.
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Помечает сессию как записанную в хранилище.
+     */
+    public void markSaved() {
+        dirty = false;
+    }
+
+    /**
+     * Возвращает признак завершения сессии.
+     *
+     * @return true, если сессия завершена
+     */
+    public boolean isInvalidated() {
+        return invalidated;
+    }
+
+    @Override
+    public long getCreationTime() {
+        checkValid();
+        return data.getCreationTime();
+    }
+
+    @Override
+    public String getId() {
+        return data.getId();
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        checkValid();
+        return data.getLastAccessedTime();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        data.setMaxInactiveInterval(interval);
+        dirty = true;
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return data.getMaxInactiveInterval();
+    }
+
+    /**
+     * Устаревший метод спецификации сервлетов, не поддерживается.
+     *
+     * @return null
+     */
+    @Override
+    @Deprecated
+    public HttpSessionContext getSessionContext() {
+        return null;
+    }
+
+    /**
+     * Возвращает значение атрибута сессии. Значение декодируется
+     * при первом обращении и далее берется из локального кэша.
+     *
+     * @param name имя атрибута
+     * @return значение атрибута или null
+     */
+    @Override
+    public Object getAttribute(String name) {
+        checkValid();
+        if (decoded.containsKey(name)) {
+            return decoded.get(name);
+        }
+        byte[] raw = data.getAttributes().get(name);
+        if (raw == null) {
+            return null;
+        }
+        Object value = SessionCodec.decodeValue(raw);
+        decoded.put(name, value);
+        return value;
+    }
+
+    @Override
+    @Deprecated
+    public Object getValue(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        checkValid();
+        return Collections.enumeration(data.getAttributes().keySet());
+    }
+
+    @Override
+    @Deprecated
+    public String[] getValueNames() {
+        checkValid();
+        return data.getAttributes().keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Выполняет запись атрибута сессии. Значение кодируется сразу,
+     * поэтому неподдерживаемый тип обнаруживается в месте записи.
+     *
+     * @param name  имя атрибута
+     * @param value значение атрибута
+     */
+    @Override
+    public void setAttribute(String name, Object value) {
+        checkValid();
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        data.getAttributes().put(name, SessionCodec.encodeValue(value));
+        decoded.put(name, value);
+        dirty = true;
+    }
+
+    @Override
+    @Deprecated
+    public void putValue(String name, Object value) {
+        setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        checkValid();
+        decoded.remove(name);
+        if (data.getAttributes().remove(name) != null) {
+            dirty = true;
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void removeValue(String name) {
+        removeAttribute(name);
+    }
+
+    @Override
+    public void invalidate() {
+        checkValid();
+        invalidated = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        checkValid();
+        return fresh;
+    }
+
+    /**
+     * Вспомогательный метод проверяет, что сессия не завершена.
+     *
+     * @throws IllegalStateException если сессия завершена
+     */
+    private void checkValid() {
+        if (invalidated) {
+            throw new IllegalStateException("Сессия завершена");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.job4j.cinema.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума для строк. Отвечает на вопрос, мог ли элемент быть
+ * добавлен в фильтр: отрицательный ответ всегда точен, положительный
+ * ответ ошибочен с вероятностью, заданной при создании фильтра.
+ * Добавление и проверка элементов выполняются без блокировок.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+public class BloomFilter {
+
+    /**
+     * Битовый массив фильтра
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * Количество бит фильтра
+     */
+    private final long bitCount;
+
+    /**
+     * Количество хеш функций
+     */
+    private final int hashCount;
+
+    /**
+     * Конструктор класса. Размер битового массива и количество хеш функций
+     * рассчитываются по ожидаемому количеству элементов и допустимой
+     * вероятности ложноположительного ответа.
+     *
+     * @param expectedInsertions ожидаемое количество элементов
+     * @param falsePositiveRate  допустимая вероятность ложноположительного ответа
+     * @throws IllegalArgumentException если параметры фильтра некорректны
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Некорректные параметры фильтра Блума");
+        }
+        double ln2 = Math.log(2);
+        long words = (long) Math.ceil(
+                -expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2) / Long.SIZE);
+        this.bits = new AtomicLongArray((int) Math.max(1, Math.min(words, Integer.MAX_VALUE)));
+        this.bitCount = (long) bits.length() * Long.SIZE;
+        this.hashCount = (int) Math.max(1,
+                Math.round((double) bitCount / expectedInsertions * ln2));
+    }
+
+    /**
+     * Выполняет добавление элемента в фильтр.
+     *
+     * @param value элемент
+     */
+    public void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0
+                    && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * Выполняет проверку, мог ли элемент быть добавлен в фильтр.
+     *
+     * @param value элемент
+     * @return false, если элемент точно не добавлялся, true, если элемент
+     * возможно был добавлен
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает количество бит фильтра.
+     *
+     * @return количество бит
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Возвращает количество хеш функций.
+     *
+     * @return количество хеш функций
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Вспомогательный метод вычисляет 64-битный хеш строки
+     * (FNV-1a с последующим перемешиванием бит).
+     *
+     * @param value строка
+     * @return хеш строки
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
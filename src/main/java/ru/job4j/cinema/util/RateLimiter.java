@@ -0,0 +1,169 @@
+package ru.job4j.cinema.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель частоты запросов по ключу (адресу клиента, пользователю)
+ * на основе маркерной корзины. Корзина вмещает limit маркеров и полностью
+ * наполняется за period секунд. Состояние корзины хранится одним
+ * числом - теоретическим временем опустошения корзины (алгоритм GCRA,
+ * эквивалентный маркерной корзине), и изменяется операцией compareAndSet
+ * без блокировок. Корзина, наполнившаяся полностью, не отличается от новой
+ * и удаляется при очистке. Количество корзин ограничено: если при заполнении
+ * очистка не освободила место, запрос нового ключа разрешается без корзины.
+ * Общая корзина для новых ключей позволила бы клиенту, заполнившему
+ * ограничение количества корзин, ограничить запросы всех новых клиентов.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+public class RateLimiter {
+
+    /**
+     * Минимальный интервал между очистками при заполненном ограничении
+     * количества корзин в наносекундах
+     */
+    private static final long EVICT_INTERVAL = 1_000_000_000L;
+
+    /**
+     * Интервал пополнения корзины на один маркер в наносекундах
+     */
+    private final long interval;
+
+    /**
+     * Время полного наполнения корзины в наносекундах
+     */
+    private final long capacity;
+
+    /**
+     * Максимальное количество корзин
+     */
+    private final int maxKeys;
+
+    /**
+     * Корзины по ключу
+     */
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Время последней очистки при заполненном ограничении количества корзин
+     */
+    private final AtomicLong evictedAt = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Конструктор класса.
+     *
+     * @param limit         количество запросов за период
+     * @param periodSeconds период в секундах
+     * @param maxKeys       максимальное количество корзин
+     * @throws IllegalArgumentException если параметры не положительны
+     */
+    public RateLimiter(int limit, long periodSeconds, int maxKeys) {
+        if (limit < 1 || periodSeconds < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException(
+                    "Параметры ограничителя частоты запросов должны быть положительными");
+        }
+        this.capacity = periodSeconds * 1_000_000_000L;
+        this.interval = capacity / limit;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Выполняет попытку взять маркер из корзины ключа.
+     *
+     * @param key ключ
+     * @return 0, если маркер взят и запрос разрешен, иначе время
+     * в наносекундах до появления маркера
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    /**
+     * Выполняет попытку взять маркер из корзины ключа на момент времени now.
+     *
+     * @param key ключ
+     * @param now время в наносекундах
+     * @return 0, если маркер взят или для ключа нет места в ограничении
+     * количества корзин и запрос разрешен, иначе время в наносекундах
+     * до появления маркера
+     */
+    public long tryAcquire(String key, long now) {
+        AtomicLong bucket = bucket(key, now);
+        if (bucket == null) {
+            return 0;
+        }
+        while (true) {
+            long current = bucket.get();
+            long start = isIdle(current, now) ? now : current;
+            long next = start + interval;
+            long wait = next - now - capacity;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Выполняет удаление полностью наполнившихся корзин.
+     *
+     * @return количество оставшихся корзин
+     */
+    public int evictIdle() {
+        return evictIdle(System.nanoTime());
+    }
+
+    /**
+     * Выполняет удаление корзин, полностью наполнившихся к моменту now.
+     *
+     * @param now время в наносекундах
+     * @return количество оставшихся корзин
+     */
+    public int evictIdle(long now) {
+        buckets.values().removeIf(bucket -> isIdle(bucket.get(), now));
+        return buckets.size();
+    }
+
+    /**
+     * Вспомогательный метод возвращает корзину ключа, создавая ее при
+     * отсутствии. При достижении ограничения количества корзин выполняется
+     * очистка, но не чаще EVICT_INTERVAL, чтобы поток новых ключей не
+     * вызывал просмотр всех корзин на каждый запрос. Если место
+     * не освободилось, корзина не создается.
+     *
+     * @param key ключ
+     * @param now время в наносекундах
+     * @return корзина или null, если места для корзины нет
+     */
+    private AtomicLong bucket(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            long last = evictedAt.get();
+            boolean evict = (last == Long.MIN_VALUE || now - last >= EVICT_INTERVAL)
+                    && evictedAt.compareAndSet(last, now);
+            if (!evict || evictIdle(now) >= maxKeys) {
+                return null;
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    /**
+     * Вспомогательный метод проверяет, наполнилась ли корзина полностью.
+     *
+     * @param state теоретическое время опустошения корзины
+     * @param now   время в наносекундах
+     * @return true, если корзина полна
+     */
+    private static boolean isIdle(long state, long now) {
+        return state == Long.MIN_VALUE || state - now <= 0;
+    }
+}
@@ -0,0 +1,230 @@
+package ru.job4j.cinema.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Утилитный класс для выделения основы русских слов по алгоритму
+ * Snowball (Porter) для русского языка. Основа используется как термин
+ * поискового индекса, поэтому разные формы слова (разбойник, разбойники,
+ * разбойников) находятся по одному термину.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+public final class RussianStemmer {
+
+    /**
+     * Гласные буквы
+     */
+    private static final String VOWELS = "аеиоуыэюя";
+
+    /**
+     * Окончания совершенного деепричастия
+     */
+    private static final List<Ending> PERFECTIVE_GERUND = endings(
+            new String[]{"в", "вши", "вшись"},
+            new String[]{"ив", "ивши", "ившись", "ыв", "ывши", "ывшись"});
+
+    /**
+     * Окончания прилагательного
+     */
+    private static final List<Ending> ADJECTIVE = endings(new String[0], new String[]{
+            "ее", "ие", "ые", "ое", "ими", "ыми", "ей", "ий", "ый", "ой", "ем", "им", "ым",
+            "ом", "его", "ого", "ему", "ому", "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"});
+
+    /**
+     * Окончания причастия
+     */
+    private static final List<Ending> PARTICIPLE = endings(
+            new String[]{"ем", "нн", "вш", "ющ", "щ"},
+            new String[]{"ивш", "ывш", "ующ"});
+
+    /**
+     * Возвратные окончания
+     */
+    private static final List<Ending> REFLEXIVE = endings(new String[0], new String[]{"ся", "сь"});
+
+    /**
+     * Окончания глагола
+     */
+    private static final List<Ending> VERB = endings(
+            new String[]{"ла", "на", "ете", "йте", "ли", "й", "л", "ем", "н", "ло", "но", "ет",
+                    "ют", "ны", "ть", "ешь", "нно"},
+            new String[]{"ила", "ыла", "ена", "ейте", "уйте", "ите", "или", "ыли", "ей", "уй",
+                    "ил", "ыл", "им", "ым", "ен", "ило", "ыло", "ено", "ят", "ует", "уют", "ит",
+                    "ыт", "ены", "ить", "ыть", "ишь", "ую", "ю"});
+
+    /**
+     * Окончания существительного
+     */
+    private static final List<Ending> NOUN = endings(new String[0], new String[]{
+            "а", "ев", "ов", "ие", "ье", "е", "иями", "ями", "ами", "еи", "ии", "и", "ией", "ей",
+            "ой", "ий", "й", "иям", "ям", "ием", "ем", "ам", "ом", "о", "у", "ах", "иях", "ях",
+            "ы", "ь", "ию", "ью", "ю", "ия", "ья", "я"});
+
+    /**
+     * Окончания превосходной степени
+     */
+    private static final List<Ending> SUPERLATIVE = endings(new String[0],
+            new String[]{"ейш", "ейше"});
+
+    /**
+     * Словообразовательные окончания
+     */
+    private static final List<Ending> DERIVATIONAL = endings(new String[0],
+            new String[]{"ост", "ость"});
+
+    /**
+     * Приватный конструктор класса для исключения наследования.
+     *
+     * @throws AssertionError выбрасывается при попытке вызвать конструктор
+     */
+    private RussianStemmer() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Возвращает основу слова. Слово приводится к нижнему регистру,
+     * буква ё заменяется на е.
+     *
+     * @param word слово
+     * @return основа слова
+     */
+    public static String stem(String word) {
+        String lower = word.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int rv = regionAfterVowel(lower, 0);
+        if (rv >= lower.length()) {
+            return lower;
+        }
+        int r2 = Math.max(rv, regionAfterConsonant(lower,
+                regionAfterConsonant(lower, 0)));
+        StringBuilder sb = new StringBuilder(lower);
+        if (!remove(sb, rv, PERFECTIVE_GERUND)) {
+            remove(sb, rv, REFLEXIVE);
+            if (remove(sb, rv, ADJECTIVE)) {
+                remove(sb, rv, PARTICIPLE);
+            } else if (!remove(sb, rv, VERB)) {
+                remove(sb, rv, NOUN);
+            }
+        }
+        if (endsWith(sb, rv, "и")) {
+            sb.setLength(sb.length() - 1);
+        }
+        remove(sb, r2, DERIVATIONAL);
+        if (remove(sb, rv, SUPERLATIVE)) {
+            if (endsWith(sb, rv, "нн")) {
+                sb.setLength(sb.length() - 1);
+            }
+        } else if (endsWith(sb, rv, "нн")) {
+            sb.setLength(sb.length() - 1);
+        } else if (endsWith(sb, rv, "ь")) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Вспомогательный метод удаляет самое длинное из окончаний, которое
+     * находится в области слова и удовлетворяет условию окончания.
+     *
+     * @param sb      слово
+     * @param region  начало области слова, в которой допускается удаление
+     * @param endings окончания в порядке убывания длины
+     * @return true, если окончание удалено
+     */
+    private static boolean remove(StringBuilder sb, int region, List<Ending> endings) {
+        for (Ending ending : endings) {
+            if (!endsWith(sb, region, ending.suffix())) {
+                continue;
+            }
+            int start = sb.length() - ending.suffix().length();
+            if (ending.afterAOrYa()
+                    && (start - 1 < region || "ая".indexOf(sb.charAt(start - 1)) < 0)) {
+                continue;
+            }
+            sb.setLength(start);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Вспомогательный метод проверяет, что слово оканчивается на
+     * окончание, расположенное в области слова.
+     *
+     * @param sb     слово
+     * @param region начало области слова
+     * @param suffix окончание
+     * @return true, если слово оканчивается на окончание в области
+     */
+    private static boolean endsWith(StringBuilder sb, int region, String suffix) {
+        int start = sb.length() - suffix.length();
+        return start >= region && sb.indexOf(suffix, start) == start;
+    }
+
+    /**
+     * Вспомогательный метод возвращает начало области после первой гласной,
+     * начиная с заданной позиции (область RV).
+     *
+     * @param word  слово
+     * @param start позиция начала поиска
+     * @return начало области, длина слова, если гласная не найдена
+     */
+    private static int regionAfterVowel(String word, int start) {
+        for (int i = start; i < word.length(); i++) {
+            if (VOWELS.indexOf(word.charAt(i)) >= 0) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    /**
+     * Вспомогательный метод возвращает начало области после первой согласной,
+     * следующей за гласной, начиная с заданной позиции (области R1 и R2).
+     *
+     * @param word  слово
+     * @param start позиция начала поиска
+     * @return начало области, длина слова, если область пустая
+     */
+    private static int regionAfterConsonant(String word, int start) {
+        for (int i = Math.max(1, start + 1); i < word.length(); i++) {
+            if (VOWELS.indexOf(word.charAt(i)) < 0 && VOWELS.indexOf(word.charAt(i - 1)) >= 0) {
+                return i + 1;
+            }
+        }
+        return word.length();
+    }
+
+    /**
+     * Вспомогательный метод создает список окончаний в порядке убывания длины.
+     *
+     * @param afterAOrYa окончания, допустимые только после а или я
+     * @param other      окончания без дополнительного условия
+     * @return список окончаний
+     */
+    private static List<Ending> endings(String[] afterAOrYa, String[] other) {
+        List<Ending> result = new ArrayList<>();
+        for (String suffix : afterAOrYa) {
+            result.add(new Ending(suffix, true));
+        }
+        for (String suffix : other) {
+            result.add(new Ending(suffix, false));
+        }
+        result.sort(Comparator.comparingInt((Ending ending) -> ending.suffix().length())
+                .reversed());
+        return List.copyOf(result);
+    }
+
+    /**
+     * Окончание слова.
+     *
+     * @param suffix     окончание
+     * @param afterAOrYa true, если окончание удаляется только после а или я
+     */
+    private record Ending(String suffix, boolean afterAOrYa) {
+    }
+}
@@ -0,0 +1,271 @@
+package ru.job4j.cinema.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Утилитный класс для потокового чтения каталога сеансов. Каталог
+ * читается по одной записи, записи передаются обработчику по мере чтения,
+ * поэтому размер каталога не ограничен доступной памятью.
+ * Поддерживаются форматы:
+ * <ul>
+ *     <li>CSV с разделителем ";" и строкой заголовка с колонками name,
+ *     description, poster. Значения могут быть заключены в двойные кавычки,
+ *     в этом случае они могут содержать разделитель и перевод строки;</li>
+ *     <li>JSON массив объектов с полями name, description, poster.</li>
+ * </ul>
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+public final class ShowCatalogueReader {
+
+    /**
+     * Разделитель значений CSV
+     */
+    private static final char DELIMITER = ';';
+
+    /**
+     * Символ кавычек CSV
+     */
+    private static final char QUOTE = '"';
+
+    /**
+     * Фабрика потоковых JSON парсеров
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Приватный конструктор класса для исключения наследования.
+     *
+     * @throws AssertionError выбрасывается при попытке вызвать конструктор
+     */
+    private ShowCatalogueReader() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Выполняет чтение каталога, формат определяется по расширению файла.
+     *
+     * @param fileName имя файла каталога
+     * @param in       содержимое каталога
+     * @param consumer обработчик записей каталога
+     * @throws IOException              если происходит ошибка чтения
+     * @throws IllegalArgumentException если формат файла не поддерживается
+     *                                  или каталог содержит синтаксическую ошибку
+     */
+    public static void read(String fileName, InputStream in, Consumer<Row> consumer)
+            throws IOException {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            readCsv(new InputStreamReader(in, StandardCharsets.UTF_8), consumer);
+        } else if (name.endsWith(".json")) {
+            readJson(in, consumer);
+        } else {
+            throw new IllegalArgumentException(
+                    "Каталог должен быть в формате CSV или JSON");
+        }
+    }
+
+    /**
+     * Выполняет чтение каталога в формате CSV.
+     *
+     * @param reader   содержимое каталога
+     * @param consumer обработчик записей каталога
+     * @throws IOException              если происходит ошибка чтения
+     * @throws IllegalArgumentException если отсутствует колонка name или
+     *                                  значение в кавычках не закрыто
+     */
+    public static void readCsv(Reader reader, Consumer<Row> consumer) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        int[] lineNumber = {0};
+        List<String> header = readRecord(in, lineNumber);
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).replace("\uFEFF", "").strip();
+            columns.put(column.toLowerCase(Locale.ROOT), i);
+        }
+        Integer nameColumn = columns.get("name");
+        if (nameColumn == null) {
+            throw new IllegalArgumentException("В заголовке CSV отсутствует колонка name");
+        }
+        Integer descriptionColumn = columns.get("description");
+        Integer posterColumn = columns.get("poster");
+        while (true) {
+            int line = lineNumber[0] + 1;
+            List<String> values = readRecord(in, lineNumber);
+            if (values == null) {
+                break;
+            }
+            if (values.size() == 1 && values.get(0).isBlank()) {
+                continue;
+            }
+            consumer.accept(new Row(line, value(values, nameColumn),
+                    value(values, descriptionColumn), value(values, posterColumn)));
+        }
+    }
+
+    /**
+     * Выполняет чтение каталога в формате JSON. Неизвестные поля
+     * объектов пропускаются.
+     *
+     * @param in       содержимое каталога
+     * @param consumer обработчик записей каталога
+     * @throws IOException              если происходит ошибка чтения
+     * @throws IllegalArgumentException если каталог не является массивом
+     *                                  объектов или содержит синтаксическую ошибку
+     */
+    public static void readJson(InputStream in, Consumer<Row> consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Каталог JSON должен быть массивом");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException(String.format(
+                            "Строка %d: ожидается объект сеанса",
+                            parser.getTokenLocation().getLineNr()));
+                }
+                consumer.accept(readJsonRow(parser));
+            }
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Строка %d: некорректный JSON", e.getLocation().getLineNr()), e);
+        }
+    }
+
+    /**
+     * Вспомогательный метод читает объект сеанса, парсер установлен
+     * на начало объекта.
+     *
+     * @param parser JSON парсер
+     * @return запись каталога
+     * @throws IOException если происходит ошибка чтения
+     */
+    private static Row readJsonRow(JsonParser parser) throws IOException {
+        int line = parser.getTokenLocation().getLineNr();
+        String name = null;
+        String description = null;
+        String poster = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+                continue;
+            }
+            String text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+            if ("name".equals(field)) {
+                name = text;
+            } else if ("description".equals(field)) {
+                description = text;
+            } else if ("poster".equals(field)) {
+                poster = text;
+            }
+        }
+        return new Row(line, name, description, poster);
+    }
+
+    /**
+     * Вспомогательный метод читает одну запись CSV. Запись может занимать
+     * несколько строк, если значение в кавычках содержит перевод строки.
+     *
+     * @param in         содержимое каталога
+     * @param lineNumber номер последней прочитанной строки, обновляется методом
+     * @return значения записи, null, если достигнут конец каталога
+     * @throws IOException              если происходит ошибка чтения
+     * @throws IllegalArgumentException если значение в кавычках не закрыто
+     */
+    private static List<String> readRecord(BufferedReader in, int[] lineNumber)
+            throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            return null;
+        }
+        int start = ++lineNumber[0];
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                line = in.readLine();
+                if (line == null) {
+                    throw new IllegalArgumentException(String.format(
+                            "Строка %d: не закрыты кавычки", start));
+                }
+                lineNumber[0]++;
+                value.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != QUOTE) {
+                    value.append(c);
+                } else if (i < line.length() && line.charAt(i) == QUOTE) {
+                    value.append(QUOTE);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == QUOTE) {
+                quoted = true;
+            } else if (c == DELIMITER) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * Вспомогательный метод возвращает значение колонки записи.
+     *
+     * @param values значения записи
+     * @param column индекс колонки, null, если колонка отсутствует
+     * @return значение, null, если колонка отсутствует или значение пустое
+     */
+    private static String value(List<String> values, Integer column) {
+        if (column == null || column >= values.size() || values.get(column).isEmpty()) {
+            return null;
+        }
+        return values.get(column);
+    }
+
+    /**
+     * Запись каталога сеансов.
+     *
+     * @param line        номер строки начала записи в файле каталога
+     * @param name        название сеанса
+     * @param description описание сеанса
+     * @param poster      имя файла постера в архиве постеров
+     */
+    public record Row(int line, String name, String description, String poster) {
+    }
+}
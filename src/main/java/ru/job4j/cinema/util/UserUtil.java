@@ -3,6 +3,7 @@ package ru.job4j.cinema.util;
 import ru.job4j.cinema.model.User;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 /**
  * Утилитный класс для извлечения пользователя и сессии
@@ -22,14 +23,17 @@ public final class UserUtil {
     }
 
     /**
-     * Выполняет извлечение пользователя из сессии, если пользователь в
-     * сессии отсутствует, создается и возвращается новый пустой пользователь.
+     * Выполняет извлечение пользователя из сессии, если сессия или
+     * пользователь в сессии отсутствует, создается и возвращается новый
+     * пустой пользователь. Сессия при этом не создается, чтобы страницы,
+     * открытые анонимным пользователем, не создавали сессий в хранилище.
      *
      * @param req запрос пользователя
      * @return пользователя
      */
     public static User getSessionUser(HttpServletRequest req) {
-        User user = (User) req.getSession().getAttribute("user");
+        HttpSession session = req.getSession(false);
+        User user = session == null ? null : (User) session.getAttribute("user");
         if (user == null) {
             user = new User();
         }
@@ -0,0 +1,119 @@
+package ru.job4j.cinema.view;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import ru.job4j.cinema.service.ShowService;
+
+import javax.servlet.ServletContext;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Формирует HTML фрагмент каталога сеансов для страницы /shows.
+ * В рабочем режиме (spring.thymeleaf.cache=true) готовый фрагмент
+ * хранится в памяти и формируется заново только после изменения
+ * версии каталога сеансов.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.CatalogueVersion
+ */
+@Component
+public class CatalogueRenderer {
+
+    /**
+     * Имя шаблона каталога сеансов
+     */
+    private static final String TEMPLATE = "show/catalogue";
+
+    /**
+     * Селектор фрагмента каталога сеансов в шаблоне
+     */
+    private static final Set<String> FRAGMENT = Set.of("catalogue");
+
+    /**
+     * Шаблонизатор
+     */
+    private final ITemplateEngine templateEngine;
+
+    /**
+     * Объект для доступа к методам ShowService
+     */
+    private final ShowService showService;
+
+    /**
+     * Путь контекста приложения для формирования ссылок во фрагменте
+     */
+    private final String contextPath;
+
+    /**
+     * Признак хранения готового фрагмента в памяти
+     */
+    private final boolean cacheEnabled;
+
+    /**
+     * Готовый фрагмент с версией каталога, по которой он сформирован
+     */
+    private volatile RenderedCatalogue rendered;
+
+    /**
+     * Конструктор класса.
+     *
+     * @param templateEngine шаблонизатор
+     * @param showService    объект для доступа к методам ShowService
+     * @param servletContext контекст сервлета
+     * @param cacheEnabled   признак хранения готового фрагмента в памяти
+     */
+    public CatalogueRenderer(ITemplateEngine templateEngine, ShowService showService,
+                             ServletContext servletContext,
+                             @Value("${spring.thymeleaf.cache:true}") boolean cacheEnabled) {
+        this.templateEngine = templateEngine;
+        this.showService = showService;
+        this.contextPath = servletContext.getContextPath();
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /**
+     * Возвращает HTML фрагмент каталога сеансов. Если версия каталога
+     * не изменилась, возвращается ранее сформированный фрагмент без
+     * обращения к базе данных и шаблонизатору.
+     *
+     * @return HTML фрагмент каталога сеансов
+     */
+    public String render() {
+        long version = showService.getCatalogueVersion();
+        RenderedCatalogue current = rendered;
+        if (cacheEnabled && current != null && current.version() == version) {
+            return current.html();
+        }
+        String html = renderTemplate();
+        if (cacheEnabled) {
+            rendered = new RenderedCatalogue(version, html);
+        }
+        return html;
+    }
+
+    /**
+     * Формирует HTML фрагмент каталога сеансов шаблонизатором без использования
+     * и без сохранения готового фрагмента. Используется при прогреве приложения.
+     *
+     * @return HTML фрагмент каталога сеансов
+     */
+    public String renderTemplate() {
+        Context context = new Context(Locale.getDefault());
+        context.setVariable("shows", showService.findAll());
+        context.setVariable("contextPath", contextPath);
+        return templateEngine.process(TEMPLATE, FRAGMENT, context);
+    }
+
+    /**
+     * Готовый фрагмент каталога сеансов.
+     *
+     * @param version номер версии каталога
+     * @param html    HTML фрагмент
+     */
+    private record RenderedCatalogue(long version, String html) {
+    }
+}
@@ -0,0 +1,68 @@
+package ru.job4j.cinema.controller;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ui.Model;
+import ru.job4j.cinema.datasource.StatementCacheMetrics;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.ShowSales;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.repository.TicketRepository;
+import ru.job4j.cinema.service.PasswordHashMetrics;
+import ru.job4j.cinema.service.PasswordService;
+import ru.job4j.cinema.service.SalesStatistics;
+import ru.job4j.cinema.service.ShowService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс реализации контроллеров
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.controller.DashboardController
+ */
+class DashboardControllerTest {
+
+    /**
+     * Выполняется проверка возвращения панели статистики продаж
+     * по сеансам каталога с метриками хеширования паролей.
+     */
+    @Test
+    void whenDashboardThenReturnSalesOfShows() {
+        ShowService showService = mock(ShowService.class);
+        SalesStatistics statistics = new SalesStatistics(mock(TicketRepository.class), 2, 2);
+        PasswordService passwordService = mock(PasswordService.class);
+        PasswordHashMetrics metrics = new PasswordHashMetrics(10_000, 150, 12.5, 3, 0, 0);
+        DashboardController controller = new DashboardController(
+                showService, statistics, passwordService);
+        Model model = mock(Model.class);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpSession session = mock(HttpSession.class);
+        User user = User.builder().id(1).username("admin").email("admin@cinema.ru").build();
+        Show show = Show.builder().id(1).name("Show").build();
+        doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
+        doReturn(user).when(session).getAttribute("user");
+        doReturn(List.of(show)).when(showService).findAll();
+        doReturn(metrics).when(passwordService).getMetrics();
+        statistics.ticketSold(show.getId(), 2);
+
+        String page = controller.dashboard(model, request);
+
+        ArgumentCaptor<List<ShowSales>> sales = ArgumentCaptor.forClass(List.class);
+        verify(model).addAttribute(eq("sales"), sales.capture());
+        Assertions.assertThat(sales.getValue()).singleElement()
+                .satisfies(item -> Assertions.assertThat(item.getSold()).isEqualTo(1));
+        verify(model).addAttribute("reconciledAt", null);
+        verify(model).addAttribute(eq("statementCache"), any(StatementCacheMetrics.Snapshot.class));
+        verify(model).addAttribute("passwordHash", metrics);
+        verify(model).addAttribute("user", user);
+        Assertions.assertThat(page).isEqualTo("admin/dashboard");
+    }
+}
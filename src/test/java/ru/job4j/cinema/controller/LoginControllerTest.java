@@ -80,6 +80,7 @@ class LoginControllerTest {
         String logout = null;
         String errorMessage = null;
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = loginController.loginPage(error, logout, model, request);
@@ -99,6 +100,7 @@ class LoginControllerTest {
         String logout = null;
         String errorMessage = "Имя аккаунта или пароль введены неправильно!";
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = loginController.loginPage(error, logout, model, request);
@@ -118,6 +120,7 @@ class LoginControllerTest {
         String logout = "true";
         String errorMessage = "Вы вышли!";
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = loginController.loginPage(error, logout, model, request);
@@ -134,6 +137,7 @@ class LoginControllerTest {
     @Test
     void whenLoginUserSuccessThenShows() {
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(userService).validateUserLogin(user);
 
         String result = loginController.loginUser(user, request);
@@ -10,6 +10,7 @@ import ru.job4j.cinema.service.UserService;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
+import java.util.Map;
 
 import static org.mockito.Mockito.*;
 
@@ -87,6 +88,7 @@ class RegControllerTest {
         String account = null;
         String errorMessage = null;
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = regController.regPage(password, account, model, request);
@@ -106,6 +108,7 @@ class RegControllerTest {
         String account = null;
         String errorMessage = "Пароли должны совпадать!";
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = regController.regPage(password, account, model, request);
@@ -126,6 +129,7 @@ class RegControllerTest {
         String errorMessage = "Пользователь с таким email или номером "
                 + "телефона уже зарегистрирован!";
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = regController.regPage(password, account, model, request);
@@ -174,4 +178,19 @@ class RegControllerTest {
 
         Assertions.assertThat(result).isEqualTo("redirect:/registration?password=true");
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняется проверка ответа на запрос занятости почтового адреса
+     * и номера телефона при заполнении формы регистрации.
+     */
+    @Test
+    void whenCheckContactsThenReturnTakenFlags() {
+        doReturn(true).when(userService).isEmailTaken(user.getEmail());
+        doReturn(false).when(userService).isPhoneTaken(user.getPhone());
+
+        Map<String, Boolean> result = regController.checkContacts(user.getEmail(), user.getPhone());
+
+        Assertions.assertThat(result).containsEntry("emailTaken", true)
+                .containsEntry("phoneTaken", false);
+    }
+}
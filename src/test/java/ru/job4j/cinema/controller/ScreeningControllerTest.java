@@ -0,0 +1,113 @@
+package ru.job4j.cinema.controller;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ui.Model;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.ScreeningService;
+import ru.job4j.cinema.service.ShowService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс реализации контроллеров
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.controller.ScreeningController
+ */
+class ScreeningControllerTest {
+
+    /**
+     * Объект для доступа к методам ScreeningController
+     */
+    private ScreeningController screeningController;
+
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private ScreeningService screeningService;
+
+    /**
+     * Модель
+     */
+    private Model model;
+
+    /**
+     * Запрос
+     */
+    private HttpServletRequest request;
+
+    /**
+     * Пользователь
+     */
+    private User user;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        screeningService = mock(ScreeningService.class);
+        screeningController = new ScreeningController(screeningService, mock(ShowService.class));
+        model = mock(Model.class);
+        request = mock(HttpServletRequest.class);
+        HttpSession session = mock(HttpSession.class);
+        user = User.builder()
+                .id(1)
+                .username("username")
+                .email("email")
+                .build();
+        doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
+        doReturn(user).when(session).getAttribute("user");
+    }
+
+    /**
+     * Выполняется проверка возвращения страницы расписания на текущий день.
+     */
+    @Test
+    void whenGetScheduleThenReturnTodayScreenings() {
+        List<Screening> screenings = List.of(Screening.builder().id(1).build());
+        doReturn(screenings).when(screeningService).findToday();
+
+        String result = screeningController.schedule(null, null, model, request);
+
+        verify(model).addAttribute("screenings", screenings);
+        verify(model).addAttribute("user", user);
+        Assertions.assertThat(result).isEqualTo("show/schedule");
+    }
+
+    /**
+     * Выполняется проверка ограничения количества дней расписания.
+     */
+    @Test
+    void whenGetScheduleForTooManyDaysThenDaysLimited() {
+        screeningController.schedule(100, null, model, request);
+
+        verify(screeningService).findNextDays(14);
+    }
+
+    /**
+     * Выполняется проверка, что расписание с параметром showId содержит
+     * только показы этого сеанса.
+     */
+    @Test
+    void whenGetScheduleOfShowThenOnlyShowScreenings() {
+        Screening first = Screening.builder().id(1).show(Show.builder().id(1).build()).build();
+        Screening second = Screening.builder().id(2).show(Show.builder().id(2).build()).build();
+        doReturn(List.of(first, second)).when(screeningService).findNextDays(7);
+
+        screeningController.schedule(7, 2, model, request);
+
+        verify(model).addAttribute("screenings", List.of(second));
+    }
+}
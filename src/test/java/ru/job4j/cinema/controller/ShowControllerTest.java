@@ -3,15 +3,26 @@ package ru.job4j.cinema.controller;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.ui.Model;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.SeatRecommendation;
 import ru.job4j.cinema.model.Show;
 import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.ScreeningService;
 import ru.job4j.cinema.service.ShowService;
+import ru.job4j.cinema.view.CatalogueRenderer;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
 
 import static org.mockito.Mockito.*;
 
@@ -34,6 +45,16 @@ class ShowControllerTest {
      */
     private ShowService showService;
 
+    /**
+     * Объект для доступа к методам CatalogueRenderer
+     */
+    private CatalogueRenderer catalogueRenderer;
+
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private ScreeningService screeningService;
+
     /**
      * Пользователь
      */
@@ -44,6 +65,11 @@ class ShowControllerTest {
      */
     private HttpServletRequest request;
 
+    /**
+     * Ответ
+     */
+    private HttpServletResponse response;
+
     /**
      * Сессия
      */
@@ -59,6 +85,11 @@ class ShowControllerTest {
      */
     private Show show;
 
+    /**
+     * Показ сеанса
+     */
+    private Screening screening;
+
     /**
      * Создает необходимые для выполнения тестов общие объекты.
      * Создание выполняется перед каждым тестом.
@@ -66,9 +97,12 @@ class ShowControllerTest {
     @BeforeEach
     void setUp() {
         showService = mock(ShowService.class);
-        showController = new ShowController(showService);
+        catalogueRenderer = mock(CatalogueRenderer.class);
+        screeningService = mock(ScreeningService.class);
+        showController = new ShowController(showService, catalogueRenderer, screeningService);
         model = mock(Model.class);
         request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
         session = mock(HttpSession.class);
         user = User.builder()
                 .id(1)
@@ -81,6 +115,12 @@ class ShowControllerTest {
                 .id(1)
                 .name("name")
                 .build();
+        screening = Screening.builder()
+                .id(5)
+                .show(show)
+                .hall(1)
+                .startTime(LocalDateTime.now())
+                .build();
     }
 
     /**
@@ -89,14 +129,15 @@ class ShowControllerTest {
      */
     @Test
     void whenGetShowRowSuccess() {
-        List<Show> shows = new ArrayList<>();
+        String catalogue = "<div></div>";
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
-        doReturn(shows).when(showService).findAll();
+        doReturn(catalogue).when(catalogueRenderer).render();
 
-        String result = showController.getShowRow(model, request);
+        String result = showController.getShowRow(model, request, response);
 
-        verify(model).addAttribute("shows", shows);
+        verify(model).addAttribute("catalogue", catalogue);
         verify(model).addAttribute("user", user);
         Assertions.assertThat(result).isEqualTo("show/shows");
     }
@@ -110,38 +151,94 @@ class ShowControllerTest {
     void whenGetShowAdminSuccess() {
         List<Show> shows = new ArrayList<>();
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
         doReturn(shows).when(showService).findAll();
 
-        String result = showController.getShowsForEdit(model, request);
+        String result = showController.getShowsForEdit(model, request, response);
 
         verify(model).addAttribute("shows", shows);
         verify(model).addAttribute("user", user);
         Assertions.assertThat(result).isEqualTo("admin/adminShows");
     }
 
+    /**
+     * Выполняется проверка ответа 304 Not Modified, если пользователь
+     * запрашивает страницу списка сеансов с актуальным тегом ETag.
+     */
+    @Test
+    void whenGetShowRowNotModifiedThenReturn304() {
+        doReturn(5L).when(showService).getCatalogueVersion();
+        doReturn(1_000L).when(showService).getCatalogueLastModified();
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/shows");
+        first.getSession().setAttribute("user", user);
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        showController.getShowRow(model, first, firstResponse);
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/shows");
+        second.setSession(first.getSession());
+        second.addHeader(HttpHeaders.IF_NONE_MATCH, firstResponse.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse secondResponse = new MockHttpServletResponse();
+
+        String result = showController.getShowRow(model, second, secondResponse);
+
+        Assertions.assertThat(result).isNull();
+        Assertions.assertThat(secondResponse.getStatus()).isEqualTo(304);
+        verify(catalogueRenderer, times(1)).render();
+    }
+
     /**
      * Выполняется проверка возвращения страницы выбора
-     * номера ряда на сеансе для покупки билетов.
+     * номера ряда на показе сеанса для покупки билетов.
      */
     @Test
     void whenPostShowRowSuccess() {
         int showId = 1;
-        List<Integer> rows = new ArrayList<>();
+        List<Integer> rows = List.of(1, 2);
         doReturn(show).when(showService).findById(showId);
+        doReturn(screening).when(screeningService).findByIdAndShowId(5, showId);
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
-        doReturn(rows).when(showService).findAll();
+        doReturn(rows).when(showService).getRows(5);
 
-        String result = showController.getPostShowRow(showId, model, request);
+        String result = showController.getPostShowRow(showId, 5, model, request);
 
         verify(model).addAttribute("show", show);
+        verify(model).addAttribute("screening", screening);
         verify(model).addAttribute("rows", rows);
         verify(model).addAttribute("user", user);
         verify(session).setAttribute("show", show);
+        verify(session).setAttribute("screeningId", 5);
         Assertions.assertThat(result).isEqualTo("show/showRow");
     }
 
+    /**
+     * Выполняется проверка перенаправления на расписание показов сеанса,
+     * если показ не выбран.
+     */
+    @Test
+    void whenPostShowRowWithoutScreeningThenRedirectToSchedule() {
+        String result = showController.getPostShowRow(1, null, model, request);
+
+        verify(request, never()).getSession();
+        Assertions.assertThat(result).isEqualTo("redirect:/schedule?days=7&showId=1");
+    }
+
+    /**
+     * Выполняется проверка, что показ другого сеанса не запоминается
+     * в сессии.
+     */
+    @Test
+    void whenPostShowRowWithScreeningOfOtherShowThenNoSuchElement() {
+        doThrow(new NoSuchElementException("Показ не найден"))
+                .when(screeningService).findByIdAndShowId(5, 2);
+        doReturn(session).when(request).getSession();
+
+        Assertions.assertThatThrownBy(() -> showController.getPostShowRow(2, 5, model, request))
+                .isInstanceOf(NoSuchElementException.class);
+        verify(session, never()).setAttribute(eq("screeningId"), any());
+    }
+
     /**
      * Выполняется проверка возвращения страницы выбора
      * номера места в ряду на сеансе для покупки билетов.
@@ -151,9 +248,11 @@ class ShowControllerTest {
         int posRow = 1;
         List<Integer> cells = new ArrayList<>();
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
-        doReturn(cells).when(showService).getCells(show.getId(), posRow);
+        doReturn(cells).when(showService).getCells(screening.getId(), posRow);
         doReturn(show).when(session).getAttribute("show");
+        doReturn(screening.getId()).when(session).getAttribute("screeningId");
 
         String result = showController.setShowRow(posRow, model, request);
 
@@ -164,6 +263,49 @@ class ShowControllerTest {
         Assertions.assertThat(result).isEqualTo("show/showCell");
     }
 
+    /**
+     * Выполняется проверка возвращения страницы рекомендованных мест:
+     * ряд рекомендованных мест запоминается в сессии.
+     */
+    @Test
+    void whenRecommendSeatsThenRowStoredInSession() {
+        SeatRecommendation recommendation = new SeatRecommendation(4, List.of(7, 8));
+        doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
+        doReturn(user).when(session).getAttribute("user");
+        doReturn(show).when(session).getAttribute("show");
+        doReturn(screening.getId()).when(session).getAttribute("screeningId");
+        doReturn(Optional.of(recommendation))
+                .when(showService).recommendSeats(screening.getId(), 2);
+
+        String result = showController.recommendSeats(2, model, request);
+
+        verify(session).setAttribute("posRow", 4);
+        verify(model).addAttribute("recommendation", recommendation);
+        verify(model).addAttribute("count", 2);
+        Assertions.assertThat(result).isEqualTo("show/recommendSeats");
+    }
+
+    /**
+     * Выполняется проверка возвращения страницы рекомендованных мест
+     * при отсутствии подходящих мест: ряд в сессии не изменяется.
+     */
+    @Test
+    void whenNoSeatsToRecommendThenRecommendationIsNull() {
+        doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
+        doReturn(user).when(session).getAttribute("user");
+        doReturn(show).when(session).getAttribute("show");
+        doReturn(screening.getId()).when(session).getAttribute("screeningId");
+        doReturn(Optional.empty()).when(showService).recommendSeats(screening.getId(), 5);
+
+        String result = showController.recommendSeats(5, model, request);
+
+        verify(session, never()).setAttribute(eq("posRow"), any());
+        verify(model).addAttribute("recommendation", null);
+        Assertions.assertThat(result).isEqualTo("show/recommendSeats");
+    }
+
     /**
      * Выполняется проверка возвращения страницы выбора
      * редактирования данных сеанса.
@@ -172,6 +314,7 @@ class ShowControllerTest {
     void whenEditShowSuccess() {
         int showId = 1;
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
         doReturn(show).when(showService).findById(showId);
 
@@ -189,6 +332,7 @@ class ShowControllerTest {
     @Test
     void whenAddShowSuccess() {
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = showController.addShow(model, request);
@@ -197,4 +341,55 @@ class ShowControllerTest {
         verify(model).addAttribute("user", user);
         Assertions.assertThat(result).isEqualTo("admin/addShow");
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняется проверка удаления отмеченных сеансов и перенаправления
+     * на страницу списка сеансов для администратора.
+     */
+    @Test
+    void whenDeleteShowsThenDeleteAllByIds() {
+        String result = showController.deleteShows(List.of(1, 2));
+
+        verify(showService).deleteAllByIds(List.of(1, 2));
+        Assertions.assertThat(result).isEqualTo("redirect:/adminShows");
+    }
+
+    /**
+     * Выполняется проверка, что без отмеченных сеансов удаление не выполняется.
+     */
+    @Test
+    void whenDeleteShowsWithoutIdsThenNothingDeleted() {
+        String result = showController.deleteShows(null);
+
+        verify(showService, never()).deleteAllByIds(any());
+        Assertions.assertThat(result).isEqualTo("redirect:/adminShows");
+    }
+
+    /**
+     * Выполняется проверка возвращения страницы результатов поиска сеансов.
+     */
+    @Test
+    void whenSearchShowsThenReturnSearchPage() {
+        List<Show> shows = List.of(show);
+        doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
+        doReturn(user).when(session).getAttribute("user");
+        doReturn(shows).when(showService).search("name");
+
+        String result = showController.searchShows("name", model, request);
+
+        verify(model).addAttribute("shows", shows);
+        verify(model).addAttribute("query", "name");
+        Assertions.assertThat(result).isEqualTo("show/search");
+    }
+
+    /**
+     * Выполняется проверка возвращения подсказок поиска сеансов.
+     */
+    @Test
+    void whenSuggestShowsThenReturnNames() {
+        doReturn(List.of("name")).when(showService).suggest("na");
+
+        Assertions.assertThat(showController.suggestShows("na")).containsExactly("name");
+    }
+}
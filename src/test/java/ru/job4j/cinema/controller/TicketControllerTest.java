@@ -4,13 +4,18 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.ui.Model;
+import ru.job4j.cinema.model.Screening;
 import ru.job4j.cinema.model.Show;
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketHistoryPage;
 import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.service.ScreeningService;
 import ru.job4j.cinema.service.TicketService;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import static org.mockito.Mockito.*;
 
@@ -33,6 +38,11 @@ class TicketControllerTest {
      */
     private TicketService ticketService;
 
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private ScreeningService screeningService;
+
     /**
      * Пользователь
      */
@@ -70,7 +80,8 @@ class TicketControllerTest {
     @BeforeEach
     void setUp() {
         ticketService = mock(TicketService.class);
-        ticketController = new TicketController(ticketService);
+        screeningService = mock(ScreeningService.class);
+        ticketController = new TicketController(ticketService, screeningService);
         model = mock(Model.class);
         request = mock(HttpServletRequest.class);
         session = mock(HttpSession.class);
@@ -102,6 +113,7 @@ class TicketControllerTest {
         int cell = ticket.getCell();
         int posRow = ticket.getPosRow();
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(show).when(session).getAttribute("show");
         doReturn(posRow).when(session).getAttribute("posRow");
         doReturn(cell).when(session).getAttribute("cell");
@@ -136,10 +148,14 @@ class TicketControllerTest {
         int cell = ticket.getCell();
         int posRow = ticket.getPosRow();
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(show).when(session).getAttribute("show");
         doReturn(posRow).when(session).getAttribute("posRow");
         doReturn(cell).when(session).getAttribute("cell");
         doReturn(user).when(session).getAttribute("user");
+        doReturn(5).when(session).getAttribute("screeningId");
+        doReturn(Screening.builder().id(5).show(show).build())
+                .when(screeningService).findByIdAndShowId(5, show.getId());
         doReturn(ticket).when(ticketService).save(new Ticket());
 
         String result = ticketController.confirmBuyTicket(model, request);
@@ -149,6 +165,24 @@ class TicketControllerTest {
         Assertions.assertThat(result).isEqualTo("ticket/successful");
     }
 
+    /**
+     * Выполняется проверка, что билет на показ другого сеанса не сохраняется.
+     */
+    @Test
+    void whenConfirmBuyTicketWithScreeningOfOtherShowThenNotSaved() {
+        doReturn(session).when(request).getSession();
+        doReturn(show).when(session).getAttribute("show");
+        doReturn(1).when(session).getAttribute("posRow");
+        doReturn(1).when(session).getAttribute("cell");
+        doReturn(5).when(session).getAttribute("screeningId");
+        doThrow(new NoSuchElementException("Показ не найден"))
+                .when(screeningService).findByIdAndShowId(5, show.getId());
+
+        Assertions.assertThatThrownBy(() -> ticketController.confirmBuyTicket(model, request))
+                .isInstanceOf(NoSuchElementException.class);
+        verify(ticketService, never()).save(any());
+    }
+
 
     /**
      * Выполняется проверка возвращения страницы списка сеансов для администратора,
@@ -158,6 +192,7 @@ class TicketControllerTest {
     void whenClearTicketsSuccessThenRedirectToAdminShows() {
         int showId = 1;
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = ticketController.clearTickets(showId, model, request);
@@ -165,4 +200,38 @@ class TicketControllerTest {
         verify(model).addAttribute("user", user);
         Assertions.assertThat(result).isEqualTo("redirect:/adminShows");
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняется проверка возвращения страницы истории покупок пользователя.
+     */
+    @Test
+    void whenGetHistoryThenReturnHistoryPage() {
+        TicketHistoryPage page = new TicketHistoryPage(List.of(), null);
+        doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
+        doReturn(user).when(session).getAttribute("user");
+        doReturn(page).when(ticketService).findHistory(user.getId(), null);
+
+        String result = ticketController.history(null, model, request);
+
+        verify(model).addAttribute("page", page);
+        verify(model).addAttribute("user", user);
+        Assertions.assertThat(result).isEqualTo("ticket/history");
+    }
+
+    /**
+     * Выполняется проверка возврата билета пользователем
+     * и перенаправления на страницу истории покупок.
+     */
+    @Test
+    void whenCancelTicketThenRedirectToHistory() {
+        doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
+        doReturn(user).when(session).getAttribute("user");
+
+        String result = ticketController.cancelTicket(ticket.getId(), request);
+
+        verify(ticketService).cancel(ticket.getId(), user.getId());
+        Assertions.assertThat(result).isEqualTo("redirect:/tickets");
+    }
+}
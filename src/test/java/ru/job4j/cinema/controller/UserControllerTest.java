@@ -87,6 +87,7 @@ class UserControllerTest {
         String phone = null;
         String errorMessage = null;
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = userController.getUserEdit(password, phone, model, request);
@@ -106,6 +107,7 @@ class UserControllerTest {
         String phone = null;
         String errorMessage = "Неверно введен старый пароль";
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = userController.getUserEdit(password, phone, model, request);
@@ -125,6 +127,7 @@ class UserControllerTest {
         String phone = "true";
         String errorMessage = "Пользователь с таким номером телефона уже зарегистрирован";
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(session).getAttribute("user");
 
         String result = userController.getUserEdit(password, phone, model, request);
@@ -142,7 +145,9 @@ class UserControllerTest {
     void whenUserEditSuccessThenRedirectToShows() {
         String oldPassword = user.getPassword();
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(userService).findUserByEmail(anyString());
+        doReturn(true).when(userService).matchesPassword(user, oldPassword);
 
         String result = userController.userEdit(user, errors, oldPassword, request);
 
@@ -158,6 +163,7 @@ class UserControllerTest {
     void whenUserEditIfErrorsParameterNotNullThenError() {
         String oldPassword = user.getPassword();
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(userService).findUserByEmail(anyString());
         doReturn(true).when(errors).hasErrors();
 
@@ -174,6 +180,7 @@ class UserControllerTest {
     void whenUserEditIfOldPasswordFailThenError() {
         String oldPassword = "pass";
         doReturn(session).when(request).getSession();
+        doReturn(session).when(request).getSession(false);
         doReturn(user).when(userService).findUserByEmail(anyString());
 
         String result = userController.userEdit(user, errors, oldPassword, request);
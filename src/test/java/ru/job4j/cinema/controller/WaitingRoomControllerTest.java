@@ -0,0 +1,78 @@
+package ru.job4j.cinema.controller;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.ui.Model;
+import ru.job4j.cinema.filter.AdmissionFilter;
+import ru.job4j.cinema.service.AdmissionQueue;
+
+/**
+ * Тест класс реализации контроллеров
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.controller.WaitingRoomController
+ */
+class WaitingRoomControllerTest {
+
+    /**
+     * Очередь допуска
+     */
+    private AdmissionQueue queue;
+
+    /**
+     * Объект для доступа к методам WaitingRoomController
+     */
+    private WaitingRoomController controller;
+
+    /**
+     * Запрос
+     */
+    private MockHttpServletRequest request;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        queue = new AdmissionQueue(true, 0.001, 1, 60);
+        controller = new WaitingRoomController(queue);
+        request = new MockHttpServletRequest();
+    }
+
+    /**
+     * Выполняется проверка возвращения страницы ожидания
+     * с положением пользователя в очереди.
+     */
+    @Test
+    void whenNumberWaitingThenReturnPosition() {
+        queue.join();
+        request.getSession().setAttribute(AdmissionFilter.NUMBER, queue.join());
+        Model model = new ExtendedModelMap();
+
+        String result = controller.waitingRoom(model, request);
+
+        Assertions.assertThat(result).isEqualTo("show/waitingRoom");
+        Assertions.assertThat(model.getAttribute("position")).isEqualTo(1L);
+        Assertions.assertThat(model.getAttribute("refresh")).isEqualTo(15L);
+    }
+
+    /**
+     * Выполняется проверка перенаправления на запрошенную страницу,
+     * если номер пользователя допущен.
+     */
+    @Test
+    void whenNumberAdmittedThenRedirectToTarget() {
+        request.getSession().setAttribute(AdmissionFilter.NUMBER, queue.join());
+        request.getSession().setAttribute(AdmissionFilter.TARGET, "/searchShows");
+
+        String result = controller.waitingRoom(new ExtendedModelMap(), request);
+
+        Assertions.assertThat(result).isEqualTo("redirect:/searchShows");
+        Assertions.assertThat(request.getSession().getAttribute(AdmissionFilter.TARGET)).isNull();
+    }
+}
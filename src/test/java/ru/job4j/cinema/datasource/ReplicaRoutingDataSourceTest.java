@@ -0,0 +1,210 @@
+package ru.job4j.cinema.datasource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс источника данных с маршрутизацией чтения на реплики.
+ * Основная база данных и реплика - отдельные базы H2 в памяти,
+ * различающиеся содержимым таблицы node.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ReplicaRoutingDataSource
+ */
+class ReplicaRoutingDataSourceTest {
+
+    /**
+     * Основная база данных
+     */
+    private static BasicDataSource primary;
+
+    /**
+     * Реплика
+     */
+    private static BasicDataSource replica;
+
+    /**
+     * Создает базы данных и заполняет таблицу node именем базы.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @BeforeAll
+    static void initDataSources() throws SQLException {
+        primary = createNode("primary");
+        replica = createNode("replica");
+    }
+
+    /**
+     * Закрывает базы данных.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @AfterAll
+    static void closeDataSources() throws SQLException {
+        primary.close();
+        replica.close();
+    }
+
+    /**
+     * Очищает состояние маршрутизации потока после каждого теста.
+     */
+    @AfterEach
+    void clearRouting() {
+        ReadRouting.clear();
+    }
+
+    /**
+     * До первой проверки отставания чтение выполняется с основной базы данных,
+     * после проверки - с реплики.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenReplicaCheckedThenReadsGoToReplica() throws SQLException {
+        ReplicaRoutingDataSource routing = routing("SELECT 0", replica);
+
+        assertThat(readNode(routing)).isEqualTo("primary");
+        assertThat(routing.checkReplicas()).isEqualTo(1);
+        assertThat(readNode(routing)).isEqualTo("replica");
+        assertThat(routing.getReplicaLags()).containsExactly(0L);
+    }
+
+    /**
+     * После записи чтение потока выполняется с основной базы данных.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenWrittenThenReadsStickToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing("SELECT 0", replica);
+        routing.checkReplicas();
+        try (Connection cn = routing.getConnection()) {
+            assertThat(cn).isNotNull();
+        }
+
+        assertThat(ReadRouting.isPrimaryRequired()).isTrue();
+        assertThat(readNode(routing)).isEqualTo("primary");
+        ReadRouting.clear();
+        assertThat(readNode(routing)).isEqualTo("replica");
+    }
+
+    /**
+     * Реплика с отставанием больше допустимого не используется для чтения.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenReplicaLagsThenReadsGoToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing("SELECT 5000", replica);
+
+        assertThat(routing.checkReplicas()).isZero();
+        assertThat(routing.getReplicaLags()).containsExactly(5000L);
+        assertThat(readNode(routing)).isEqualTo("primary");
+    }
+
+    /**
+     * Недоступная реплика исключается из чтения, чтение выполняется
+     * с основной базы данных.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenReplicaUnavailableThenReadsGoToPrimary() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("Реплика недоступна"));
+        ReplicaRoutingDataSource routing = routing("SELECT 0", broken);
+
+        assertThat(routing.checkReplicas()).isZero();
+        assertThat(routing.getReplicaLags()).containsExactly(-1L);
+        assertThat(readNode(routing)).isEqualTo("primary");
+    }
+
+    /**
+     * Внутри блока onPrimary чтение выполняется с основной базы данных.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenOnPrimaryThenReadsGoToPrimary() throws SQLException {
+        ReplicaRoutingDataSource routing = routing("SELECT 0", replica);
+        routing.checkReplicas();
+
+        String node = ReadRouting.onPrimary(() -> {
+            try {
+                return readNode(routing);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(node).isEqualTo("primary");
+        assertThat(readNode(routing)).isEqualTo("replica");
+    }
+
+    /**
+     * Вспомогательный метод создает источник данных с маршрутизацией
+     * чтения на одну реплику.
+     *
+     * @param lagQuery SQL запрос отставания реплики
+     * @param node     реплика
+     * @return источник данных
+     */
+    private static ReplicaRoutingDataSource routing(String lagQuery, DataSource node) {
+        return new ReplicaRoutingDataSource(primary, List.of(node), lagQuery, 1000, 60_000);
+    }
+
+    /**
+     * Вспомогательный метод читает имя базы данных соединения для чтения.
+     *
+     * @param routing источник данных
+     * @return имя базы данных
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static String readNode(ReplicaRoutingDataSource routing) throws SQLException {
+        try (Connection cn = routing.getReadConnection();
+             PreparedStatement ps = cn.prepareStatement("SELECT name FROM node");
+             ResultSet it = ps.executeQuery()) {
+            it.next();
+            return it.getString(1);
+        }
+    }
+
+    /**
+     * Вспомогательный метод создает базу данных H2 в памяти с таблицей node.
+     *
+     * @param name имя базы данных
+     * @return источник данных
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static BasicDataSource createNode(String name) throws SQLException {
+        BasicDataSource pool = new BasicDataSource();
+        pool.setDriverClassName("org.h2.Driver");
+        pool.setUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Connection cn = pool.getConnection()) {
+            try (PreparedStatement create = cn.prepareStatement(
+                    "CREATE TABLE IF NOT EXISTS node (name VARCHAR(16))")) {
+                create.execute();
+            }
+            try (PreparedStatement insert = cn.prepareStatement(
+                    "INSERT INTO node (name) VALUES (?)")) {
+                insert.setString(1, name);
+                insert.execute();
+            }
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,109 @@
+package ru.job4j.cinema.datasource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс статистики кэша подготовленных SQL запросов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see StatementCacheMetrics
+ */
+class StatementCacheMetricsTest {
+
+    /**
+     * Повторная подготовка запроса на соединении пула берется из кэша
+     * соединения: запрос подготавливается базой данных один раз.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenSameQueryPreparedAgainThenCacheHit() throws SQLException {
+        try (BasicDataSource pool = pool("jdbc:h2:mem:statements")) {
+            StatementCacheMetrics.Snapshot before = StatementCacheMetrics.snapshot();
+            for (int i = 0; i < 3; i++) {
+                try (Connection cn = Transactions.connection(pool);
+                     PreparedStatement ps = cn.prepareStatement("SELECT ?")) {
+                    ps.setInt(1, i);
+                    try (ResultSet it = ps.executeQuery()) {
+                        assertThat(it.next()).isTrue();
+                    }
+                }
+            }
+            StatementCacheMetrics.Snapshot after = StatementCacheMetrics.snapshot();
+
+            assertThat(after.requests() - before.requests()).isEqualTo(3);
+            assertThat(after.prepared() - before.prepared()).isEqualTo(1);
+            assertThat(after.connections() - before.connections()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Кэш закрытого соединения удаляется при регистрации соединения
+     * другого пула без получения статистики, его счетчики сохраняются.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenConnectionClosedThenCacheRemovedOnNextTrack() throws SQLException {
+        BasicDataSource closed = pool("jdbc:h2:mem:closed");
+        try (Connection cn = Transactions.connection(closed)) {
+            cn.prepareStatement("SELECT 1").close();
+        }
+        int tracked = StatementCacheMetrics.tracked();
+        closed.close();
+        try (BasicDataSource open = pool("jdbc:h2:mem:open");
+             Connection cn = Transactions.connection(open)) {
+            assertThat(StatementCacheMetrics.tracked()).isLessThanOrEqualTo(tracked);
+        }
+    }
+
+    /**
+     * Соединения без кэша подготовленных запросов не учитываются.
+     */
+    @Test
+    void whenConnectionWithoutCacheThenNotTracked() {
+        Connection connection = mock(Connection.class);
+        StatementCacheMetrics.Snapshot before = StatementCacheMetrics.snapshot();
+
+        assertThat(StatementCacheMetrics.track(connection)).isSameAs(connection);
+        assertThat(StatementCacheMetrics.snapshot().connections())
+                .isEqualTo(before.connections());
+    }
+
+    /**
+     * Доля попаданий рассчитывается по запросам, не подготовленным заново.
+     */
+    @Test
+    void whenRequestsThenHitRateCalculated() {
+        assertThat(new StatementCacheMetrics.Snapshot(200, 50, 2).hitRate()).isEqualTo(75);
+        assertThat(new StatementCacheMetrics.Snapshot(0, 0, 0).hitRate()).isZero();
+    }
+
+    /**
+     * Вспомогательный метод создает pool из одного соединения с кэшем
+     * подготовленных запросов и доступом к исходным соединениям.
+     *
+     * @param url адрес базы данных
+     * @return pool соединений
+     */
+    private static BasicDataSource pool(String url) {
+        BasicDataSource pool = new BasicDataSource();
+        pool.setDriverClassName("org.h2.Driver");
+        pool.setUrl(url);
+        pool.setMaxTotal(1);
+        pool.setPoolPreparedStatements(true);
+        pool.setMaxOpenPreparedStatements(10);
+        pool.setAccessToUnderlyingConnectionAllowed(true);
+        return pool;
+    }
+}
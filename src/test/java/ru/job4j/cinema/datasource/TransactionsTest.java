@@ -0,0 +1,258 @@
+package ru.job4j.cinema.datasource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тест класс транзакций уровня сервиса
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see Transactions
+ */
+class TransactionsTest {
+
+    /**
+     * Источник данных - база данных H2 в памяти с таблицей items
+     */
+    private static BasicDataSource dataSource;
+
+    /**
+     * Создает базу данных.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @BeforeAll
+    static void initDataSource() throws SQLException {
+        dataSource = new BasicDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:transactions;DB_CLOSE_DELAY=-1");
+        execute("CREATE TABLE IF NOT EXISTS items (name VARCHAR(16))");
+    }
+
+    /**
+     * Закрывает базу данных.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @AfterAll
+    static void closeDataSource() throws SQLException {
+        dataSource.close();
+    }
+
+    /**
+     * Очищает таблицу items после каждого теста.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @AfterEach
+    void wipeTable() throws SQLException {
+        execute("DELETE FROM items");
+    }
+
+    /**
+     * Запросы блока выполняются через одно соединение и фиксируются
+     * при выходе из блока, соединение возвращается в пул.
+     */
+    @Test
+    void whenBlockCompletesThenOneConnectionCommitted() {
+        int active = Transactions.inTransaction(() -> {
+            insert("first");
+            insert("second");
+            return dataSource.getNumActive();
+        });
+
+        assertThat(active).isEqualTo(1);
+        assertThat(dataSource.getNumActive()).isZero();
+        assertThat(count()).isEqualTo(2);
+    }
+
+    /**
+     * Если блок завершился исключением, запросы блока отменяются.
+     */
+    @Test
+    void whenBlockThrowsThenRolledBack() {
+        assertThrows(IllegalArgumentException.class, () -> Transactions.inTransaction(() -> {
+            insert("first");
+            throw new IllegalArgumentException("Ошибка сервиса");
+        }));
+
+        assertThat(count()).isZero();
+        assertThat(dataSource.getNumActive()).isZero();
+    }
+
+    /**
+     * Фиксация и закрытие соединения хранилищем внутри блока не действуют,
+     * отмена хранилищем отменяет всю транзакцию.
+     */
+    @Test
+    void whenRepositoryRollsBackThenWholeTransactionRolledBack() {
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(() -> {
+            insert("first");
+            try (Connection cn = Transactions.connection(dataSource)) {
+                cn.commit();
+                cn.rollback();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            insert("second");
+        }));
+
+        assertThat(count()).isZero();
+    }
+
+    /**
+     * Отметка транзакции для отмены отменяет всю транзакцию, блок выбрасывает
+     * исключение вместо возврата результата, действия после фиксации
+     * не выполняются, действия после завершения выполняются.
+     * Вне транзакции отметка не действует.
+     */
+    @Test
+    void whenSetRollbackOnlyThenWholeTransactionRolledBack() {
+        List<String> events = new ArrayList<>();
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> Transactions.inTransaction(() -> {
+                    insert("first");
+                    Transactions.afterCommit(() -> events.add("committed"));
+                    Transactions.afterCompletion(() -> events.add("completed"));
+                    Transactions.setRollbackOnly();
+                    events.add("marked " + Transactions.isRollbackOnly());
+                    return 1;
+                }));
+        Transactions.setRollbackOnly();
+
+        assertThat(exception.getMessage()).isEqualTo("Транзакция отменена");
+        assertThat(events).containsExactly("marked true", "completed");
+        assertThat(Transactions.isRollbackOnly()).isFalse();
+        assertThat(count()).isZero();
+    }
+
+    /**
+     * Вложенный блок выполняется в транзакции внешнего блока.
+     */
+    @Test
+    void whenNestedBlockThenJoinsOuterTransaction() {
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(() -> {
+            Transactions.inTransaction(() -> insert("inner"));
+            assertThat(Transactions.isActive()).isTrue();
+            throw new IllegalStateException("Ошибка внешнего блока");
+        }));
+
+        assertThat(count()).isZero();
+        assertThat(Transactions.isActive()).isFalse();
+    }
+
+    /**
+     * Действие после фиксации выполняется после фиксации транзакции, когда
+     * соединение возвращено в пул, при отмене транзакции не выполняется,
+     * вне блока выполняется сразу.
+     */
+    @Test
+    void whenAfterCommitThenRunOnlyAfterCommit() {
+        List<Integer> active = new ArrayList<>();
+        Transactions.inTransaction(() -> {
+            insert("first");
+            Transactions.afterCommit(() -> active.add(dataSource.getNumActive()));
+            assertThat(active).isEmpty();
+        });
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(() -> {
+            Transactions.afterCommit(() -> active.add(-1));
+            throw new IllegalStateException("Ошибка блока");
+        }));
+        Transactions.afterCommit(() -> active.add(count()));
+
+        assertThat(active).containsExactly(0, 1);
+    }
+
+    /**
+     * Действие после завершения выполняется после фиксации и после отмены
+     * транзакции, после действий, выполняемых после фиксации.
+     */
+    @Test
+    void whenAfterCompletionThenRunAfterCommitAndRollback() {
+        List<String> events = new ArrayList<>();
+        Transactions.inTransaction(() -> {
+            Transactions.afterCompletion(() -> events.add("completed"));
+            Transactions.afterCommit(() -> events.add("committed"));
+        });
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(() -> {
+            Transactions.afterCompletion(() -> events.add("rolled back"));
+            throw new IllegalStateException("Ошибка блока");
+        }));
+
+        assertThat(events).containsExactly("committed", "completed", "rolled back");
+    }
+
+    /**
+     * Вне блока соединение берется из пула с автоматической фиксацией.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenNoTransactionThenPooledAutoCommitConnection() throws SQLException {
+        try (Connection cn = Transactions.connection(dataSource)) {
+            assertThat(cn.getAutoCommit()).isTrue();
+        }
+        insert("single");
+
+        assertThat(count()).isEqualTo(1);
+    }
+
+    /**
+     * Вспомогательный метод добавляет строку так же, как методы хранилищ.
+     *
+     * @param name значение строки
+     */
+    private static void insert(String name) {
+        try (Connection cn = Transactions.connection(dataSource);
+             PreparedStatement ps = cn.prepareStatement("INSERT INTO items (name) VALUES (?)")) {
+            ps.setString(1, name);
+            ps.execute();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Вспомогательный метод возвращает количество строк таблицы items,
+     * прочитанное отдельным соединением.
+     *
+     * @return количество строк
+     */
+    private static int count() {
+        try (Connection cn = dataSource.getConnection();
+             PreparedStatement ps = cn.prepareStatement("SELECT COUNT(*) FROM items");
+             ResultSet it = ps.executeQuery()) {
+            it.next();
+            return it.getInt(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Вспомогательный метод выполняет SQL запрос.
+     *
+     * @param sql SQL запрос
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static void execute(String sql) throws SQLException {
+        try (Connection cn = dataSource.getConnection();
+             PreparedStatement ps = cn.prepareStatement(sql)) {
+            ps.execute();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.job4j.cinema.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест класс фильтра ограничения частоты запросов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see RateLimitFilter
+ */
+class RateLimitFilterTest {
+
+    /**
+     * Фильтр с ограничением в два входа в учетную запись и одну регистрацию
+     */
+    private final RateLimitFilter filter = new RateLimitFilter(
+            60, 100, 10, 2, 1, 10, 10);
+
+    /**
+     * Выполняется проверка ограничения подбора пароля к учетной записи:
+     * третья попытка входа возвращает 429 с заголовком Retry-After,
+     * вход в другую учетную запись разрешен.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenLoginAttemptsExceededThenTooManyRequests() throws IOException, ServletException {
+        assertThat(login("user@mail.ru").getStatus()).isEqualTo(200);
+        assertThat(login("USER@mail.ru").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse denied = login("user@mail.ru");
+
+        assertThat(denied.getStatus()).isEqualTo(RateLimitFilter.TOO_MANY_REQUESTS);
+        assertThat(denied.getHeader("Retry-After")).isNotNull();
+        assertThat(login("other@mail.ru").getStatus()).isEqualTo(200);
+    }
+
+    /**
+     * Выполняется проверка, что GET запросы и пути без ограничений
+     * не ограничиваются.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenGetOrUnlimitedPathThenPassed() throws IOException, ServletException {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/registration"),
+                    response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/registration"),
+                response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(200);
+        response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/registration"),
+                response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(RateLimitFilter.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * Выполняется проверка ограничения перебора контактов: проверки
+     * занятости почтового адреса сверх десяти на одну разрешенную
+     * регистрацию возвращают 429.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenContactChecksExceededThenTooManyRequests() throws IOException, ServletException {
+        for (int i = 0; i < 10; i++) {
+            assertThat(check("user" + i + "@mail.ru").getStatus()).isEqualTo(200);
+        }
+
+        assertThat(check("user10@mail.ru").getStatus())
+                .isEqualTo(RateLimitFilter.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * Вспомогательный метод выполняет запрос проверки занятости почтового адреса.
+     *
+     * @param email почтовый адрес
+     * @return ответ
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    private MockHttpServletResponse check(String email) throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/registration/check");
+        request.setParameter("email", email);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    /**
+     * Вспомогательный метод выполняет запрос входа в учетную запись.
+     *
+     * @param email почтовый адрес учетной записи
+     * @return ответ
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    private MockHttpServletResponse login(String email) throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setParameter("email", email);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
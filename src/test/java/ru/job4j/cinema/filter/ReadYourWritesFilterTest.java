@@ -0,0 +1,75 @@
+package ru.job4j.cinema.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import ru.job4j.cinema.datasource.ReadRouting;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест класс фильтра чтения своих записей
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ReadYourWritesFilter
+ */
+class ReadYourWritesFilterTest {
+
+    /**
+     * Фильтр чтения своих записей
+     */
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter();
+
+    /**
+     * Время из сессии привязывается к потоку на время обработки запроса,
+     * после обработки привязка снимается.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenSessionHasMarkerThenPrimaryRequiredDuringRequest()
+            throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/shows");
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(ReadYourWritesFilter.PRIMARY_UNTIL,
+                System.currentTimeMillis() + 60_000);
+        request.setSession(session);
+        List<Boolean> required = new ArrayList<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> required.add(ReadRouting.isPrimaryRequired()));
+
+        assertThat(required).containsExactly(true);
+        assertThat(ReadRouting.isPrimaryRequired()).isFalse();
+    }
+
+    /**
+     * Время после записи сохраняется в сессии в момент записи, до отправки
+     * перенаправления, если сессии нет, она создается.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenWriteThenMarkerStoredBeforeRedirect() throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/registration");
+        List<Object> stored = new ArrayList<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            ReadRouting.markWrite(60_000);
+            stored.add(request.getSession().getAttribute(ReadYourWritesFilter.PRIMARY_UNTIL));
+        });
+
+        assertThat(stored).hasSize(1);
+        assertThat((Long) stored.get(0)).isGreaterThan(System.currentTimeMillis());
+        assertThat(ReadRouting.getPrimaryUntil()).isNull();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.job4j.cinema.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест класс фильтра готовности приложения
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ReadinessFilter
+ */
+class ReadinessFilterTest {
+
+    /**
+     * Фильтр готовности приложения
+     */
+    private final ReadinessFilter filter = new ReadinessFilter();
+
+    /**
+     * До завершения прогрева запросы страниц и проверки готовности
+     * получают ответ 503 с заголовком Retry-After и не передаются дальше.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenNotReadyThenServiceUnavailable() throws IOException, ServletException {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse page = send("/shows", chain);
+        MockHttpServletResponse probe = send(ReadinessFilter.READY_PATH, new MockFilterChain());
+
+        assertThat(page.getStatus()).isEqualTo(503);
+        assertThat(page.getHeader("Retry-After")).isNotNull();
+        assertThat(chain.getRequest()).isNull();
+        assertThat(probe.getStatus()).isEqualTo(503);
+    }
+
+    /**
+     * После готовности приложения запросы передаются дальше,
+     * проверка готовности получает ответ 200.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenReadyThenRequestsPassed() throws IOException, ServletException {
+        filter.onReady();
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse page = send("/shows", chain);
+        MockHttpServletResponse probe = send(ReadinessFilter.READY_PATH, new MockFilterChain());
+
+        assertThat(page.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(probe.getStatus()).isEqualTo(200);
+        assertThat(probe.getContentAsString()).isEqualTo("OK");
+    }
+
+    /**
+     * Вспомогательный метод выполняет GET запрос через фильтр.
+     *
+     * @param path  путь запроса
+     * @param chain цепочка фильтров
+     * @return ответ
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    private MockHttpServletResponse send(String path, MockFilterChain chain)
+            throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.job4j.cinema.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.cinema.session.MemorySessionStore;
+import ru.job4j.cinema.session.SessionData;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест класс фильтра, заменяющего сессию контейнера сервлетов сессией
+ * из хранилища {@link MemorySessionStore}
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see SessionStoreFilter
+ */
+class SessionStoreFilterTest {
+
+    /**
+     * Хранилище сессий в памяти
+     */
+    private final MemorySessionStore sessionStore = new MemorySessionStore();
+
+    /**
+     * Фильтр с временем жизни сессии 1800 секунд
+     */
+    private final SessionStoreFilter filter = new SessionStoreFilter(sessionStore, 1800);
+
+    /**
+     * Выполняется проверка, что новая сессия записывается в хранилище
+     * до фиксации ответа перенаправлением, а пользователю отправляется
+     * cookie с ее идентификатором.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenRedirectThenSessionSavedBeforeCommit() throws IOException, ServletException {
+        AtomicReference<String> saved = new AtomicReference<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/login"), response, (req, res) -> {
+            String id = ((HttpServletRequest) req).getSession().getId();
+            ((HttpServletRequest) req).getSession().setAttribute("posRow", 3);
+            ((HttpServletResponse) res).sendRedirect("/shows");
+            sessionStore.load(id).ifPresent(data -> saved.set(data.getId()));
+        });
+
+        Cookie cookie = response.getCookie(SessionStoreFilter.COOKIE_NAME);
+        assertThat(saved.get()).isNotNull().isEqualTo(cookie.getValue());
+        assertThat(response.getRedirectedUrl()).isEqualTo("/shows");
+    }
+
+    /**
+     * Выполняется проверка, что сессия из хранилища выдается по cookie,
+     * а завершенная сессия удаляется из хранилища с удалением cookie.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenSessionInvalidatedThenDeletedFromStore() throws IOException, ServletException {
+        long now = System.currentTimeMillis();
+        sessionStore.save(new SessionData(
+                "abcdefghijklmnopqrstuvwx", now, now, 1800, new HashMap<>()));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/logout");
+        request.setCookies(new Cookie(SessionStoreFilter.COOKIE_NAME, "abcdefghijklmnopqrstuvwx"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> found = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> {
+            found.set(((HttpServletRequest) req).getSession(false).getId());
+            ((HttpServletRequest) req).getSession().invalidate();
+        });
+
+        assertThat(found.get()).isEqualTo("abcdefghijklmnopqrstuvwx");
+        assertThat(sessionStore.load("abcdefghijklmnopqrstuvwx")).isEmpty();
+        assertThat(response.getCookie(SessionStoreFilter.COOKIE_NAME).getMaxAge()).isZero();
+    }
+
+    /**
+     * Выполняется проверка, что запрос без обращения к сессии не создает
+     * сессию и не отправляет cookie, а сессия с истекшим сроком действия
+     * удаляется из хранилища.
+     *
+     * @throws IOException      при ошибке ввода вывода
+     * @throws ServletException при ошибке обработки запроса
+     */
+    @Test
+    void whenSessionNotUsedThenNothingSaved() throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long past = System.currentTimeMillis() - 1801 * 1000L;
+        sessionStore.save(new SessionData(
+                "abcdefghijklmnopqrstuvwx", past, past, 1800, new HashMap<>()));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/shows"), response,
+                (req, res) -> res.getWriter().flush());
+
+        assertThat(response.getCookie(SessionStoreFilter.COOKIE_NAME)).isNull();
+        assertThat(sessionStore.deleteExpired(System.currentTimeMillis())).isEqualTo(1);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.job4j.cinema.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.config.DataSourceConfig;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.CatalogueRevision;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тест класс реализации хранилища версии каталога сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see JdbcCatalogueVersionRepository
+ */
+class JdbcCatalogueVersionRepositoryTest {
+
+    /**
+     * Объект репозитория JdbcCatalogueVersionRepository
+     */
+    private JdbcCatalogueVersionRepository versionRepository;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    public void setup() {
+        versionRepository = new JdbcCatalogueVersionRepository(
+                new DataSourceConfig().loadPool());
+    }
+
+    /**
+     * После увеличения версии в базе данных читается следующий номер
+     * версии и время изменения.
+     */
+    @Test
+    void whenIncrementThenGetNextVersionFromDatabase() {
+        CatalogueRevision before = versionRepository.find().get();
+        long modifiedAt = before.getModifiedAt() + 1000;
+        CatalogueRevision incremented = versionRepository.increment(modifiedAt).get();
+
+        assertThat(incremented.getVersion()).isEqualTo(before.getVersion() + 1);
+        assertThat(incremented.getModifiedAt()).isEqualTo(modifiedAt);
+        assertThat(versionRepository.find()).contains(incremented);
+    }
+
+    /**
+     * Увеличение версии в отмененной транзакции не сохраняется.
+     */
+    @Test
+    void whenTransactionRolledBackThenVersionNotIncremented() {
+        CatalogueRevision before = versionRepository.find().get();
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(() -> {
+            versionRepository.increment(before.getModifiedAt());
+            Transactions.setRollbackOnly();
+        }));
+
+        assertThat(versionRepository.find()).contains(before);
+    }
+}
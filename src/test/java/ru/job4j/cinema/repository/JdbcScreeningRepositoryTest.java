@@ -0,0 +1,141 @@
+package ru.job4j.cinema.repository;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.config.DataSourceConfig;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест класс реализации хранилища показов сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see JdbcScreeningRepository
+ */
+class JdbcScreeningRepositoryTest {
+
+    /**
+     * SQL запрос по очистке от данных таблицы screenings
+     */
+    private static final String CLEAR_TABLE_SCREENINGS = """
+            DELETE FROM screenings
+            """;
+
+    /**
+     * SQL запрос по очистке от данных таблицы shows
+     */
+    private static final String CLEAR_TABLE_SHOWS = """
+            DELETE FROM shows
+            """;
+
+    /**
+     * Объект репозитория JdbcScreeningRepository
+     */
+    private JdbcScreeningRepository screeningRepository;
+
+    /**
+     * Сеанс
+     */
+    private Show show;
+
+    /**
+     * Показ
+     */
+    private Screening screening;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    public void setup() {
+        screeningRepository = new JdbcScreeningRepository(
+                new DataSourceConfig().loadPool());
+        show = Show.builder()
+                .name("name")
+                .description("description")
+                .build();
+        new JdbcShowRepository(new DataSourceConfig().loadPool()).save(show);
+        screening = Screening.builder()
+                .show(show)
+                .hall(1)
+                .startTime(LocalDateTime.of(2030, 1, 1, 18, 0))
+                .build();
+        screeningRepository.save(screening);
+    }
+
+    /**
+     * Очистка таблиц: screenings, shows, выполняется после каждого теста.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @AfterEach
+    public void wipeTable() throws SQLException {
+        try (BasicDataSource dataSource = new DataSourceConfig().loadPool();
+             Connection connection = dataSource.getConnection();
+             PreparedStatement statement1 = connection.prepareStatement(CLEAR_TABLE_SCREENINGS);
+             PreparedStatement statement2 = connection.prepareStatement(CLEAR_TABLE_SHOWS)
+        ) {
+            statement1.execute();
+            statement2.execute();
+        }
+    }
+
+    /**
+     * Создается объект screening и сохраняется в базе данных.
+     * По полю id объект находится в базе данных при помощи метода
+     * {@link JdbcScreeningRepository#findById(int)}, выполняется проверка
+     * времени начала и наименования сеанса.
+     */
+    @Test
+    void whenSaveScreeningThenGetTheSameFromDatabase() {
+        Screening screeningFromDB = screeningRepository.findById(screening.getId()).get();
+
+        assertThat(screeningFromDB.getStartTime()).isEqualTo(screening.getStartTime());
+        assertThat(screeningFromDB.getShow().getName()).isEqualTo(show.getName());
+    }
+
+    /**
+     * Создается объект screening2 с более ранним временем начала и сохраняется
+     * в базе данных. Через вызов метода
+     * {@link JdbcScreeningRepository#findAllStartingFrom(LocalDateTime)}
+     * выполняется проверка отбора по времени начала и порядка показов.
+     */
+    @Test
+    void whenFindAllStartingFromThenGetLaterScreeningsInOrder() {
+        Screening screening2 = Screening.builder()
+                .show(show)
+                .hall(2)
+                .startTime(LocalDateTime.of(2029, 12, 31, 18, 0))
+                .build();
+        screeningRepository.save(screening2);
+        List<Screening> all = screeningRepository.findAllStartingFrom(
+                LocalDateTime.of(2029, 1, 1, 0, 0));
+        List<Screening> later = screeningRepository.findAllStartingFrom(
+                LocalDateTime.of(2030, 1, 1, 0, 0));
+
+        assertThat(all).containsExactly(screening2, screening);
+        assertThat(later).containsExactly(screening);
+    }
+
+    /**
+     * После удаления показ не находится в базе данных.
+     */
+    @Test
+    void whenDeleteScreeningThenDoNotGetFromDatabase() {
+        assertThat(screeningRepository.deleteById(screening.getId())).isTrue();
+        assertThat(screeningRepository.findById(screening.getId())).isEqualTo(Optional.empty());
+    }
+}
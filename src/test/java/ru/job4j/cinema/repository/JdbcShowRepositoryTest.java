@@ -10,6 +10,7 @@ import ru.job4j.cinema.model.Show;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -194,4 +195,61 @@ class JdbcShowRepositoryTest {
         assertThat(shows.get(0).getName()).isEqualTo(show.getName());
         assertThat(shows.get(1).getName()).isEqualTo(show2.getName());
     }
-}
\ No newline at end of file
+
+    /**
+     * Создается список из 1200 сеансов, превышающий размер одного пакета,
+     * и сохраняется в базе данных при помощи метода
+     * {@link JdbcShowRepository#saveAll(List)}. Проверяется количество
+     * сохраненных сеансов и содержимое таблицы shows.
+     */
+    @Test
+    public void whenSaveAllThenAllShowsInDatabase() {
+        List<Show> imported = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            imported.add(Show.builder()
+                    .name("Imported" + i)
+                    .description("Description" + i)
+                    .posterName("")
+                    .build());
+        }
+
+        assertThat(showRepository.saveAll(imported)).isEqualTo(1200);
+        assertThat(showRepository.findAll()).hasSize(1201);
+    }
+
+    /**
+     * Создается список сеансов, один из которых без названия. Сохранение
+     * списка при помощи метода {@link JdbcShowRepository#saveAll(List)}
+     * отменяется полностью, в таблице shows остается только сеанс show.
+     */
+    @Test
+    public void whenSaveAllWithInvalidShowThenNothingSaved() {
+        List<Show> imported = List.of(
+                Show.builder().name("Imported").build(),
+                Show.builder().build());
+
+        assertThat(showRepository.saveAll(imported)).isEqualTo(0);
+        assertThat(showRepository.findAll()).hasSize(1);
+    }
+
+    /**
+     * Создаются объекты show, show2 и сохраняются в базе данных. Сеансы
+     * удаляются при помощи метода {@link JdbcShowRepository#deleteAllByIds(java.util.Collection)}
+     * по списку идентификаторов с повтором и отсутствующим идентификатором.
+     * Проверяется список удаленных сеансов и отсутствие сеансов в базе данных.
+     */
+    @Test
+    public void whenDeleteAllByIdsThenDeletedShowsReturned() {
+        Show show2 = Show.builder()
+                .name("Name2")
+                .posterName("poster2")
+                .build();
+        showRepository.save(show2);
+
+        List<Show> deleted = showRepository.deleteAllByIds(
+                List.of(show.getId(), show2.getId(), show2.getId(), show2.getId() + 1));
+
+        assertThat(deleted).containsExactlyInAnyOrder(show, show2);
+        assertThat(showRepository.findAll()).isEmpty();
+    }
+}
@@ -5,20 +5,24 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.job4j.cinema.config.DataSourceConfig;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.Screening;
 import ru.job4j.cinema.model.Show;
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketSummary;
 import ru.job4j.cinema.model.User;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-
 /**
  * Тест класс реализации хранилища билетов
  *
@@ -49,6 +53,13 @@ class JdbcTicketRepositoryTest {
             DELETE FROM tickets;
             """;
 
+    /**
+     * SQL запрос по очистке от данных таблицы screenings
+     */
+    private static final String CLEAR_TABLE_SCREENINGS = """
+            DELETE FROM screenings;
+            """;
+
     /**
      * Объект репозитория JdbcTicketRepository
      */
@@ -64,6 +75,11 @@ class JdbcTicketRepositoryTest {
      */
     private JdbcUserRepository userRepository;
 
+    /**
+     * Объект репозитория JdbcScreeningRepository
+     */
+    private JdbcScreeningRepository screeningRepository;
+
     /**
      * Билет
      */
@@ -79,6 +95,11 @@ class JdbcTicketRepositoryTest {
      */
     private Show show;
 
+    /**
+     * Показ сеанса
+     */
+    private Screening screening;
+
     /**
      * Создает необходимые для выполнения тестов общие объекты.
      * Создание выполняется перед каждым тестом.
@@ -91,6 +112,8 @@ class JdbcTicketRepositoryTest {
                 new DataSourceConfig().loadPool());
         userRepository = new JdbcUserRepository(
                 new DataSourceConfig().loadPool());
+        screeningRepository = new JdbcScreeningRepository(
+                new DataSourceConfig().loadPool());
         user = User.builder()
                 .id(1)
                 .username("username")
@@ -112,11 +135,13 @@ class JdbcTicketRepositoryTest {
                 .build();
         showRepository.save(show);
         userRepository.save(user);
+        screening = screeningOf(show);
+        ticket.setScreening(screening);
         ticketRepository.save(ticket);
     }
 
     /**
-     * Очистка таблиц: shows, users, tickets, выполняется после каждого теста.
+     * Очистка таблиц: tickets, screenings, shows, users, выполняется после каждого теста.
      *
      * @throws SQLException если происходит ошибка доступа к базе данных
      */
@@ -125,12 +150,14 @@ class JdbcTicketRepositoryTest {
         try (BasicDataSource dataSource = new DataSourceConfig().loadPool();
              Connection connection = dataSource.getConnection();
              PreparedStatement statement1 = connection.prepareStatement(CLEAR_TABLE_TICKETS);
-             PreparedStatement statement2 = connection.prepareStatement(CLEAR_TABLE_SHOWS);
-             PreparedStatement statement3 = connection.prepareStatement(CLEAR_TABLE_USERS)
+             PreparedStatement statement2 = connection.prepareStatement(CLEAR_TABLE_SCREENINGS);
+             PreparedStatement statement3 = connection.prepareStatement(CLEAR_TABLE_SHOWS);
+             PreparedStatement statement4 = connection.prepareStatement(CLEAR_TABLE_USERS)
         ) {
             statement1.execute();
             statement2.execute();
             statement3.execute();
+            statement4.execute();
         }
     }
 
@@ -222,6 +249,7 @@ class JdbcTicketRepositoryTest {
                 .build();
         showRepository.save(show2);
         userRepository.save(user2);
+        ticket2.setScreening(screeningOf(show2));
         ticketRepository.save(ticket2);
 
         assertThat(ticketRepository.findById(ticket.getId()).get()).isNotNull()
@@ -275,6 +303,7 @@ class JdbcTicketRepositoryTest {
                 .posRow(2)
                 .cell(2)
                 .user(user)
+                .screening(screening)
                 .build();
 
         ticketRepository.save(ticket2);
@@ -309,6 +338,7 @@ class JdbcTicketRepositoryTest {
                 .build();
         showRepository.save(show2);
         userRepository.save(user2);
+        ticket2.setScreening(screeningOf(show2));
         ticketRepository.save(ticket2);
         List<Ticket> tickets = ticketRepository.findAll();
         tickets.sort(Comparator.comparing(Ticket::getId));
@@ -317,4 +347,139 @@ class JdbcTicketRepositoryTest {
         assertThat(tickets.get(0)).isEqualTo(ticket);
         assertThat(tickets.get(1)).isEqualTo(ticket2);
     }
-}
\ No newline at end of file
+
+    /**
+     * Создаются объекты ticket2, ticket3 того же пользователя и сохраняются
+     * в базе данных. Через вызов метода
+     * {@link JdbcTicketRepository#findSummariesByUserId(int, int, int)}
+     * получаем две страницы по два билета и выполняем проверку порядка
+     * билетов от последнего к первому, названия сеансов не заполняются.
+     */
+    @Test
+    public void whenFindSummariesByUserIdThenGetPagesInDescendingOrder() {
+        Ticket ticket2 = Ticket.builder()
+                .show(show)
+                .posRow(1)
+                .cell(2)
+                .user(user)
+                .screening(screening)
+                .build();
+        Ticket ticket3 = Ticket.builder()
+                .show(show)
+                .posRow(1)
+                .cell(3)
+                .user(user)
+                .screening(screening)
+                .build();
+        ticketRepository.save(ticket2);
+        ticketRepository.save(ticket3);
+        List<TicketSummary> first = ticketRepository.findSummariesByUserId(
+                user.getId(), Integer.MAX_VALUE, 2);
+        List<TicketSummary> second = ticketRepository.findSummariesByUserId(
+                user.getId(), first.get(1).getId(), 2);
+
+        assertThat(first).extracting(TicketSummary::getCell).containsExactly(3, 2);
+        assertThat(first.get(0).getShowId()).isEqualTo(show.getId());
+        assertThat(first.get(0).getShowName()).isNull();
+        assertThat(second).extracting(TicketSummary::getCell).containsExactly(1);
+    }
+
+    /**
+     * Создается показ сеанса show и билет на этот показ. В одной транзакции
+     * на одном источнике данных удаляются билеты сеанса и сеанс при помощи метода
+     * {@link JdbcShowRepository#deleteAllByIds(java.util.Collection)}
+     * вместе с показами, проверяется отсутствие билетов сеанса и показа
+     * в базе данных.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    public void whenDeleteShowsByIdsThenTicketsAndScreeningsDeleted() throws SQLException {
+        ticketRepository.save(Ticket.builder()
+                .show(show)
+                .posRow(2)
+                .cell(2)
+                .user(user)
+                .screening(screening)
+                .build());
+
+        List<Show> deleted;
+        try (BasicDataSource pool = new DataSourceConfig().loadPool()) {
+            deleted = Transactions.inTransaction(() -> {
+                new JdbcTicketRepository(pool).deleteTicketsByShowIds(List.of(show.getId()));
+                return new JdbcShowRepository(pool).deleteAllByIds(List.of(show.getId()));
+            });
+        }
+
+        assertThat(deleted).containsExactly(show);
+        assertThat(ticketRepository.findAllTicketsByShowId(show.getId())).isEmpty();
+        assertThat(screeningRepository.findById(screening.getId())).isEmpty();
+        assertThat(showRepository.findById(show.getId())).isEmpty();
+    }
+
+    /**
+     * Создаются билеты сеанса show в первом и втором рядах. Количество
+     * проданных билетов находится при помощи метода
+     * {@link JdbcTicketRepository#countSoldByShowAndRow()} и проверяется
+     * по сеансу и рядам.
+     */
+    @Test
+    public void whenCountSoldByShowAndRowThenGetCountsByRow() {
+        ticketRepository.save(Ticket.builder().show(show).posRow(1).cell(2).user(user)
+                .screening(screening).build());
+        ticketRepository.save(Ticket.builder().show(show).posRow(2).cell(1).user(user)
+                .screening(screening).build());
+
+        Map<Integer, Map<Integer, Integer>> counts =
+                ticketRepository.countSoldByShowAndRow().get();
+
+        assertThat(counts).containsOnlyKeys(show.getId());
+        assertThat(counts.get(show.getId())).containsEntry(1, 2).containsEntry(2, 1).hasSize(2);
+    }
+
+    /**
+     * Место продается один раз на показ: билет на то же место того же
+     * показа не сохраняется, на другой показ сеанса - сохраняется.
+     * Билеты показа находятся при помощи метода
+     * {@link JdbcTicketRepository#findAllTicketsByScreeningId(int, int)}.
+     */
+    @Test
+    public void whenSameSeatOnOtherScreeningThenSaved() {
+        Screening other = screeningOf(show);
+        Optional<Ticket> sameScreening = ticketRepository.save(Ticket.builder()
+                .show(show).posRow(1).cell(1).user(user).screening(screening).build());
+        Optional<Ticket> otherScreening = ticketRepository.save(Ticket.builder()
+                .show(show).posRow(1).cell(1).user(user).screening(other).build());
+
+        assertThat(sameScreening).isEmpty();
+        assertThat(otherScreening).isPresent();
+        assertThat(ticketRepository.findAllTicketsByScreeningId(other.getId(), show.getId()))
+                .containsExactly(otherScreening.get());
+    }
+
+    /**
+     * Билет, показ которого относится к другому сеансу, не сохраняется.
+     */
+    @Test
+    public void whenScreeningOfOtherShowThenNotSaved() {
+        Show show2 = Show.builder().name("name2").description("description2").build();
+        showRepository.save(show2);
+
+        assertThat(ticketRepository.save(Ticket.builder().show(show2).posRow(3).cell(3)
+                .user(user).screening(screening).build())).isEmpty();
+    }
+
+    /**
+     * Вспомогательный метод сохраняет показ сеанса.
+     *
+     * @param show сеанс
+     * @return сохраненный показ
+     */
+    private Screening screeningOf(Show show) {
+        return screeningRepository.save(Screening.builder()
+                .show(show)
+                .hall(1)
+                .startTime(LocalDateTime.now().withNano(0))
+                .build()).get();
+    }
+}
@@ -11,12 +11,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-
 /**
  * Тест класс реализации хранилища пользователей
  *
@@ -201,4 +203,27 @@ class JdbcUserRepositoryTest {
         assertThat(users.get(0)).isEqualTo(user);
         assertThat(users.get(1)).isEqualTo(user2);
     }
-}
\ No newline at end of file
+
+    /**
+     * Создается объект user2 и сохраняется в базе данных.
+     * Через вызов метода {@link JdbcUserRepository#scanContacts(BiConsumer)}
+     * выполняем проверку, что просмотрены почтовые адреса и номера
+     * телефонов обоих пользователей.
+     */
+    @Test
+    public void whenScanContactsThenGetEmailsAndPhonesOfAllUsers() {
+        User user2 = User.builder()
+                .username("Name2")
+                .email("mail2@mail.com")
+                .phone("1232")
+                .password("password2")
+                .build();
+        userRepository.save(user2);
+        Map<String, String> contacts = new HashMap<>();
+        int count = userRepository.scanContacts(contacts::put);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(contacts).containsEntry("email", "phone")
+                .containsEntry("mail2@mail.com", "1232");
+    }
+}
@@ -0,0 +1,185 @@
+package ru.job4j.cinema.repository;
+
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.User;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Замер стоимости отображения строки результата SQL запроса в объект Ticket
+ * при чтении столбцов по именам и по номерам через {@link RowMapper}.
+ * Результат имеет набор столбцов билета с сеансом и пользователем,
+ * замер выполняется на базе данных H2 в памяти после прогрева.
+ * Запуск: метод main, аргумент - количество строк (по умолчанию 200000).
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ */
+public final class RowMapperBenchmark {
+
+    /**
+     * SQL запрос по выбору строк с набором столбцов запроса билетов
+     */
+    private static final String SELECT = """
+            SELECT id, show_id, pos_row, cell, user_id, screening_id, name,
+            description, postername, username, email, phone, password
+            FROM bench
+            """;
+
+    /**
+     * Количество прогревочных проходов по результату
+     */
+    private static final int WARMUP = 5;
+
+    /**
+     * Количество замеряемых проходов по результату
+     */
+    private static final int MEASURED = 10;
+
+    /**
+     * Отображение строк по номерам столбцов
+     */
+    private static final RowMapper<Ticket> MAPPER = new RowMapper<>(columns -> {
+        int id = columns.index("id");
+        int showId = columns.index("show_id");
+        int name = columns.index("name");
+        int description = columns.index("description");
+        int posterName = columns.index("posterName");
+        int posRow = columns.index("pos_row");
+        int cell = columns.index("cell");
+        int userId = columns.index("user_id");
+        int username = columns.index("username");
+        int email = columns.index("email");
+        int phone = columns.index("phone");
+        int password = columns.index("password");
+        return it -> new Ticket(it.getInt(id),
+                new Show(it.getInt(showId), it.getString(name),
+                        it.getString(description), it.getString(posterName)),
+                it.getInt(posRow), it.getInt(cell),
+                new User(it.getInt(userId), it.getString(username),
+                        it.getString(email), it.getString(phone), it.getString(password)),
+                null);
+    });
+
+    /**
+     * Закрытый конструктор служебного класса.
+     */
+    private RowMapperBenchmark() {
+    }
+
+    /**
+     * Выполняет замер и выводит стоимость отображения одной строки.
+     *
+     * @param args количество строк результата
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        try (Connection cn = DriverManager.getConnection("jdbc:h2:mem:mapper")) {
+            fill(cn, rows);
+            for (int i = 0; i < WARMUP; i++) {
+                read(cn, false);
+                read(cn, true);
+            }
+            long byName = 0;
+            long byIndex = 0;
+            for (int i = 0; i < MEASURED; i++) {
+                byName += read(cn, false);
+                byIndex += read(cn, true);
+            }
+            long total = (long) rows * MEASURED;
+            System.out.printf("Строк: %d, по именам: %d нс/строка, по номерам: %d нс/строка%n",
+                    rows, byName / total, byIndex / total);
+        }
+    }
+
+    /**
+     * Вспомогательный метод создает таблицу bench и заполняет ее строками.
+     *
+     * @param cn   соединение
+     * @param rows количество строк
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static void fill(Connection cn, int rows) throws SQLException {
+        try (Statement st = cn.createStatement()) {
+            st.execute("""
+                    CREATE TABLE bench (id INT, show_id INT, pos_row INT, cell INT,
+                    user_id INT, screening_id INT, name VARCHAR, description VARCHAR,
+                    postername VARCHAR, username VARCHAR, email VARCHAR, phone VARCHAR,
+                    password VARCHAR)
+                    """);
+        }
+        try (PreparedStatement ps = cn.prepareStatement(
+                "INSERT INTO bench VALUES (?, ?, ?, ?, ?, NULL, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                ps.setInt(1, i);
+                ps.setInt(2, i % 100);
+                ps.setInt(3, i % 10);
+                ps.setInt(4, i % 20);
+                ps.setInt(5, i % 1000);
+                ps.setString(6, "name" + i % 100);
+                ps.setString(7, "description" + i % 100);
+                ps.setString(8, "poster" + i % 100);
+                ps.setString(9, "user" + i % 1000);
+                ps.setString(10, "user" + i % 1000 + "@mail.ru");
+                ps.setString(11, "+7" + i % 1000);
+                ps.setString(12, "password");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Вспомогательный метод читает все строки результата и возвращает время
+     * отображения строк в объекты.
+     *
+     * @param cn      соединение
+     * @param byIndex true для чтения по номерам столбцов, false - по именам
+     * @return время в наносекундах
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static long read(Connection cn, boolean byIndex) throws SQLException {
+        long hash = 0;
+        long start;
+        long elapsed;
+        try (PreparedStatement ps = cn.prepareStatement(SELECT);
+             ResultSet it = ps.executeQuery()) {
+            start = System.nanoTime();
+            RowMapper.Reader<Ticket> reader = byIndex
+                    ? MAPPER.reader(it) : RowMapperBenchmark::readByName;
+            while (it.next()) {
+                hash += reader.read(it).getId();
+            }
+            elapsed = System.nanoTime() - start;
+        }
+        if (hash < 0) {
+            throw new IllegalStateException("Переполнение контрольной суммы");
+        }
+        return elapsed;
+    }
+
+    /**
+     * Вспомогательный метод выполняет создание объекта Ticket из объекта
+     * ResultSet чтением столбцов по именам.
+     *
+     * @param it ResultSet SQL запроса к базе данных
+     * @return объект Ticket
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static Ticket readByName(ResultSet it) throws SQLException {
+        return new Ticket(it.getInt("id"),
+                new Show(it.getInt("show_id"), it.getString("name"),
+                        it.getString("description"), it.getString("posterName")),
+                it.getInt("pos_row"), it.getInt("cell"),
+                new User(it.getInt("user_id"), it.getString("username"),
+                        it.getString("email"), it.getString("phone"), it.getString("password")),
+                null);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.job4j.cinema.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс отображения строк результата SQL запроса по номерам столбцов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see RowMapper
+ */
+class RowMapperTest {
+
+    /**
+     * Результат SQL запроса со столбцами ID, posterName и id
+     */
+    private ResultSet resultSet;
+
+    /**
+     * Создает результат SQL запроса перед каждым тестом.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @BeforeEach
+    void setup() throws SQLException {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(3);
+        when(metaData.getColumnLabel(1)).thenReturn("ID");
+        when(metaData.getColumnLabel(2)).thenReturn("posterName");
+        when(metaData.getColumnLabel(3)).thenReturn("id");
+        resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(resultSet.getInt(1)).thenReturn(7);
+        when(resultSet.getString(2)).thenReturn("poster.png");
+    }
+
+    /**
+     * Номера столбцов определяются один раз без учета регистра имен,
+     * строки читаются по номерам столбцов.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenReadRowsThenColumnsResolvedOnceAndReadByIndex() throws SQLException {
+        AtomicInteger compiled = new AtomicInteger();
+        RowMapper<String> mapper = new RowMapper<>(columns -> {
+            compiled.incrementAndGet();
+            int id = columns.index("id");
+            int posterName = columns.index("postername");
+            return it -> it.getInt(id) + ":" + it.getString(posterName);
+        });
+
+        assertThat(mapper.reader(resultSet).read(resultSet)).isEqualTo("7:poster.png");
+        assertThat(mapper.reader(resultSet).read(resultSet)).isEqualTo("7:poster.png");
+        assertThat(compiled.get()).isEqualTo(1);
+        verify(resultSet, times(1)).getMetaData();
+        verify(resultSet, never()).getInt(anyString());
+        verify(resultSet, never()).getString(anyString());
+    }
+
+    /**
+     * Если в результате нет столбца, выбрасывается SQLException.
+     */
+    @Test
+    void whenColumnMissingThenSQLException() {
+        RowMapper<String> mapper = new RowMapper<>(columns -> {
+            int name = columns.index("name");
+            return it -> it.getString(name);
+        });
+
+        assertThrows(SQLException.class, () -> mapper.reader(resultSet));
+    }
+}
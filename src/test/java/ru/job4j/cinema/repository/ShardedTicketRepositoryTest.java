@@ -0,0 +1,352 @@
+package ru.job4j.cinema.repository;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketSummary;
+import ru.job4j.cinema.model.User;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тест класс хранилища билетов, распределенных по шардам. Шарды - две
+ * базы данных H2 в памяти: шард 0 содержит таблицы основной базы данных,
+ * шард 1 - только таблицу tickets без внешних ключей, как шарды,
+ * создаваемые changelog db/shard/dbchangelog.xml.
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ShardedTicketRepository
+ */
+class ShardedTicketRepositoryTest {
+
+    /**
+     * SQL запросы создания таблиц основной базы данных (шарда 0)
+     */
+    private static final List<String> CREATE_MAIN_TABLES = List.of("""
+            CREATE TABLE IF NOT EXISTS users (
+              id SERIAL PRIMARY KEY,
+              username VARCHAR NOT NULL,
+              email VARCHAR NOT NULL UNIQUE,
+              phone VARCHAR NOT NULL UNIQUE,
+              password VARCHAR NOT NULL)
+            """, """
+            CREATE TABLE IF NOT EXISTS shows (
+              id SERIAL PRIMARY KEY,
+              name VARCHAR NOT NULL,
+              description TEXT,
+              postername VARCHAR)
+            """, """
+            CREATE TABLE IF NOT EXISTS screenings (
+              id SERIAL PRIMARY KEY,
+              show_id INT NOT NULL REFERENCES shows(id),
+              hall INT NOT NULL,
+              start_time TIMESTAMP NOT NULL)
+            """, """
+            CREATE TABLE IF NOT EXISTS tickets (
+              id SERIAL PRIMARY KEY,
+              show_id INT NOT NULL REFERENCES shows(id),
+              pos_row INT NOT NULL,
+              cell INT NOT NULL,
+              user_id INT NOT NULL REFERENCES users(id),
+              screening_id INT NOT NULL REFERENCES screenings(id),
+              CONSTRAINT uc_ticket UNIQUE (screening_id, pos_row, cell))
+            """);
+
+    /**
+     * SQL запросы создания таблиц дополнительного шарда
+     */
+    private static final List<String> CREATE_SHARD_TABLES = List.of("""
+            CREATE TABLE IF NOT EXISTS tickets (
+              id SERIAL PRIMARY KEY,
+              show_id INT NOT NULL,
+              pos_row INT NOT NULL,
+              cell INT NOT NULL,
+              user_id INT NOT NULL,
+              screening_id INT NOT NULL,
+              CONSTRAINT uc_ticket UNIQUE (screening_id, pos_row, cell))
+            """);
+
+    /**
+     * SQL запросы очистки таблицы tickets шарда
+     */
+    private static final List<String> CLEAR_TICKETS = List.of(
+            "DELETE FROM tickets", "ALTER TABLE tickets ALTER COLUMN id RESTART WITH 1");
+
+    /**
+     * SQL запросы очистки остальных таблиц основной базы данных
+     */
+    private static final List<String> CLEAR_MAIN_TABLES = List.of(
+            "DELETE FROM screenings", "DELETE FROM shows", "DELETE FROM users");
+
+    /**
+     * Источники данных шардов
+     */
+    private static List<BasicDataSource> dataSources;
+
+    /**
+     * Хранилище билетов
+     */
+    private ShardedTicketRepository ticketRepository;
+
+    /**
+     * Пользователь
+     */
+    private User user;
+
+    /**
+     * Сеанс шарда 0
+     */
+    private Show evenShow;
+
+    /**
+     * Сеанс шарда 1
+     */
+    private Show oddShow;
+
+    /**
+     * Создает базы данных шардов.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @BeforeAll
+    static void initShards() throws SQLException {
+        dataSources = List.of(createShard("shard0"), createShard("shard1"));
+        execute(dataSources.get(0), CREATE_MAIN_TABLES);
+        execute(dataSources.get(1), CREATE_SHARD_TABLES);
+    }
+
+    /**
+     * Закрывает базы данных шардов.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @AfterAll
+    static void closeShards() throws SQLException {
+        for (BasicDataSource dataSource : dataSources) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * Заполняет таблицы shows, screenings и users основной базы данных
+     * и создает хранилище. Выполняется перед каждым тестом.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @BeforeEach
+    void setup() throws SQLException {
+        execute(dataSources.get(0), List.of(
+                "INSERT INTO users (id, username, email, phone, password) "
+                        + "VALUES (1, 'username', 'email', 'phone', 'pass')",
+                "INSERT INTO shows (id, name, description) VALUES (2, 'even', 'description')",
+                "INSERT INTO shows (id, name, description) VALUES (3, 'odd', 'description')",
+                "INSERT INTO screenings (id, show_id, hall, start_time) "
+                        + "VALUES (2, 2, 1, CURRENT_TIMESTAMP)",
+                "INSERT INTO screenings (id, show_id, hall, start_time) "
+                        + "VALUES (3, 3, 1, CURRENT_TIMESTAMP)"));
+        ticketRepository = new ShardedTicketRepository(new ArrayList<>(dataSources), 1);
+        user = User.builder().id(1).username("username").email("email")
+                .phone("phone").password("pass").build();
+        evenShow = Show.builder().id(2).name("even").description("description").build();
+        oddShow = Show.builder().id(3).name("odd").description("description").build();
+    }
+
+    /**
+     * Очищает таблицы обоих шардов после каждого теста.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @AfterEach
+    void wipeTables() throws SQLException {
+        for (BasicDataSource dataSource : dataSources) {
+            execute(dataSource, CLEAR_TICKETS);
+        }
+        execute(dataSources.get(0), CLEAR_MAIN_TABLES);
+    }
+
+    /**
+     * Билет сохраняется в шард сеанса, номер шарда содержится в идентификаторе
+     * билета, поиск по идентификатору выполняется в этом шарде.
+     */
+    @Test
+    void whenSaveThenTicketStoredInShowShard() {
+        Ticket even = ticketRepository.save(ticket(evenShow, 1, 1)).get();
+        Ticket odd = ticketRepository.save(ticket(oddShow, 1, 1)).get();
+
+        assertThat(ticketRepository.shardOfShow(evenShow.getId())).isZero();
+        assertThat(ticketRepository.shardOfShow(oddShow.getId())).isEqualTo(1);
+        assertThat(Math.floorMod(even.getId(), 2)).isZero();
+        assertThat(Math.floorMod(odd.getId(), 2)).isEqualTo(1);
+        assertThat(ticketRepository.findById(odd.getId()).get().getShow().getId())
+                .isEqualTo(oddShow.getId());
+        assertThat(new JdbcTicketRepository(dataSources.get(1)).findAll()).hasSize(1);
+    }
+
+    /**
+     * Место сеанса продается один раз, одинаковые места разных сеансов
+     * продаются независимо.
+     */
+    @Test
+    void whenSeatSoldTwiceThenSecondSaveFails() {
+        assertThat(ticketRepository.save(ticket(oddShow, 1, 1))).isPresent();
+        assertThat(ticketRepository.save(ticket(oddShow, 1, 1))).isEmpty();
+        assertThat(ticketRepository.save(ticket(evenShow, 1, 1))).isPresent();
+    }
+
+    /**
+     * Запросы по всем шардам объединяют билеты и статистику продаж шардов.
+     */
+    @Test
+    void whenFindAllThenTicketsOfAllShardsReturned() {
+        ticketRepository.save(ticket(evenShow, 1, 1));
+        ticketRepository.save(ticket(oddShow, 1, 1));
+        ticketRepository.save(ticket(oddShow, 1, 2));
+
+        assertThat(ticketRepository.findAll()).hasSize(3);
+        assertThat(ticketRepository.findAllTicketsByShowId(oddShow.getId())).hasSize(2);
+        assertThat(ticketRepository.findAllTicketsByScreeningId(3, oddShow.getId()))
+                .extracting(ticket -> Math.floorMod(ticket.getId(), 2))
+                .containsExactly(1, 1);
+        assertThat(ticketRepository.countSoldByShowAndRow()).contains(Map.of(
+                evenShow.getId(), Map.of(1, 1), oddShow.getId(), Map.of(1, 2)));
+    }
+
+    /**
+     * Страницы истории пользователя объединяют билеты шардов по убыванию
+     * идентификатора без пропусков и повторов.
+     */
+    @Test
+    void whenPageHistoryThenTicketsOfAllShardsInDescendingOrder() {
+        List<Integer> ids = new ArrayList<>();
+        for (int cell = 1; cell <= 3; cell++) {
+            ids.add(ticketRepository.save(ticket(evenShow, 1, cell)).get().getId());
+            ids.add(ticketRepository.save(ticket(oddShow, 1, cell)).get().getId());
+        }
+        ids.sort((a, b) -> Integer.compare(b, a));
+
+        List<TicketSummary> first = ticketRepository.findSummariesByUserId(
+                user.getId(), Integer.MAX_VALUE, 4);
+        List<TicketSummary> second = ticketRepository.findSummariesByUserId(
+                user.getId(), first.get(first.size() - 1).getId(), 4);
+
+        assertThat(first).extracting(TicketSummary::getId).isEqualTo(ids.subList(0, 4));
+        assertThat(second).extracting(TicketSummary::getId).isEqualTo(ids.subList(4, 6));
+        assertThat(first).extracting(TicketSummary::getShowId)
+                .containsExactly(oddShow.getId(), evenShow.getId(),
+                        oddShow.getId(), evenShow.getId());
+    }
+
+    /**
+     * Если идентификатор билета шарда не помещается в идентификатор
+     * приложения, выбрасывается исключение и билет не сохраняется.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenShardIdOverflowsThenTicketNotSaved() throws SQLException {
+        execute(dataSources.get(1), List.of(
+                "ALTER TABLE tickets ALTER COLUMN id RESTART WITH " + Integer.MAX_VALUE));
+
+        assertThatThrownBy(() -> ticketRepository.save(ticket(oddShow, 1, 1)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasCauseInstanceOf(ArithmeticException.class);
+        assertThat(new JdbcTicketRepository(dataSources.get(1)).findAll()).isEmpty();
+    }
+
+    /**
+     * Обновление билета выполняется в шарде билета, перенос билета на сеанс
+     * другого шарда не выполняется, удаление выполняется в шарде билета.
+     */
+    @Test
+    void whenUpdateAndDeleteThenShardOfTicketUsed() {
+        Ticket saved = ticketRepository.save(ticket(oddShow, 1, 1)).get();
+        int id = saved.getId();
+        saved.setCell(5);
+
+        assertThat(ticketRepository.update(saved)).isTrue();
+        assertThat(saved.getId()).isEqualTo(id);
+        assertThat(ticketRepository.findById(id).get().getCell()).isEqualTo(5);
+        saved.setShow(evenShow);
+        assertThat(ticketRepository.update(saved)).isFalse();
+        assertThat(ticketRepository.deleteById(id)).isTrue();
+        assertThat(ticketRepository.findById(id)).isEmpty();
+    }
+
+    /**
+     * Удаление билетов нескольких сеансов выполняется в шарде каждого
+     * сеанса, билеты других сеансов остаются.
+     */
+    @Test
+    void whenDeleteTicketsByShowIdsThenTicketsOfShowsDeletedInTheirShards() {
+        ticketRepository.save(ticket(oddShow, 1, 1));
+        ticketRepository.save(ticket(oddShow, 1, 2));
+        ticketRepository.save(ticket(evenShow, 1, 1));
+
+        assertThat(ticketRepository.deleteTicketsByShowIds(
+                List.of(oddShow.getId(), evenShow.getId()))).isEqualTo(3);
+        assertThat(ticketRepository.findAll()).isEmpty();
+    }
+
+    /**
+     * Вспомогательный метод создает билет пользователя на показ сеанса
+     * с идентификатором сеанса.
+     *
+     * @param show   сеанс
+     * @param posRow номер ряда
+     * @param cell   номер кресла
+     * @return билет
+     */
+    private Ticket ticket(Show show, int posRow, int cell) {
+        return Ticket.builder().show(show).posRow(posRow).cell(cell).user(user)
+                .screening(Screening.builder().id(show.getId()).build()).build();
+    }
+
+    /**
+     * Вспомогательный метод создает источник данных базы данных H2 шарда в памяти.
+     * База данных существует до закрытия JVM.
+     *
+     * @param name имя базы данных
+     * @return источник данных
+     */
+    private static BasicDataSource createShard(String name) {
+        BasicDataSource pool = new BasicDataSource();
+        pool.setDriverClassName("org.h2.Driver");
+        pool.setUrl("jdbc:h2:mem:" + name
+                + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;CASE_INSENSITIVE_IDENTIFIERS=TRUE;");
+        return pool;
+    }
+
+    /**
+     * Вспомогательный метод выполняет SQL запросы.
+     *
+     * @param dataSource источник данных
+     * @param statements SQL запросы
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    private static void execute(DataSource dataSource, List<String> statements)
+            throws SQLException {
+        try (Connection cn = dataSource.getConnection()) {
+            for (String sql : statements) {
+                try (PreparedStatement ps = cn.prepareStatement(sql)) {
+                    ps.execute();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тест класс очереди допуска
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see AdmissionQueue
+ */
+class AdmissionQueueTest {
+
+    /**
+     * Пока накоплены допуски, пользователи допускаются сразу,
+     * далее ставятся в очередь по порядку.
+     */
+    @Test
+    void whenBurstExhaustedThenUsersWait() {
+        AdmissionQueue queue = new AdmissionQueue(true, 2, 2, 60);
+        long now = System.currentTimeMillis();
+        long first = queue.join(now);
+        long second = queue.join(now);
+        long third = queue.join(now);
+        long fourth = queue.join(now);
+
+        assertThat(queue.position(first, now)).isZero();
+        assertThat(queue.position(second, now)).isZero();
+        assertThat(queue.position(third, now)).isEqualTo(1);
+        assertThat(queue.position(fourth, now)).isEqualTo(2);
+        assertThat(queue.estimateSeconds(2)).isEqualTo(1);
+    }
+
+    /**
+     * Допуски начисляются со скоростью rate в секунду
+     * и выдаются номерам по порядку.
+     */
+    @Test
+    void whenTimePassesThenUsersAdmittedAtRate() {
+        AdmissionQueue queue = new AdmissionQueue(true, 2, 1, 60);
+        long now = System.currentTimeMillis();
+        queue.join(now);
+        long second = queue.join(now);
+        long third = queue.join(now);
+        long fourth = queue.join(now);
+
+        assertThat(queue.position(second, now + 400)).isEqualTo(1);
+        assertThat(queue.position(second, now + 600)).isZero();
+        assertThat(queue.position(fourth, now + 1100)).isEqualTo(1);
+        assertThat(queue.position(third, now + 1100)).isZero();
+        assertThat(queue.position(fourth, now + 1700)).isZero();
+    }
+
+    /**
+     * Номер, не выданный очередью, например сохраненный в сессии
+     * до перезапуска приложения, не считается выданным.
+     */
+    @Test
+    void whenNumberNotIssuedThenFalse() {
+        AdmissionQueue queue = new AdmissionQueue(true, 1, 1, 60);
+        long number = queue.join();
+
+        assertThat(queue.isIssued(number)).isTrue();
+        assertThat(queue.isIssued(number + 1)).isFalse();
+        assertThrows(IllegalArgumentException.class, () -> new AdmissionQueue(true, 0, 1, 60));
+    }
+}
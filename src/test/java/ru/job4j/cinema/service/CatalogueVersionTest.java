@@ -0,0 +1,118 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.CatalogueRevision;
+import ru.job4j.cinema.repository.CatalogueVersionRepository;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Тест класс версии каталога сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see CatalogueVersion
+ */
+class CatalogueVersionTest {
+
+    /**
+     * Хранилище версии каталога
+     */
+    private CatalogueVersionRepository repository;
+
+    /**
+     * Объект для доступа к методам CatalogueVersion
+     */
+    private CatalogueVersion catalogueVersion;
+
+    /**
+     * Количество выполнений обработчика изменения каталога
+     */
+    private AtomicInteger notified;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    public void setup() {
+        repository = Mockito.mock(CatalogueVersionRepository.class);
+        catalogueVersion = new CatalogueVersion(repository);
+        notified = new AtomicInteger();
+        catalogueVersion.addListener(notified::incrementAndGet);
+    }
+
+    /**
+     * Версия, увеличенная другим узлом, становится текущей после чтения
+     * из базы данных, обработчики изменения выполняются один раз.
+     */
+    @Test
+    void whenPolledNewerVersionThenVersionChangedAndListenersRun() {
+        doReturn(Optional.of(new CatalogueRevision(7, 1_650_000_000_500L)))
+                .when(repository).find();
+        catalogueVersion.poll();
+        catalogueVersion.poll();
+        assertThat(catalogueVersion.get()).isEqualTo(7);
+        assertThat(catalogueVersion.getLastModified()).isGreaterThanOrEqualTo(1_650_000_000_000L);
+        assertThat(notified.get()).isEqualTo(1);
+    }
+
+    /**
+     * Изменение на этом узле без пропущенных версий не выполняет
+     * обработчики изменения каталога другим узлом.
+     */
+    @Test
+    void whenIncrementedThenVersionChangedAndListenersNotRun() {
+        doReturn(Optional.of(new CatalogueRevision(1, 0))).when(repository).increment(anyLong());
+        assertThat(catalogueVersion.increment()).isEqualTo(1);
+        assertThat(catalogueVersion.get()).isEqualTo(1);
+        assertThat(notified.get()).isZero();
+    }
+
+    /**
+     * Версия, увеличенная в отмененной транзакции, не становится текущей.
+     */
+    @Test
+    void whenTransactionRolledBackThenVersionNotChanged() {
+        doReturn(Optional.of(new CatalogueRevision(1, 0))).when(repository).increment(anyLong());
+        assertThrows(IllegalArgumentException.class, () -> Transactions.inTransaction(() -> {
+            catalogueVersion.increment();
+            throw new IllegalArgumentException("Сеанс не сохранен");
+        }));
+        assertThat(catalogueVersion.get()).isZero();
+    }
+
+    /**
+     * Версия, увеличенная в транзакции, отмеченной для отмены, не становится
+     * текущей, транзакция завершается исключением.
+     */
+    @Test
+    void whenTransactionMarkedRollbackOnlyThenVersionNotChanged() {
+        doReturn(Optional.of(new CatalogueRevision(1, 0))).when(repository).increment(anyLong());
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(() -> {
+            catalogueVersion.increment();
+            Transactions.setRollbackOnly();
+        }));
+        assertThat(catalogueVersion.get()).isZero();
+    }
+
+    /**
+     * Если версия в базе данных не изменена, выбрасывается исключение,
+     * которое отменяет транзакцию изменения каталога.
+     */
+    @Test
+    void whenVersionNotIncrementedInDatabaseThenException() {
+        doReturn(Optional.empty()).when(repository).increment(anyLong());
+        assertThrows(IllegalStateException.class, catalogueVersion::increment);
+        assertThat(catalogueVersion.get()).isZero();
+    }
+}
@@ -0,0 +1,133 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тест класс реализации сервиса хеширования паролей
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ImplPasswordService
+ */
+class ImplPasswordServiceTest {
+
+    /**
+     * Хеш с большим количеством итераций, проверка которого занимает
+     * поток проверки паролей
+     */
+    private static final String SLOW_HASH = "pbkdf2$400000$AAAAAAAAAAAAAAAAAAAAAA$"
+            + "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+
+    /**
+     * Объект сервиса ImplPasswordService
+     */
+    private ImplPasswordService passwordService;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    public void setup() {
+        passwordService = new ImplPasswordService(1, 1000, 1000, 1, 1);
+    }
+
+    /**
+     * Хеш имеет формат pbkdf2$итерации$соль$хеш с подобранным при калибровке
+     * количеством итераций, хеши одного пароля различаются солью.
+     */
+    @Test
+    void whenEncodeThenFormatWithCalibratedIterations() {
+        String encoded = passwordService.encode("password");
+        String[] parts = encoded.split("\\$");
+
+        assertThat(parts).hasSize(4);
+        assertThat(parts[0]).isEqualTo("pbkdf2");
+        assertThat(Integer.parseInt(parts[1]))
+                .isEqualTo(passwordService.getMetrics().getIterations())
+                .isGreaterThanOrEqualTo(1000);
+        assertThat(Base64.getDecoder().decode(parts[2])).hasSize(16);
+        assertThat(Base64.getDecoder().decode(parts[3])).hasSize(32);
+        assertThat(passwordService.encode("password")).isNotEqualTo(encoded);
+        assertThat(passwordService.isEncoded(encoded)).isTrue();
+    }
+
+    /**
+     * Пароль совпадает со своим хешем и не совпадает с хешем другого пароля,
+     * пароль в открытом виде сравнивается без хеширования.
+     */
+    @Test
+    void whenMatchesThenOnlySamePassword() {
+        String encoded = passwordService.encode("password");
+
+        assertThat(passwordService.matches("password", encoded)).isTrue();
+        assertThat(passwordService.matches("Password", encoded)).isFalse();
+        assertThat(passwordService.matches(null, encoded)).isFalse();
+        assertThat(passwordService.matches("password", "password")).isTrue();
+        assertThat(passwordService.matches("password", "pbkdf2$broken")).isFalse();
+    }
+
+    /**
+     * Пересчет нужен паролям в открытом виде и хешам с меньшим количеством
+     * итераций, хеши с текущим и большим количеством итераций не пересчитываются.
+     */
+    @Test
+    void whenNeedsRehashThenOnlyPlainOrWeakerHash() {
+        int iterations = passwordService.getMetrics().getIterations();
+
+        assertThat(passwordService.needsRehash("password")).isTrue();
+        assertThat(passwordService.needsRehash("pbkdf2$" + (iterations - 1) + "$AA$AA")).isTrue();
+        assertThat(passwordService.needsRehash(passwordService.encode("password"))).isFalse();
+        assertThat(passwordService.needsRehash("pbkdf2$" + (iterations + 1) + "$AA$AA")).isFalse();
+    }
+
+    /**
+     * Время рабочих хешей учитывается в метриках, но не изменяет
+     * количество итераций.
+     */
+    @Test
+    void whenManyHashesThenIterationsNotChanged() {
+        int iterations = passwordService.getMetrics().getIterations();
+        for (int i = 0; i < 120; i++) {
+            passwordService.matches("password", SLOW_HASH.replace("400000", "20000"));
+        }
+
+        PasswordHashMetrics metrics = passwordService.getMetrics();
+        assertThat(metrics.getIterations()).isEqualTo(iterations);
+        assertThat(metrics.getHashes()).isEqualTo(120);
+        assertThat(metrics.getAverageMillis()).isPositive();
+    }
+
+    /**
+     * Если поток проверки занят, а очередь заполнена, проверка отклоняется,
+     * ожидание результата занятой проверки ограничено по времени.
+     *
+     * @throws Exception при ошибке ожидания результата проверки
+     */
+    @Test
+    void whenQueueFullThenRejectedAndWaitTimesOut() throws Exception {
+        CompletableFuture<Boolean> running = passwordService.matchesAsync("password", SLOW_HASH);
+        CompletableFuture<Boolean> queued = passwordService.matchesAsync("password", SLOW_HASH);
+        CompletableFuture<Boolean> rejected = passwordService.matchesAsync("password", SLOW_HASH);
+
+        assertThatThrownBy(() -> running.get(1, TimeUnit.MILLISECONDS))
+                .isInstanceOf(TimeoutException.class);
+        assertThatThrownBy(rejected::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(passwordService.getMetrics().getRejected()).isEqualTo(1);
+        assertThat(running.get()).isFalse();
+        assertThat(queued.get()).isFalse();
+    }
+}
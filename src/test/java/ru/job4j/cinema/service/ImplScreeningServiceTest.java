@@ -0,0 +1,136 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.job4j.cinema.model.CatalogueRevision;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.repository.CatalogueVersionRepository;
+import ru.job4j.cinema.repository.ScreeningRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Тест класс реализации сервисного слоя показов сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ImplScreeningService
+ */
+class ImplScreeningServiceTest {
+
+    /**
+     * Объект для доступа к методам ScreeningRepository
+     */
+    private ScreeningRepository screeningRepository;
+
+    /**
+     * Объект для доступа к методам ImplScreeningService
+     */
+    private ImplScreeningService screeningService;
+
+    /**
+     * Начало текущего дня
+     */
+    private LocalDateTime today;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    public void setup() {
+        screeningRepository = Mockito.mock(ScreeningRepository.class);
+        screeningService = new ImplScreeningService(screeningRepository, catalogueVersion());
+        today = LocalDate.now().atStartOfDay();
+        Show show = Show.builder().id(1).name("Show").build();
+        doReturn(List.of(
+                new Screening(1, show, 1, today.plusHours(10)),
+                new Screening(2, show, 1, today.plusHours(20)),
+                new Screening(3, show, 2, today.plusDays(3))
+        )).when(screeningRepository).findAllStartingFrom(today);
+    }
+
+    /**
+     * Выполняется проверка выборки показов за интервал времени: показы
+     * отбираются по времени начала, повторная выборка выполняется
+     * из расписания в памяти без обращения к screeningRepository.
+     */
+    @Test
+    void whenFindBetweenTwiceThenRepositoryCalledOnce() {
+        List<Screening> firstDay = screeningService.findBetween(today, today.plusDays(1));
+        List<Screening> week = screeningService.findBetween(today, today.plusDays(7));
+
+        assertThat(firstDay).extracting(Screening::getId).containsExactly(1, 2);
+        assertThat(week).extracting(Screening::getId).containsExactly(1, 2, 3);
+        verify(screeningRepository, times(1)).findAllStartingFrom(any());
+    }
+
+    /**
+     * Выполняется проверка загрузки расписания заново после добавления показа.
+     */
+    @Test
+    void whenSaveThenScheduleReloaded() {
+        Screening screening = Screening.builder().hall(1).startTime(today).build();
+        doReturn(Optional.of(screening)).when(screeningRepository).save(screening);
+        screeningService.findBetween(today, today.plusDays(1));
+        screeningService.save(screening);
+        screeningService.findBetween(today, today.plusDays(1));
+
+        verify(screeningRepository, times(2)).findAllStartingFrom(today);
+    }
+
+    /**
+     * Выполняется проверка выброса исключения, при возврате
+     * от screeningRepository false, т.е. если показ не найден.
+     */
+    @Test
+    void whenDeleteByIdThenThrowsException() {
+        doReturn(false).when(screeningRepository).deleteById(anyInt());
+
+        assertThrows(NoSuchElementException.class, () -> screeningService.deleteById(1));
+    }
+
+    /**
+     * Выполняется проверка, что показ находится только вместе с его сеансом,
+     * показ другого сеанса не находится.
+     */
+    @Test
+    void whenFindByIdAndShowIdThenOnlyScreeningOfShow() {
+        Screening screening = new Screening(1, Show.builder().id(1).build(), 1, today);
+        doReturn(Optional.of(screening)).when(screeningRepository).findById(1);
+
+        assertThat(screeningService.findByIdAndShowId(1, 1)).isEqualTo(screening);
+        assertThrows(NoSuchElementException.class,
+                () -> screeningService.findByIdAndShowId(1, 2));
+    }
+
+    /**
+     * Вспомогательный метод создает версию каталога с хранилищем,
+     * увеличивающим номер версии при каждом изменении.
+     *
+     * @return версия каталога сеансов
+     */
+    private static CatalogueVersion catalogueVersion() {
+        CatalogueVersionRepository repository = Mockito.mock(CatalogueVersionRepository.class);
+        AtomicLong versions = new AtomicLong();
+        Mockito.doAnswer(invocation -> Optional.of(new CatalogueRevision(
+                versions.incrementAndGet(), invocation.getArgument(0))))
+                .when(repository).increment(Mockito.anyLong());
+        return new CatalogueVersion(repository);
+    }
+}
@@ -0,0 +1,215 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockMultipartFile;
+import ru.job4j.cinema.model.CatalogueRevision;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.ShowImportResult;
+import ru.job4j.cinema.repository.CatalogueVersionRepository;
+import ru.job4j.cinema.repository.ShowRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс реализации сервиса загрузки каталога сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.ImplShowImportService
+ */
+class ImplShowImportServiceTest {
+
+    /**
+     * Объект для доступа к методам ShowRepository
+     */
+    private ShowRepository showRepository;
+
+    /**
+     * Версия каталога сеансов
+     */
+    private CatalogueVersion catalogueVersion;
+
+    /**
+     * Папка для хранения изображений
+     */
+    private Path uploadDir;
+
+    /**
+     * Объект для доступа к методам ImplShowImportService
+     */
+    private ImplShowImportService showImportService;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     *
+     * @param directory временная папка для хранения изображений
+     */
+    @BeforeEach
+    void setUp(@TempDir Path directory) {
+        showRepository = mock(ShowRepository.class);
+        catalogueVersion = catalogueVersion();
+        uploadDir = directory;
+        showImportService = new ImplShowImportService(showRepository, catalogueVersion,
+                new ShowSearchIndex(showRepository), directory.toString(), 3, 1024);
+    }
+
+    /**
+     * Корректный каталог сохраняется одним вызовом saveAll, из архива
+     * извлекается только постер, на который ссылается каталог,
+     * версия каталога увеличивается.
+     *
+     * @throws IOException если происходит ошибка записи архива
+     */
+    @Test
+    void whenImportValidCatalogueThenShowsSavedWithPosters() throws IOException {
+        doAnswer(invocation -> invocation.<List<Show>>getArgument(0).size())
+                .when(showRepository).saveAll(anyList());
+        long version = catalogueVersion.get();
+
+        ShowImportResult result = showImportService.importCatalogue(
+                csv("name;description;poster\nShow 1;Description;p1.jpg\nShow 2;;\n"),
+                zip("p1.jpg", "other.jpg"));
+
+        ArgumentCaptor<List<Show>> shows = ArgumentCaptor.forClass(List.class);
+        verify(showRepository).saveAll(shows.capture());
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(shows.getValue()).extracting(Show::getName).containsExactly("Show 1", "Show 2");
+        assertThat(shows.getValue().get(0).getPosterName()).endsWith(".p1.jpg");
+        assertThat(shows.getValue().get(1).getPosterName()).isEmpty();
+        assertThat(uploadDir.resolve(shows.getValue().get(0).getPosterName())).exists();
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+        assertThat(catalogueVersion.get()).isGreaterThan(version);
+        verify(showRepository).findAll();
+    }
+
+    /**
+     * Каталог с записью без названия и с постером, содержащим путь,
+     * не сохраняется, результат содержит ошибки с номерами строк.
+     */
+    @Test
+    void whenCatalogueHasInvalidRowsThenNothingSaved() {
+        ShowImportResult result = showImportService.importCatalogue(
+                csv("name;poster\n;p1.jpg\nShow;../p2.jpg\n"), null);
+
+        verify(showRepository, never()).saveAll(anyList());
+        assertThat(result.getImported()).isZero();
+        assertThat(result.getErrors()).hasSize(2);
+        assertThat(result.getErrors().get(0)).startsWith("Строка 2");
+        assertThat(result.getErrors().get(1)).startsWith("Строка 3");
+    }
+
+    /**
+     * Если постер отсутствует в архиве, сеансы не сохраняются,
+     * извлеченные постеры удаляются.
+     *
+     * @throws IOException если происходит ошибка записи архива
+     */
+    @Test
+    void whenPosterMissingInArchiveThenNothingSavedAndPostersDeleted() throws IOException {
+        ShowImportResult result = showImportService.importCatalogue(
+                csv("name;poster\nShow 1;p1.jpg\nShow 2;p2.jpg\n"), zip("p1.jpg"));
+
+        verify(showRepository, never()).saveAll(anyList());
+        assertThat(result.getErrors()).containsExactly("Постер p2.jpg отсутствует в архиве");
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    /**
+     * Каталог, содержащий больше допустимого количества сеансов, не сохраняется.
+     */
+    @Test
+    void whenCatalogueTooLargeThenNothingSaved() {
+        ShowImportResult result = showImportService.importCatalogue(
+                csv("name\nShow 1\nShow 2\nShow 3\nShow 4\n"), null);
+
+        verify(showRepository, never()).saveAll(anyList());
+        assertThat(result.getErrors()).containsExactly("Каталог содержит больше 3 сеансов");
+    }
+
+    /**
+     * Если сохранение в базе данных не выполнено, результат содержит
+     * ошибку, версия каталога не изменяется.
+     */
+    @Test
+    void whenSaveAllFailsThenErrorAndVersionNotChanged() {
+        doReturn(0).when(showRepository).saveAll(anyList());
+        long version = catalogueVersion.get();
+
+        ShowImportResult result = showImportService.importCatalogue(
+                csv("name\nShow 1\n"), null);
+
+        assertThat(result.getImported()).isZero();
+        assertThat(result.getErrors()).containsExactly("Сеансы не сохранены");
+        assertThat(catalogueVersion.get()).isEqualTo(version);
+    }
+
+    /**
+     * Вспомогательный метод создает файл каталога в формате CSV.
+     *
+     * @param content содержимое каталога
+     * @return файл каталога
+     */
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("catalogue", "catalogue.csv", "text/csv",
+                content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Вспомогательный метод создает zip архив постеров.
+     *
+     * @param names имена постеров
+     * @return файл архива
+     * @throws IOException если происходит ошибка записи архива
+     */
+    private static MockMultipartFile zip(String... names) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (String name : names) {
+                out.putNextEntry(new ZipEntry(name));
+                out.write(name.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return new MockMultipartFile("posters", "posters.zip", "application/zip",
+                bytes.toByteArray());
+    }
+
+    /**
+     * Вспомогательный метод создает версию каталога с хранилищем,
+     * увеличивающим номер версии при каждом изменении.
+     *
+     * @return версия каталога сеансов
+     */
+    private static CatalogueVersion catalogueVersion() {
+        CatalogueVersionRepository repository = Mockito.mock(CatalogueVersionRepository.class);
+        AtomicLong versions = new AtomicLong();
+        Mockito.doAnswer(invocation -> Optional.of(new CatalogueRevision(
+                versions.incrementAndGet(), invocation.getArgument(0))))
+                .when(repository).increment(Mockito.anyLong());
+        return new CatalogueVersion(repository);
+    }
+}
@@ -4,12 +4,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.mock.web.MockMultipartFile;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.CatalogueRevision;
+import ru.job4j.cinema.model.Screening;
 import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.repository.CatalogueVersionRepository;
 import ru.job4j.cinema.repository.JdbcShowRepository;
 import ru.job4j.cinema.repository.ShowRepository;
 import ru.job4j.cinema.repository.TicketRepository;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -34,6 +39,11 @@ class ImplShowServiceTest {
      */
     private TicketRepository ticketRepository;
 
+    /**
+     * Объект для фонового удаления файлов постеров
+     */
+    private PosterCleaner posterCleaner;
+
     /**
      * Объект для доступа к методам TicketController
      */
@@ -52,7 +62,11 @@ class ImplShowServiceTest {
     public void setup() {
         showRepository = Mockito.mock(ShowRepository.class);
         ticketRepository = Mockito.mock(TicketRepository.class);
-        showService = new ImplShowService(showRepository, ticketRepository);
+        posterCleaner = Mockito.mock(PosterCleaner.class);
+        showService = new ImplShowService(showRepository, ticketRepository,
+                new SeatRegistry(ticketRepository, screeningService(), 7, 15, 60_000),
+                catalogueVersion(),
+                posterCleaner, new ShowSearchIndex(showRepository));
         show = Show.builder()
                 .id(0)
                 .name("Show")
@@ -96,6 +110,23 @@ class ImplShowServiceTest {
         assertThat(showList.size()).isEqualTo(0);
     }
 
+    /**
+     * Выполняется проверка кэширования списка сеансов: повторный вызов
+     * не обращается к showRepository, пока каталог не изменен.
+     */
+    @Test
+    void whenFindAllTwiceThenRepositoryCalledOnceUntilSave() {
+        doReturn(List.of(show)).when(showRepository).findAll();
+        doReturn(Optional.of(show)).when(showRepository).save(show);
+        showService.findAll();
+        showService.findAll();
+        verify(showRepository, times(1)).findAll();
+
+        showService.save(show);
+        showService.findAll();
+        verify(showRepository, times(2)).findAll();
+    }
+
     /**
      * Выполняется проверка возвращения сеанса, при возврате
      * от showRepository Optional.of(show), т.е. если сеанс найден по идентификатору.
@@ -204,11 +235,11 @@ class ImplShowServiceTest {
      */
     @Test
     void whenDeleteByIdThenReturnTrue() {
-        doReturn(true).when(showRepository).deleteById(anyInt());
-        doReturn(Optional.of(show)).when(showRepository).findById(anyInt());
+        doReturn(List.of(show)).when(showRepository).deleteAllByIds(List.of(0));
         boolean result = showService.deleteById(0);
 
         assertThat(result).isEqualTo(true);
+        verify(posterCleaner).deleteAsync(List.of("Poster"));
     }
 
     /**
@@ -218,8 +249,125 @@ class ImplShowServiceTest {
      */
     @Test
     void whenDeleteByIdThenThrowsException() {
-        doReturn(false).when(showRepository).deleteById(anyInt());
+        doReturn(List.of()).when(showRepository).deleteAllByIds(anyCollection());
+
+        assertThrows(NoSuchElementException.class, () -> showService.deleteById(1));
+    }
+
+    /**
+     * Выполняется проверка удаления нескольких сеансов: возвращается
+     * количество удаленных сеансов, состояние мест удаленных сеансов
+     * загружается повторно, постеры удаляются одним фоновым заданием.
+     */
+    @Test
+    void whenDeleteAllByIdsThenSeatsReloadedAndPostersDeleted() {
+        Show show1 = Show.builder()
+                .id(1)
+                .name("Show1")
+                .posterName("Poster1")
+                .build();
+        doReturn(List.of(show, show1)).when(showRepository).deleteAllByIds(List.of(0, 1, 2));
+        showService.getRows(1);
+
+        int result = showService.deleteAllByIds(List.of(0, 1, 2));
+        showService.getRows(1);
+
+        assertThat(result).isEqualTo(2);
+        verify(ticketRepository).deleteTicketsByShowIds(List.of(0, 1, 2));
+        verify(ticketRepository, times(2)).findAllTicketsByScreeningId(1, 1);
+        verify(posterCleaner).deleteAsync(List.of("Poster", "Poster1"));
+    }
+
+    /**
+     * Выполняется проверка, что при ошибке удаления билетов сеанса в шарде
+     * транзакция отменяется: сеансы не считаются удаленными, постеры
+     * не удаляются.
+     */
+    @Test
+    void whenTicketsNotDeletedInShardThenShowsNotDeleted() {
+        doAnswer(invocation -> {
+            Transactions.setRollbackOnly();
+            return 0;
+        }).when(ticketRepository).deleteTicketsByShowIds(List.of(0, 2));
+        doReturn(List.of(show)).when(showRepository).deleteAllByIds(List.of(0, 2));
+
+        int result = showService.deleteAllByIds(List.of(0, 2));
 
-        assertThrows(NoSuchElementException.class, () -> showService.deleteById(anyInt()));
+        assertThat(result).isZero();
+        verify(posterCleaner, never()).deleteAsync(anyList());
+    }
+
+    /**
+     * Выполняется проверка, что при изменении постера старый постер
+     * удаляется в фоновом потоке после обновления сеанса.
+     */
+    @Test
+    void whenUpdateWithNewPosterThenOldPosterDeleted() {
+        Show updated = Show.builder()
+                .id(show.getId())
+                .name("Show")
+                .posterName("NewPoster")
+                .build();
+        doReturn(Optional.of(show)).when(showRepository).findById(show.getId());
+        doReturn(true).when(showRepository).update(updated);
+
+        showService.update(updated);
+
+        verify(posterCleaner).deleteAsync(List.of("Poster"));
+    }
+
+    /**
+     * Выполняется проверка, что сохраненный сеанс находится поиском
+     * без обращения к хранилищу, а удаленный сеанс не находится.
+     */
+    @Test
+    void whenSaveAndDeleteThenSearchIndexUpdated() {
+        Show saved = Show.builder()
+                .id(5)
+                .name("Царство против разбойников")
+                .posterName("")
+                .build();
+        doReturn(Optional.of(saved)).when(showRepository).save(saved);
+        doReturn(List.of(saved)).when(showRepository).deleteAllByIds(List.of(5));
+
+        showService.save(saved);
+
+        assertThat(showService.search("разбойники")).containsExactly(saved);
+        assertThat(showService.suggest("царст")).containsExactly("Царство против разбойников");
+
+        showService.deleteById(5);
+
+        assertThat(showService.search("разбойники")).isEmpty();
+        verify(showRepository, never()).findAll();
+    }
+
+    /**
+     * Вспомогательный метод создает версию каталога с хранилищем,
+     * увеличивающим номер версии при каждом изменении.
+     *
+     * @return версия каталога сеансов
+     */
+    private static CatalogueVersion catalogueVersion() {
+        CatalogueVersionRepository repository = Mockito.mock(CatalogueVersionRepository.class);
+        AtomicLong versions = new AtomicLong();
+        Mockito.doAnswer(invocation -> Optional.of(new CatalogueRevision(
+                versions.incrementAndGet(), invocation.getArgument(0))))
+                .when(repository).increment(Mockito.anyLong());
+        return new CatalogueVersion(repository);
+    }
+
+    /**
+     * Вспомогательный метод создает сервис показов, возвращающий по любому
+     * идентификатору показ сеанса с идентификатором 1.
+     *
+     * @return сервис показов
+     */
+    private static ScreeningService screeningService() {
+        ScreeningService screeningService = Mockito.mock(ScreeningService.class);
+        Mockito.doAnswer(invocation -> Screening.builder()
+                .id(invocation.getArgument(0))
+                .show(Show.builder().id(1).build())
+                .build()).when(screeningService).findById(Mockito.anyInt());
+        return screeningService;
     }
-}
\ No newline at end of file
+}
@@ -3,21 +3,32 @@ package ru.job4j.cinema.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import ru.job4j.cinema.datasource.Transactions;
+import ru.job4j.cinema.model.Screening;
 import ru.job4j.cinema.model.Show;
 import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.TicketHistoryPage;
+import ru.job4j.cinema.model.TicketSummary;
 import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.repository.CatalogueVersionRepository;
 import ru.job4j.cinema.repository.JdbcShowRepository;
 import ru.job4j.cinema.repository.TicketRepository;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Тест класс реализации сервисного слоя билетов
@@ -38,6 +49,16 @@ class ImplTicketServiceTest {
      */
     private ImplTicketService ticketService;
 
+    /**
+     * Статистика продаж билетов
+     */
+    private SalesStatistics salesStatistics;
+
+    /**
+     * Объект для доступа к методам UserService
+     */
+    private UserService userService;
+
     /**
      * Сеанс
      */
@@ -60,7 +81,13 @@ class ImplTicketServiceTest {
     @BeforeEach
     public void setup() {
         ticketRepository = Mockito.mock(TicketRepository.class);
-        ticketService = new ImplTicketService(ticketRepository);
+        ShowService showService = Mockito.mock(ShowService.class);
+        userService = Mockito.mock(UserService.class);
+        salesStatistics = new SalesStatistics(ticketRepository, 7, 15);
+        ticketService = new ImplTicketService(ticketRepository, new TicketHistoryCache(10),
+                new CatalogueVersion(Mockito.mock(CatalogueVersionRepository.class)),
+                new SeatRegistry(ticketRepository, screeningService(), 7, 15, 60_000),
+                salesStatistics, new TicketReferences(showService, userService), 2);
         show = Show.builder()
                 .id(1)
                 .name("Show")
@@ -74,12 +101,15 @@ class ImplTicketServiceTest {
                 .password("123")
                 .phone("+79000000000")
                 .build();
+        doReturn(List.of(show)).when(showService).findAll();
+        doReturn(user).when(userService).findById(1);
         ticket = Ticket.builder()
                 .id(1)
                 .show(show)
                 .user(user)
                 .posRow(1)
                 .cell(1)
+                .screening(Screening.builder().id(1).show(show).build())
                 .build();
 
     }
@@ -145,6 +175,31 @@ class ImplTicketServiceTest {
         assertThat(ticketFromDB).isNotNull();
     }
 
+    /**
+     * Сеанс и пользователь билета, прочитанного из хранилища по ссылкам,
+     * загружаются из каталога сеансов и сервиса пользователей, каждый
+     * пользователь загружается один раз на список билетов.
+     */
+    @Test
+    void whenFindAllThenReferencesLoaded() {
+        Ticket first = Ticket.builder().id(1).posRow(1).cell(1)
+                .show(Show.builder().id(1).build())
+                .user(User.builder().id(1).build())
+                .build();
+        Ticket second = Ticket.builder().id(2).posRow(1).cell(2)
+                .show(Show.builder().id(1).build())
+                .user(User.builder().id(1).build())
+                .build();
+        doReturn(List.of(first, second)).when(ticketRepository).findAll();
+        List<Ticket> tickets = ticketService.findAll();
+
+        assertThat(tickets).extracting(found -> found.getShow().getName())
+                .containsExactly("Show", "Show");
+        assertThat(tickets).extracting(found -> found.getUser().getEmail())
+                .containsExactly("user@mail.ru", "user@mail.ru");
+        verify(userService, times(1)).findById(1);
+    }
+
     /**
      * Выполняется проверка выброса исключения, при возврате от
      * ticketRepository Optional.empty(), если билет не найден по идентификатору.
@@ -180,18 +235,80 @@ class ImplTicketServiceTest {
         assertThrows(IllegalArgumentException.class, () -> ticketService.save(ticket));
     }
 
+    /**
+     * Выполняется проверка, что во время сохранения билета в базе данных
+     * место уже занято в состоянии мест показа, а чтение состояния из другого
+     * потока не ждет завершения сохранения. Если сохранение не выполнено,
+     * место освобождается.
+     *
+     * @throws Exception при ошибке выполнения потока чтения
+     */
+    @Test
+    void whenSavingThenSeatReservedAndReadersNotBlocked() throws Exception {
+        SeatRegistry seatRegistry = new SeatRegistry(
+                ticketRepository, screeningService(), 7, 15, 60_000);
+        ticketService = new ImplTicketService(ticketRepository, new TicketHistoryCache(10),
+                new CatalogueVersion(Mockito.mock(CatalogueVersionRepository.class)),
+                seatRegistry, salesStatistics,
+                new TicketReferences(Mockito.mock(ShowService.class), userService), 2);
+        List<Boolean> seen = new ArrayList<>();
+        doAnswer(invocation -> {
+            CompletableFuture<Boolean> free = CompletableFuture.supplyAsync(
+                    () -> seatRegistry.get(1).isFree(1, 1));
+            seen.add(free.get(5, TimeUnit.SECONDS));
+            return Optional.empty();
+        }).when(ticketRepository).save(ticket);
+
+        assertThrows(IllegalArgumentException.class, () -> ticketService.save(ticket));
+
+        assertThat(seen).containsExactly(false);
+        assertThat(seatRegistry.get(1).isFree(1, 1)).isTrue();
+    }
+
+    /**
+     * Выполняется проверка, что билет без выбранного показа сеанса
+     * не сохраняется.
+     */
+    @Test
+    void whenSaveWithoutScreeningThenThrowsException() {
+        ticket.setScreening(null);
+
+        assertThrows(IllegalArgumentException.class, () -> ticketService.save(ticket));
+        verify(ticketRepository, times(0)).save(ticket);
+    }
+
     /**
      * Выполняется проверка обновление билета, при возврате от
      * ticketRepository true, т.е. если билет был сохранен.
      */
     @Test
     void whenUpdateThenReturnTrue() {
+        doReturn(Optional.of(ticket)).when(ticketRepository).findById(anyInt());
         doReturn(true).when(ticketRepository).update(ticket);
         boolean result = ticketService.update(ticket);
 
         assertThat(result).isEqualTo(true);
     }
 
+    /**
+     * Выполняется проверка, что история покупок, помещенная в кэш во время
+     * обновления билета, удаляется из кэша после фиксации обновления.
+     */
+    @Test
+    void whenHistoryCachedDuringUpdateThenReloadedAfterUpdate() {
+        doReturn(Optional.of(ticket)).when(ticketRepository).findById(anyInt());
+        doReturn(List.of()).when(ticketRepository).findSummariesByUserId(1, Integer.MAX_VALUE, 3);
+        doAnswer(invocation -> {
+            ticketService.findHistory(1, null);
+            return true;
+        }).when(ticketRepository).update(ticket);
+
+        ticketService.update(ticket);
+        ticketService.findHistory(1, null);
+
+        verify(ticketRepository, times(2)).findSummariesByUserId(1, Integer.MAX_VALUE, 3);
+    }
+
     /**
      * Выполняется проверка выброса исключения, при возврате от
      * ticketRepository false, т.е. если билет не был обновлен.
@@ -209,6 +326,7 @@ class ImplTicketServiceTest {
      */
     @Test
     void whenDeleteByIdThenReturnTrue() {
+        doReturn(Optional.of(ticket)).when(ticketRepository).findById(anyInt());
         doReturn(true).when(ticketRepository).deleteById(anyInt());
         boolean result = ticketService.deleteById(anyInt());
 
@@ -250,4 +368,140 @@ class ImplTicketServiceTest {
 
         assertThrows(NoSuchElementException.class, () -> ticketService.deleteById(anyInt()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняется проверка постраничной выдачи истории покупок: при наличии
+     * билетов сверх размера страницы возвращается идентификатор начала
+     * следующей страницы, названия сеансов берутся из каталога, повторный запрос
+     * первой страницы выполняется из кэша до покупки пользователем нового билета.
+     */
+    @Test
+    void whenFindHistoryTwiceThenRepositoryCalledOnceUntilSave() {
+        List<TicketSummary> tickets = List.of(
+                new TicketSummary(3, 1, null, 1, 3),
+                new TicketSummary(2, 1, null, 1, 2),
+                new TicketSummary(1, 1, null, 1, 1));
+        doReturn(tickets).when(ticketRepository)
+                .findSummariesByUserId(user.getId(), Integer.MAX_VALUE, 3);
+        doReturn(Optional.of(ticket)).when(ticketRepository).save(ticket);
+        TicketHistoryPage page = ticketService.findHistory(user.getId(), null);
+        ticketService.findHistory(user.getId(), null);
+
+        assertThat(page.getTickets()).extracting(TicketSummary::getShowName)
+                .containsExactly(show.getName(), show.getName());
+        assertThat(page.getNextBefore()).isEqualTo(2);
+        verify(ticketRepository, times(1))
+                .findSummariesByUserId(user.getId(), Integer.MAX_VALUE, 3);
+
+        ticketService.save(ticket);
+        ticketService.findHistory(user.getId(), null);
+
+        verify(ticketRepository, times(2))
+                .findSummariesByUserId(user.getId(), Integer.MAX_VALUE, 3);
+    }
+
+    /**
+     * Выполняется проверка возврата билета: место освобождается и сразу
+     * доступно для повторной продажи, до возврата повторная продажа
+     * отклоняется после проверки состояния мест в базе данных без попытки
+     * сохранения билета.
+     */
+    @Test
+    void whenCancelThenSeatCanBeSoldAgain() {
+        doReturn(Optional.of(ticket)).when(ticketRepository).save(ticket);
+        doReturn(Optional.of(ticket)).when(ticketRepository).findById(ticket.getId());
+        doReturn(true).when(ticketRepository).deleteById(ticket.getId());
+        ticketService.save(ticket);
+        doReturn(List.of(ticket)).when(ticketRepository).findAllTicketsByScreeningId(1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> ticketService.save(ticket));
+        verify(ticketRepository, times(1)).save(ticket);
+
+        ticketService.cancel(ticket.getId(), user.getId());
+        ticketService.save(ticket);
+
+        verify(ticketRepository, times(2)).save(ticket);
+    }
+
+    /**
+     * Выполняется проверка, что место, занятое по состоянию в памяти,
+     * но возвращенное другим экземпляром приложения, продается после
+     * проверки состояния мест в базе данных.
+     */
+    @Test
+    void whenSeatReturnedOnOtherNodeThenSoldAfterDatabaseCheck() {
+        doReturn(Optional.of(ticket)).when(ticketRepository).save(ticket);
+        ticketService.save(ticket);
+        doReturn(List.of()).when(ticketRepository).findAllTicketsByScreeningId(1, 1);
+
+        assertThat(ticketService.save(ticket)).isEqualTo(ticket);
+        verify(ticketRepository, times(2)).save(ticket);
+    }
+
+    /**
+     * Выполняется проверка, что при отмене транзакции, в которой выполнен
+     * возврат билета, место не освобождается и статистика продаж
+     * не изменяется.
+     */
+    @Test
+    void whenCancelRolledBackThenSeatStaysSold() {
+        doReturn(Optional.of(ticket)).when(ticketRepository).save(ticket);
+        doReturn(Optional.of(ticket)).when(ticketRepository).findById(ticket.getId());
+        doReturn(true).when(ticketRepository).deleteById(ticket.getId());
+        ticketService.save(ticket);
+        doReturn(List.of(ticket)).when(ticketRepository).findAllTicketsByScreeningId(1, 1);
+
+        assertThrows(IllegalStateException.class, () -> Transactions.inTransaction(() -> {
+            ticketService.cancel(ticket.getId(), user.getId());
+            throw new IllegalStateException("Ошибка внешнего блока");
+        }));
+
+        assertThat(salesStatistics.getSales(List.of(show)).get(0).getSold()).isEqualTo(1);
+        assertThrows(IllegalArgumentException.class, () -> ticketService.save(ticket));
+    }
+
+    /**
+     * Выполняется проверка выброса исключения при возврате
+     * билета, принадлежащего другому пользователю.
+     */
+    @Test
+    void whenCancelTicketOfOtherUserThenThrowsException() {
+        doReturn(Optional.of(ticket)).when(ticketRepository).findById(ticket.getId());
+
+        assertThrows(NoSuchElementException.class,
+                () -> ticketService.cancel(ticket.getId(), user.getId() + 1));
+    }
+
+    /**
+     * Выполняется проверка учета продажи и возврата билета
+     * в статистике продаж.
+     */
+    @Test
+    void whenSaveAndCancelThenSalesStatisticsUpdated() {
+        doReturn(Optional.of(ticket)).when(ticketRepository).save(ticket);
+        doReturn(Optional.of(ticket)).when(ticketRepository).findById(ticket.getId());
+        doReturn(true).when(ticketRepository).deleteById(ticket.getId());
+        ticketService.save(ticket);
+
+        assertThat(salesStatistics.getSales(List.of(show)).get(0).getSold()).isEqualTo(1);
+
+        ticketService.cancel(ticket.getId(), user.getId());
+
+        assertThat(salesStatistics.getSales(List.of(show)).get(0).getSold()).isEqualTo(0);
+    }
+
+    /**
+     * Вспомогательный метод создает сервис показов, возвращающий по любому
+     * идентификатору показ сеанса с идентификатором 1.
+     *
+     * @return сервис показов
+     */
+    private static ScreeningService screeningService() {
+        ScreeningService screeningService = Mockito.mock(ScreeningService.class);
+        Mockito.doAnswer(invocation -> Screening.builder()
+                .id(invocation.getArgument(0))
+                .show(Show.builder().id(1).build())
+                .build()).when(screeningService).findById(Mockito.anyInt());
+        return screeningService;
+    }
+}
@@ -11,11 +11,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Тест класс реализации сервисного слоя пользователей
@@ -48,7 +52,11 @@ class ImplUserServiceTest {
     @BeforeEach
     public void setup() {
         userRepository = Mockito.mock(UserRepository.class);
-        userService = new ImplUserService(userRepository);
+        UserContactIndex contactIndex = new UserContactIndex(userRepository, 100, 0.01);
+        contactIndex.rebuild();
+        userService = new ImplUserService(userRepository,
+                new ImplPasswordService(1, 1000, 1000, 1, 4), new UserCache(100),
+                contactIndex, 2000);
         user = User.builder()
                 .id(1)
                 .username("user")
@@ -218,11 +226,61 @@ class ImplUserServiceTest {
     @Test
     void whenValidateUserLoginThenReturnUser() {
         doReturn(Optional.of(user)).when(userRepository).findUserByEmail(user.getEmail());
+        doReturn(true).when(userRepository).update(any());
         User userFromDB = userService.validateUserLogin(user);
 
         assertThat(userFromDB).isEqualTo(user);
     }
 
+    /**
+     * Выполняется проверка сохранения пароля пользователя в виде хеша.
+     */
+    @Test
+    void whenSaveThenPasswordEncoded() {
+        doReturn(Optional.of(user)).when(userRepository).save(user);
+        User userFromDB = userService.save(user);
+
+        assertThat(userFromDB.getPassword()).startsWith("pbkdf2$");
+        assertThat(userService.matchesPassword(userFromDB, "123")).isTrue();
+    }
+
+    /**
+     * Выполняется проверка, что проверка пароля, не выполненная за отведенное
+     * время, отменяется и не остается в очереди пула проверки паролей.
+     */
+    @Test
+    void whenPasswordCheckTimedOutThenCheckCancelled() {
+        PasswordService passwordService = Mockito.mock(PasswordService.class);
+        CompletableFuture<Boolean> check = new CompletableFuture<>();
+        doReturn(check).when(passwordService).matchesAsync("123", user.getPassword());
+        ImplUserService service = new ImplUserService(userRepository, passwordService,
+                new UserCache(100), new UserContactIndex(userRepository, 100, 0.01), 10);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.matchesPassword(user, "123"));
+        assertThat(check.isCancelled()).isTrue();
+    }
+
+    /**
+     * Выполняется проверка перевода пароля, хранящегося в открытом виде,
+     * в хеш при успешном входе пользователя.
+     */
+    @Test
+    void whenValidateUserLoginWithPlainPasswordThenPasswordRehashed() {
+        User userFromDB = User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .password("123")
+                .phone(user.getPhone())
+                .build();
+        doReturn(Optional.of(userFromDB)).when(userRepository).findUserByEmail(user.getEmail());
+        doReturn(true).when(userRepository).update(any());
+        userService.validateUserLogin(user);
+
+        assertThat(userFromDB.getPassword()).startsWith("pbkdf2$");
+    }
+
     /**
      * Выполняется проверка валидации пользователя по email и паролю, введенных на
      * форме входа, при возврате от userRepository user и не совпадении пароля,
@@ -242,4 +300,49 @@ class ImplUserServiceTest {
         assertThrows(IllegalArgumentException.class,
                 () -> userService.validateUserLogin(newUser));
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняется проверка поиска пользователя по email и телефону в кэше:
+     * после сохранения пользователь не запрашивается из userRepository,
+     * после обновления пользователь запрашивается повторно.
+     */
+    @Test
+    void whenFindUserAfterSaveThenUseCacheUntilUpdate() {
+        doReturn(Optional.of(user)).when(userRepository).save(user);
+        doReturn(true).when(userRepository).update(any());
+        userService.save(user);
+
+        assertThat(userService.findUserByEmail(user.getEmail()).getUsername()).isEqualTo("user");
+        assertThat(userService.findUserByPhone(user.getPhone()).getUsername()).isEqualTo("user");
+        verify(userRepository, times(0)).findUserByEmail(user.getEmail());
+
+        doReturn(Optional.of(user)).when(userRepository).findUserByEmail(user.getEmail());
+        userService.update(user);
+        userService.findUserByEmail(user.getEmail());
+
+        verify(userRepository, times(1)).findUserByEmail(user.getEmail());
+    }
+
+    /**
+     * Выполняется проверка занятости почтового адреса: до регистрации
+     * адрес свободен без обращения к userRepository, после регистрации
+     * повторное сохранение пользователя с тем же адресом отклоняется.
+     */
+    @Test
+    void whenEmailRegisteredThenSaveThrowsException() {
+        assertThat(userService.isEmailTaken(user.getEmail())).isFalse();
+        verify(userRepository, times(0)).findUserByEmail(user.getEmail());
+
+        doReturn(Optional.of(user)).when(userRepository).save(any());
+        userService.save(user);
+        User duplicate = User.builder()
+                .username("other")
+                .email(user.getEmail())
+                .password("123")
+                .phone("+79000000009")
+                .build();
+
+        assertThat(userService.isEmailTaken(user.getEmail())).isTrue();
+        assertThrows(IllegalArgumentException.class, () -> userService.save(duplicate));
+    }
+}
@@ -0,0 +1,75 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.model.User;
+import ru.job4j.cinema.repository.TicketRepository;
+import ru.job4j.cinema.repository.UserRepository;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс запросов к базе данных, выполняемых при прогреве в обход кэшей
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.QueryWarmUp
+ */
+class QueryWarmUpTest {
+
+    /**
+     * Объект для доступа к методам TicketRepository
+     */
+    private TicketRepository ticketRepository;
+
+    /**
+     * Объект для доступа к методам UserRepository
+     */
+    private UserRepository userRepository;
+
+    /**
+     * Объект QueryWarmUp
+     */
+    private QueryWarmUp queryWarmUp;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        userRepository = mock(UserRepository.class);
+        queryWarmUp = new QueryWarmUp(ticketRepository, userRepository);
+    }
+
+    /**
+     * Запросы истории покупок и пользователя выполняются в хранилищах
+     * для покупателя первого билета показа.
+     */
+    @Test
+    void whenTicketsSoldThenBuyerQueried() {
+        doReturn(List.of(Ticket.builder().user(User.builder().id(7).build()).build()))
+                .when(ticketRepository).findAllTicketsByScreeningId(5, 1);
+
+        queryWarmUp.run(5, 1);
+
+        verify(ticketRepository).findSummariesByUserId(7, Integer.MAX_VALUE, 21);
+        verify(userRepository).findById(7);
+    }
+
+    /**
+     * Если билетов показа нет, запросы выполняются с несуществующим
+     * идентификатором пользователя.
+     */
+    @Test
+    void whenNoTicketsThenQueriedWithMissingUser() {
+        queryWarmUp.run(5, 1);
+
+        verify(ticketRepository).findSummariesByUserId(0, Integer.MAX_VALUE, 21);
+        verify(userRepository).findById(0);
+    }
+}
@@ -0,0 +1,139 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.ShowSales;
+import ru.job4j.cinema.repository.TicketRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс статистики продаж билетов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.SalesStatistics
+ */
+class SalesStatisticsTest {
+
+    /**
+     * Объект для доступа к методам TicketRepository
+     */
+    private TicketRepository ticketRepository;
+
+    /**
+     * Статистика продаж билетов
+     */
+    private SalesStatistics statistics;
+
+    /**
+     * Сеанс
+     */
+    private Show show;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        statistics = new SalesStatistics(ticketRepository, 3, 4);
+        show = Show.builder().id(1).name("Show").build();
+    }
+
+    /**
+     * Выполняется проверка учета проданных и возвращенных билетов по рядам.
+     */
+    @Test
+    void whenTicketsSoldAndReturnedThenCountsByRow() {
+        statistics.ticketSold(show.getId(), 1);
+        statistics.ticketSold(show.getId(), 1);
+        statistics.ticketSold(show.getId(), 3);
+        statistics.ticketReturned(show.getId(), 1);
+
+        ShowSales sales = statistics.getSales(List.of(show)).get(0);
+
+        assertThat(sales.getSold()).isEqualTo(2);
+        assertThat(sales.getCapacity()).isEqualTo(12);
+        assertThat(sales.getRowSold()).containsExactly(1, 0, 1);
+        assertThat(sales.getOccupancy()).isEqualTo(16);
+    }
+
+    /**
+     * Выполняется проверка сброса статистики сеанса после удаления билетов.
+     */
+    @Test
+    void whenShowClearedThenNoSales() {
+        statistics.ticketSold(show.getId(), 2);
+        statistics.showCleared(show.getId());
+
+        assertThat(statistics.getSales(List.of(show)).get(0).getSold()).isZero();
+    }
+
+    /**
+     * Выполняется проверка замены счетчиков результатом группового запроса.
+     */
+    @Test
+    void whenReconcileThenCountsReplaced() {
+        statistics.ticketSold(show.getId(), 1);
+        statistics.ticketSold(2, 1);
+        doReturn(Optional.of(Map.of(show.getId(), Map.of(2, 3))))
+                .when(ticketRepository).countSoldByShowAndRow();
+
+        boolean result = statistics.reconcile();
+        ShowSales sales = statistics.getSales(List.of(show)).get(0);
+
+        assertThat(result).isTrue();
+        assertThat(sales.getRowSold()).containsExactly(0, 3, 0);
+        assertThat(statistics.getSales(List.of(Show.builder().id(2).build())).get(0).getSold())
+                .isZero();
+        assertThat(statistics.getReconciledAt()).isPositive();
+    }
+
+    /**
+     * Выполняется проверка, что продажи во время группового запроса
+     * не откладывают сверку: билеты, проданные во время запроса,
+     * применяются к его результату.
+     */
+    @Test
+    void whenTicketsSoldDuringQueryThenReplayedOnLoadedCounts() {
+        doAnswer(invocation -> {
+            statistics.ticketSold(show.getId(), 1);
+            statistics.ticketSold(show.getId(), 2);
+            return Optional.of(Map.of(show.getId(), Map.of(1, 1)));
+        }).when(ticketRepository).countSoldByShowAndRow();
+
+        boolean result = statistics.reconcile();
+
+        assertThat(result).isTrue();
+        assertThat(statistics.getSales(List.of(show)).get(0).getRowSold())
+                .containsExactly(2, 1, 0);
+        verify(ticketRepository, times(1)).countSoldByShowAndRow();
+    }
+
+    /**
+     * Выполняется проверка, что удаление билетов сеанса во время группового
+     * запроса применяется к его результату, а после сверки журнал
+     * изменений не ведется.
+     */
+    @Test
+    void whenShowClearedDuringQueryThenNoSalesAfterReconcile() {
+        doAnswer(invocation -> {
+            statistics.showCleared(show.getId());
+            return Optional.of(Map.of(show.getId(), Map.of(1, 4)));
+        }).when(ticketRepository).countSoldByShowAndRow();
+
+        statistics.reconcile();
+        statistics.ticketSold(show.getId(), 3);
+
+        assertThat(statistics.getSales(List.of(show)).get(0).getRowSold())
+                .containsExactly(0, 0, 1);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.Ticket;
+import ru.job4j.cinema.repository.TicketRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс реестра состояний мест кинозала по показам сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.SeatRegistry
+ */
+class SeatRegistryTest {
+
+    /**
+     * Объект для доступа к методам TicketRepository
+     */
+    private TicketRepository ticketRepository;
+
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private ScreeningService screeningService;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        ticketRepository = mock(TicketRepository.class);
+        screeningService = mock(ScreeningService.class);
+        doReturn(Screening.builder().id(1).show(Show.builder().id(3).build()).build())
+                .when(screeningService).findById(1);
+        doReturn(List.of(Ticket.builder().posRow(1).cell(2).build()))
+                .when(ticketRepository).findAllTicketsByScreeningId(1, 3);
+    }
+
+    /**
+     * До истечения срока использования состояние выдается из памяти,
+     * после истечения загружается из шарда сеанса показа повторно,
+     * сеанс показа определяется один раз.
+     */
+    @Test
+    void whenTtlExpiredThenStateReloaded() {
+        SeatRegistry cached = new SeatRegistry(
+                ticketRepository, screeningService, 7, 15, 60_000);
+        cached.get(1);
+        cached.get(1);
+        verify(ticketRepository, times(1)).findAllTicketsByScreeningId(1, 3);
+
+        SeatRegistry expired = new SeatRegistry(
+                ticketRepository, screeningService, 7, 15, 0);
+        expired.get(1);
+        assertThat(expired.get(1).isFree(1, 2)).isFalse();
+        verify(ticketRepository, times(3)).findAllTicketsByScreeningId(1, 3);
+        verify(screeningService, times(2)).findById(1);
+    }
+
+    /**
+     * Состояния, срок использования которых истек, удаляются из реестра.
+     */
+    @Test
+    void whenEvictExpiredThenOldStatesRemoved() {
+        SeatRegistry seatRegistry = new SeatRegistry(
+                ticketRepository, screeningService, 7, 15, 1000);
+        doReturn(Screening.builder().id(2).show(Show.builder().id(3).build()).build())
+                .when(screeningService).findById(2);
+        seatRegistry.get(1);
+        seatRegistry.get(2);
+
+        assertThat(seatRegistry.evictExpired(System.currentTimeMillis())).isZero();
+        assertThat(seatRegistry.evictExpired(System.currentTimeMillis() + 1000)).isEqualTo(2);
+        assertThat(seatRegistry.size()).isZero();
+    }
+}
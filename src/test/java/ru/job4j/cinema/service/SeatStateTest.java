@@ -0,0 +1,132 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.SeatRecommendation;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тест класс состояния мест кинозала
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see SeatState
+ */
+class SeatStateTest {
+
+    /**
+     * Занятое место отсутствует в списке свободных мест ряда,
+     * после освобождения место снова свободно.
+     */
+    @Test
+    void whenOccupyAndReleaseThenFreeCellsUpdated() {
+        SeatState seats = new SeatState(2, 3);
+
+        assertThat(seats.occupy(1, 2)).isTrue();
+        assertThat(seats.occupy(1, 2)).isFalse();
+        assertThat(seats.freeCells(1)).containsExactly(1, 3);
+        assertThat(seats.getSold()).isEqualTo(1);
+
+        assertThat(seats.release(1, 2)).isTrue();
+        assertThat(seats.freeCells(1)).containsExactly(1, 2, 3);
+        assertThat(seats.getSold()).isEqualTo(0);
+    }
+
+    /**
+     * Полностью проданный ряд отсутствует в списке рядов со свободными местами.
+     */
+    @Test
+    void whenRowSoldOutThenRowNotInFreeRows() {
+        SeatState seats = new SeatState(2, 64);
+        for (int cell = 1; cell <= 64; cell++) {
+            seats.occupy(2, cell);
+        }
+
+        assertThat(seats.rowsWithFreeSeats()).containsExactly(1);
+        assertThat(seats.freeMask(2)).isEqualTo(0);
+    }
+
+    /**
+     * Место вне кинозала приводит к исключению.
+     */
+    @Test
+    void whenCellOutOfHallThenThrowsException() {
+        SeatState seats = new SeatState(2, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> seats.occupy(1, 4));
+        assertThrows(IllegalArgumentException.class, () -> seats.isFree(3, 1));
+    }
+
+    /**
+     * В свободном зале рекомендуются места в центральном ряду
+     * посередине ряда.
+     */
+    @Test
+    void whenHallEmptyThenRecommendCentre() {
+        SeatState seats = new SeatState(7, 15);
+
+        assertThat(seats.recommend(3)).contains(new SeatRecommendation(4, List.of(7, 8, 9)));
+        assertThat(seats.recommend(15).get().getCells()).hasSize(15);
+    }
+
+    /**
+     * В зале с четным числом рядов из двух центральных рядов, а при занятых
+     * центральных рядах из двух равноудаленных от центра рядов, рекомендуется
+     * ряд с большим номером.
+     */
+    @Test
+    void whenRowsEvenThenTieGoesToLargerRow() {
+        SeatState seats = new SeatState(4, 10);
+
+        assertThat(seats.recommend(2)).contains(new SeatRecommendation(3, List.of(5, 6)));
+
+        for (int cell = 1; cell <= 10; cell++) {
+            seats.occupy(2, cell);
+            seats.occupy(3, cell);
+        }
+
+        assertThat(seats.recommend(2)).contains(new SeatRecommendation(4, List.of(5, 6)));
+    }
+
+    /**
+     * Если в центральном ряду нет подходящих мест рядом с центром,
+     * рекомендуются места в центре соседнего ряда, а при занятых соседних
+     * рядах - подряд идущие места у края центрального ряда.
+     */
+    @Test
+    void whenCentreOccupiedThenRecommendNearestContiguousSeats() {
+        SeatState seats = new SeatState(3, 10);
+        for (int cell = 2; cell <= 8; cell++) {
+            seats.occupy(2, cell);
+        }
+
+        assertThat(seats.recommend(2)).contains(new SeatRecommendation(3, List.of(5, 6)));
+
+        for (int cell = 1; cell <= 10; cell++) {
+            seats.occupy(1, cell);
+            seats.occupy(3, cell);
+        }
+
+        assertThat(seats.recommend(2)).contains(new SeatRecommendation(2, List.of(9, 10)));
+        assertThat(seats.recommend(3)).isEmpty();
+    }
+
+    /**
+     * Если подряд идущих свободных мест нет, рекомендация отсутствует,
+     * количество мест вне ряда приводит к исключению.
+     */
+    @Test
+    void whenNoContiguousSeatsThenEmpty() {
+        SeatState seats = new SeatState(1, 5);
+        seats.occupy(1, 2);
+        seats.occupy(1, 4);
+
+        assertThat(seats.recommend(2)).isEmpty();
+        assertThat(seats.recommend(1)).isPresent();
+        assertThrows(IllegalArgumentException.class, () -> seats.recommend(6));
+        assertThrows(IllegalArgumentException.class, () -> seats.recommend(0));
+    }
+}
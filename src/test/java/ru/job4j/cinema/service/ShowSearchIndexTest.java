@@ -0,0 +1,156 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.repository.ShowRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс поискового индекса сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ShowSearchIndex
+ */
+class ShowSearchIndexTest {
+
+    /**
+     * Объект для доступа к методам ShowRepository
+     */
+    private ShowRepository showRepository;
+
+    /**
+     * Поисковый индекс сеансов
+     */
+    private ShowSearchIndex searchIndex;
+
+    /**
+     * Создает индекс по трем сеансам из хранилища.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        showRepository = mock(ShowRepository.class);
+        doReturn(List.of(
+                show(1, "Царство против разбойников", "Юный царевич нанимает актеров"),
+                show(2, "Новогодний переполох", "Фред отправляется к Деду Морозу"),
+                show(3, "СантаМэн", "Новогоднее приключение, разбойники тоже есть")))
+                .when(showRepository).findAll();
+        searchIndex = new ShowSearchIndex(showRepository);
+        searchIndex.rebuild();
+    }
+
+    /**
+     * Поиск находит разные формы слова, совпадение в названии
+     * весит больше совпадения в описании.
+     */
+    @Test
+    void whenSearchWordFormThenNameMatchFirst() {
+        assertThat(searchIndex.search("разбойник ", 10))
+                .extracting(Show::getId).containsExactly(1, 3);
+        assertThat(searchIndex.search("новогодние ", 10))
+                .extracting(Show::getId).containsExactly(2, 3);
+    }
+
+    /**
+     * Все слова запроса должны присутствовать в сеансе,
+     * служебные слова запроса пропускаются.
+     */
+    @Test
+    void whenSearchSeveralWordsThenAllWordsRequired() {
+        assertThat(searchIndex.search("новогоднее и приключение ", 10))
+                .extracting(Show::getId).containsExactly(3);
+    }
+
+    /**
+     * Последнее слово запроса ищется по префиксу, подсказки
+     * содержат названия сеансов.
+     */
+    @Test
+    void whenSuggestByPrefixThenShowNames() {
+        assertThat(searchIndex.suggest("царев", 10))
+                .containsExactly("Царство против разбойников");
+        assertThat(searchIndex.suggest("деду мор", 10))
+                .containsExactly("Новогодний переполох");
+        assertThat(searchIndex.suggest("деду мор ", 10)).isEmpty();
+    }
+
+    /**
+     * После обновления сеанса поиск находит сеанс по новым словам и не
+     * находит по старым, после удаления сеанс не находится.
+     */
+    @Test
+    void whenPutAndRemoveThenIndexUpdated() {
+        searchIndex.put(show(2, "Зимний переполох", "Описание"));
+
+        assertThat(searchIndex.search("новогодний ", 10))
+                .extracting(Show::getId).containsExactly(3);
+        assertThat(searchIndex.search("зимний", 10))
+                .extracting(Show::getId).containsExactly(2);
+
+        searchIndex.remove(2);
+
+        assertThat(searchIndex.search("переполох", 10)).isEmpty();
+        assertThat(searchIndex.search("описание", 10)).isEmpty();
+    }
+
+    /**
+     * Во время чтения сеансов при построении индекса поиск другого потока
+     * выполняется по прежнему индексу без ожидания, изменение сеанса
+     * во время построения сохраняется в новом индексе.
+     *
+     * @throws Exception если поток поиска не завершился
+     */
+    @Test
+    void whenRebuildReadsShowsThenSearchNotBlockedAndChangesKept() throws Exception {
+        List<List<Show>> found = new ArrayList<>();
+        doAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> {
+                found.add(searchIndex.search("переполох", 10));
+                searchIndex.put(show(2, "Зимний переполох", "Описание"));
+            }).get(5, TimeUnit.SECONDS);
+            return List.of(show(2, "Новогодний переполох", "Описание"));
+        }).when(showRepository).findAll();
+
+        searchIndex.rebuild();
+
+        assertThat(found.get(0)).extracting(Show::getId).containsExactly(2);
+        assertThat(searchIndex.search("зимний", 10)).extracting(Show::getName)
+                .containsExactly("Зимний переполох");
+        assertThat(searchIndex.search("новогодний ", 10)).isEmpty();
+    }
+
+    /**
+     * Пустой запрос и запрос из служебных слов не находят сеансов.
+     */
+    @Test
+    void whenQueryBlankThenEmptyResult() {
+        assertThat(searchIndex.search("   ", 10)).isEmpty();
+        assertThat(searchIndex.search("и в ", 10)).isEmpty();
+    }
+
+    /**
+     * Вспомогательный метод создает сеанс.
+     *
+     * @param id          идентификатор сеанса
+     * @param name        название сеанса
+     * @param description описание сеанса
+     * @return сеанс
+     */
+    private static Show show(int id, String name, String description) {
+        return Show.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .posterName("")
+                .build();
+    }
+}
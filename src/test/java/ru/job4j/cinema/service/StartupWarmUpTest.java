@@ -0,0 +1,143 @@
+package ru.job4j.cinema.service;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.Screening;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.view.CatalogueRenderer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Тест класс прогрева приложения при запуске
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ru.job4j.cinema.service.StartupWarmUp
+ */
+class StartupWarmUpTest {
+
+    /**
+     * Pool соединений основной базы данных
+     */
+    private BasicDataSource pool;
+
+    /**
+     * Объект для доступа к методам ShowService
+     */
+    private ShowService showService;
+
+    /**
+     * Объект для доступа к методам ScreeningService
+     */
+    private ScreeningService screeningService;
+
+    /**
+     * Объект для выполнения запросов в обход кэшей
+     */
+    private QueryWarmUp queryWarmUp;
+
+    /**
+     * Объект для формирования фрагмента каталога сеансов
+     */
+    private CatalogueRenderer catalogueRenderer;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        pool = mock(BasicDataSource.class);
+        showService = mock(ShowService.class);
+        screeningService = mock(ScreeningService.class);
+        queryWarmUp = mock(QueryWarmUp.class);
+        catalogueRenderer = mock(CatalogueRenderer.class);
+        doReturn(List.of(Show.builder().id(1).build(), Show.builder().id(2).build()))
+                .when(showService).findAll();
+        Show show = Show.builder().id(1).build();
+        doReturn(List.of(Screening.builder().id(5).show(show).build(),
+                Screening.builder().id(6).show(show).build()))
+                .when(screeningService).findToday();
+        doReturn(List.of(1, 2)).when(showService).getRows(anyInt());
+    }
+
+    /**
+     * Прогрев открывает соединения pool, загружает состояния мест показов текущего дня
+     * и заданное количество раз повторяет формирование каталога шаблонизатором
+     * и запросы в обход кэшей.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenRunThenPoolStartedAndPagesRepeated() throws SQLException {
+        new StartupWarmUp(pool, showService, screeningService, queryWarmUp,
+                catalogueRenderer, 3, 10_000)
+                .run(null);
+
+        verify(pool).start();
+        verify(catalogueRenderer).render();
+        verify(catalogueRenderer, times(3)).renderTemplate();
+        verify(queryWarmUp, times(3)).run(6, 1);
+        verify(showService, times(3)).findById(1);
+        verify(showService, times(4)).getRows(6);
+        verify(showService, times(3)).getCells(6, 1);
+    }
+
+    /**
+     * Поиск сеансов повторяется не для всего каталога, а для выборки
+     * из 20 сеансов, равномерно распределенных по списку.
+     */
+    @Test
+    void whenCatalogueLargeThenShowSampleRepeated() {
+        List<Show> shows = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            shows.add(Show.builder().id(id).build());
+        }
+        doReturn(shows).when(showService).findAll();
+
+        new StartupWarmUp(pool, showService, screeningService, queryWarmUp,
+                catalogueRenderer, 2, 10_000)
+                .run(null);
+
+        verify(showService, times(40)).findById(anyInt());
+        verify(showService, times(2)).findById(1);
+        verify(showService, times(2)).findById(96);
+        verify(showService, never()).findById(2);
+    }
+
+    /**
+     * Если время прогрева истекло, повторы запросов страниц не выполняются.
+     */
+    @Test
+    void whenNoTimeLeftThenPagesNotRepeated() {
+        new StartupWarmUp(pool, showService, screeningService, queryWarmUp,
+                catalogueRenderer, 3, 0)
+                .run(null);
+
+        verify(showService, never()).findById(anyInt());
+        verify(queryWarmUp, never()).run(anyInt(), anyInt());
+        verify(showService, times(1)).getRows(5);
+    }
+
+    /**
+     * Ошибка прогрева не прерывает запуск приложения.
+     *
+     * @throws SQLException если происходит ошибка доступа к базе данных
+     */
+    @Test
+    void whenDatabaseUnavailableThenStartupContinues() throws SQLException {
+        doThrow(new SQLException("База данных недоступна")).when(pool).start();
+
+        new StartupWarmUp(pool, showService, screeningService, queryWarmUp,
+                catalogueRenderer, 3, 10_000)
+                .run(null);
+
+        verify(showService, never()).findAll();
+    }
+}
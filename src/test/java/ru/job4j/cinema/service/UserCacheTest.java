@@ -0,0 +1,108 @@
+package ru.job4j.cinema.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.cinema.model.User;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест класс кэша пользователей
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see UserCache
+ */
+class UserCacheTest {
+
+    /**
+     * Объект кэша UserCache
+     */
+    private UserCache userCache;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     */
+    @BeforeEach
+    public void setup() {
+        userCache = new UserCache(2);
+    }
+
+    /**
+     * Пользователь находится по email и телефону, изменение
+     * полученного объекта не влияет на содержимое кэша.
+     */
+    @Test
+    void whenPutThenFindByEmailAndPhone() {
+        userCache.put(user(1));
+        User byEmail = userCache.findByEmail("user1@mail.ru").get();
+        byEmail.setUsername("changed");
+
+        assertThat(userCache.findByPhone("+7900000001").get().getUsername()).isEqualTo("user1");
+        assertThat(userCache.getHits()).isEqualTo(2);
+    }
+
+    /**
+     * При превышении размера вытесняется пользователь,
+     * к которому дольше всего не было обращений.
+     */
+    @Test
+    void whenCapacityExceededThenEvictLeastRecentlyUsed() {
+        userCache.put(user(1));
+        userCache.put(user(2));
+        userCache.findById(1);
+        userCache.put(user(3));
+
+        assertThat(userCache.size()).isEqualTo(2);
+        assertThat(userCache.findByEmail("user2@mail.ru")).isEqualTo(Optional.empty());
+        assertThat(userCache.findById(1)).isPresent();
+    }
+
+    /**
+     * После изменения email пользователя старый ключ поиска удаляется.
+     */
+    @Test
+    void whenPutWithNewEmailThenOldEmailNotFound() {
+        userCache.put(user(1));
+        User changed = user(1);
+        changed.setEmail("new@mail.ru");
+        userCache.put(changed);
+
+        assertThat(userCache.findByEmail("user1@mail.ru")).isEqualTo(Optional.empty());
+        assertThat(userCache.findByEmail("new@mail.ru")).isPresent();
+    }
+
+    /**
+     * Пользователь, загрузка которого началась до удаления пользователя
+     * из кэша, в кэш не помещается, загруженный после удаления - помещается.
+     */
+    @Test
+    void whenEvictedDuringLoadThenStaleUserNotPut() {
+        long version = userCache.getVersion();
+        userCache.evict(1);
+
+        assertThat(userCache.putIfVersion(user(1), version)).isFalse();
+        assertThat(userCache.findById(1)).isEqualTo(Optional.empty());
+        assertThat(userCache.putIfVersion(user(1), userCache.getVersion())).isTrue();
+        assertThat(userCache.findById(1)).isPresent();
+    }
+
+    /**
+     * Вспомогательный метод создает пользователя.
+     *
+     * @param id идентификатор пользователя
+     * @return пользователь
+     */
+    private static User user(int id) {
+        return User.builder()
+                .id(id)
+                .username("user" + id)
+                .email("user" + id + "@mail.ru")
+                .phone("+790000000" + id)
+                .password("pbkdf2$1000$salt$hash")
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package ru.job4j.cinema.session;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.job4j.cinema.model.Show;
+import ru.job4j.cinema.model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест класс реализации файлового хранилища сессий
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see FileSessionStore
+ */
+class FileSessionStoreTest {
+
+    /**
+     * Объект хранилища FileSessionStore
+     */
+    private FileSessionStore sessionStore;
+
+    /**
+     * Сессия
+     */
+    private SessionData session;
+
+    /**
+     * Создает необходимые для выполнения тестов общие объекты.
+     * Создание выполняется перед каждым тестом.
+     *
+     * @param directory временный каталог хранения сессий
+     */
+    @BeforeEach
+    public void setup(@TempDir Path directory) {
+        sessionStore = new FileSessionStore(directory);
+        long now = System.currentTimeMillis();
+        session = new SessionData("abcdefghijklmnopqrstuvwx", now, now, 1800, new HashMap<>());
+    }
+
+    /**
+     * Сохраняется сессия с пользователем и сеансом, после загрузки
+     * из хранилища атрибуты совпадают, пароль пользователя не сохраняется.
+     */
+    @Test
+    void whenSaveSessionThenLoadSameAttributes() {
+        StoredSession stored = new StoredSession(session, null, true);
+        stored.setAttribute("user", User.builder()
+                .id(1)
+                .username("username")
+                .email("email")
+                .phone("phone")
+                .password("pass")
+                .build());
+        stored.setAttribute("show", Show.builder().id(2).name("name").build());
+        stored.setAttribute("posRow", 3);
+        sessionStore.save(stored.getData());
+
+        StoredSession loaded = new StoredSession(
+                sessionStore.load(session.getId()).get(), null, false);
+        User user = (User) loaded.getAttribute("user");
+
+        assertThat(user.getId()).isEqualTo(1);
+        assertThat(user.getEmail()).isEqualTo("email");
+        assertThat(user.getPassword()).isNull();
+        assertThat(((Show) loaded.getAttribute("show")).getName()).isEqualTo("name");
+        assertThat(loaded.getAttribute("posRow")).isEqualTo(3);
+    }
+
+    /**
+     * Сессия с истекшим сроком действия не загружается и удаляется из хранилища.
+     */
+    @Test
+    void whenSessionExpiredThenLoadEmpty() {
+        session.setLastAccessedTime(System.currentTimeMillis() - 1801 * 1000L);
+        sessionStore.save(session);
+
+        assertThat(sessionStore.load(session.getId())).isEqualTo(Optional.empty());
+        assertThat(sessionStore.deleteExpired(System.currentTimeMillis())).isEqualTo(0);
+    }
+
+    /**
+     * После удаления сессия не загружается из хранилища.
+     */
+    @Test
+    void whenDeleteSessionThenLoadEmpty() {
+        sessionStore.save(session);
+        sessionStore.delete(session.getId());
+
+        assertThat(sessionStore.load(session.getId())).isEqualTo(Optional.empty());
+    }
+
+    /**
+     * Недопустимый идентификатор сессии не приводит к обращению к файловой системе.
+     */
+    @Test
+    void whenIdIsInvalidThenLoadEmpty() {
+        assertThat(sessionStore.load("../../etc/passwd")).isEqualTo(Optional.empty());
+    }
+
+    /**
+     * Поврежденный файл сессии не прерывает удаление истекших сессий
+     * и удаляется, загрузка поврежденной сессии возвращает пустой результат
+     * и удаляет ее файл.
+     *
+     * @param directory временный каталог хранения сессий
+     * @throws IOException если происходит ошибка записи файла
+     */
+    @Test
+    void whenSessionFileCorruptedThenFileDeleted(@TempDir Path directory) throws IOException {
+        FileSessionStore store = new FileSessionStore(directory);
+        Files.write(directory.resolve("aaaaaaaaaaaaaaaaaaaaaaaa.session"), new byte[]{1, 2, 3});
+        Files.write(directory.resolve("bbbbbbbbbbbbbbbbbbbbbbbb.session"), new byte[]{4, 5});
+        session.setLastAccessedTime(System.currentTimeMillis() - 1801 * 1000L);
+        store.save(session);
+
+        assertThat(store.load("aaaaaaaaaaaaaaaaaaaaaaaa")).isEqualTo(Optional.empty());
+        assertThat(directory.resolve("aaaaaaaaaaaaaaaaaaaaaaaa.session")).doesNotExist();
+        assertThat(store.deleteExpired(System.currentTimeMillis())).isEqualTo(2);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
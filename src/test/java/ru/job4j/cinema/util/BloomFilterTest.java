@@ -0,0 +1,45 @@
+package ru.job4j.cinema.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тест класс фильтра Блума
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see BloomFilter
+ */
+class BloomFilterTest {
+
+    /**
+     * Все добавленные элементы находятся в фильтре, доля ложноположительных
+     * ответов для недобавленных элементов не превышает заданную с запасом.
+     */
+    @Test
+    void whenPutThenMightContainAndFalsePositiveRateBounded() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@mail.ru");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i + "@mail.ru")).isTrue();
+            if (filter.mightContain("other" + i + "@mail.ru")) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    /**
+     * Некорректная вероятность ложноположительного ответа приводит к исключению.
+     */
+    @Test
+    void whenFalsePositiveRateInvalidThenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.job4j.cinema.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тест класс ограничителя частоты запросов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see RateLimiter
+ */
+class RateLimiterTest {
+
+    /**
+     * Одна секунда в наносекундах
+     */
+    private static final long SECOND = 1_000_000_000L;
+
+    /**
+     * Корзина разрешает limit запросов подряд, далее запросы разрешаются
+     * по мере пополнения корзины, корзины разных ключей независимы.
+     */
+    @Test
+    void whenLimitExceededThenDeniedUntilRefill() {
+        RateLimiter limiter = new RateLimiter(3, 3, 10);
+        long now = 0;
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("ip", now)).isZero();
+        }
+
+        assertThat(limiter.tryAcquire("ip", now)).isEqualTo(SECOND);
+        assertThat(limiter.tryAcquire("other", now)).isZero();
+        assertThat(limiter.tryAcquire("ip", now + SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(limiter.tryAcquire("ip", now + SECOND)).isZero();
+        assertThat(limiter.tryAcquire("ip", now + SECOND)).isPositive();
+    }
+
+    /**
+     * Полностью наполнившиеся корзины удаляются, при заполнении
+     * ограничения количества корзин запросы новых ключей разрешаются,
+     * а ключи с корзинами остаются ограниченными.
+     */
+    @Test
+    void whenMaxKeysReachedThenNewKeysAllowed() {
+        RateLimiter limiter = new RateLimiter(1, 60, 2);
+        long now = 0;
+        limiter.tryAcquire("a", now);
+        limiter.tryAcquire("b", now);
+
+        assertThat(limiter.tryAcquire("c", now)).isZero();
+        assertThat(limiter.tryAcquire("d", now)).isZero();
+        assertThat(limiter.tryAcquire("a", now)).isPositive();
+        assertThat(limiter.evictIdle(now + 60 * SECOND)).isZero();
+        assertThat(limiter.tryAcquire("d", now + 60 * SECOND)).isZero();
+        assertThat(limiter.tryAcquire("d", now + 60 * SECOND)).isPositive();
+    }
+
+    /**
+     * При одновременных запросах из нескольких потоков разрешается
+     * ровно limit запросов.
+     *
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    @Test
+    void whenConcurrentAcquireThenExactlyLimitAllowed() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1000, 3600, 10);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    if (limiter.tryAcquire("ip") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(allowed.get()).isEqualTo(1000);
+    }
+
+    /**
+     * Некорректные параметры ограничителя приводят к исключению.
+     */
+    @Test
+    void whenLimitNotPositiveThenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, 60, 10));
+    }
+}
@@ -0,0 +1,48 @@
+package ru.job4j.cinema.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тест класс выделения основы русских слов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see RussianStemmer
+ */
+class RussianStemmerTest {
+
+    /**
+     * Разные падежные формы существительного приводятся к одной основе.
+     */
+    @Test
+    void whenNounFormsThenSameStem() {
+        assertThat(RussianStemmer.stem("разбойник")).isEqualTo("разбойник");
+        assertThat(RussianStemmer.stem("разбойники")).isEqualTo("разбойник");
+        assertThat(RussianStemmer.stem("Разбойников")).isEqualTo("разбойник");
+        assertThat(RussianStemmer.stem("приключения"))
+                .isEqualTo(RussianStemmer.stem("приключение"));
+    }
+
+    /**
+     * Формы прилагательного и глагола приводятся к одной основе,
+     * буква ё заменяется на е.
+     */
+    @Test
+    void whenAdjectiveAndVerbFormsThenSameStem() {
+        assertThat(RussianStemmer.stem("новогодний")).isEqualTo("новогодн");
+        assertThat(RussianStemmer.stem("новогодние")).isEqualTo("новогодн");
+        assertThat(RussianStemmer.stem("отправляются")).isEqualTo("отправля");
+        assertThat(RussianStemmer.stem("вёрсты")).isEqualTo("верст");
+    }
+
+    /**
+     * Слово без гласных и латинское слово не изменяются.
+     */
+    @Test
+    void whenNoRussianVowelsThenWordUnchanged() {
+        assertThat(RussianStemmer.stem("мкс")).isEqualTo("мкс");
+        assertThat(RussianStemmer.stem("Shrek")).isEqualTo("shrek");
+    }
+}
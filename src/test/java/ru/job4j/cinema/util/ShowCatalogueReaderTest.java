@@ -0,0 +1,101 @@
+package ru.job4j.cinema.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тест класс потокового чтения каталога сеансов
+ *
+ * @author Alexander Emelyanov
+ * @version 1.0
+ * @see ShowCatalogueReader
+ */
+class ShowCatalogueReaderTest {
+
+    /**
+     * Каталог CSV с колонками в произвольном порядке, значениями в кавычках,
+     * разделителем и переводом строки внутри кавычек читается по записям,
+     * номер строки записи соответствует строке ее начала.
+     *
+     * @throws IOException если происходит ошибка чтения
+     */
+    @Test
+    void whenReadCsvThenRowsWithQuotedValues() throws IOException {
+        String csv = """
+                poster;name;description
+                p1.jpg;Show 1;"Описание; с разделителем"
+                ;Show 2;"Первая строка
+                вторая ""строка\"""
+
+                p3.jpg;Show 3;
+                """;
+        List<ShowCatalogueReader.Row> rows = new ArrayList<>();
+
+        ShowCatalogueReader.readCsv(new StringReader(csv), rows::add);
+
+        assertThat(rows).containsExactly(
+                new ShowCatalogueReader.Row(2, "Show 1", "Описание; с разделителем", "p1.jpg"),
+                new ShowCatalogueReader.Row(3, "Show 2", "Первая строка\nвторая \"строка\"", null),
+                new ShowCatalogueReader.Row(6, "Show 3", null, "p3.jpg"));
+    }
+
+    /**
+     * Каталог CSV без колонки name приводит к исключению.
+     */
+    @Test
+    void whenCsvWithoutNameColumnThenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> ShowCatalogueReader.readCsv(
+                new StringReader("title;description\nShow;Description\n"), row -> { }));
+    }
+
+    /**
+     * Каталог JSON читается по объектам, неизвестные поля пропускаются.
+     *
+     * @throws IOException если происходит ошибка чтения
+     */
+    @Test
+    void whenReadJsonThenRowsWithoutUnknownFields() throws IOException {
+        String json = """
+                [
+                  {"name": "Show 1", "description": "Description", "poster": "p1.jpg"},
+                  {"name": "Show 2", "tags": ["a", "b"], "poster": null}
+                ]
+                """;
+        List<ShowCatalogueReader.Row> rows = new ArrayList<>();
+
+        ShowCatalogueReader.read("catalogue.JSON",
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), rows::add);
+
+        assertThat(rows).containsExactly(
+                new ShowCatalogueReader.Row(2, "Show 1", "Description", "p1.jpg"),
+                new ShowCatalogueReader.Row(3, "Show 2", null, null));
+    }
+
+    /**
+     * Некорректный JSON приводит к IllegalArgumentException.
+     */
+    @Test
+    void whenJsonMalformedThenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> ShowCatalogueReader.read("c.json",
+                new ByteArrayInputStream("[{\"name\": }]".getBytes(StandardCharsets.UTF_8)),
+                row -> { }));
+    }
+
+    /**
+     * Файл каталога с неподдерживаемым расширением приводит к исключению.
+     */
+    @Test
+    void whenUnsupportedFormatThenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> ShowCatalogueReader.read("c.xml",
+                new ByteArrayInputStream(new byte[0]), row -> { }));
+    }
+}